@@ -18,20 +18,26 @@
 package eu.unitn.disi.db.grava.graphs;
 
 import eu.unitn.disi.db.mutilities.ThreadUtilities;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 /**
  * This class represents a multigraph that is a structure that holds a set of
@@ -45,12 +51,25 @@ public class BaseMultigraph implements Multigraph {
     private static final float SET_SCALE_FACTOR = 1.4f;
     protected Map<Long, EdgeContainer> nodeEdges;
     protected Collection<Edge> edges;
+    //Number of edges for each label, its key set is the label set
+    protected Map<Long, Integer> labelCounts;
+    //Number of self loops of each node, used to size the edges of a node
+    protected Map<Long, Integer> selfLoops;
+    //Incremented on each structural modification, used to validate snapshots
+    protected int modCount;
+    private Collection<Edge> edgeSnapshot;
+    private int edgeSnapshotVersion;
+    private Collection<Long> labelSnapshot;
+    private int labelSnapshotVersion;
 
     //Used to initialize ArrayList of Out/In Edges
     private int avgNodeDegree;
 
     private static final int DEFAULT_CAPACITY = 16;
     private static final float DEFAULT_DEGREE = 1f;
+    private static final float DEFAULT_LOAD_FACTOR = .75f;
+    //Number of vertex groups per core used by the batch operations
+    private static final int BATCH_GROUPS_PER_THREAD = 4;
 
     /**
      * Construct a multigraph that has an initial capacity of 2
@@ -74,7 +93,9 @@ public class BaseMultigraph implements Multigraph {
         this.avgNodeDegree = (int) Math.ceil(avgDegree);
         int scaledCapacity = (int) (SET_SCALE_FACTOR * initialCapacity);
         nodeEdges = new HashMap<>(scaledCapacity);
-        edges = new HashSet<>((int) Math.ceil(scaledCapacity * avgDegree));        
+        edges = new HashSet<>((int) Math.ceil(scaledCapacity * avgDegree));
+        labelCounts = new HashMap<>();
+        selfLoops = new HashMap<>();
     }
 
     /**
@@ -87,9 +108,7 @@ public class BaseMultigraph implements Multigraph {
      */
     @Override
     public void addVertex(Long id) throws NullPointerException {
-        if (!nodeEdges.containsKey(id)) {
-            nodeEdges.put(id, buildEdgeContainer());
-        }
+        nodeEdges.computeIfAbsent(id, k -> buildEdgeContainer());
     }
 
     /**
@@ -120,6 +139,7 @@ public class BaseMultigraph implements Multigraph {
         if (srcC.addOutgoingEdge(e)) {
             edges.add(e);
             dstC.addIncomingEdge(e);
+            edgeAdded(e);
         }
     }
 
@@ -178,6 +198,57 @@ public class BaseMultigraph implements Multigraph {
         if (srcC.addOutgoingEdge(edge)) {
             edges.add(edge);
             dstC.addIncomingEdge(edge);
+            edgeAdded(edge);
+        }
+    }
+
+    /**
+     * Add a batch of edges to the graph. The updates are grouped by source
+     * (and then by destination) vertex so that each group can be applied in
+     * parallel without locking. Adjacencies that can be resized in place,
+     * as the {@link PrimitiveEdgeSet}s of a {@link PartitionedMultigraph}, 
+     * are grown once for the whole batch; the hash sets of the other 
+     * containers are sized on {@link #addVertex(java.lang.Long) } from the 
+     * average degree of the graph and grow as usual.
+     *
+     * @param src The source nodes of the edges
+     * @param dest The destination nodes of the edges
+     * @param labels The labels of the edges
+     * @throws IllegalArgumentException If the arrays have different lengths
+     * or some endpoint is not in the vertex collection
+     */
+    @Override
+    public void addEdges(long[] src, long[] dest, long[] labels) throws IllegalArgumentException, NullPointerException {
+        checkBatch(src, dest, labels);
+        final int n = src.length;
+        final EdgeContainer[] srcC = new EdgeContainer[n];
+        final EdgeContainer[] dstC = new EdgeContainer[n];
+        final Edge[] batch = new Edge[n];
+        final boolean[] added = new boolean[n];
+
+        resolveBatch(src, dest, srcC, dstC);
+        IntStream.range(0, n).parallel().forEach(i -> batch[i] = new Edge(src[i], dest[i], labels[i]));
+
+        //1. Outgoing edges grouped by source, duplicates fall in the same group
+        forEachGroup(groupBy(src, null, batchGroups(n)), group -> {
+            presize(srcC, group, false);
+            for (int i : group) {
+                added[i] = srcC[i].addOutgoingEdge(batch[i]);
+            }
+        });
+        //2. Incoming edges of the accepted ones grouped by destination
+        forEachGroup(groupBy(dest, added, batchGroups(n)), group -> {
+            presize(dstC, group, true);
+            for (int i : group) {
+                dstC[i].addIncomingEdge(batch[i]);
+            }
+        });
+        //3. Global edge set
+        for (int i = 0; i < n; i++) {
+            if (added[i]) {
+                edges.add(batch[i]);
+                edgeAdded(batch[i]);
+            }
         }
     }
 
@@ -192,13 +263,36 @@ public class BaseMultigraph implements Multigraph {
     }
 
     /**
-     * Returns the set of edges of the graph
+     * Returns a read-only view of the edges of the graph. The view is backed
+     * by the graph, so changes to the graph are reflected in the view; use
+     * {@link #edgeSnapshot() } to get a copy isolated from later changes.
      *
      * @return The set of edges
      */
     @Override
     public Collection<Edge> edgeSet() {
-        return new HashSet<>(edges);
+        return Collections.unmodifiableCollection(edges);
+    }
+
+    /**
+     * Returns a point-in-time copy of the edges of the graph. The copy is
+     * taken lazily and shared among callers until the graph is modified, so
+     * calling this method repeatedly on an unchanged graph does not copy.
+     * The copy is taken on the calling thread and is not isolated from
+     * concurrent modifications: this graph must be modified and read by one
+     * thread at a time, use {@link VersionedMultigraph} to read consistent
+     * snapshots while another thread writes.
+     *
+     * @return An unmodifiable set of edges isolated from later changes
+     */
+    public Collection<Edge> edgeSnapshot() {
+        Collection<Edge> snapshot = edgeSnapshot;
+        if (snapshot == null || edgeSnapshotVersion != modCount) {
+            snapshot = Collections.unmodifiableSet(new HashSet<>(edges));
+            edgeSnapshot = snapshot;
+            edgeSnapshotVersion = modCount;
+        }
+        return snapshot;
     }
 
     /**
@@ -323,10 +417,11 @@ public class BaseMultigraph implements Multigraph {
         } else {
             EdgeContainer ec, sec;
             Map<Long, EdgeContainer> sourceEdges = toMerge.nodeEdges;
-            Set<Long> vset = sourceEdges.keySet();
-            for (Long v : vset) {
+            Long v;
+            for (Map.Entry<Long, EdgeContainer> entry : sourceEdges.entrySet()) {
+                v = entry.getKey();
+                sec = entry.getValue();
                 ec = nodeEdges.get(v);
-                sec = sourceEdges.get(v);
                 if (ec == null) {
                     ec = new BaseEdgeContainer();
                 }
@@ -335,8 +430,13 @@ public class BaseMultigraph implements Multigraph {
                 nodeEdges.put(v, ec);
             }
             //vertices.addAll(graph.vertices);
-            edges.addAll(toMerge.edges);
+            for (Edge e : toMerge.edges) {
+                if (edges.add(e)) {
+                    edgeAdded(e);
+                }
+            }
         }
+        modCount++;
         return this;
     }
 
@@ -380,11 +480,17 @@ public class BaseMultigraph implements Multigraph {
     public void removeVertex(Long id) throws NullPointerException {
         EdgeContainer container = nodeEdges.remove(id);
         for (Edge edge : container.getIncoming()) {
-            edges.remove(edge);
+            if (edges.remove(edge)) {
+                edgeRemoved(edge);
+            }
         }
         for (Edge edge : container.getOutgoing()) {
-            edges.remove(edge);
+            if (edges.remove(edge)) {
+                edgeRemoved(edge);
+            }
         }
+        selfLoops.remove(id);
+        modCount++;
     }
 
     @Override
@@ -399,11 +505,144 @@ public class BaseMultigraph implements Multigraph {
 
     @Override
     public void removeEdge(Edge edge) throws IllegalArgumentException, NullPointerException {
-        edges.remove(edge);
+        if (edges.remove(edge)) {
+            edgeRemoved(edge);
+        }
         nodeEdges.get(edge.getSource()).getOutgoing().remove(edge);
         nodeEdges.get(edge.getDestination()).getIncoming().remove(edge);
     }
 
+    /**
+     * Remove a batch of edges from the graph, grouping the updates by vertex
+     * as in {@link #addEdges(long[], long[], long[]) }.
+     *
+     * @param src The source nodes of the edges
+     * @param dest The destination nodes of the edges
+     * @param labels The labels of the edges
+     * @throws IllegalArgumentException If the arrays have different lengths
+     * or some endpoint is not in the vertex collection
+     */
+    @Override
+    public void removeEdges(long[] src, long[] dest, long[] labels) throws IllegalArgumentException, NullPointerException {
+        checkBatch(src, dest, labels);
+        final int n = src.length;
+        final EdgeContainer[] srcC = new EdgeContainer[n];
+        final EdgeContainer[] dstC = new EdgeContainer[n];
+        final Edge[] batch = new Edge[n];
+        final boolean[] removed = new boolean[n];
+
+        resolveBatch(src, dest, srcC, dstC);
+        IntStream.range(0, n).parallel().forEach(i -> batch[i] = new Edge(src[i], dest[i], labels[i]));
+
+        forEachGroup(groupBy(src, null, batchGroups(n)), group -> {
+            for (int i : group) {
+                removed[i] = srcC[i].getOutgoing().remove(batch[i]);
+            }
+        });
+        forEachGroup(groupBy(dest, removed, batchGroups(n)), group -> {
+            for (int i : group) {
+                dstC[i].getIncoming().remove(batch[i]);
+            }
+        });
+        for (int i = 0; i < n; i++) {
+            if (removed[i] && edges.remove(batch[i])) {
+                edgeRemoved(batch[i]);
+            }
+        }
+    }
+
+    protected static void checkBatch(long[] src, long[] dest, long[] labels) {
+        if (src == null || dest == null || labels == null) {
+            throw new NullPointerException("Batch arrays cannot be null");
+        }
+        if (src.length != dest.length || src.length != labels.length) {
+            throw new IllegalArgumentException("Batch arrays must have the same length");
+        }
+    }
+
+    /*
+     * Look up the containers of the endpoints, fails before any modification
+     * if one of them is missing
+     */
+    private void resolveBatch(long[] src, long[] dest, EdgeContainer[] srcC, EdgeContainer[] dstC) {
+        IntStream.range(0, src.length).parallel().forEach(i -> {
+            srcC[i] = nodeEdges.get(src[i]);
+            dstC[i] = nodeEdges.get(dest[i]);
+        });
+        for (int i = 0; i < src.length; i++) {
+            if (srcC[i] == null) {
+                throw new IllegalArgumentException("Source node " + src[i] + " is not in the vertex list. Call addVertex before");
+            }
+            if (dstC[i] == null) {
+                throw new IllegalArgumentException("Destination node " + dest[i] + " is not in the vertex list. Call addVertex before");
+            }
+        }
+    }
+
+    private static int batchGroups(int size) {
+        if (size < MIN_SIZE_PARALLELIZATION) {
+            return 1;
+        }
+        return ForkJoinPool.getCommonPoolParallelism() * BATCH_GROUPS_PER_THREAD;
+    }
+
+    /*
+     * Split the positions of the batch in groups such that all the positions
+     * of the same vertex are in the same group (counting sort on the group)
+     */
+    private static int[][] groupBy(long[] vertices, boolean[] mask, int numGroups) {
+        int[] groupOf = new int[vertices.length];
+        int[] sizes = new int[numGroups];
+        for (int i = 0; i < vertices.length; i++) {
+            if (mask == null || mask[i]) {
+                groupOf[i] = numGroups == 1 ? 0 : (int) (((vertices[i] * 0x9E3779B97F4A7C15L) >>> 33) % numGroups);
+                sizes[groupOf[i]]++;
+            } else {
+                groupOf[i] = -1;
+            }
+        }
+        int[][] groups = new int[numGroups][];
+        for (int g = 0; g < numGroups; g++) {
+            groups[g] = new int[sizes[g]];
+            sizes[g] = 0;
+        }
+        for (int i = 0; i < vertices.length; i++) {
+            if (groupOf[i] != -1) {
+                groups[groupOf[i]][sizes[groupOf[i]]++] = i;
+            }
+        }
+        return groups;
+    }
+
+    private static void forEachGroup(int[][] groups, Consumer<int[]> task) {
+        if (groups.length == 1) {
+            task.accept(groups[0]);
+        } else {
+            IntStream.range(0, groups.length).parallel().forEach(g -> task.accept(groups[g]));
+        }
+    }
+
+    /*
+     * Grow the adjacency of each container once for the whole group, only 
+     * the adjacencies that can be resized in place are affected
+     */
+    private static void presize(EdgeContainer[] containers, int[] group, boolean incoming) {
+        Map<EdgeContainer, Integer> counts = new IdentityHashMap<>();
+        for (int i : group) {
+            counts.merge(containers[i], 1, Integer::sum);
+        }
+        for (Map.Entry<EdgeContainer, Integer> entry : counts.entrySet()) {
+            if (entry.getKey() instanceof BaseMultigraph.BaseEdgeContainer) {
+                BaseEdgeContainer container = (BaseEdgeContainer) entry.getKey();
+                if (incoming) {
+                    container.ensureCapacity(entry.getValue(), 0);
+                } else {
+                    container.ensureCapacity(0, entry.getValue());
+                }
+            }
+        }
+    }
+
     @Override
     public int numberOfEdges() {
         return edges.size();
@@ -431,22 +670,74 @@ public class BaseMultigraph implements Multigraph {
         return candidateEdges != null && !candidateEdges.isEmpty();
     }
 
+    /**
+     * Returns a read-only view of the incoming and outgoing edges of the
+     * input node, self loops are reported once.
+     *
+     * @param id The id of the node
+     * @return The set of edges associated with the input node
+     * @throws NullPointerException If the id is null
+     */
     @Override
     public Collection<Edge> edgesOf(Long id) throws NullPointerException {
-        Collection<Edge> totalEdges = new HashSet<>(incomingEdgesOf(id));
-        totalEdges.addAll(outgoingEdgesOf(id));
-        return totalEdges;
+        if (!nodeEdges.containsKey(id)) {
+            throw new IllegalArgumentException("This graph does not contain node " + id);
+        }
+        return new NodeEdgesView(id, nodeEdges.get(id));
     }
 
+    /**
+     * Returns a read-only view of the labels in the graph, kept up to date
+     * while edges are added and removed.
+     *
+     * @return The set of labels
+     */
     @Override
     public Collection<Long> labelSet() {
+        return Collections.unmodifiableSet(labelCounts.keySet());
+    }
+
+    /**
+     * Returns a point-in-time copy of the labels in the graph, shared among
+     * callers until the graph is modified. As {@link #edgeSnapshot() }, it 
+     * must not be called while another thread modifies the graph.
+     *
+     * @return An unmodifiable set of labels isolated from later changes
+     */
+    public Collection<Long> labelSnapshot() {
+        Collection<Long> snapshot = labelSnapshot;
+        if (snapshot == null || labelSnapshotVersion != modCount) {
+            snapshot = Collections.unmodifiableSet(new HashSet<>(labelCounts.keySet()));
+            labelSnapshot = snapshot;
+            labelSnapshotVersion = modCount;
+        }
+        return snapshot;
+    }
 
-        HashSet<Long> labels = new HashSet<>();
-        for (Edge e : edges) {
-            labels.add(e.getLabel());
+    /**
+     * Account for a new edge in the label and self loop counts
+     *
+     * @param edge The added edge
+     */
+    protected void edgeAdded(Edge edge) {
+        labelCounts.merge(edge.getLabel(), 1, Integer::sum);
+        if (Objects.equals(edge.getSource(), edge.getDestination())) {
+            selfLoops.merge(edge.getSource(), 1, Integer::sum);
         }
+        modCount++;
+    }
 
-        return labels;
+    /**
+     * Account for a removed edge in the label and self loop counts
+     *
+     * @param edge The removed edge
+     */
+    protected void edgeRemoved(Edge edge) {
+        labelCounts.computeIfPresent(edge.getLabel(), (l, count) -> count > 1 ? count - 1 : null);
+        if (Objects.equals(edge.getSource(), edge.getDestination())) {
+            selfLoops.computeIfPresent(edge.getSource(), (n, count) -> count > 1 ? count - 1 : null);
+        }
+        modCount++;
     }
 
     @Override
@@ -569,6 +860,91 @@ public class BaseMultigraph implements Multigraph {
         public Collection<Edge> getOutgoing() {
             return outgoing;
         }
+
+        /**
+         * Make room for more edges, growing the adjacencies at most once. The
+         * adjacencies are resized in place, so the collections returned by
+         * {@link #getIncoming() } and {@link #getOutgoing() } stay valid; 
+         * those that cannot be resized in place grow as usual while adding.
+         *
+         * @param moreIncoming The number of incoming edges to be added
+         * @param moreOutgoing The number of outgoing edges to be added
+         */
+        public void ensureCapacity(int moreIncoming, int moreOutgoing) {
+            grow(incoming, moreIncoming);
+            grow(outgoing, moreOutgoing);
+        }
+
+        private void grow(Collection<Edge> edges, int more) {
+            if (edges instanceof PrimitiveEdgeSet) {
+                ((PrimitiveEdgeSet) edges).ensureCapacity(more);
+            }
+        }
+    }
+
+    /*
+     * Read-only union of the incoming and outgoing edges of a node, self loops
+     * are both incoming and outgoing and are skipped on the outgoing side
+     */
+    private class NodeEdgesView extends AbstractCollection<Edge> {
+
+        private final Long node;
+        private final EdgeContainer container;
+
+        public NodeEdgesView(Long node, EdgeContainer container) {
+            this.node = node;
+            this.container = container;
+        }
+
+        @Override
+        public Iterator<Edge> iterator() {
+            return new Iterator<Edge>() {
+                private final Iterator<Edge> in = container.getIncoming().iterator();
+                private final Iterator<Edge> out = container.getOutgoing().iterator();
+                private Edge next = null;
+
+                @Override
+                public boolean hasNext() {
+                    if (next != null) {
+                        return true;
+                    }
+                    if (in.hasNext()) {
+                        next = in.next();
+                        return true;
+                    }
+                    Edge e;
+                    while (out.hasNext()) {
+                        e = out.next();
+                        if (!Objects.equals(e.getSource(), e.getDestination())) {
+                            next = e;
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+
+                @Override
+                public Edge next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements to explore");
+                    }
+                    Edge e = next;
+                    next = null;
+                    return e;
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return container.getIncoming().contains(o) || container.getOutgoing().contains(o);
+        }
+
+        @Override
+        public int size() {
+            return container.getIncoming().size() + container.getOutgoing().size() 
+                    - selfLoops.getOrDefault(node, 0);
+        }
     }
 
     /*
@@ -588,7 +964,11 @@ public class BaseMultigraph implements Multigraph {
 
         @Override
         public void run() {
-            coll.addAll(graph.edges);
+            for (Edge e : graph.edges) {
+                if (coll.add(e)) {
+                    edgeAdded(e);
+                }
+            }
         }
     }
 
@@ -604,10 +984,11 @@ public class BaseMultigraph implements Multigraph {
         public void run() {
             EdgeContainer ec, sec;
             Map<Long, EdgeContainer> sourceEdges = graph.nodeEdges;
-            Set<Long> vset = sourceEdges.keySet();
-            for (Long v : vset) {
+            Long v;
+            for (Map.Entry<Long, EdgeContainer> entry : sourceEdges.entrySet()) {
+                v = entry.getKey();
+                sec = entry.getValue();
                 ec = nodeEdges.get(v);
-                sec = sourceEdges.get(v);
                 if (ec == null) {
                     ec = new BaseEdgeContainer();
                 }
@@ -750,4 +750,18 @@ public class BigMultigraph extends LoggableObject implements Multigraph, Iterabl
     public long[][] getEdges() {
         return inEdges;
     }
+
+    /*
+     * The edges sorted by destination, as dest,source,label arrays
+     */
+    long[][] incomingTable() {
+        return inEdges;
+    }
+
+    /*
+     * The edges sorted by source, as source,dest,label arrays
+     */
+    long[][] outgoingTable() {
+        return outEdges;
+    }
 }
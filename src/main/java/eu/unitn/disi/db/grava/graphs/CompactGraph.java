@@ -0,0 +1,376 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable snapshot of a graph in compressed sparse row format: the nodes
+ * get dense ids in increasing order, and the outgoing (incoming) edges of 
+ * node i are the positions from offset[i] to offset[i + 1] of the target 
+ * (source) and label arrays, sorted by label and then by node id, so that the
+ * edges with a label are a contiguous range. Algorithms that touch every edge, like 
+ * {@link eu.unitn.disi.db.grava.utils.BreadthFirstSearch}, work on the ids 
+ * with no boxing, hashing or per-node allocation.
+ * 
+ * The arrays returned by the getters are the internal ones and must not be 
+ * modified.
+ *
+ * @author agent <agent@local>
+ */
+public class CompactGraph {
+
+    private final long[] nodes;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final long[] outLabels;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final long[] inLabels;
+
+    private CompactGraph(long[] nodes, int[] outOffsets, int[] outTargets, long[] outLabels, int[] inOffsets, int[] inSources, long[] inLabels) {
+        this.nodes = nodes;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outLabels = outLabels;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inLabels = inLabels;
+    }
+
+    /**
+     * Build the compact representation of a graph. A {@link BigMultigraph} 
+     * is converted directly from its sorted edge tables, in parallel. 
+     *
+     * @param graph The graph, that must not change during the conversion
+     * @return The compact graph
+     */
+    public static CompactGraph of(Multigraph graph) {
+        if (graph instanceof BigMultigraph) {
+            return of((BigMultigraph) graph);
+        }
+        long[] nodes = new long[graph.numberOfNodes()];
+        int n = 0;
+        for (Long node : graph) {
+            if (n == nodes.length) {
+                nodes = Arrays.copyOf(nodes, n * 2 + 1);
+            }
+            nodes[n++] = node;
+        }
+        nodes = Arrays.copyOf(nodes, n);
+        Arrays.sort(nodes);
+        
+        int m = graph.numberOfEdges();
+        long[] src = new long[m], dest = new long[m], labels = new long[m];
+        Iterator<Edge> it = graph.edgesIterator();
+        int e = 0;
+        while (it.hasNext()) {
+            Edge edge = it.next();
+            if (e == src.length) {
+                src = Arrays.copyOf(src, e * 2 + 1);
+                dest = Arrays.copyOf(dest, e * 2 + 1);
+                labels = Arrays.copyOf(labels, e * 2 + 1);
+            }
+            src[e] = edge.getSource();
+            dest[e] = edge.getDestination();
+            labels[e] = edge.getLabel();
+            e++;
+        }
+        return of(nodes, Arrays.copyOf(src, e), Arrays.copyOf(dest, e), Arrays.copyOf(labels, e));
+    }
+
+    /**
+     * Build a compact graph from its edges, the i-th edge goes from src[i] 
+     * to dest[i] with label labels[i]
+     *
+     * @param nodes The distinct nodes of the graph, sorted
+     * @param src The source nodes of the edges
+     * @param dest The destination nodes of the edges
+     * @param labels The labels of the edges
+     * @return The compact graph
+     * @throws IllegalArgumentException If the arrays have different lengths 
+     * or some endpoint is not one of the nodes
+     */
+    public static CompactGraph of(long[] nodes, long[] src, long[] dest, long[] labels) {
+        if (src.length != dest.length || src.length != labels.length) {
+            throw new IllegalArgumentException("Sources, destinations and labels must have the same length");
+        }
+        final long[] sorted = nodes.clone();
+        int n = sorted.length, e = src.length;
+        int[] srcIds = new int[e], destIds = new int[e];
+        IntStream.range(0, e).parallel().forEach(i -> {
+            srcIds[i] = Arrays.binarySearch(sorted, src[i]);
+            destIds[i] = Arrays.binarySearch(sorted, dest[i]);
+        });
+        for (int i = 0; i < e; i++) {
+            if (srcIds[i] < 0 || destIds[i] < 0) {
+                throw new IllegalArgumentException("Edge " + src[i] + " -> " + dest[i] + " has an endpoint that is not a node");
+            }
+        }
+        int[] outOffsets = new int[n + 1], inOffsets = new int[n + 1];
+        int[] outTargets = new int[e], inSources = new int[e];
+        long[] outLabels = new long[e], inLabels = new long[e];
+        fill(srcIds, destIds, labels, e, outOffsets, outTargets, outLabels);
+        fill(destIds, srcIds, labels, e, inOffsets, inSources, inLabels);
+        sortByLabel(outOffsets, outTargets, outLabels);
+        sortByLabel(inOffsets, inSources, inLabels);
+        return new CompactGraph(sorted, outOffsets, outTargets, outLabels, inOffsets, inSources, inLabels);
+    }
+
+    /*
+     * Counting sort of the edges by their first endpoint
+     */
+    private static void fill(int[] first, int[] second, long[] labels, int m, int[] offsets, int[] adjacent, long[] adjacentLabels) {
+        for (int i = 0; i < m; i++) {
+            offsets[first[i] + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < m; i++) {
+            int pos = next[first[i]]++;
+            adjacent[pos] = second[i];
+            adjacentLabels[pos] = labels[i];
+        }
+    }
+
+    private static CompactGraph of(BigMultigraph graph) {
+        long[][] in = graph.incomingTable();
+        long[][] out = graph.outgoingTable();
+        //Merge the sorted first columns of the two tables
+        long[] nodes = new long[16];
+        int n = 0, i = 0, j = 0;
+        while (i < in.length || j < out.length) {
+            long node;
+            if (j == out.length || (i < in.length && in[i][0] <= out[j][0])) {
+                node = in[i][0];
+            } else {
+                node = out[j][0];
+            }
+            while (i < in.length && in[i][0] == node) {
+                i++;
+            }
+            while (j < out.length && out[j][0] == node) {
+                j++;
+            }
+            if (n == nodes.length) {
+                nodes = Arrays.copyOf(nodes, n * 2);
+            }
+            nodes[n++] = node;
+        }
+        nodes = Arrays.copyOf(nodes, n);
+        int[] outOffsets = new int[n + 1], inOffsets = new int[n + 1];
+        int[] outTargets = new int[out.length], inSources = new int[in.length];
+        long[] outLabels = new long[out.length], inLabels = new long[in.length];
+        final long[] sorted = nodes;
+        IntStream.range(0, 2).parallel().forEach(d -> {
+            if (d == 0) {
+                fill(sorted, out, outOffsets, outTargets, outLabels);
+                sortByLabel(outOffsets, outTargets, outLabels);
+            } else {
+                fill(sorted, in, inOffsets, inSources, inLabels);
+                sortByLabel(inOffsets, inSources, inLabels);
+            }
+        });
+        return new CompactGraph(nodes, outOffsets, outTargets, outLabels, inOffsets, inSources, inLabels);
+    }
+
+    /*
+     * The table is already sorted by the first column
+     */
+    private static void fill(long[] nodes, long[][] table, int[] offsets, int[] adjacent, long[] adjacentLabels) {
+        IntStream.range(0, table.length).parallel().forEach(i -> {
+            adjacent[i] = Arrays.binarySearch(nodes, table[i][1]);
+            adjacentLabels[i] = table[i][2];
+        });
+        int node = 0;
+        for (int i = 0; i < table.length; i++) {
+            while (nodes[node] != table[i][0]) {
+                offsets[++node] = i;
+            }
+        }
+        while (node < nodes.length) {
+            offsets[++node] = table.length;
+        }
+    }
+
+    /*
+     * Sort the edges of each node by label and adjacent node
+     */
+    private static void sortByLabel(int[] offsets, int[] adjacent, long[] labels) {
+        IntStream.range(0, offsets.length - 1).parallel().forEach(node -> {
+            if (offsets[node + 1] - offsets[node] > 1) {
+                sort(adjacent, labels, offsets[node], offsets[node + 1] - 1);
+            }
+        });
+    }
+
+    private static boolean less(int[] adjacent, long[] labels, int i, long label, int node) {
+        return labels[i] < label || (labels[i] == label && adjacent[i] < node);
+    }
+
+    private static void swap(int[] adjacent, long[] labels, int i, int j) {
+        int a = adjacent[i];
+        adjacent[i] = adjacent[j];
+        adjacent[j] = a;
+        long l = labels[i];
+        labels[i] = labels[j];
+        labels[j] = l;
+    }
+
+    /*
+     * Quicksort of the two arrays in the range from lo to hi (inclusive), 
+     * insertion sort on short ranges
+     */
+    private static void sort(int[] adjacent, long[] labels, int lo, int hi) {
+        while (hi - lo > 16) {
+            int mid = (lo + hi) >>> 1;
+            long pivotLabel = labels[mid];
+            int pivotNode = adjacent[mid];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (less(adjacent, labels, i, pivotLabel, pivotNode)) {
+                    i++;
+                }
+                while (labels[j] > pivotLabel || (labels[j] == pivotLabel && adjacent[j] > pivotNode)) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(adjacent, labels, i++, j--);
+                }
+            }
+            //Recurse on the smaller part
+            if (j - lo < hi - i) {
+                sort(adjacent, labels, lo, j);
+                lo = i;
+            } else {
+                sort(adjacent, labels, i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && less(adjacent, labels, j, labels[j - 1], adjacent[j - 1]); j--) {
+                swap(adjacent, labels, j, j - 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the first position in the range of the edges of a node with a 
+     * label greater or equal than the input one
+     *
+     * @param offsets The offsets of the edges, incoming or outgoing
+     * @param labels The labels of the edges, incoming or outgoing
+     * @param id The id of the node
+     * @param label The label
+     * @return The position of the first edge with the label, or the end of
+     * the range if the label is greater than all of them
+     */
+    public static int firstEdgeOf(int[] offsets, long[] labels, int id, long label) {
+        int lo = offsets[id], hi = offsets[id + 1];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (labels[mid] < label) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public int numberOfNodes() {
+        return nodes.length;
+    }
+
+    public int numberOfEdges() {
+        return outTargets.length;
+    }
+
+    /**
+     * @param node A node of the graph
+     * @return The id of the node, -1 if it is not in the graph
+     */
+    public int idOf(long node) {
+        int id = Arrays.binarySearch(nodes, node);
+        return id < 0 ? -1 : id;
+    }
+
+    /**
+     * @param id The id of a node
+     * @return The node with the id
+     */
+    public long nodeOf(int id) {
+        return nodes[id];
+    }
+
+    public int outDegreeOf(int id) {
+        return outOffsets[id + 1] - outOffsets[id];
+    }
+
+    public int inDegreeOf(int id) {
+        return inOffsets[id + 1] - inOffsets[id];
+    }
+
+    /**
+     * @return The outgoing edges of node i are in positions outOffsets[i] 
+     * (inclusive) to outOffsets[i + 1] (exclusive) 
+     */
+    public int[] getOutOffsets() {
+        return outOffsets;
+    }
+
+    /**
+     * @return The id of the destination of each outgoing edge
+     */
+    public int[] getOutTargets() {
+        return outTargets;
+    }
+
+    /**
+     * @return The label of each outgoing edge
+     */
+    public long[] getOutLabels() {
+        return outLabels;
+    }
+
+    /**
+     * @return The incoming edges of node i are in positions inOffsets[i] 
+     * (inclusive) to inOffsets[i + 1] (exclusive) 
+     */
+    public int[] getInOffsets() {
+        return inOffsets;
+    }
+
+    /**
+     * @return The id of the source of each incoming edge
+     */
+    public int[] getInSources() {
+        return inSources;
+    }
+
+    /**
+     * @return The label of each incoming edge
+     */
+    public long[] getInLabels() {
+        return inLabels;
+    }
+}
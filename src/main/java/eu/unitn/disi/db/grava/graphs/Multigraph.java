@@ -68,6 +68,38 @@ public interface Multigraph extends Iterable<Long> {
      */
     public void addEdge(Edge edge) throws IllegalArgumentException, NullPointerException;
 
+    /**
+     * Add a batch of edges to the graph, the i-th edge goes from src[i] to
+     * dest[i] with label labels[i]. Both endpoints of every edge must exist,
+     * otherwise an {@link IllegalArgumentException} is thrown and the graph
+     * is left unchanged. The default implementation checks the endpoints and
+     * then adds the edges one by one, implementations that can group the 
+     * updates should override it.
+     *
+     * @param src The source nodes of the edges
+     * @param dest The destination nodes of the edges
+     * @param labels The labels of the edges
+     * @throws IllegalArgumentException If the arrays have different lengths
+     * or some endpoint is not in the vertex collection
+     * @throws NullPointerException if one of the input is null
+     */
+    public default void addEdges(long[] src, long[] dest, long[] labels) throws IllegalArgumentException, NullPointerException {
+        if (src == null || dest == null || labels == null) {
+            throw new NullPointerException("Batch arrays cannot be null");
+        }
+        if (src.length != dest.length || src.length != labels.length) {
+            throw new IllegalArgumentException("Batch arrays must have the same length");
+        }
+        for (int i = 0; i < src.length; i++) {
+            if (!containsVertex(src[i]) || !containsVertex(dest[i])) {
+                throw new IllegalArgumentException(String.format("Edge (%d,%d) has an endpoint not in the vertex list", src[i], dest[i]));
+            }
+        }
+        for (int i = 0; i < src.length; i++) {
+            addEdge(src[i], dest[i], labels[i]);
+        }
+    }
+
     /**
      * Remove a vertex in the graph and its connected edges.
      *
@@ -102,6 +134,32 @@ public interface Multigraph extends Iterable<Long> {
      */
     public void removeEdge(Edge edge) throws IllegalArgumentException, NullPointerException;
 
+    /**
+     * Remove a batch of edges from the graph, the i-th edge goes from src[i]
+     * to dest[i] with label labels[i]. Edges that are not in the graph are
+     * ignored; dangling nodes are not removed. The default implementation
+     * removes the edges one by one.
+     *
+     * @param src The source nodes of the edges
+     * @param dest The destination nodes of the edges
+     * @param labels The labels of the edges
+     * @throws IllegalArgumentException If the arrays have different lengths
+     * or some endpoint is not in the vertex collection
+     * @throws NullPointerException if one of the input is null
+     */
+    public default void removeEdges(long[] src, long[] dest, long[] labels) throws IllegalArgumentException, NullPointerException {
+        if (src == null || dest == null || labels == null) {
+            throw new NullPointerException("Batch arrays cannot be null");
+        }
+        if (src.length != dest.length || src.length != labels.length) {
+            throw new IllegalArgumentException("Batch arrays must have the same length");
+        }
+        for (int i = 0; i < src.length; i++) {
+            removeEdge(src[i], dest[i], labels[i]);
+        }
+    }
+
+
     /**
      * Returns the set of vertices of the graph
      *
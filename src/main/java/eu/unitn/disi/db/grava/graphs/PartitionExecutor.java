@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Runs vertex-centric and edge-centric functions on the partitions of a
+ * {@link PartitionedMultigraph} in parallel. Each partition is processed by a
+ * single task with its own accumulator, so the functions do not need any
+ * synchronization; the accumulators are then reduced in partition order.
+ *
+ * The graph must not be modified while a computation is running.
+ *
+ * @author agent <agent@local>
+ */
+public class PartitionExecutor {
+
+    private final PartitionedMultigraph graph;
+    private final ForkJoinPool pool;
+
+    /**
+     * A function applied to each vertex of a partition
+     *
+     * @param <A> The type of the partition-local accumulator
+     */
+    @FunctionalInterface
+    public interface VertexFunction<A> {
+
+        public void apply(A accumulator, Long vertex, EdgeContainer edges);
+    }
+
+    /**
+     * A function applied to each edge of a partition
+     *
+     * @param <A> The type of the partition-local accumulator
+     */
+    @FunctionalInterface
+    public interface EdgeFunction<A> {
+
+        public void apply(A accumulator, Edge edge);
+    }
+
+    /**
+     * Construct an executor that runs on the common fork-join pool
+     *
+     * @param graph The graph to be processed
+     */
+    public PartitionExecutor(PartitionedMultigraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construct an executor that runs on the input pool
+     *
+     * @param graph The graph to be processed
+     * @param pool The pool running the partition tasks
+     */
+    public PartitionExecutor(PartitionedMultigraph graph, ForkJoinPool pool) {
+        if (graph == null || pool == null) {
+            throw new NullPointerException("Graph and pool cannot be null");
+        }
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * Apply a function to every vertex, one task per node partition
+     *
+     * @param <A> The type of the accumulator
+     * @param accumulator Creates a new accumulator for each partition
+     * @param function The function applied to each vertex
+     * @param reduce Combines the accumulators of two partitions
+     * @return The reduction of the partition accumulators
+     * @throws ExecutionException If one of the tasks fails
+     */
+    public <A> A forEachVertex(Supplier<A> accumulator, VertexFunction<A> function, BinaryOperator<A> reduce) throws ExecutionException {
+        return run(graph.getNumNodePartitions(), p -> {
+            A acc = accumulator.get();
+            for (Map.Entry<Long, EdgeContainer> entry : graph.getNodePartition(p).entrySet()) {
+                function.apply(acc, entry.getKey(), entry.getValue());
+            }
+            return acc;
+        }, reduce);
+    }
+
+    /**
+     * Apply a function to every edge, one task per edge partition
+     *
+     * @param <A> The type of the accumulator
+     * @param accumulator Creates a new accumulator for each partition
+     * @param function The function applied to each edge
+     * @param reduce Combines the accumulators of two partitions
+     * @return The reduction of the partition accumulators
+     * @throws ExecutionException If one of the tasks fails
+     */
+    public <A> A forEachEdge(Supplier<A> accumulator, EdgeFunction<A> function, BinaryOperator<A> reduce) throws ExecutionException {
+        return run(graph.getNumEdgePartitions(), p -> {
+            A acc = accumulator.get();
+            for (Edge e : graph.getEdgePartition(p)) {
+                function.apply(acc, e);
+            }
+            return acc;
+        }, reduce);
+    }
+
+    /**
+     * Run a task for each partition index and reduce the results in
+     * partition order. Null partial results are passed to the reduction as
+     * any other result.
+     *
+     * @param <A> The type of the partial results
+     * @param partitions The number of partitions, at least 1
+     * @param task Computes the partial result of a partition
+     * @param reduce Combines two partial results
+     * @return The reduction of the partial results
+     * @throws ExecutionException If one of the tasks fails
+     * @throws IllegalArgumentException If there are no partitions
+     */
+    public <A> A run(int partitions, IntFunction<A> task, BinaryOperator<A> reduce) throws ExecutionException {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be > 0");
+        }
+        List<ForkJoinTask<A>> tasks = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            final int p = i;
+            tasks.add(pool.submit(() -> task.apply(p)));
+        }
+        A result = null;
+        try {
+            result = tasks.get(0).get();
+            for (int i = 1; i < partitions; i++) {
+                result = reduce.apply(result, tasks.get(i).get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ExecutionException(ex);
+        } finally {
+            for (ForkJoinTask<A> t : tasks) {
+                t.cancel(false);
+            }
+        }
+        return result;
+    }
+}
@@ -18,18 +18,36 @@
 package eu.unitn.disi.db.grava.graphs;
 
 import eu.unitn.disi.db.mutilities.exceptions.ParseException;
+import eu.unitn.disi.db.grava.graphs.collections.ConcurrentPartitionedList;
+import eu.unitn.disi.db.grava.graphs.collections.ConcurrentPartitionedMap;
+import eu.unitn.disi.db.grava.graphs.collections.HashPartitioner;
+import eu.unitn.disi.db.grava.graphs.collections.PartitionBalance;
+import eu.unitn.disi.db.grava.graphs.collections.Partitionable;
 import eu.unitn.disi.db.grava.graphs.collections.PartitionableCollection;
 import eu.unitn.disi.db.grava.graphs.collections.PartitionableMap;
 import eu.unitn.disi.db.grava.graphs.collections.PartitionedList;
 import eu.unitn.disi.db.grava.graphs.collections.PartitionedMap;
-import eu.unitn.disi.db.mutilities.StringUtils;
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
+import eu.unitn.disi.db.grava.graphs.collections.PartitionCodec;
+import eu.unitn.disi.db.grava.graphs.collections.PartitionSpiller;
+import eu.unitn.disi.db.grava.graphs.collections.Partitioner;
+import eu.unitn.disi.db.grava.graphs.collections.RebalanceReport;
+import eu.unitn.disi.db.grava.graphs.collections.SpillingPartitionedList;
+import eu.unitn.disi.db.grava.graphs.collections.SpillingPartitionedMap;
+import eu.unitn.disi.db.grava.utils.LongTableReader;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
 
 /**
  *
@@ -38,9 +56,31 @@ import java.util.Set;
 public final class PartitionedMultigraph extends BaseMultigraph {
 
     private int nodePartitions;
+    private final boolean concurrent;
+    private final PartitionSpiller spiller;
 
     private static final int DEFAULT_CAPACITY = 4;
     private static final float DEFAULT_LOAD_FACTOR = .75f;
+    //Estimated heap of a node with its (empty) adjacency sets
+    private static final long NODE_HEAP_BYTES = 280;
+    //Estimated heap of an edge in an adjacency set
+    private static final long ADJACENCY_HEAP_BYTES = 88;
+    //Estimated heap of an edge in the indexed edge list
+    private static final long EDGE_HEAP_BYTES = 104;
+
+    private static final PartitionCodec<Edge> EDGE_CODEC = new PartitionCodec<Edge>() {
+        @Override
+        public void write(DataOutput out, Edge e) throws IOException {
+            out.writeLong(e.getSource());
+            out.writeLong(e.getDestination());
+            out.writeLong(e.getLabel());
+        }
+
+        @Override
+        public Edge read(DataInput in) throws IOException {
+            return new Edge(in.readLong(), in.readLong(), in.readLong());
+        }
+    };
 
     /**
      * Construct a multigraph specifying an initial capacity, the
@@ -54,10 +94,77 @@ public final class PartitionedMultigraph extends BaseMultigraph {
      * @param edgePartitions The number of partitions in the edge set
      */
     public PartitionedMultigraph(int initialCapacity, int nodePartitions, int edgePartitions) {
+        this(initialCapacity, nodePartitions, edgePartitions, new HashPartitioner(), new HashPartitioner());
+    }
+
+    /**
+     * Construct a multigraph specifying an initial capacity, the number of
+     * partitions and the strategies to assign nodes and edges to partitions.
+     *
+     * @param initialCapacity The initial capacity of the graph
+     * @param nodePartitions The number of partitions in the node set
+     * @param edgePartitions The number of partitions in the edge set
+     * @param nodePartitioner Assigns the nodes to the node partitions
+     * @param edgePartitioner Assigns the edges to the edge partitions
+     */
+    public PartitionedMultigraph(int initialCapacity, int nodePartitions, int edgePartitions, Partitioner nodePartitioner, Partitioner edgePartitioner) {
+        this(initialCapacity, nodePartitions, edgePartitions, nodePartitioner, edgePartitioner, false);
+    }
+
+    /**
+     * Construct a multigraph that, if concurrent is true, can be filled by
+     * several threads at once. In concurrent mode nodes and edges are stored 
+     * in collections with a lock per partition, the adjacency of each node in
+     * concurrent sets, and {@link #addVertex(java.lang.Long) }, the addEdge 
+     * methods and the read methods can be called from any thread; the more 
+     * partitions, the less the loaders contend. Removals running together
+     * with additions on the same nodes are not atomic.
+     *
+     * @param initialCapacity The initial capacity of the graph
+     * @param nodePartitions The number of partitions in the node set
+     * @param edgePartitions The number of partitions in the edge set
+     * @param nodePartitioner Assigns the nodes to the node partitions
+     * @param edgePartitioner Assigns the edges to the edge partitions
+     * @param concurrent True to allow concurrent updates
+     */
+    public PartitionedMultigraph(int initialCapacity, int nodePartitions, int edgePartitions, Partitioner nodePartitioner, Partitioner edgePartitioner, boolean concurrent) {
         this.nodePartitions = nodePartitions;
+        this.concurrent = concurrent;
+        this.spiller = null;
 
-        nodeEdges = new PartitionedMap<>(initialCapacity, DEFAULT_LOAD_FACTOR, this.nodePartitions);
-        edges = new PartitionedList<>(initialCapacity, edgePartitions);
+        if (concurrent) {
+            nodeEdges = new ConcurrentPartitionedMap<>(initialCapacity, DEFAULT_LOAD_FACTOR, this.nodePartitions, nodePartitioner);
+            edges = new ConcurrentPartitionedList<>(initialCapacity, edgePartitions, edgePartitioner, false);
+            labelCounts = new ConcurrentHashMap<>();
+            selfLoops = new ConcurrentHashMap<>();
+        } else {
+            nodeEdges = new PartitionedMap<>(initialCapacity, DEFAULT_LOAD_FACTOR, this.nodePartitions, nodePartitioner);
+            edges = new PartitionedList<>(initialCapacity, edgePartitions, edgePartitioner);
+        }
+    }
+
+    /**
+     * Construct a multigraph whose node and edge partitions are kept within
+     * the heap budget of the input spiller: the least recently used partitions
+     * are written to disk and loaded back on access, so graphs larger than 
+     * the heap can be processed at the cost of disk reads. The batch and merge
+     * operations are applied edge by edge in this mode, and the graph must be
+     * updated by one thread at a time.
+     *
+     * @param nodePartitions The number of partitions in the node set
+     * @param edgePartitions The number of partitions in the edge set
+     * @param avgDegree The expected average degree, used to estimate the heap
+     * used by the node partitions
+     * @param spiller Keeps the partitions within the heap budget
+     */
+    public PartitionedMultigraph(int nodePartitions, int edgePartitions, float avgDegree, PartitionSpiller spiller) {
+        this.nodePartitions = nodePartitions;
+        this.concurrent = false;
+        this.spiller = spiller;
+
+        nodeEdges = new SpillingPartitionedMap<>(nodePartitions, new HashPartitioner(), spiller, new ContainerCodec(),
+                NODE_HEAP_BYTES + (long) (2 * avgDegree * ADJACENCY_HEAP_BYTES));
+        edges = new SpillingPartitionedList<>(edgePartitions, new HashPartitioner(), false, spiller, EDGE_CODEC, EDGE_HEAP_BYTES);
     }
 
     /**
@@ -70,50 +177,121 @@ public final class PartitionedMultigraph extends BaseMultigraph {
      * edges resectively
      *
      * @param nodeDegreeFile The file with the degrees for each node.
-     * @param initialCapacity
+     * @param initialCapacity The minimum capacity of each node partition
      * @param nodePartitions
      * @param edgePartitions
      * @throws java.io.IOException
      * @throws eu.unitn.disi.db.mutilities.exceptions.ParseException
+     * @see #PartitionedMultigraph(java.lang.String, java.lang.String, int, int, int) 
      */
     public PartitionedMultigraph(String nodeDegreeFile, int initialCapacity, int nodePartitions, int edgePartitions) throws IOException, ParseException {
-        this(initialCapacity, nodePartitions, edgePartitions);
+        this(LongTableReader.read(nodeDegreeFile, 3), initialCapacity, nodePartitions, edgePartitions);
+    }
 
-        try {
-            File file = new File(nodeDegreeFile);
-            BufferedReader in = new BufferedReader(new FileReader(file));
-
-            long vertex;
-            int outgoing;
-            int incoming;
-
-            String line, source, inc, out;
-            String[] tokens;
-            int count = 0;
-
-            while ((line = in.readLine()) != null) {
-                count++;
-                if (!"".equals(line.trim()) && !line.trim().startsWith("#")) { //Comment
-                    tokens = StringUtils.fastSplit(line, ' ', 3); // split on whitespace
-                    if (tokens.length < 3) { // line too short
-                        tokens = StringUtils.fastSplit(line, '\t', 3);
-                        if (tokens.length != 3) {
-                            throw new ParseException("Line %d is malformed", count);
-                        }
-                    }
-                    source = tokens[0];
-                    inc = tokens[1];
-                    out = tokens[2];
-
-                    vertex = Long.parseLong(source);
-                    outgoing = Integer.parseInt(out);
-                    incoming = Integer.parseInt(inc);
-
-                    addFixedSizeVertex(vertex, incoming, outgoing);
-                }
+    /**
+     * Build a multigraph from a file with the degree of each node and, 
+     * optionally, a file with the edges. The degree file has the format
+     *
+     * line := nodeid SPACE incoming SPACE outgoing
+     * 
+     * and the edge file
+     * 
+     * line := source SPACE destination SPACE label
+     *
+     * Both files are parsed in parallel by numThreads threads, the node 
+     * partitions are sized on the number of nodes they receive and filled 
+     * concurrently, and the adjacency of each node is stored in primitive 
+     * arrays sized on its degrees. 
+     *
+     * @param nodeDegreeFile The file with the degrees for each node
+     * @param edgeFile The file with the edges, null to load only the nodes
+     * @param nodePartitions The number of partitions in the node set
+     * @param edgePartitions The number of partitions in the edge set
+     * @param numThreads The number of threads parsing the files
+     * @throws IOException If one of the files cannot be read
+     * @throws ParseException If a line is malformed or an edge connects a 
+     * node that is not in the degree file
+     */
+    public PartitionedMultigraph(String nodeDegreeFile, String edgeFile, int nodePartitions, int edgePartitions, int numThreads) throws IOException, ParseException {
+        this(LongTableReader.read(nodeDegreeFile, 3, numThreads), DEFAULT_CAPACITY, nodePartitions, edgePartitions);
+        if (edgeFile != null) {
+            loadEdges(LongTableReader.read(edgeFile, 3, numThreads));
+        }
+    }
+
+    private PartitionedMultigraph(long[][] degrees, int initialCapacity, int nodePartitions, int edgePartitions) throws ParseException {
+        this(nodeCapacity(degrees[0], initialCapacity, nodePartitions), nodePartitions, edgePartitions);
+        loadVertices(degrees);
+    }
+
+    /*
+     * The capacity of each node partition such that the largest one is never
+     * rehashed
+     */
+    private static int nodeCapacity(long[] vertices, int initialCapacity, int nodePartitions) {
+        if (nodePartitions < 1) {
+            return initialCapacity;
+        }
+        int[] counts = new int[nodePartitions];
+        Partitioner partitioner = new HashPartitioner();
+        for (long v : vertices) {
+            counts[partitioner.partition(v, nodePartitions)]++;
+        }
+        int max = 0;
+        for (int count : counts) {
+            max = Math.max(max, count);
+        }
+        return Math.max(initialCapacity, (int) (max / DEFAULT_LOAD_FACTOR) + 1);
+    }
+
+    /*
+     * Group the vertices by partition (counting sort, the order of the file is
+     * kept inside each partition) and fill the partitions in parallel
+     */
+    private void loadVertices(long[][] degrees) throws ParseException {
+        final long[] vertices = degrees[0];
+        final int n = vertices.length;
+        final PartitionedMap<Long, EdgeContainer> map = (PartitionedMap<Long, EdgeContainer>) nodeEdges;
+        final Partitioner partitioner = map.getPartitioner();
+        int[] partitionOf = new int[n];
+        int[] starts = new int[nodePartitions + 1];
+        long outgoing = 0;
+
+        for (int i = 0; i < n; i++) {
+            if (degrees[1][i] < 0 || degrees[1][i] > Integer.MAX_VALUE || degrees[2][i] < 0 || degrees[2][i] > Integer.MAX_VALUE) {
+                throw new ParseException("Node %d has an invalid degree", vertices[i]);
             }
-        } catch (IOException ex) {
-            throw ex;
+            partitionOf[i] = partitioner.partition(vertices[i], nodePartitions);
+            starts[partitionOf[i] + 1]++;
+            outgoing += degrees[2][i];
+        }
+        for (int p = 0; p < nodePartitions; p++) {
+            starts[p + 1] += starts[p];
+        }
+        final int[] order = new int[n];
+        int[] next = Arrays.copyOf(starts, nodePartitions);
+        for (int i = 0; i < n; i++) {
+            order[next[partitionOf[i]]++] = i;
+        }
+
+        IntStream.range(0, nodePartitions).parallel().forEach(p -> {
+            Map<Long, EdgeContainer> partition = map.getPartition(p);
+            for (int j = starts[p]; j < starts[p + 1]; j++) {
+                int i = order[j];
+                partition.put(vertices[i], new EdgePartitionedContainer(vertices[i], (int) degrees[1][i], (int) degrees[2][i]));
+            }
+        });
+        ((PartitionedList<Edge>) edges).ensureCapacity((int) Math.min(outgoing, Integer.MAX_VALUE - 8));
+    }
+
+    /*
+     * Add the edges with the batch insertion, that groups them by endpoint
+     */
+    private void loadEdges(long[][] table) throws ParseException {
+        try {
+            addEdges(table[0], table[1], table[2]);
+        } catch (IllegalArgumentException ex) {
+            throw new ParseException("Edge file is inconsistent with the degree file: %s", ex.getMessage());
         }
     }
 
@@ -122,21 +300,174 @@ public final class PartitionedMultigraph extends BaseMultigraph {
         return new EdgePartitionedContainer();
     }
 
-    private void addFixedSizeVertex(long vertex, int incoming, int outgoing) {
-        nodeEdges.put(vertex, new EdgePartitionedContainer(incoming, outgoing));
+    /*
+     * Writes a node with its adjacency, only the endpoint that is not the 
+     * node itself and the label are stored for each edge
+     */
+    private class ContainerCodec implements PartitionCodec<Map.Entry<Long, EdgeContainer>> {
+
+        @Override
+        public void write(DataOutput out, Map.Entry<Long, EdgeContainer> entry) throws IOException {
+            Collection<Edge> incoming = entry.getValue().getIncoming();
+            Collection<Edge> outgoing = entry.getValue().getOutgoing();
+            out.writeLong(entry.getKey());
+            out.writeInt(incoming.size());
+            out.writeInt(outgoing.size());
+            for (Edge e : incoming) {
+                out.writeLong(e.getSource());
+                out.writeLong(e.getLabel());
+            }
+            for (Edge e : outgoing) {
+                out.writeLong(e.getDestination());
+                out.writeLong(e.getLabel());
+            }
+        }
+
+        @Override
+        public Map.Entry<Long, EdgeContainer> read(DataInput in) throws IOException {
+            long node = in.readLong();
+            int incoming = in.readInt();
+            int outgoing = in.readInt();
+            EdgePartitionedContainer container = new EdgePartitionedContainer(incoming, outgoing);
+            for (int i = 0; i < incoming; i++) {
+                container.addIncomingEdge(new Edge(in.readLong(), node, in.readLong()));
+            }
+            for (int i = 0; i < outgoing; i++) {
+                container.addOutgoingEdge(new Edge(node, in.readLong(), in.readLong()));
+            }
+            return new AbstractMap.SimpleImmutableEntry<>(node, container);
+        }
+    }
+
+    /**
+     * Add a batch of edges, edge by edge when the graph spills to disk since
+     * the partitions of the endpoints cannot be all resident at once
+     *
+     * @param src The source nodes of the edges
+     * @param dest The destination nodes of the edges
+     * @param labels The labels of the edges
+     */
+    @Override
+    public void addEdges(long[] src, long[] dest, long[] labels) throws IllegalArgumentException, NullPointerException {
+        if (spiller == null) {
+            super.addEdges(src, dest, labels);
+            return;
+        }
+        checkEndpoints(src, dest, labels);
+        for (int i = 0; i < src.length; i++) {
+            addEdge(src[i], dest[i], labels[i]);
+        }
+    }
+
+    @Override
+    public void removeEdges(long[] src, long[] dest, long[] labels) throws IllegalArgumentException, NullPointerException {
+        if (spiller == null) {
+            super.removeEdges(src, dest, labels);
+            return;
+        }
+        checkEndpoints(src, dest, labels);
+        for (int i = 0; i < src.length; i++) {
+            removeEdge(src[i], dest[i], labels[i]);
+        }
+    }
+
+    private void checkEndpoints(long[] src, long[] dest, long[] labels) {
+        checkBatch(src, dest, labels);
+        for (int i = 0; i < src.length; i++) {
+            if (!nodeEdges.containsKey(src[i])) {
+                throw new IllegalArgumentException("Source node " + src[i] + " is not in the vertex list. Call addVertex before");
+            }
+            if (!nodeEdges.containsKey(dest[i])) {
+                throw new IllegalArgumentException("Destination node " + dest[i] + " is not in the vertex list. Call addVertex before");
+            }
+        }
+    }
+
+    @Override
+    public Multigraph parallelMerge(Multigraph graph) throws ExecutionException, NullPointerException {
+        if (spiller == null) {
+            return super.parallelMerge(graph);
+        }
+        for (Long v : graph.vertexSet()) {
+            addVertex(v);
+        }
+        return merge(graph);
+    }
+
+    /**
+     * @return The spiller of the graph, null if the graph is kept in memory
+     */
+    public PartitionSpiller getSpiller() {
+        return spiller;
     }
 
     //TODO: maybe add a partitioning schema if the size is greater than a threshold
     protected class EdgePartitionedContainer extends BaseEdgeContainer {
 
         public EdgePartitionedContainer(int inNum, int outNum) {
-            incoming = new HashSet<>(inNum);
-            outgoing = new HashSet<>(outNum);
+            if (concurrent) {
+                incoming = ConcurrentHashMap.newKeySet(inNum);
+                outgoing = ConcurrentHashMap.newKeySet(outNum);
+            } else {
+                incoming = new HashSet<>(inNum);
+                outgoing = new HashSet<>(outNum);
+            }
         }
 
         public EdgePartitionedContainer() {
             this(DEFAULT_CAPACITY, DEFAULT_CAPACITY);
         }
+
+        /**
+         * Construct the container of a node whose degrees are known, the 
+         * edges are stored in primitive arrays of that size
+         *
+         * @param node The node owning the edges
+         * @param inNum The number of incoming edges
+         * @param outNum The number of outgoing edges
+         */
+        public EdgePartitionedContainer(long node, int inNum, int outNum) {
+            incoming = new PrimitiveEdgeSet(node, true, inNum);
+            outgoing = new PrimitiveEdgeSet(node, false, outNum);
+        }
+    }
+
+    /**
+     * @return True if the graph can be updated by several threads at once
+     */
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    /**
+     * Returns a point-in-time copy of the edges. In concurrent mode the copy 
+     * is not cached, since the modification count is not maintained 
+     * atomically by concurrent writers, and it is only weakly consistent: 
+     * edges added or removed while copying may or may not be included. Use
+     * {@link VersionedMultigraph} to read isolated snapshots while writing.
+     *
+     * @return An unmodifiable set of edges isolated from later changes
+     */
+    @Override
+    public Collection<Edge> edgeSnapshot() {
+        if (concurrent) {
+            return Collections.unmodifiableSet(new HashSet<>(edges));
+        }
+        return super.edgeSnapshot();
+    }
+
+    /**
+     * Returns a point-in-time copy of the labels, not cached and only weakly
+     * consistent in concurrent mode.
+     *
+     * @return An unmodifiable set of labels isolated from later changes
+     */
+    @Override
+    public Collection<Long> labelSnapshot() {
+        if (concurrent) {
+            return Collections.unmodifiableSet(new HashSet<>(labelCounts.keySet()));
+        }
+        return super.labelSnapshot();
     }
 
     public int getNumEdgePartitions() {
@@ -154,4 +485,69 @@ public final class PartitionedMultigraph extends BaseMultigraph {
     public int getNodePartitionsSize(int i) {
         return ((PartitionableMap) nodeEdges).getPartitionSize(i);
     }
+
+    /**
+     * Returns the balance metrics of the node partitions
+     *
+     * @return The balance of the node partitions
+     */
+    public PartitionBalance getNodeBalance() {
+        return PartitionBalance.of((Partitionable) nodeEdges);
+    }
+
+    /**
+     * Returns the balance metrics of the edge partitions
+     *
+     * @return The balance of the edge partitions
+     */
+    public PartitionBalance getEdgeBalance() {
+        return PartitionBalance.of((Partitionable) edges);
+    }
+
+    /**
+     * Move nodes, with their adjacency, from the largest node partitions to 
+     * the smallest ones if the imbalance of the node partitions exceeds the
+     * threshold. In concurrent mode the graph can be read and updated during 
+     * the rebalance. 
+     *
+     * @param threshold The largest imbalance tolerated, at least 1
+     * @return The balance of the node partitions before and after
+     * @see PartitionBalance#getImbalance() 
+     */
+    public RebalanceReport rebalanceNodes(double threshold) {
+        return ((PartitionedMap<Long, EdgeContainer>) nodeEdges).rebalance(threshold);
+    }
+
+    /**
+     * Move edges from the largest edge partitions to the smallest ones if the
+     * imbalance of the edge partitions exceeds the threshold. In concurrent 
+     * mode the graph can be read and updated during the rebalance. 
+     *
+     * @param threshold The largest imbalance tolerated, at least 1
+     * @return The balance of the edge partitions before and after
+     * @see PartitionBalance#getImbalance() 
+     */
+    public RebalanceReport rebalanceEdges(double threshold) {
+        return ((PartitionedList<Edge>) edges).rebalance(threshold);
+    }
+
+    /**
+     * Returns a read-only view of the i-th node partition
+     *
+     * @param i The index of the partition
+     * @return The nodes in the partition with their edges
+     */
+    public Map<Long, EdgeContainer> getNodePartition(int i) {
+        return Collections.unmodifiableMap(((PartitionableMap<Long, EdgeContainer>) nodeEdges).getPartition(i));
+    }
+
+    /**
+     * Returns a read-only view of the i-th edge partition
+     *
+     * @param i The index of the partition
+     * @return The edges in the partition
+     */
+    public Collection<Edge> getEdgePartition(int i) {
+        return Collections.unmodifiableCollection(((PartitionableCollection<Edge>) edges).getPartition(i));
+    }
 }
@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The incoming or outgoing edges of a node stored in two primitive arrays, 
+ * the other endpoint and the label of each edge. The edges are created when 
+ * they are iterated, therefore a node with a known degree uses 16 bytes per 
+ * edge instead of a {@link java.util.HashSet} entry and an {@link Edge} object.
+ * Once the set grows over a few edges, a hash table of the positions avoids 
+ * scanning the arrays on lookups. 
+ *
+ * @author agent <agent@local>
+ */
+class PrimitiveEdgeSet extends AbstractSet<Edge> {
+
+    //Below this size the arrays are scanned
+    private static final int MIN_TABLE_SIZE = 8;
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private final long node;
+    private final boolean incoming;
+    private long[] neighbors;
+    private long[] labels;
+    //Position + 1 of each edge, 0 is an empty slot
+    private int[] table;
+    private int size;
+    private int modCount;
+
+    /**
+     * Construct a set of the edges of a node
+     *
+     * @param node The node the edges are incident to
+     * @param incoming True if the set contains the incoming edges
+     * @param expected The expected number of edges
+     */
+    PrimitiveEdgeSet(long node, boolean incoming, int expected) {
+        if (expected < 0) {
+            throw new IllegalArgumentException("The expected number of edges cannot be negative");
+        }
+        this.node = node;
+        this.incoming = incoming;
+        int capacity = Math.max(expected, DEFAULT_CAPACITY);
+        neighbors = new long[capacity];
+        labels = new long[capacity];
+        if (expected > MIN_TABLE_SIZE) {
+            table = new int[tableSize(capacity)];
+        }
+    }
+
+    /**
+     * Make room for more edges without growing again
+     *
+     * @param more The number of edges to be added
+     */
+    void ensureCapacity(int more) {
+        int needed = size + more;
+        if (needed > neighbors.length) {
+            neighbors = Arrays.copyOf(neighbors, needed);
+            labels = Arrays.copyOf(labels, needed);
+        }
+        if (needed > MIN_TABLE_SIZE && (table == null || needed * 2 > table.length)) {
+            rehash(tableSize(neighbors.length));
+        }
+    }
+
+    @Override
+    public boolean add(Edge e) {
+        long neighbor = neighborOf(e);
+        if (indexOf(neighbor, e.getLabel()) >= 0) {
+            return false;
+        }
+        if (size == neighbors.length) {
+            int capacity = size + (size >> 1) + 1;
+            neighbors = Arrays.copyOf(neighbors, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+        }
+        neighbors[size] = neighbor;
+        labels[size] = e.getLabel();
+        size++;
+        modCount++;
+        if (table != null && size * 2 <= table.length) {
+            insert(size - 1);
+        } else if (size > MIN_TABLE_SIZE) {
+            rehash(tableSize(neighbors.length));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Edge)) {
+            return false;
+        }
+        Edge e = (Edge) o;
+        if ((incoming ? e.getDestination() : e.getSource()) != node) {
+            return false;
+        }
+        return indexOf(incoming ? e.getSource() : e.getDestination(), e.getLabel()) >= 0;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        Edge e = (Edge) o;
+        removeAt(indexOf(incoming ? e.getSource() : e.getDestination(), e.getLabel()));
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+        if (table != null) {
+            Arrays.fill(table, 0);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Edge> iterator() {
+        return new Iterator<Edge>() {
+            private int next = 0;
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Edge next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                last = next++;
+                return edgeAt(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                //The last edge is moved in the hole, visit it again
+                removeAt(last);
+                next = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    private Edge edgeAt(int i) {
+        return incoming ? new Edge(neighbors[i], node, labels[i]) : new Edge(node, neighbors[i], labels[i]);
+    }
+
+    private long neighborOf(Edge e) {
+        if (incoming && e.getDestination() == node) {
+            return e.getSource();
+        }
+        if (!incoming && e.getSource() == node) {
+            return e.getDestination();
+        }
+        throw new IllegalArgumentException("Edge " + e + " is not " + (incoming ? "incoming to " : "outgoing from ") + node);
+    }
+
+    private int indexOf(long neighbor, long label) {
+        if (table == null) {
+            for (int i = 0; i < size; i++) {
+                if (neighbors[i] == neighbor && labels[i] == label) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = table.length - 1;
+        for (int slot = hash(neighbor, label) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int i = table[slot] - 1;
+            if (neighbors[i] == neighbor && labels[i] == label) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Move the last edge in position i
+     */
+    private void removeAt(int i) {
+        int last = size - 1;
+        if (table != null) {
+            delete(i);
+            if (i != last) {
+                table[slotOf(last)] = i + 1;
+            }
+        }
+        neighbors[i] = neighbors[last];
+        labels[i] = labels[last];
+        size--;
+        modCount++;
+    }
+
+    private void insert(int i) {
+        int mask = table.length - 1;
+        int slot = hash(neighbors[i], labels[i]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = i + 1;
+    }
+
+    private int slotOf(int i) {
+        int mask = table.length - 1;
+        int slot = hash(neighbors[i], labels[i]) & mask;
+        while (table[slot] != i + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /*
+     * Backward shift deletion, keeps the probe sequences without tombstones
+     */
+    private void delete(int i) {
+        int mask = table.length - 1;
+        int hole = slotOf(i);
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (table[slot] == 0) {
+                break;
+            }
+            int j = table[slot] - 1;
+            int home = hash(neighbors[j], labels[j]) & mask;
+            //Move the entry if its home is not in (hole, slot]
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = table[slot];
+                hole = slot;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private void rehash(int length) {
+        table = new int[length];
+        for (int i = 0; i < size; i++) {
+            insert(i);
+        }
+    }
+
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, MIN_TABLE_SIZE) * 2 - 1) << 1;
+    }
+
+    private static int hash(long neighbor, long label) {
+        long h = (neighbor * 0x9E3779B97F4A7C15L) ^ (label * 0xC2B2AE3D27D4EB4FL);
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+/**
+ * Binary protocol between a {@link ShardedMultigraph} and its 
+ * {@link ShardServer}s. A request is an opcode followed by its arguments, a 
+ * response a status followed by the results (or by an error message). 
+ * Vertex lists are sent as an int count followed by the ids.
+ *
+ * @author agent <agent@local>
+ */
+final class ShardProtocol {
+
+    /**
+     * () -> int shard, int numShards, int owned nodes, long owned edges
+     */
+    static final byte INFO = 1;
+    /**
+     * (vertices) -> one boolean per vertex
+     */
+    static final byte CONTAINS = 2;
+    /**
+     * (byte direction, vertices) -> one int per vertex
+     */
+    static final byte DEGREES = 3;
+    /**
+     * (byte direction, vertices) -> for each vertex an int count and count
+     * pairs (other endpoint, label)
+     */
+    static final byte EDGES = 4;
+    /**
+     * (int from, int max) -> a list of the owned vertices starting at from
+     */
+    static final byte VERTICES = 5;
+    /**
+     * () -> the list of labels
+     */
+    static final byte LABELS = 6;
+
+    /**
+     * The largest number of vertices in a request, larger batches are split
+     * by the clients and rejected by the servers
+     */
+    static final int MAX_BATCH = 1 << 16;
+
+    static final byte INCOMING = 0;
+    static final byte OUTGOING = 1;
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    private ShardProtocol() {
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import static eu.unitn.disi.db.grava.graphs.ShardProtocol.*;
+import eu.unitn.disi.db.grava.graphs.collections.AssignmentPartitioner;
+import eu.unitn.disi.db.grava.graphs.collections.HashPartitioner;
+import eu.unitn.disi.db.grava.graphs.collections.LongIntHashMap;
+import eu.unitn.disi.db.grava.graphs.collections.Partitioner;
+import eu.unitn.disi.db.grava.graphs.collections.RangePartitioner;
+import eu.unitn.disi.db.grava.utils.LongTableReader;
+import eu.unitn.disi.db.mutilities.LoggableObject;
+import eu.unitn.disi.db.mutilities.ThreadUtilities;
+import eu.unitn.disi.db.mutilities.exceptions.ParseException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves one shard of a graph to {@link ShardedMultigraph} clients over TCP.
+ * The shard owns the vertices that the partitioner assigns to it and must hold
+ * all their incoming and outgoing edges, e.g. the partition and halo files 
+ * written by {@link eu.unitn.disi.db.grava.utils.GraphPartitioning#write}.
+ * Vertices of other shards that appear in the halo are served as well, but
+ * only the owned vertices (and their outgoing edges) are listed and counted.
+ * 
+ * Each connection is served by its own thread; the graph is only read.
+ * The protocol has no authentication, so the server listens on the loopback
+ * interface unless another address is given explicitly. Run as a process with 
+ * 
+ * ShardServer [address:]port shard numShards (hash | range:b1,b2,... | assignment:file) file [file ...]
+ *
+ * @author agent <agent@local>
+ */
+public class ShardServer extends LoggableObject implements Closeable {
+
+    private final Multigraph graph;
+    private final int shard;
+    private final int numShards;
+    private final long[] owned;
+    private final long ownedEdges;
+    private final long[] labels;
+    private final ServerSocket server;
+    private final ExecutorService pool;
+    private final Set<Socket> connections;
+
+    /**
+     * Start serving a shard on the loopback interface
+     *
+     * @param graph The graph of the shard
+     * @param shard The index of the shard
+     * @param numShards The number of shards
+     * @param partitioner Assigns the vertices to the shards, the same used 
+     * by the clients
+     * @param port The port to listen to, 0 for any free port
+     * @throws IOException If the port cannot be opened
+     */
+    public ShardServer(Multigraph graph, int shard, int numShards, Partitioner partitioner, int port) throws IOException {
+        this(graph, shard, numShards, partitioner, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Start serving a shard
+     *
+     * @param graph The graph of the shard
+     * @param shard The index of the shard
+     * @param numShards The number of shards
+     * @param partitioner Assigns the vertices to the shards, the same used 
+     * by the clients
+     * @param address The address to listen to, with port 0 for any free 
+     * port; anyone reaching it can read the graph
+     * @throws IOException If the address cannot be bound
+     */
+    public ShardServer(Multigraph graph, int shard, int numShards, Partitioner partitioner, InetSocketAddress address) throws IOException {
+        if (shard < 0 || shard >= numShards) {
+            throw new IllegalArgumentException("Shard must be between 0 and the number of shards");
+        }
+        this.graph = graph;
+        this.shard = shard;
+        this.numShards = numShards;
+
+        long[] vertices = new long[16];
+        int n = 0;
+        long edges = 0;
+        for (Long v : graph) {
+            if (partitioner.partition(v, numShards) == shard) {
+                if (n == vertices.length) {
+                    vertices = Arrays.copyOf(vertices, n * 2);
+                }
+                vertices[n++] = v;
+                edges += graph.outDegreeOf(v);
+            }
+        }
+        this.owned = Arrays.copyOf(vertices, n);
+        this.ownedEdges = edges;
+        Collection<Long> labelSet = graph.labelSet();
+        this.labels = new long[labelSet.size()];
+        int i = 0;
+        for (Long label : labelSet) {
+            labels[i++] = label;
+        }
+
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.server = new ServerSocket();
+        server.bind(address);
+        this.pool = Executors.newCachedThreadPool();
+        pool.submit(this::accept);
+        info("Shard %d/%d with %d vertices and %d edges listening on %s", shard, numShards, n, edges, server.getLocalSocketAddress());
+    }
+
+    /**
+     * @return The address the server listens to
+     */
+    public InetAddress getAddress() {
+        return server.getInetAddress();
+    }
+
+    /**
+     * @return The port the server listens to
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.add(socket);
+                //Closed meanwhile, the socket might have been missed
+                if (server.isClosed()) {
+                    socket.close();
+                    break;
+                }
+                socket.setTcpNoDelay(true);
+                pool.submit(() -> serve(socket));
+            } catch (SocketException ex) {
+                //Closed
+            } catch (IOException ex) {
+                error("Cannot accept a connection: %s", ex.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException ex) {
+                    return;
+                }
+                handle(op, in, out);
+                out.flush();
+            }
+        } catch (IOException ex) {
+            if (!server.isClosed()) {
+                warn("Connection dropped: %s", ex.getMessage());
+            }
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private void handle(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        long[] vertices;
+        byte direction;
+        switch (op) {
+            case INFO:
+                out.writeByte(OK);
+                out.writeInt(shard);
+                out.writeInt(numShards);
+                out.writeInt(owned.length);
+                out.writeLong(ownedEdges);
+                break;
+            case CONTAINS:
+                vertices = readVertices(in, out);
+                out.writeByte(OK);
+                for (long v : vertices) {
+                    out.writeBoolean(graph.containsVertex(v));
+                }
+                break;
+            case DEGREES:
+                direction = in.readByte();
+                vertices = readVertices(in, out);
+                out.writeByte(OK);
+                for (long v : vertices) {
+                    out.writeInt(!graph.containsVertex(v) ? 0
+                            : direction == INCOMING ? graph.inDegreeOf(v) : graph.outDegreeOf(v));
+                }
+                break;
+            case EDGES:
+                direction = in.readByte();
+                vertices = readVertices(in, out);
+                out.writeByte(OK);
+                for (long v : vertices) {
+                    writeEdges(out, v, direction);
+                }
+                break;
+            case VERTICES:
+                int from = Math.max(0, Math.min(in.readInt(), owned.length));
+                int count = Math.max(0, Math.min(in.readInt(), owned.length - from));
+                out.writeByte(OK);
+                out.writeInt(count);
+                for (int i = from; i < from + count; i++) {
+                    out.writeLong(owned[i]);
+                }
+                break;
+            case LABELS:
+                out.writeByte(OK);
+                out.writeInt(labels.length);
+                for (long label : labels) {
+                    out.writeLong(label);
+                }
+                break;
+            default:
+                reject(out, "Unknown operation " + op);
+        }
+    }
+
+    /*
+     * The rest of the request cannot be parsed, report the error and drop 
+     * the connection
+     */
+    private static void reject(DataOutputStream out, String message) throws IOException {
+        out.writeByte(ERROR);
+        out.writeUTF(message);
+        out.flush();
+        throw new IOException(message);
+    }
+
+    private static long[] readVertices(DataInputStream in, DataOutputStream out) throws IOException {
+        int n = in.readInt();
+        if (n < 0 || n > MAX_BATCH) {
+            reject(out, String.format("Batch of %d vertices, at most %d allowed", n, MAX_BATCH));
+        }
+        long[] vertices = new long[n];
+        for (int i = 0; i < n; i++) {
+            vertices[i] = in.readLong();
+        }
+        return vertices;
+    }
+
+    /*
+     * The edges are buffered since the degree is not known in advance by all
+     * the graphs
+     */
+    private void writeEdges(DataOutputStream out, long v, byte direction) throws IOException {
+        if (!graph.containsVertex(v)) {
+            out.writeInt(0);
+            return;
+        }
+        Iterator<Edge> it = direction == INCOMING ? graph.incomingEdgesIteratorOf(v) : graph.outgoingEdgesIteratorOf(v);
+        long[] pairs = new long[16];
+        int n = 0;
+        while (it.hasNext()) {
+            Edge e = it.next();
+            if (n + 2 > pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+            pairs[n++] = direction == INCOMING ? e.getSource() : e.getDestination();
+            pairs[n++] = e.getLabel();
+        }
+        out.writeInt(n / 2);
+        for (int i = 0; i < n; i++) {
+            out.writeLong(pairs[i]);
+        }
+    }
+
+    /**
+     * Stop listening and drop the open connections
+     *
+     * @throws IOException If the server socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                //Dropped anyway
+            }
+        }
+        pool.shutdownNow();
+        ThreadUtilities.shutdownAndAwaitTermination(pool);
+    }
+
+    /**
+     * Parse the partitioner of the shards: "hash", "range:b1,b2,..." with
+     * the upper bounds of each range but the last, or "assignment:file" with
+     * a file of lines
+     * 
+     * line := node SPACE shard
+     * 
+     * e.g. written by {@link eu.unitn.disi.db.grava.utils.GraphPartitioning#writeAssignment}. 
+     * Nodes missing from the assignment are hashed. 
+     *
+     * @param spec The specification of the partitioner
+     * @param numShards The number of shards
+     * @return The partitioner
+     * @throws ParseException If the specification or the assignment file is
+     * malformed
+     * @throws IOException If the assignment file cannot be read
+     */
+    public static Partitioner parsePartitioner(String spec, int numShards) throws ParseException, IOException {
+        if ("hash".equals(spec)) {
+            return new HashPartitioner();
+        }
+        if (spec.startsWith("range:")) {
+            String[] tokens = spec.substring("range:".length()).split(",");
+            long[] bounds = new long[tokens.length];
+            try {
+                for (int i = 0; i < tokens.length; i++) {
+                    bounds[i] = Long.parseLong(tokens[i].trim());
+                }
+            } catch (NumberFormatException ex) {
+                throw new ParseException("Malformed range bounds %s", spec);
+            }
+            return new RangePartitioner(bounds);
+        }
+        if (spec.startsWith("assignment:")) {
+            long[][] table = LongTableReader.read(spec.substring("assignment:".length()), 2);
+            LongIntHashMap assignment = new LongIntHashMap(table[0].length);
+            for (int i = 0; i < table[0].length; i++) {
+                if (table[1][i] < 0 || table[1][i] >= numShards) {
+                    throw new ParseException("Node %d is assigned to shard %d, out of %d shards", table[0][i], table[1][i], numShards);
+                }
+                assignment.put(table[0][i], (int) table[1][i]);
+            }
+            return new AssignmentPartitioner(assignment, numShards);
+        }
+        throw new ParseException("Unknown partitioner %s, expected hash, range:b1,b2,... or assignment:file", spec);
+    }
+
+    /**
+     * Parse the address to listen to: "port" for the loopback interface, 
+     * or "address:port"
+     *
+     * @param spec The specification of the address
+     * @return The address
+     * @throws ParseException If the port is malformed
+     */
+    public static InetSocketAddress parseAddress(String spec) throws ParseException {
+        int colon = spec.lastIndexOf(':');
+        int port;
+        try {
+            port = Integer.parseInt(spec.substring(colon + 1));
+        } catch (NumberFormatException ex) {
+            throw new ParseException("Malformed port in %s", spec);
+        }
+        return colon < 0
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+                : new InetSocketAddress(spec.substring(0, colon), port);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) {
+            System.err.println("Usage: ShardServer [address:]port shard numShards (hash | range:b1,b2,... | assignment:file) file [file ...]");
+            System.exit(1);
+        }
+        InetSocketAddress address = parseAddress(args[0]);
+        int shard = Integer.parseInt(args[1]);
+        int numShards = Integer.parseInt(args[2]);
+        Partitioner partitioner = parsePartitioner(args[3], numShards);
+
+        BigMultigraph graph;
+        if (args.length == 5) {
+            graph = new BigMultigraph(args[4]);
+        } else {
+            //Partition and halo files are loaded as a single graph
+            File merged = File.createTempFile("shard-" + shard + "-", ".graph");
+            try {
+                for (int i = 4; i < args.length; i++) {
+                    Files.write(merged.toPath(), Files.readAllBytes(new File(args[i]).toPath()), StandardOpenOption.APPEND);
+                }
+                graph = new BigMultigraph(merged.getPath());
+            } finally {
+                merged.delete();
+            }
+        }
+        ShardServer server = new ShardServer(graph, shard, numShards, partitioner, address);
+        //Scripts starting the shards on free ports read it from here
+        System.out.println(server.getPort());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException ex) {
+                //Exiting anyway
+            }
+        }));
+    }
+}
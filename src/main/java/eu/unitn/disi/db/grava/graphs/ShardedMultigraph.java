@@ -0,0 +1,727 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import static eu.unitn.disi.db.grava.graphs.ShardProtocol.*;
+import eu.unitn.disi.db.grava.graphs.collections.HashPartitioner;
+import eu.unitn.disi.db.grava.graphs.collections.Partitioner;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A read-only {@link Multigraph} whose vertices are served by a set of 
+ * {@link ShardServer}s, possibly in other processes or machines. Each vertex
+ * is owned by the shard chosen by the partitioner, which must be the same 
+ * used by the servers. 
+ * 
+ * Operations on a single vertex are forwarded to its shard, the batch 
+ * operations ({@link #inDegreesOf(long[]) }, {@link #outgoingEdgesOf(long[]) },
+ * ...) group the vertices by shard and send one request to each shard before 
+ * reading any response, so that the shards work in parallel. Vertex and edge 
+ * sets are fetched lazily one page at a time. 
+ * 
+ * The graph keeps one connection per shard, and it is safe to use from many
+ * threads: requests to the same shard are serialized. Network failures and
+ * errors of the shards are thrown as {@link UncheckedIOException}. Since a
+ * failed batch may leave responses unread on any connection, the first failure 
+ * closes all the connections and every later call throws it again. 
+ *
+ * @author agent <agent@local>
+ */
+public class ShardedMultigraph implements Multigraph, Closeable {
+
+    private static final int PAGE_SIZE = 4096;
+
+    private final Shard[] shards;
+    private final Partitioner partitioner;
+    private final int numberOfNodes;
+    private final long numberOfEdges;
+    private Collection<Long> vertexSet;
+    private Collection<Edge> edgeSet;
+    private volatile Collection<Long> labelSet;
+    //The first failure, or the close, after which the graph cannot be used
+    private volatile IOException failure;
+
+    private static class Shard {
+
+        final ReentrantLock lock = new ReentrantLock();
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        Shard(InetSocketAddress address) throws IOException {
+            socket = new Socket();
+            try {
+                socket.setTcpNoDelay(true);
+                socket.connect(address);
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            } catch (IOException ex) {
+                socket.close();
+                throw ex;
+            }
+        }
+
+        /*
+         * Read the status of a response, throw the error of the server if any
+         */
+        DataInputStream response() throws IOException {
+            if (in.readByte() != OK) {
+                throw new IOException("Shard error: " + in.readUTF());
+            }
+            return in;
+        }
+    }
+
+    /*
+     * Reads the result of the i-th vertex of a batch
+     */
+    @FunctionalInterface
+    private interface ResultReader {
+
+        void read(DataInputStream in, int i) throws IOException;
+    }
+
+    /**
+     * Connect to shards that hash partition the vertices
+     *
+     * @param shards The address of each shard, in shard order
+     * @throws IOException If a shard cannot be reached
+     */
+    public ShardedMultigraph(List<InetSocketAddress> shards) throws IOException {
+        this(shards, new HashPartitioner());
+    }
+
+    /**
+     * Connect to the shards of a graph
+     *
+     * @param shards The address of each shard, in shard order
+     * @param partitioner Assigns the vertices to the shards
+     * @throws IOException If a shard cannot be reached or does not match its
+     * position in the list
+     */
+    public ShardedMultigraph(List<InetSocketAddress> shards, Partitioner partitioner) throws IOException {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("Number of shards must be > 1");
+        }
+        if (partitioner == null) {
+            throw new NullPointerException("Partitioner cannot be null");
+        }
+        this.partitioner = partitioner;
+        this.shards = new Shard[shards.size()];
+        int nodes = 0;
+        long edges = 0;
+        try {
+            for (int i = 0; i < this.shards.length; i++) {
+                Shard shard = new Shard(shards.get(i));
+                this.shards[i] = shard;
+                shard.out.writeByte(INFO);
+                shard.out.flush();
+                DataInputStream in = shard.response();
+                int id = in.readInt();
+                int numShards = in.readInt();
+                if (id != i || numShards != this.shards.length) {
+                    throw new IOException(String.format("Shard at %s is %d of %d, expected %d of %d",
+                            shards.get(i), id, numShards, i, this.shards.length));
+                }
+                nodes += in.readInt();
+                edges += in.readLong();
+            }
+        } catch (IOException | RuntimeException ex) {
+            close();
+            throw ex;
+        }
+        this.numberOfNodes = nodes;
+        this.numberOfEdges = edges;
+    }
+
+    public int getNumShards() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the shard owning a vertex
+     *
+     * @param vertex The vertex
+     * @return The index of the shard
+     */
+    public int shardOf(long vertex) {
+        return partitioner.partition(vertex, shards.length);
+    }
+
+    /*
+     * Send one request per shard with its vertices of the batch, in the
+     * order they appear, then read the responses. A negative direction is not
+     * sent, for the operations that have none. The shards are locked in
+     * ascending order so that concurrent batches cannot deadlock. Batches 
+     * larger than the servers accept are sent in slices. 
+     */
+    private void request(byte op, byte direction, long[] vertices, ResultReader reader) {
+        checkUsable();
+        if (vertices.length > MAX_BATCH) {
+            for (int from = 0; from < vertices.length; from += MAX_BATCH) {
+                final int offset = from;
+                request(op, direction, Arrays.copyOfRange(vertices, from, Math.min(from + MAX_BATCH, vertices.length)),
+                        (in, i) -> reader.read(in, offset + i));
+            }
+            return;
+        }
+        int numShards = shards.length;
+        int[] offsets = new int[numShards + 1];
+        int[] owner = new int[vertices.length];
+        for (int i = 0; i < vertices.length; i++) {
+            owner[i] = shardOf(vertices[i]);
+            offsets[owner[i] + 1]++;
+        }
+        for (int s = 0; s < numShards; s++) {
+            offsets[s + 1] += offsets[s];
+        }
+        int[] order = new int[vertices.length];
+        int[] next = offsets.clone();
+        for (int i = 0; i < vertices.length; i++) {
+            order[next[owner[i]]++] = i;
+        }
+
+        int locked = 0;
+        try {
+            for (; locked < numShards; locked++) {
+                if (offsets[locked + 1] > offsets[locked]) {
+                    shards[locked].lock.lock();
+                }
+            }
+            for (int s = 0; s < numShards; s++) {
+                if (offsets[s + 1] > offsets[s]) {
+                    DataOutputStream out = shards[s].out;
+                    out.writeByte(op);
+                    if (direction >= 0) {
+                        out.writeByte(direction);
+                    }
+                    out.writeInt(offsets[s + 1] - offsets[s]);
+                    for (int j = offsets[s]; j < offsets[s + 1]; j++) {
+                        out.writeLong(vertices[order[j]]);
+                    }
+                    out.flush();
+                }
+            }
+            for (int s = 0; s < numShards; s++) {
+                if (offsets[s + 1] > offsets[s]) {
+                    DataInputStream in = shards[s].response();
+                    for (int j = offsets[s]; j < offsets[s + 1]; j++) {
+                        reader.read(in, order[j]);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw fail(ex);
+        } finally {
+            for (int s = locked - 1; s >= 0; s--) {
+                if (offsets[s + 1] > offsets[s]) {
+                    shards[s].lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void checkUsable() {
+        IOException cause = failure;
+        if (cause != null) {
+            throw new UncheckedIOException("The graph cannot be used: " + cause.getMessage(), cause);
+        }
+    }
+
+    /*
+     * Record the first failure and close all the connections, whose streams
+     * may be out of sync
+     */
+    private UncheckedIOException fail(IOException ex) {
+        synchronized (this) {
+            if (failure == null) {
+                failure = ex;
+            }
+        }
+        closeConnections();
+        return new UncheckedIOException(ex);
+    }
+
+    /**
+     * Check which vertices are in the graph, with one request per shard
+     *
+     * @param vertices The vertices to be checked
+     * @return True in position i if the i-th vertex is in the graph
+     */
+    public boolean[] containsVertices(long[] vertices) {
+        boolean[] contained = new boolean[vertices.length];
+        request(CONTAINS, (byte) -1, vertices, (in, i) -> contained[i] = in.readBoolean());
+        return contained;
+    }
+
+    /**
+     * Returns the in degrees of the vertices, with one request per shard
+     *
+     * @param vertices The vertices
+     * @return The in degree of each vertex, 0 if it is not in the graph
+     */
+    public int[] inDegreesOf(long[] vertices) {
+        return degreesOf(vertices, INCOMING);
+    }
+
+    /**
+     * Returns the out degrees of the vertices, with one request per shard
+     *
+     * @param vertices The vertices
+     * @return The out degree of each vertex, 0 if it is not in the graph
+     */
+    public int[] outDegreesOf(long[] vertices) {
+        return degreesOf(vertices, OUTGOING);
+    }
+
+    private int[] degreesOf(long[] vertices, byte direction) {
+        int[] degrees = new int[vertices.length];
+        request(DEGREES, direction, vertices, (in, i) -> degrees[i] = in.readInt());
+        return degrees;
+    }
+
+    /**
+     * Returns the incoming edges of the vertices, with one request per shard
+     *
+     * @param vertices The vertices
+     * @return The incoming edges of each vertex, empty if it is not in the 
+     * graph
+     */
+    public Edge[][] incomingEdgesOf(long[] vertices) {
+        return edgesOf(vertices, INCOMING);
+    }
+
+    /**
+     * Returns the outgoing edges of the vertices, with one request per shard
+     *
+     * @param vertices The vertices
+     * @return The outgoing edges of each vertex, empty if it is not in the 
+     * graph
+     */
+    public Edge[][] outgoingEdgesOf(long[] vertices) {
+        return edgesOf(vertices, OUTGOING);
+    }
+
+    private Edge[][] edgesOf(long[] vertices, byte direction) {
+        Edge[][] edges = new Edge[vertices.length][];
+        request(EDGES, direction, vertices, (in, i) -> {
+            Edge[] vertexEdges = new Edge[in.readInt()];
+            for (int j = 0; j < vertexEdges.length; j++) {
+                long other = in.readLong();
+                long label = in.readLong();
+                vertexEdges[j] = direction == INCOMING
+                        ? new Edge(other, vertices[i], label)
+                        : new Edge(vertices[i], other, label);
+            }
+            edges[i] = vertexEdges;
+        });
+        return edges;
+    }
+
+    /*
+     * Returns a page of the vertices owned by a shard
+     */
+    private long[] vertexPage(int shard, int from) {
+        checkUsable();
+        Shard s = shards[shard];
+        s.lock.lock();
+        try {
+            s.out.writeByte(VERTICES);
+            s.out.writeInt(from);
+            s.out.writeInt(PAGE_SIZE);
+            s.out.flush();
+            DataInputStream in = s.response();
+            long[] page = new long[in.readInt()];
+            for (int i = 0; i < page.length; i++) {
+                page[i] = in.readLong();
+            }
+            return page;
+        } catch (IOException ex) {
+            throw fail(ex);
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /*
+     * Iterates the vertices shard by shard, one page at a time
+     */
+    private class VertexIterator implements Iterator<Long> {
+
+        private int shard = 0;
+        private int from = 0;
+        private long[] page = new long[0];
+        private int index = 0;
+
+        @Override
+        public boolean hasNext() {
+            while (index == page.length && shard < shards.length) {
+                page = vertexPage(shard, from);
+                from += page.length;
+                index = 0;
+                if (page.length < PAGE_SIZE) {
+                    shard++;
+                    from = 0;
+                }
+            }
+            return index < page.length;
+        }
+
+        @Override
+        public Long next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more vertices");
+            }
+            return page[index++];
+        }
+
+        /*
+         * Used by the edge iterator to fetch the edges of a whole page
+         */
+        long[] nextPage() {
+            if (!hasNext()) {
+                return null;
+            }
+            long[] rest = index == 0 ? page : Arrays.copyOfRange(page, index, page.length);
+            index = page.length;
+            return rest;
+        }
+    }
+
+    /*
+     * Iterates the outgoing edges of the vertices, fetching the edges of a 
+     * page of vertices with a single request
+     */
+    private class EdgeIterator implements Iterator<Edge> {
+
+        private final VertexIterator vertices = new VertexIterator();
+        private Edge[][] edges = new Edge[0][];
+        private int vertex = 0;
+        private int edge = 0;
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                while (vertex < edges.length && edge == edges[vertex].length) {
+                    vertex++;
+                    edge = 0;
+                }
+                if (vertex < edges.length) {
+                    return true;
+                }
+                long[] page = vertices.nextPage();
+                if (page == null) {
+                    return false;
+                }
+                edges = outgoingEdgesOf(page);
+                vertex = 0;
+                edge = 0;
+            }
+        }
+
+        @Override
+        public Edge next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more edges");
+            }
+            return edges[vertex][edge++];
+        }
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new VertexIterator();
+    }
+
+    @Override
+    public Collection<Long> vertexSet() {
+        if (vertexSet == null) {
+            vertexSet = new AbstractCollection<Long>() {
+                @Override
+                public Iterator<Long> iterator() {
+                    return new VertexIterator();
+                }
+
+                @Override
+                public int size() {
+                    return numberOfNodes;
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return o instanceof Long && containsVertex((Long) o);
+                }
+            };
+        }
+        return vertexSet;
+    }
+
+    @Override
+    public Collection<Edge> edgeSet() {
+        if (edgeSet == null) {
+            edgeSet = new AbstractCollection<Edge>() {
+                @Override
+                public Iterator<Edge> iterator() {
+                    return new EdgeIterator();
+                }
+
+                @Override
+                public int size() {
+                    return numberOfEdges();
+                }
+            };
+        }
+        return edgeSet;
+    }
+
+    @Override
+    public Iterator<Edge> edgesIterator() {
+        return new EdgeIterator();
+    }
+
+    @Override
+    public int numberOfNodes() {
+        return numberOfNodes;
+    }
+
+    @Override
+    public int numberOfEdges() {
+        return (int) Math.min(numberOfEdges, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the union of the labels of the shards, fetched on the first call
+     *
+     * @return The labels of the graph
+     */
+    @Override
+    public Collection<Long> labelSet() {
+        if (labelSet == null) {
+            checkUsable();
+            Set<Long> labels = new HashSet<>();
+            for (Shard s : shards) {
+                s.lock.lock();
+                try {
+                    s.out.writeByte(LABELS);
+                    s.out.flush();
+                    DataInputStream in = s.response();
+                    for (int n = in.readInt(); n > 0; n--) {
+                        labels.add(in.readLong());
+                    }
+                } catch (IOException ex) {
+                    throw fail(ex);
+                } finally {
+                    s.lock.unlock();
+                }
+            }
+            labelSet = Collections.unmodifiableSet(labels);
+        }
+        return labelSet;
+    }
+
+    @Override
+    public boolean containsVertex(Long vertex) throws NullPointerException {
+        return containsVertices(new long[]{vertex})[0];
+    }
+
+    @Override
+    public int degreeOf(Long vertex) throws NullPointerException {
+        return inDegreeOf(vertex) + outDegreeOf(vertex);
+    }
+
+    @Override
+    public int inDegreeOf(Long vertex) throws NullPointerException {
+        return inDegreesOf(new long[]{vertex})[0];
+    }
+
+    @Override
+    public int outDegreeOf(Long vertex) throws NullPointerException {
+        return outDegreesOf(new long[]{vertex})[0];
+    }
+
+    @Override
+    public Collection<Edge> incomingEdgesOf(Long vertex) throws NullPointerException {
+        return new ArrayList<>(Arrays.asList(incomingEdgesOf(new long[]{vertex})[0]));
+    }
+
+    @Override
+    public Iterator<Edge> incomingEdgesIteratorOf(Long vertex) throws NullPointerException {
+        return incomingEdgesOf(vertex).iterator();
+    }
+
+    @Override
+    public Collection<Edge> outgoingEdgesOf(Long vertex) throws NullPointerException {
+        return new ArrayList<>(Arrays.asList(outgoingEdgesOf(new long[]{vertex})[0]));
+    }
+
+    @Override
+    public Iterator<Edge> outgoingEdgesIteratorOf(Long vertex) throws NullPointerException {
+        return outgoingEdgesOf(vertex).iterator();
+    }
+
+    @Override
+    public Iterator<Edge> labeledEdgesIteratorOf(Long label) throws NullPointerException {
+        if (label == null) {
+            throw new NullPointerException("Label cannot be null");
+        }
+        return new LabeledEdgeIterator(new EdgeIterator(), label);
+    }
+
+    @Override
+    public Iterator<Edge> labeledEdgesIteratorOf(Set<Long> labels) throws NullPointerException {
+        if (labels == null) {
+            throw new NullPointerException("Labels cannot be null");
+        }
+        return new LabeledEdgeIterator(new EdgeIterator(), labels);
+    }
+
+    @Override
+    public Collection<Edge> getEdge(Long src, Long dest) throws NullPointerException {
+        Set<Edge> edges = new HashSet<>();
+        for (Edge e : outgoingEdgesOf(new long[]{src})[0]) {
+            if (e.getDestination().equals(dest)) {
+                edges.add(e);
+            }
+        }
+        return edges;
+    }
+
+    @Override
+    public boolean containsEdge(Long src, Long dest) {
+        if (src == null || dest == null) {
+            return false;
+        }
+        return !getEdge(src, dest).isEmpty();
+    }
+
+    @Override
+    public Collection<Edge> edgesOf(Long id) throws NullPointerException {
+        Collection<Edge> edges = incomingEdgesOf(id);
+        edges.addAll(outgoingEdgesOf(id));
+        return edges;
+    }
+
+    @Override
+    public Collection<Long> neighborsOf(Long id) throws NullPointerException {
+        Set<Long> neighbors = new HashSet<>();
+        for (Edge e : incomingEdgesOf(id)) {
+            neighbors.add(e.getSource());
+        }
+        for (Edge e : outgoingEdgesOf(id)) {
+            neighbors.add(e.getDestination());
+        }
+        return neighbors;
+    }
+
+    @Override
+    public void addVertex(Long id) throws NullPointerException {
+        throw new UnsupportedOperationException("This graph is read only, this operation is not allowed.");
+    }
+
+    @Override
+    public void addEdge(Long src, Long dest, Long label) throws IllegalArgumentException, NullPointerException {
+        throw new UnsupportedOperationException("This graph is read only, this operation is not allowed.");
+    }
+
+    @Override
+    public void addEdge(Edge edge) throws IllegalArgumentException, NullPointerException {
+        throw new UnsupportedOperationException("This graph is read only, this operation is not allowed.");
+    }
+
+    @Override
+    public void addEdges(long[] src, long[] dest, long[] labels) throws IllegalArgumentException, NullPointerException {
+        throw new UnsupportedOperationException("This graph is read only, this operation is not allowed.");
+    }
+
+    @Override
+    public void removeVertex(Long id) throws NullPointerException {
+        throw new UnsupportedOperationException("This graph is read only, this operation is not allowed.");
+    }
+
+    @Override
+    public void removeEdge(Long src, Long dest, Long label) throws IllegalArgumentException, NullPointerException {
+        throw new UnsupportedOperationException("This graph is read only, this operation is not allowed.");
+    }
+
+    @Override
+    public void removeEdge(Edge edge) throws IllegalArgumentException, NullPointerException {
+        throw new UnsupportedOperationException("This graph is read only, this operation is not allowed.");
+    }
+
+    @Override
+    public void removeEdges(long[] src, long[] dest, long[] labels) throws IllegalArgumentException, NullPointerException {
+        throw new UnsupportedOperationException("This graph is read only, this operation is not allowed.");
+    }
+
+    @Override
+    public Multigraph merge(Multigraph graph) throws NullPointerException {
+        throw new UnsupportedOperationException("This graph is read only, this operation is not allowed.");
+    }
+
+    /**
+     * Close the connections to the shards, the graph cannot be used 
+     * afterwards
+     *
+     * @throws IOException If a connection cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (failure == null) {
+                failure = new IOException("The graph is closed");
+            }
+        }
+        IOException error = closeConnections();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private IOException closeConnections() {
+        IOException error = null;
+        for (Shard s : shards) {
+            if (s != null) {
+                try {
+                    s.socket.close();
+                } catch (IOException ex) {
+                    error = ex;
+                }
+            }
+        }
+        return error;
+    }
+}
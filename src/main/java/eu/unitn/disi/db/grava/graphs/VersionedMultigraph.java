@@ -0,0 +1,931 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A mutable multigraph with multi-version concurrency control: one writer
+ * modifies the graph while any number of readers query consistent snapshots
+ * without taking locks.
+ *
+ * The writer never modifies the adjacency of a node that readers may see,
+ * the first time a node is touched in a version its adjacency is copied and
+ * linked to the previous one. A {@link Snapshot} pins the last committed
+ * version and follows the links back to the adjacency valid at that version.
+ * Old adjacencies are reclaimed on commit once no snapshot needs them.
+ *
+ * The graph itself reflects the latest (possibly uncommitted) changes and must
+ * be read only by the writer, other threads should use {@link #snapshot() }.
+ *
+ * @author agent <agent@local>
+ */
+public class VersionedMultigraph implements Multigraph {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Map<Long, Version> nodeEdges;
+    //Pinned versions and the number of snapshots on each of them
+    private final TreeMap<Long, Integer> pins;
+    //Nodes with older adjacencies, in the order they have been superseded
+    private final ArrayDeque<Retired> retired;
+    private final Map<Long, Integer> labelCounts;
+    private final View latest;
+
+    private volatile State published;
+    private long writeVersion;
+    private boolean autoCommit;
+    private boolean dirty;
+    private int numNodes;
+    private int numEdges;
+
+    public VersionedMultigraph() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct an empty multigraph with an initial capacity
+     *
+     * @param initialCapacity The expected number of nodes
+     */
+    public VersionedMultigraph(int initialCapacity) {
+        nodeEdges = new ConcurrentHashMap<>(initialCapacity);
+        pins = new TreeMap<>();
+        retired = new ArrayDeque<>();
+        labelCounts = new HashMap<>();
+        published = new State(0, 0, 0);
+        writeVersion = 1;
+        autoCommit = true;
+        latest = new View() {
+            @Override
+            protected long version() {
+                return Long.MAX_VALUE;
+            }
+
+            @Override
+            public int numberOfNodes() {
+                return numNodes;
+            }
+
+            @Override
+            public int numberOfEdges() {
+                return numEdges;
+            }
+
+            @Override
+            public Collection<Long> labelSet() {
+                return Collections.unmodifiableSet(labelCounts.keySet());
+            }
+        };
+    }
+
+    /**
+     * Construct a multigraph whose first version is a copy of the input graph
+     *
+     * @param graph The graph to be copied
+     */
+    public VersionedMultigraph(Multigraph graph) {
+        this(graph.numberOfNodes());
+        autoCommit = false;
+        for (Long node : graph.vertexSet()) {
+            addVertex(node);
+        }
+        Iterator<Edge> it = graph.edgesIterator();
+        while (it.hasNext()) {
+            addEdge(it.next());
+        }
+        setAutoCommit(true);
+    }
+
+    /**
+     * If auto commit is enabled (default) every modification is published
+     * as a new version, otherwise the writer publishes a group of
+     * modifications calling {@link #commit() }.
+     *
+     * @param autoCommit true to publish after every modification
+     */
+    public synchronized void setAutoCommit(boolean autoCommit) {
+        this.autoCommit = autoCommit;
+        if (autoCommit) {
+            commit();
+        }
+    }
+
+    /**
+     * Publish the modifications made so far, new snapshots will see them.
+     * Adjacencies that are no longer visible to any snapshot are reclaimed.
+     */
+    public synchronized void commit() {
+        if (dirty) {
+            published = new State(writeVersion, numNodes, numEdges);
+            writeVersion++;
+            dirty = false;
+        }
+        reclaim();
+    }
+
+    /**
+     * Returns the last committed version
+     *
+     * @return The version new snapshots will pin
+     */
+    public long getVersion() {
+        return published.version;
+    }
+
+    /**
+     * Pin the last committed version and returns a read-only view of it. The
+     * snapshot must be closed to allow old versions to be reclaimed.
+     *
+     * @return A consistent snapshot of the graph
+     */
+    public Snapshot snapshot() {
+        synchronized (pins) {
+            State state = published;
+            pins.merge(state.version, 1, Integer::sum);
+            return new Snapshot(state);
+        }
+    }
+
+    /**
+     * Returns the number of open snapshots
+     *
+     * @return The number of pinned snapshots
+     */
+    public int getNumSnapshots() {
+        synchronized (pins) {
+            int count = 0;
+            for (Integer c : pins.values()) {
+                count += c;
+            }
+            return count;
+        }
+    }
+
+    /*
+     * Drop the adjacencies older than the oldest pinned version, called by
+     * the writer only.
+     */
+    private void reclaim() {
+        long oldest;
+        synchronized (pins) {
+            oldest = pins.isEmpty() ? published.version : Math.min(pins.firstKey(), published.version);
+        }
+        Retired r;
+        Version head, v;
+        while (!retired.isEmpty() && retired.peek().version <= oldest) {
+            r = retired.poll();
+            head = nodeEdges.get(r.node);
+            v = head;
+            while (v != null && v.version > oldest) {
+                v = v.previous;
+            }
+            if (v != null) {
+                v.previous = null;
+                if (v == head && v.isDeleted()) {
+                    nodeEdges.remove(r.node, v);
+                }
+            }
+        }
+    }
+
+    private void modified() {
+        dirty = true;
+        if (autoCommit) {
+            commit();
+        }
+    }
+
+    /*
+     * Returns the adjacency of the node in the version being written,
+     * copying the last one if needed
+     */
+    private Version writable(Long node) {
+        Version head = nodeEdges.get(node);
+        if (head == null || head.isDeleted()) {
+            return null;
+        }
+        if (head.version == writeVersion) {
+            return head;
+        }
+        Version copy = new Version(writeVersion, new HashSet<>(head.incoming), new HashSet<>(head.outgoing), head);
+        nodeEdges.put(node, copy);
+        retired.add(new Retired(writeVersion, node));
+        return copy;
+    }
+
+    private boolean insertEdge(Edge e) {
+        Version src = writable(e.getSource());
+        if (src == null) {
+            throw new IllegalArgumentException("Source node is not in the vertex list. Call addVertex before");
+        }
+        if (!nodeEdges.containsKey(e.getDestination()) || nodeEdges.get(e.getDestination()).isDeleted()) {
+            throw new IllegalArgumentException("Destination node is not in the vertex list. Call addVertex before");
+        }
+        if (src.outgoing.contains(e)) {
+            return false;
+        }
+        src.outgoing.add(e);
+        writable(e.getDestination()).incoming.add(e);
+        labelCounts.merge(e.getLabel(), 1, Integer::sum);
+        numEdges++;
+        return true;
+    }
+
+    private boolean deleteEdge(Edge e) {
+        Version src = nodeEdges.get(e.getSource());
+        if (src == null || src.isDeleted() || !src.outgoing.contains(e)) {
+            return false;
+        }
+        writable(e.getSource()).outgoing.remove(e);
+        writable(e.getDestination()).incoming.remove(e);
+        labelCounts.computeIfPresent(e.getLabel(), (l, count) -> count > 1 ? count - 1 : null);
+        numEdges--;
+        return true;
+    }
+
+    @Override
+    public synchronized void addVertex(Long id) throws NullPointerException {
+        if (id == null) {
+            throw new NullPointerException("Vertex cannot be null");
+        }
+        Version head = nodeEdges.get(id);
+        if (head != null && !head.isDeleted()) {
+            return;
+        }
+        Version previous = head == null ? null : (head.version == writeVersion ? head.previous : head);
+        nodeEdges.put(id, new Version(writeVersion, new HashSet<>(), new HashSet<>(), previous));
+        if (previous != null && head.version != writeVersion) {
+            retired.add(new Retired(writeVersion, id));
+        }
+        numNodes++;
+        modified();
+    }
+
+    @Override
+    public synchronized void addEdge(Long src, Long dest, Long label) throws IllegalArgumentException, NullPointerException {
+        addEdge(new Edge(src, dest, label));
+    }
+
+    @Override
+    public synchronized void addEdge(Edge edge) throws IllegalArgumentException, NullPointerException {
+        if (insertEdge(edge)) {
+            modified();
+        }
+    }
+
+    /**
+     * Add a batch of edges, published as a single version
+     *
+     * @param src The source nodes of the edges
+     * @param dest The destination nodes of the edges
+     * @param labels The labels of the edges
+     */
+    @Override
+    public synchronized void addEdges(long[] src, long[] dest, long[] labels) throws IllegalArgumentException, NullPointerException {
+        checkBatch(src, dest, labels);
+        for (int i = 0; i < src.length; i++) {
+            if (!containsVertex(src[i]) || !containsVertex(dest[i])) {
+                throw new IllegalArgumentException("Edge " + src[i] + "-[" + labels[i] + "]->" + dest[i] + " has nodes not in the vertex list. Call addVertex before");
+            }
+        }
+        boolean changed = false;
+        for (int i = 0; i < src.length; i++) {
+            changed = insertEdge(new Edge(src[i], dest[i], labels[i])) || changed;
+        }
+        if (changed) {
+            modified();
+        }
+    }
+
+    @Override
+    public synchronized void removeVertex(Long id) throws NullPointerException {
+        if (id == null) {
+            throw new NullPointerException("Vertex cannot be null");
+        }
+        Version head = nodeEdges.get(id);
+        if (head == null || head.isDeleted()) {
+            return;
+        }
+        for (Edge e : new ArrayList<>(head.incoming)) {
+            deleteEdge(e);
+        }
+        for (Edge e : new ArrayList<>(nodeEdges.get(id).outgoing)) {
+            deleteEdge(e);
+        }
+        head = nodeEdges.get(id);
+        Version previous = head.version == writeVersion ? head.previous : head;
+        if (previous == null) {
+            nodeEdges.remove(id);
+        } else {
+            nodeEdges.put(id, new Version(writeVersion, null, null, previous));
+            if (head.version != writeVersion) {
+                retired.add(new Retired(writeVersion, id));
+            }
+        }
+        numNodes--;
+        modified();
+    }
+
+    @Override
+    public synchronized void removeEdge(Long src, Long dest, Long label) throws IllegalArgumentException, NullPointerException {
+        removeEdge(new Edge(src, dest, label));
+    }
+
+    @Override
+    public synchronized void removeEdge(Edge edge) throws IllegalArgumentException, NullPointerException {
+        if (deleteEdge(edge)) {
+            modified();
+        }
+    }
+
+    /**
+     * Remove a batch of edges, published as a single version
+     *
+     * @param src The source nodes of the edges
+     * @param dest The destination nodes of the edges
+     * @param labels The labels of the edges
+     */
+    @Override
+    public synchronized void removeEdges(long[] src, long[] dest, long[] labels) throws IllegalArgumentException, NullPointerException {
+        checkBatch(src, dest, labels);
+        boolean changed = false;
+        for (int i = 0; i < src.length; i++) {
+            changed = deleteEdge(new Edge(src[i], dest[i], labels[i])) || changed;
+        }
+        if (changed) {
+            modified();
+        }
+    }
+
+    private static void checkBatch(long[] src, long[] dest, long[] labels) {
+        if (src == null || dest == null || labels == null) {
+            throw new NullPointerException("Batch arrays cannot be null");
+        }
+        if (src.length != dest.length || src.length != labels.length) {
+            throw new IllegalArgumentException("Batch arrays must have the same length");
+        }
+    }
+
+    @Override
+    public synchronized Multigraph merge(Multigraph graph) throws NullPointerException {
+        Iterator<Edge> it = graph.edgesIterator();
+        Edge e;
+        boolean changed = false;
+        boolean commit = autoCommit;
+        autoCommit = false;
+        try {
+            for (Long node : graph.vertexSet()) {
+                addVertex(node);
+            }
+            while (it.hasNext()) {
+                e = it.next();
+                changed = insertEdge(e) || changed;
+            }
+        } finally {
+            autoCommit = commit;
+        }
+        if (changed) {
+            modified();
+        } else if (autoCommit) {
+            commit();
+        }
+        return this;
+    }
+
+    @Override
+    public Collection<Long> vertexSet() {
+        return latest.vertexSet();
+    }
+
+    @Override
+    public int numberOfNodes() {
+        return latest.numberOfNodes();
+    }
+
+    @Override
+    public int numberOfEdges() {
+        return latest.numberOfEdges();
+    }
+
+    @Override
+    public Collection<Edge> edgeSet() {
+        return latest.edgeSet();
+    }
+
+    @Override
+    public Collection<Long> labelSet() {
+        return latest.labelSet();
+    }
+
+    @Override
+    public int degreeOf(Long vertex) throws NullPointerException {
+        return latest.degreeOf(vertex);
+    }
+
+    @Override
+    public int inDegreeOf(Long vertex) throws NullPointerException {
+        return latest.inDegreeOf(vertex);
+    }
+
+    @Override
+    public Collection<Edge> incomingEdgesOf(Long vertex) throws NullPointerException {
+        return latest.incomingEdgesOf(vertex);
+    }
+
+    @Override
+    public Iterator<Edge> incomingEdgesIteratorOf(Long vertex) throws NullPointerException {
+        return latest.incomingEdgesIteratorOf(vertex);
+    }
+
+    @Override
+    public int outDegreeOf(Long vertex) throws NullPointerException {
+        return latest.outDegreeOf(vertex);
+    }
+
+    @Override
+    public Collection<Edge> outgoingEdgesOf(Long vertex) throws NullPointerException {
+        return latest.outgoingEdgesOf(vertex);
+    }
+
+    @Override
+    public Iterator<Edge> outgoingEdgesIteratorOf(Long vertex) throws NullPointerException {
+        return latest.outgoingEdgesIteratorOf(vertex);
+    }
+
+    @Override
+    public Iterator<Edge> edgesIterator() {
+        return latest.edgesIterator();
+    }
+
+    @Override
+    public Iterator<Edge> labeledEdgesIteratorOf(Long label) throws NullPointerException {
+        return latest.labeledEdgesIteratorOf(label);
+    }
+
+    @Override
+    public Iterator<Edge> labeledEdgesIteratorOf(Set<Long> labels) throws NullPointerException {
+        return latest.labeledEdgesIteratorOf(labels);
+    }
+
+    @Override
+    public boolean containsVertex(Long vertex) throws NullPointerException {
+        return latest.containsVertex(vertex);
+    }
+
+    @Override
+    public Collection<Edge> getEdge(Long src, Long dest) throws NullPointerException {
+        return latest.getEdge(src, dest);
+    }
+
+    @Override
+    public boolean containsEdge(Long src, Long dest) {
+        return latest.containsEdge(src, dest);
+    }
+
+    @Override
+    public Collection<Edge> edgesOf(Long id) throws NullPointerException {
+        return latest.edgesOf(id);
+    }
+
+    @Override
+    public Collection<Long> neighborsOf(Long id) throws NullPointerException {
+        return latest.neighborsOf(id);
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return latest.iterator();
+    }
+
+    @Override
+    public String toString() {
+        return "VersionedMultigraph{" + "version=" + published.version + ", nodes=" + numNodes + ", edges=" + numEdges + '}';
+    }
+
+    /**
+     * A read-only view of the graph at a committed version. Snapshots are
+     * safe to use from any thread and should be closed when done, otherwise
+     * the versions they pin are never reclaimed.
+     */
+    public class Snapshot extends View implements AutoCloseable {
+
+        private final State state;
+        private volatile boolean closed;
+
+        private Snapshot(State state) {
+            this.state = state;
+        }
+
+        @Override
+        protected long version() {
+            if (closed) {
+                throw new IllegalStateException("The snapshot has been closed");
+            }
+            return state.version;
+        }
+
+        /**
+         * Returns the version pinned by this snapshot
+         *
+         * @return The pinned version
+         */
+        public long getVersion() {
+            return state.version;
+        }
+
+        @Override
+        public int numberOfNodes() {
+            version();
+            return state.numNodes;
+        }
+
+        @Override
+        public int numberOfEdges() {
+            version();
+            return state.numEdges;
+        }
+
+        /**
+         * Unpin the version, the snapshot cannot be used anymore
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                synchronized (pins) {
+                    pins.computeIfPresent(state.version, (v, count) -> count > 1 ? count - 1 : null);
+                }
+            }
+        }
+    }
+
+    /*
+     * Read operations over the graph at a specific version, modifications are
+     * not allowed.
+     */
+    private abstract class View implements Multigraph {
+
+        protected abstract long version();
+
+        protected Version resolve(Long node) {
+            if (node == null) {
+                throw new NullPointerException("Vertex cannot be null");
+            }
+            long version = version();
+            Version v = nodeEdges.get(node);
+            while (v != null && v.version > version) {
+                v = v.previous;
+            }
+            return v == null || v.isDeleted() ? null : v;
+        }
+
+        private Version resolveExisting(Long node) {
+            Version v = resolve(node);
+            if (v == null) {
+                throw new IllegalArgumentException("This graph does not contain node " + node);
+            }
+            return v;
+        }
+
+        @Override
+        public void addVertex(Long id) throws NullPointerException {
+            throw new UnsupportedOperationException("This view is read only, this operation is not allowed.");
+        }
+
+        @Override
+        public void addEdge(Long src, Long dest, Long label) throws IllegalArgumentException, NullPointerException {
+            throw new UnsupportedOperationException("This view is read only, this operation is not allowed.");
+        }
+
+        @Override
+        public void addEdge(Edge edge) throws IllegalArgumentException, NullPointerException {
+            throw new UnsupportedOperationException("This view is read only, this operation is not allowed.");
+        }
+
+        @Override
+        public void addEdges(long[] src, long[] dest, long[] labels) throws IllegalArgumentException, NullPointerException {
+            throw new UnsupportedOperationException("This view is read only, this operation is not allowed.");
+        }
+
+        @Override
+        public void removeVertex(Long id) throws NullPointerException {
+            throw new UnsupportedOperationException("This view is read only, this operation is not allowed.");
+        }
+
+        @Override
+        public void removeEdge(Long src, Long dest, Long label) throws IllegalArgumentException, NullPointerException {
+            throw new UnsupportedOperationException("This view is read only, this operation is not allowed.");
+        }
+
+        @Override
+        public void removeEdge(Edge edge) throws IllegalArgumentException, NullPointerException {
+            throw new UnsupportedOperationException("This view is read only, this operation is not allowed.");
+        }
+
+        @Override
+        public void removeEdges(long[] src, long[] dest, long[] labels) throws IllegalArgumentException, NullPointerException {
+            throw new UnsupportedOperationException("This view is read only, this operation is not allowed.");
+        }
+
+        @Override
+        public Multigraph merge(Multigraph graph) throws NullPointerException {
+            throw new UnsupportedOperationException("This view is read only, this operation is not allowed.");
+        }
+
+        @Override
+        public Collection<Long> vertexSet() {
+            return new AbstractCollection<Long>() {
+                @Override
+                public Iterator<Long> iterator() {
+                    return View.this.iterator();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return o instanceof Long && containsVertex((Long) o);
+                }
+
+                @Override
+                public int size() {
+                    return numberOfNodes();
+                }
+            };
+        }
+
+        @Override
+        public Collection<Edge> edgeSet() {
+            return new AbstractCollection<Edge>() {
+                @Override
+                public Iterator<Edge> iterator() {
+                    return edgesIterator();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Edge)) {
+                        return false;
+                    }
+                    Version v = resolve(((Edge) o).getSource());
+                    return v != null && v.outgoing.contains(o);
+                }
+
+                @Override
+                public int size() {
+                    return numberOfEdges();
+                }
+            };
+        }
+
+        /**
+         * Returns the labels of the edges, computed scanning the edges
+         *
+         * @return The set of labels
+         */
+        @Override
+        public Collection<Long> labelSet() {
+            Set<Long> labels = new HashSet<>();
+            Iterator<Edge> it = edgesIterator();
+            while (it.hasNext()) {
+                labels.add(it.next().getLabel());
+            }
+            return labels;
+        }
+
+        @Override
+        public int degreeOf(Long vertex) throws NullPointerException {
+            Version v = resolveExisting(vertex);
+            return v.incoming.size() + v.outgoing.size();
+        }
+
+        @Override
+        public int inDegreeOf(Long vertex) throws NullPointerException {
+            return resolveExisting(vertex).incoming.size();
+        }
+
+        @Override
+        public int outDegreeOf(Long vertex) throws NullPointerException {
+            return resolveExisting(vertex).outgoing.size();
+        }
+
+        @Override
+        public Collection<Edge> incomingEdgesOf(Long vertex) throws NullPointerException {
+            return Collections.unmodifiableSet(resolveExisting(vertex).incoming);
+        }
+
+        @Override
+        public Collection<Edge> outgoingEdgesOf(Long vertex) throws NullPointerException {
+            return Collections.unmodifiableSet(resolveExisting(vertex).outgoing);
+        }
+
+        @Override
+        public Iterator<Edge> incomingEdgesIteratorOf(Long vertex) throws NullPointerException {
+            Version v = resolve(vertex);
+            return v == null ? Collections.<Edge>emptyIterator() : Collections.unmodifiableSet(v.incoming).iterator();
+        }
+
+        @Override
+        public Iterator<Edge> outgoingEdgesIteratorOf(Long vertex) throws NullPointerException {
+            Version v = resolve(vertex);
+            return v == null ? Collections.<Edge>emptyIterator() : Collections.unmodifiableSet(v.outgoing).iterator();
+        }
+
+        @Override
+        public Iterator<Edge> edgesIterator() {
+            return new Iterator<Edge>() {
+                private final Iterator<Long> nodes = View.this.iterator();
+                private Iterator<Edge> current = Collections.<Edge>emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext() && nodes.hasNext()) {
+                        current = outgoingEdgesIteratorOf(nodes.next());
+                    }
+                    return current.hasNext();
+                }
+
+                @Override
+                public Edge next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements to explore");
+                    }
+                    return current.next();
+                }
+            };
+        }
+
+        @Override
+        public Iterator<Edge> labeledEdgesIteratorOf(Long label) throws NullPointerException {
+            if (label == null) {
+                throw new NullPointerException("Label cannot be null");
+            }
+            return new LabeledEdgeIterator(edgesIterator(), label);
+        }
+
+        @Override
+        public Iterator<Edge> labeledEdgesIteratorOf(Set<Long> labels) throws NullPointerException {
+            if (labels == null) {
+                throw new NullPointerException("Label cannot be null");
+            }
+            return new LabeledEdgeIterator(edgesIterator(), labels);
+        }
+
+        @Override
+        public boolean containsVertex(Long vertex) throws NullPointerException {
+            return resolve(vertex) != null;
+        }
+
+        @Override
+        public Collection<Edge> getEdge(Long src, Long dest) throws NullPointerException {
+            Collection<Edge> foundEdges = new ArrayList<>();
+            Version v = resolve(src);
+            if (v != null) {
+                for (Edge e : v.outgoing) {
+                    if (Objects.equals(e.getDestination(), dest)) {
+                        foundEdges.add(e);
+                    }
+                }
+            }
+            return foundEdges;
+        }
+
+        @Override
+        public boolean containsEdge(Long src, Long dest) {
+            return !getEdge(src, dest).isEmpty();
+        }
+
+        @Override
+        public Collection<Edge> edgesOf(Long id) throws NullPointerException {
+            Version v = resolveExisting(id);
+            Collection<Edge> totalEdges = new HashSet<>(v.incoming);
+            totalEdges.addAll(v.outgoing);
+            return totalEdges;
+        }
+
+        @Override
+        public Collection<Long> neighborsOf(Long id) throws NullPointerException {
+            Set<Long> neighs = new HashSet<>();
+            Version v = resolve(id);
+            if (v != null) {
+                for (Edge e : v.incoming) {
+                    neighs.add(e.getSource());
+                }
+                for (Edge e : v.outgoing) {
+                    neighs.add(e.getDestination());
+                }
+            }
+            return neighs;
+        }
+
+        @Override
+        public Iterator<Long> iterator() {
+            final long version = version();
+            return new Iterator<Long>() {
+                private final Iterator<Map.Entry<Long, Version>> entries = nodeEdges.entrySet().iterator();
+                private Long next = null;
+
+                @Override
+                public boolean hasNext() {
+                    Map.Entry<Long, Version> entry;
+                    Version v;
+                    while (next == null && entries.hasNext()) {
+                        entry = entries.next();
+                        v = entry.getValue();
+                        while (v != null && v.version > version) {
+                            v = v.previous;
+                        }
+                        if (v != null && !v.isDeleted()) {
+                            next = entry.getKey();
+                        }
+                    }
+                    return next != null;
+                }
+
+                @Override
+                public Long next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements to explore");
+                    }
+                    Long node = next;
+                    next = null;
+                    return node;
+                }
+            };
+        }
+    }
+
+    /*
+     * The adjacency of a node valid from a version on. A deleted node is
+     * represented with null adjacency.
+     */
+    private static final class Version {
+
+        private final long version;
+        private final Set<Edge> incoming;
+        private final Set<Edge> outgoing;
+        private volatile Version previous;
+
+        public Version(long version, Set<Edge> incoming, Set<Edge> outgoing, Version previous) {
+            this.version = version;
+            this.incoming = incoming;
+            this.outgoing = outgoing;
+            this.previous = previous;
+        }
+
+        public boolean isDeleted() {
+            return incoming == null;
+        }
+    }
+
+    private static final class Retired {
+
+        private final long version;
+        private final Long node;
+
+        public Retired(long version, Long node) {
+            this.version = version;
+            this.node = node;
+        }
+    }
+
+    private static final class State {
+
+        private final long version;
+        private final int numNodes;
+        private final int numEdges;
+
+        public State(long version, int numNodes, int numEdges) {
+            this.version = version;
+            this.numNodes = numNodes;
+            this.numEdges = numEdges;
+        }
+    }
+}
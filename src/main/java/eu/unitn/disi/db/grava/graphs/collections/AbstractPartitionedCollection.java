@@ -22,6 +22,7 @@ import java.util.AbstractCollection;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 /**
  * Represents an a collection that is partitioned (i.e. it contains and array
@@ -34,17 +35,18 @@ public abstract class AbstractPartitionedCollection<E>
     implements PartitionableCollection<E> 
 {
     protected int partitions; 
+    protected volatile Partitioner partitioner = new HashPartitioner();
 
     protected abstract Collection<E>[] getPartitions();
 
     /**
-     * Compute the index of the partition in which the object is stored. It uses
-     * a simple module operation to get the index. 
+     * Compute the index of the partition in which the object is stored using
+     * the {@link Partitioner} of the collection. 
      * @param key The object to know which partition it belongs
      * @return The partition index of the input object
      */
     protected int getIndexPartition(Object key) {
-        return Math.abs(key.hashCode()) % partitions;
+        return partitioner.partition(key, partitions);
     }
     
     @Override
@@ -52,37 +54,80 @@ public abstract class AbstractPartitionedCollection<E>
         return new PartitionIterator<>();
     }
 
+    /**
+     * Returns a spliterator that splits along the partition boundaries, so that
+     * parallel streams process whole partitions in each task. 
+     * @return A spliterator over the partitions
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new PartitionSpliterator<>(getPartitions(), 0, partitions, spliteratorCharacteristics());
+    }
+
+    /**
+     * The characteristics of the spliterator, shared by all the partitions
+     * @return The spliterator characteristics
+     */
+    protected int spliteratorCharacteristics() {
+        return 0;
+    }
+
+    /**
+     * Called when an element is removed from a partition bypassing
+     * {@link #remove(java.lang.Object) }, e.g. through the iterator. 
+     * @param partition The partition of the removed element
+     * @param o The removed element
+     */
+    protected void removed(int partition, Object o) {
+    }
+
     protected class PartitionIterator<E> implements Iterator<E> {
         private int currentPartition; 
         private Iterator<E> currentIterator;
+        private int lastPartition = -1;
+        private Iterator<E> lastIterator;
+        private E last;
+
+        @SuppressWarnings("unchecked")
+        public PartitionIterator() {
+            currentPartition = 0;
+            currentIterator = (Iterator<E>) getPartitions()[0].iterator();
+        }
         
         @Override
         public boolean hasNext() {
-            return currentIterator.hasNext() || currentPartition < partitions; 
+            while (!currentIterator.hasNext() && currentPartition < partitions - 1) {
+                currentPartition++;
+                currentIterator = (Iterator<E>) getPartitions()[currentPartition].iterator();
+            }
+            return currentIterator.hasNext(); 
         }
 
         @Override
         public E next() {
-            if (currentIterator.hasNext()) {
-                return currentIterator.next();
+            if (!hasNext()) {
+                throw new NoSuchElementException("Cannot iterate over the set");
             }
-            currentPartition++;
-            if (currentPartition < partitions) {
-                currentIterator = (Iterator<E>) getPartitions()[currentPartition].iterator();
-                return currentIterator.next();
-            }
-            throw new NoSuchElementException("Cannot iteratoe over the set");
+            last = currentIterator.next();
+            lastIterator = currentIterator;
+            lastPartition = currentPartition;
+            return last;
         }
 
         @Override
         public void remove() {
-            currentIterator.remove();
+            if (lastIterator == null) {
+                throw new IllegalStateException("next() has not been called");
+            }
+            lastIterator.remove();
+            lastIterator = null;
+            removed(lastPartition, last);
         }
     }
 
     @Override
     public Collection<E> getPartition(int i) {
-        if (i < 0 || i > size() - 1) {
+        if (i < 0 || i >= partitions) {
             throw new IllegalArgumentException("i cannot be less than 0 or greter than num partitions");
         }
         return getPartitions()[i];
@@ -123,6 +168,19 @@ public abstract class AbstractPartitionedCollection<E>
         return getPartition(i).size();
     }   
 
+    @Override
+    public Partitioner getPartitioner() {
+        return partitioner;
+    }
+
+    /**
+     * Returns the balance metrics of the partitions
+     * @return The balance of the collection
+     */
+    public PartitionBalance getBalance() {
+        return PartitionBalance.of(this);
+    }
+
     @Override
     public boolean contains(Object o) {
         int index = getIndexPartition(o);
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+/**
+ * Places the nodes according to an explicit assignment, e.g. computed by a 
+ * graph partitioner; nodes that are not in the assignment are hashed. 
+ *
+ * @author agent <agent@local>
+ */
+public class AssignmentPartitioner implements Partitioner {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LongIntHashMap assignment;
+    private final int numPartitions;
+    private final Partitioner fallback;
+
+    /**
+     * Construct a partitioner from an assignment
+     *
+     * @param assignment The partition of each node
+     * @param numPartitions The number of partitions of the assignment
+     */
+    public AssignmentPartitioner(LongIntHashMap assignment, int numPartitions) {
+        if (numPartitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be > 1");
+        }
+        this.assignment = assignment;
+        this.numPartitions = numPartitions;
+        this.fallback = new HashPartitioner();
+    }
+
+    @Override
+    public int partition(Object key, int numPartitions) throws NullPointerException {
+        if (key instanceof Number && numPartitions == this.numPartitions) {
+            int p = assignment.get(((Number) key).longValue());
+            if (p != assignment.getMissingValue()) {
+                return p;
+            }
+        }
+        return fallback.partition(key, numPartitions);
+    }
+
+    /**
+     * Returns the partition assigned to a node
+     *
+     * @param node The node
+     * @return The partition of the node, or the missing value of the 
+     * assignment if the node has not been assigned
+     */
+    public int partitionOf(long node) {
+        return assignment.get(node);
+    }
+
+    public int getNumPartitions() {
+        return numPartitions;
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * A {@link PartitionedList} that can be shared among threads. Each partition
+ * is guarded by its own read-write lock, and the partition sizes are kept in
+ * an atomic Fenwick tree, so threads working on different partitions do not
+ * contend. Positional operations find the partition holding the index 
+ * without locking and then lock that partition only: while other partitions
+ * change, the positions are weakly consistent, as the size of the list. 
+ * 
+ * Iterators work on a copy of each partition taken when the iteration 
+ * reaches it: they are weakly consistent and never throw 
+ * {@link java.util.ConcurrentModificationException}.
+ *
+ * @author agent <agent@local>
+ */
+public class ConcurrentPartitionedList<E> extends PartitionedList<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final PartitionLocks locks;
+    //Fenwick tree over the partition sizes, 1-based
+    private final AtomicIntegerArray sizes;
+    private final AtomicInteger size;
+    //Held by the bulk updates and, exclusively, by the rebalances
+    private final ReentrantReadWriteLock migration = new ReentrantReadWriteLock();
+    private transient SnapshotView<E> snapshots;
+
+    public ConcurrentPartitionedList(int initialCapacity, int numPartitions) {
+        this(initialCapacity, numPartitions, new HashPartitioner(), false);
+    }
+
+    public ConcurrentPartitionedList(int initialCapacity, int numPartitions, Partitioner partitioner, boolean indexed) {
+        super(initialCapacity, numPartitions, partitioner, indexed);
+        locks = new PartitionLocks(numPartitions);
+        sizes = new AtomicIntegerArray(numPartitions + 1);
+        size = new AtomicInteger();
+    }
+
+    /**
+     * Returns the lock guarding the i-th partition, it must be held to read
+     * the list returned by {@link #getPartition(int) }
+     * @param i The index of the partition
+     * @return The lock of the partition
+     */
+    public ReadWriteLock getLock(int i) {
+        return locks.get(i);
+    }
+
+    @Override
+    protected void sizeChanged(int partition, int delta) {
+        size.addAndGet(delta);
+        for (int i = partition + 1; i <= partitions; i += i & -i) {
+            sizes.addAndGet(i, delta);
+        }
+    }
+
+    @Override
+    protected int offsetOf(int partition) {
+        int sum = 0;
+        for (int i = partition; i > 0; i -= i & -i) {
+            sum += sizes.get(i);
+        }
+        return sum;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Finds the partition containing a global position. The partition may be
+     * out of range or shorter than the position if other partitions change 
+     * meanwhile, the callers check it once the partition is locked. 
+     * @param index The global position
+     * @return The partition in the high 32 bits and the position within the
+     * partition in the low ones
+     * @throws ArrayIndexOutOfBoundsException If the index is out of the list
+     */
+    @Override
+    protected long locate(int index) {
+        if (index < 0) {
+            throw new ArrayIndexOutOfBoundsException("Index is less than 0");
+        }
+        if (index >= size()) {
+            throw new ArrayIndexOutOfBoundsException("Input index is greater than the size of the list");
+        }
+        int pos = 0, remaining = index, offset;
+        for (int step = Integer.highestOneBit(partitions); step > 0; step >>= 1) {
+            if (pos + step <= partitions && (offset = sizes.get(pos + step)) <= remaining) {
+                pos += step;
+                remaining -= offset;
+            }
+        }
+        return ((long) pos << 32) | remaining;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int p = locks.lock(e, this::getIndexPartition, true);
+        try {
+            return super.add(e);
+        } finally {
+            locks.unlock(p, true);
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int p = locks.lock(o, this::getIndexPartition, true);
+        try {
+            return super.remove(o);
+        } finally {
+            locks.unlock(p, true);
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        int p = locks.lock(o, this::getIndexPartition, false);
+        try {
+            return super.contains(o);
+        } finally {
+            locks.unlock(p, false);
+        }
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int p = locks.lock(o, this::getIndexPartition, false);
+        try {
+            return super.indexOf(o);
+        } finally {
+            locks.unlock(p, false);
+        }
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        int p = locks.lock(o, this::getIndexPartition, false);
+        try {
+            return super.lastIndexOf(o);
+        } finally {
+            locks.unlock(p, false);
+        }
+    }
+
+    @Override
+    public E get(int index) {
+        while (true) {
+            long loc = locate(index);
+            int p = (int) (loc >>> 32);
+            if (p < partitions) {
+                locks.lock(p, false);
+                try {
+                    if ((int) loc < partition(p).size()) {
+                        return partition(p).get((int) loc);
+                    }
+                } finally {
+                    locks.unlock(p, false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public E set(int index, E element) {
+        while (true) {
+            long loc = locate(index);
+            int p = (int) (loc >>> 32);
+            if (p < partitions) {
+                locks.lock(p, true);
+                try {
+                    if ((int) loc < partition(p).size()) {
+                        return setLocal(p, (int) loc, element);
+                    }
+                } finally {
+                    locks.unlock(p, true);
+                }
+            }
+        }
+    }
+
+    @Override
+    public E remove(int index) {
+        while (true) {
+            long loc = locate(index);
+            int p = (int) (loc >>> 32);
+            if (p < partitions) {
+                locks.lock(p, true);
+                try {
+                    if ((int) loc < partition(p).size()) {
+                        return removeLocal(p, (int) loc);
+                    }
+                } finally {
+                    locks.unlock(p, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add all the elements, grouped by partition. The touched partitions are
+     * locked together in ascending order, so the update is atomic. 
+     * @param c The elements to be added
+     * @return True if the list changed
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        migration.readLock().lock();
+        try {
+            addGrouped(c);
+        } finally {
+            migration.readLock().unlock();
+        }
+        return !c.isEmpty();
+    }
+
+    private void addGrouped(Collection<? extends E> c) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<E>[] groups = new List[partitions];
+        boolean[] touched = new boolean[partitions];
+        for (E e : c) {
+            int p = getIndexPartition(e);
+            if (groups[p] == null) {
+                groups[p] = new ArrayList<>();
+                touched[p] = true;
+            }
+            groups[p].add(e);
+        }
+        locks.lock(touched, true);
+        try {
+            for (int p = 0; p < partitions; p++) {
+                if (touched[p]) {
+                    for (E e : groups[p]) {
+                        super.add(e);
+                    }
+                }
+            }
+        } finally {
+            locks.unlock(touched, true);
+        }
+    }
+
+    /**
+     * Rebalance the list while it is in use. Each move holds the write locks
+     * of the two partitions involved, so the other partitions stay available;
+     * {@link #addAll(java.util.Collection) } waits for the whole rebalance. 
+     * @param threshold The largest imbalance tolerated, at least 1
+     * @return The balance before and after the rebalance
+     */
+    @Override
+    public RebalanceReport rebalance(double threshold) {
+        migration.writeLock().lock();
+        try {
+            return super.rebalance(threshold);
+        } finally {
+            migration.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compact the overrides holding all the read locks, so that no element 
+     * is added while its override is dropped
+     * @param overrides The partitioner recording the moved elements
+     */
+    @Override
+    protected void compactOverrides(RebalancedPartitioner overrides) {
+        locks.lockAll(false);
+        try {
+            super.compactOverrides(overrides);
+        } finally {
+            locks.unlockAll(false);
+        }
+    }
+
+    @Override
+    protected int migrate(int from, int to, int count, RebalancedPartitioner overrides) {
+        boolean[] pair = new boolean[partitions];
+        pair[from] = pair[to] = true;
+        locks.lock(pair, true);
+        try {
+            return super.migrate(from, to, count, overrides);
+        } finally {
+            locks.unlock(pair, true);
+        }
+    }
+
+    @Override
+    public void clear() {
+        locks.lockAll(true);
+        try {
+            super.clear();
+        } finally {
+            locks.unlockAll(true);
+        }
+    }
+
+    private SnapshotView<E> snapshots() {
+        if (snapshots == null) {
+            Collection<E>[] parts = getPartitions();
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Collection<E>[] views = new Collection[partitions];
+            for (int i = 0; i < partitions; i++) {
+                views[i] = new SnapshotPartition<E, E>(parts[i], locks.read(i), Function.identity(), this::remove);
+            }
+            snapshots = new SnapshotView<>(views);
+        }
+        return snapshots;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return snapshots().iterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return snapshots().spliterator();
+    }
+}
@@ -0,0 +1,552 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A {@link PartitionedMap} that can be shared among threads. Each partition is
+ * guarded by its own read-write lock, so threads working on different 
+ * partitions do not contend and the contention drops as the number of 
+ * partitions grows. Single-key operations, included the compound ones of
+ * {@link ConcurrentMap}, are atomic; bulk operations lock the partitions they
+ * touch in ascending order. 
+ * 
+ * The key, value and entry views iterate over a copy of each partition taken
+ * when the iteration reaches it: they are weakly consistent and never throw 
+ * {@link java.util.ConcurrentModificationException}.
+ *
+ * @author agent <agent@local>
+ */
+public class ConcurrentPartitionedMap<K, V> extends PartitionedMap<K, V> implements ConcurrentMap<K, V> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final PartitionLocks locks;
+    //Held by the bulk updates and, exclusively, by the rebalances
+    private final ReentrantReadWriteLock migration = new ReentrantReadWriteLock();
+    private transient Set<K> keySet;
+    private transient Collection<V> values;
+    private transient Set<Entry<K, V>> entrySet;
+
+    private static final int MIGRATION_BATCH = 1024;
+
+    public ConcurrentPartitionedMap(int initialCapacity, float loadFactor, int numPartitions) {
+        this(initialCapacity, loadFactor, numPartitions, new HashPartitioner());
+    }
+
+    public ConcurrentPartitionedMap(int initialCapacity, float loadFactor, int numPartitions, Partitioner partitioner) {
+        super(initialCapacity, loadFactor, numPartitions, partitioner);
+        locks = new PartitionLocks(numPartitions);
+    }
+
+    /**
+     * Returns the lock guarding the i-th partition, it must be held to access
+     * the map returned by {@link #getPartition(int) }
+     * @param i The index of the partition
+     * @return The lock of the partition
+     */
+    public ReadWriteLock getLock(int i) {
+        return locks.get(i);
+    }
+
+    private int partitionOf(Object key) {
+        return getPartitioner().partition(key, getNumPartitions());
+    }
+
+    private Map<K, V> raw(int partition) {
+        return super.getPartition(partition);
+    }
+
+    @Override
+    public int size() {
+        locks.lockAll(false);
+        try {
+            return super.size();
+        } finally {
+            locks.unlockAll(false);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        locks.lockAll(false);
+        try {
+            return super.isEmpty();
+        } finally {
+            locks.unlockAll(false);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int p = locks.lock(key, this::partitionOf, false);
+        try {
+            return super.containsKey(key);
+        } finally {
+            locks.unlock(p, false);
+        }
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (int i = 0; i < getNumPartitions(); i++) {
+            Lock lock = locks.read(i);
+            lock.lock();
+            try {
+                if (raw(i).containsValue(value)) {
+                    return true;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public V get(Object key) {
+        int p = locks.lock(key, this::partitionOf, false);
+        try {
+            return super.get(key);
+        } finally {
+            locks.unlock(p, false);
+        }
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        int p = locks.lock(key, this::partitionOf, false);
+        try {
+            return raw(p).getOrDefault(key, defaultValue);
+        } finally {
+            locks.unlock(p, false);
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        int p = locks.lock(key, this::partitionOf, true);
+        try {
+            return super.put(key, value);
+        } finally {
+            locks.unlock(p, true);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        int p = locks.lock(key, this::partitionOf, true);
+        try {
+            return super.remove(key);
+        } finally {
+            locks.unlock(p, true);
+        }
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        int p = locks.lock(key, this::partitionOf, true);
+        try {
+            return raw(p).putIfAbsent(key, value);
+        } finally {
+            locks.unlock(p, true);
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        int p = locks.lock(key, this::partitionOf, true);
+        try {
+            return raw(p).remove(key, value);
+        } finally {
+            locks.unlock(p, true);
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        int p = locks.lock(key, this::partitionOf, true);
+        try {
+            return raw(p).replace(key, oldValue, newValue);
+        } finally {
+            locks.unlock(p, true);
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        int p = locks.lock(key, this::partitionOf, true);
+        try {
+            return raw(p).replace(key, value);
+        } finally {
+            locks.unlock(p, true);
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        int p = locks.lock(key, this::partitionOf, true);
+        try {
+            return raw(p).computeIfAbsent(key, mappingFunction);
+        } finally {
+            locks.unlock(p, true);
+        }
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        int p = locks.lock(key, this::partitionOf, true);
+        try {
+            return raw(p).computeIfPresent(key, remappingFunction);
+        } finally {
+            locks.unlock(p, true);
+        }
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        int p = locks.lock(key, this::partitionOf, true);
+        try {
+            return raw(p).compute(key, remappingFunction);
+        } finally {
+            locks.unlock(p, true);
+        }
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        int p = locks.lock(key, this::partitionOf, true);
+        try {
+            return raw(p).merge(key, value, remappingFunction);
+        } finally {
+            locks.unlock(p, true);
+        }
+    }
+
+    /**
+     * Put all the entries of the input map, grouped by partition. The touched
+     * partitions are locked together in ascending order, so the update is 
+     * atomic. 
+     * @param m The entries to be added
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        migration.readLock().lock();
+        try {
+            putGrouped(m);
+        } finally {
+            migration.readLock().unlock();
+        }
+    }
+
+    private void putGrouped(Map<? extends K, ? extends V> m) {
+        int n = getNumPartitions();
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<Entry<? extends K, ? extends V>>[] groups = new List[n];
+        boolean[] touched = new boolean[n];
+        for (Entry<? extends K, ? extends V> e : m.entrySet()) {
+            int p = partitionOf(e.getKey());
+            if (groups[p] == null) {
+                groups[p] = new ArrayList<>();
+                touched[p] = true;
+            }
+            groups[p].add(e);
+        }
+        locks.lock(touched, true);
+        try {
+            for (int p = 0; p < n; p++) {
+                if (touched[p]) {
+                    Map<K, V> partition = raw(p);
+                    for (Entry<? extends K, ? extends V> e : groups[p]) {
+                        partition.put(e.getKey(), e.getValue());
+                    }
+                }
+            }
+        } finally {
+            locks.unlock(touched, true);
+        }
+    }
+
+    /**
+     * Rebalance the map while it is in use. Keys are moved in small batches
+     * holding the write locks of the two partitions involved, so the other 
+     * partitions stay available and an operation on a moving key waits for 
+     * one batch at most. {@link #putAll(java.util.Map) } waits for the whole
+     * rebalance. 
+     * @param threshold The largest imbalance tolerated, at least 1
+     * @return The balance before and after the rebalance
+     */
+    @Override
+    public RebalanceReport rebalance(double threshold) {
+        migration.writeLock().lock();
+        try {
+            return super.rebalance(threshold);
+        } finally {
+            migration.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compact the overrides holding all the read locks, so that no key is
+     * added while its override is dropped
+     * @param overrides The partitioner recording the moved keys
+     */
+    @Override
+    protected void compactOverrides(RebalancedPartitioner overrides) {
+        locks.lockAll(false);
+        try {
+            super.compactOverrides(overrides);
+        } finally {
+            locks.unlockAll(false);
+        }
+    }
+
+    @Override
+    protected int migrate(int from, int to, int count, RebalancedPartitioner overrides) {
+        boolean[] pair = new boolean[getNumPartitions()];
+        pair[from] = pair[to] = true;
+        int moved = 0, batch;
+        do {
+            locks.lock(pair, true);
+            try {
+                batch = super.migrate(from, to, Math.min(MIGRATION_BATCH, count - moved), overrides);
+            } finally {
+                locks.unlock(pair, true);
+            }
+            moved += batch;
+        } while (batch == MIGRATION_BATCH && moved < count);
+        return moved;
+    }
+
+    @Override
+    public void clear() {
+        locks.lockAll(true);
+        try {
+            super.clear();
+        } finally {
+            locks.unlockAll(true);
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < getNumPartitions(); i++) {
+            Lock lock = locks.read(i);
+            lock.lock();
+            try {
+                raw(i).forEach(action);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        for (int i = 0; i < getNumPartitions(); i++) {
+            Lock lock = locks.write(i);
+            lock.lock();
+            try {
+                raw(i).replaceAll(function);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        if (keySet == null) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Collection<K>[] parts = new Collection[getNumPartitions()];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = new SnapshotPartition<K, K>(raw(i).keySet(), locks.read(i), Function.identity(), this::remove);
+            }
+            keySet = new KeySet(parts);
+        }
+        return keySet;
+    }
+
+    @Override
+    public Collection<V> values() {
+        if (values == null) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Collection<V>[] parts = new Collection[getNumPartitions()];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = new SnapshotPartition<Entry<K, V>, V>(raw(i).entrySet(), locks.read(i),
+                        AbstractMap.SimpleImmutableEntry::new, Entry::getValue, e -> remove(e.getKey(), e.getValue()));
+            }
+            values = new Values(parts);
+        }
+        return values;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Collection<Entry<K, V>>[] parts = new Collection[getNumPartitions()];
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = new SnapshotPartition<Entry<K, V>, Entry<K, V>>(raw(i).entrySet(), locks.read(i),
+                        AbstractMap.SimpleImmutableEntry::new, WriteThroughEntry::new, e -> remove(e.getKey(), e.getValue()));
+            }
+            entrySet = new EntrySet(parts);
+        }
+        return entrySet;
+    }
+
+    /*
+     * Entry of a snapshot, setValue writes through to the map
+     */
+    private class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        WriteThroughEntry(Entry<K, V> e) {
+            super(e);
+        }
+
+        @Override
+        public V setValue(V value) {
+            super.setValue(value);
+            return put(getKey(), value);
+        }
+    }
+
+    private class KeySet extends SnapshotView<K> implements Set<K> {
+
+        KeySet(Collection<K>[] parts) {
+            super(parts);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            int p = locks.lock(o, ConcurrentPartitionedMap.this::partitionOf, true);
+            try {
+                return raw(p).keySet().remove(o);
+            } finally {
+                locks.unlock(p, true);
+            }
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentPartitionedMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentPartitionedMap.this.clear();
+        }
+    }
+
+    private class Values extends SnapshotView<V> {
+
+        Values(Collection<V>[] parts) {
+            super(parts);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            for (int i = 0; i < getNumPartitions(); i++) {
+                Lock lock = locks.write(i);
+                lock.lock();
+                try {
+                    if (raw(i).values().remove(o)) {
+                        return true;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentPartitionedMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentPartitionedMap.this.clear();
+        }
+    }
+
+    private class EntrySet extends SnapshotView<Entry<K, V>> implements Set<Entry<K, V>> {
+
+        EntrySet(Collection<Entry<K, V>>[] parts) {
+            super(parts);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            int p = locks.lock(((Entry) o).getKey(), ConcurrentPartitionedMap.this::partitionOf, false);
+            try {
+                return raw(p).entrySet().contains(o);
+            } finally {
+                locks.unlock(p, false);
+            }
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return ConcurrentPartitionedMap.this.remove(e.getKey(), e.getValue());
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentPartitionedMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentPartitionedMap.this.clear();
+        }
+    }
+}
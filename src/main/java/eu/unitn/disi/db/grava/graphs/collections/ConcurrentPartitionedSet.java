@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * A {@link PartitionedSet} that can be shared among threads. Each partition is
+ * guarded by its own read-write lock, so threads adding elements that fall in
+ * different partitions do not contend. Bulk operations lock the partitions 
+ * they touch in ascending order. 
+ * 
+ * Iterators work on a copy of each partition taken when the iteration 
+ * reaches it: they are weakly consistent and never throw 
+ * {@link java.util.ConcurrentModificationException}.
+ *
+ * @author agent <agent@local>
+ */
+public class ConcurrentPartitionedSet<E> extends PartitionedSet<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final PartitionLocks locks;
+    private transient SnapshotView<E> snapshots;
+
+    public ConcurrentPartitionedSet(int initialCapacity, float loadFactor, int numPartitions) {
+        this(initialCapacity, loadFactor, numPartitions, new HashPartitioner());
+    }
+
+    public ConcurrentPartitionedSet(int initialCapacity, float loadFactor, int numPartitions, Partitioner partitioner) {
+        super(initialCapacity, loadFactor, numPartitions, partitioner);
+        locks = new PartitionLocks(numPartitions);
+    }
+
+    /**
+     * Returns the lock guarding the i-th partition, it must be held to access
+     * the set returned by {@link #getPartition(int) }
+     * @param i The index of the partition
+     * @return The lock of the partition
+     */
+    public ReadWriteLock getLock(int i) {
+        return locks.get(i);
+    }
+
+    @Override
+    public boolean add(E e) {
+        Lock lock = locks.write(getIndexPartition(e));
+        lock.lock();
+        try {
+            return super.add(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        Lock lock = locks.write(getIndexPartition(o));
+        lock.lock();
+        try {
+            return super.remove(o);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        Lock lock = locks.read(getIndexPartition(o));
+        lock.lock();
+        try {
+            return super.contains(o);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add all the elements, grouped by partition. The touched partitions are
+     * locked together in ascending order, so the update is atomic. 
+     * @param c The elements to be added
+     * @return True if the set changed
+     */
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<E>[] groups = new List[partitions];
+        boolean[] touched = new boolean[partitions];
+        for (E e : c) {
+            int p = getIndexPartition(e);
+            if (groups[p] == null) {
+                groups[p] = new ArrayList<>();
+                touched[p] = true;
+            }
+            groups[p].add(e);
+        }
+        boolean changed = false;
+        Collection<E>[] parts = getPartitions();
+        locks.lock(touched, true);
+        try {
+            for (int p = 0; p < partitions; p++) {
+                if (touched[p]) {
+                    changed |= parts[p].addAll(groups[p]);
+                }
+            }
+        } finally {
+            locks.unlock(touched, true);
+        }
+        return changed;
+    }
+
+    @Override
+    public int size() {
+        locks.lockAll(false);
+        try {
+            return super.size();
+        } finally {
+            locks.unlockAll(false);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        locks.lockAll(true);
+        try {
+            super.clear();
+        } finally {
+            locks.unlockAll(true);
+        }
+    }
+
+    private SnapshotView<E> snapshots() {
+        if (snapshots == null) {
+            Collection<E>[] parts = getPartitions();
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Collection<E>[] views = new Collection[partitions];
+            for (int i = 0; i < partitions; i++) {
+                views[i] = new SnapshotPartition<E, E>(parts[i], locks.read(i), Function.identity(), this::remove);
+            }
+            snapshots = new SnapshotView<>(views);
+        }
+        return snapshots;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return snapshots().iterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return snapshots().spliterator();
+    }
+}
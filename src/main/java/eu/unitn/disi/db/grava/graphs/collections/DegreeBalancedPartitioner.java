@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Assigns each key explicitly so that the total weight (e.g. the degree of a
+ * node) of every partition is about the same. Keys are placed from the
+ * heaviest to the lightest on the least loaded partition, so the loads of
+ * two partitions differ by at most the largest weight (weights below 1 count
+ * as 1). Keys that are not in the assignment are hashed.
+ *
+ * @author agent <agent@local>
+ */
+public class DegreeBalancedPartitioner implements Partitioner {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LongIntHashMap assignment;
+    private final long[] loads;
+    private final Partitioner fallback;
+
+    /**
+     * Compute a balanced assignment of the keys given their weights
+     *
+     * @param keys The keys to be assigned
+     * @param weights The weight of each key (e.g., its degree)
+     * @param numPartitions The number of partitions
+     */
+    public DegreeBalancedPartitioner(long[] keys, int[] weights, int numPartitions) {
+        if (keys.length != weights.length) {
+            throw new IllegalArgumentException("Keys and weights must have the same length");
+        }
+        if (numPartitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be > 1");
+        }
+        this.assignment = new LongIntHashMap(keys.length);
+        this.loads = new long[numPartitions];
+        this.fallback = new HashPartitioner();
+
+        //Sort by decreasing weight, ties by key
+        long[][] order = new long[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = new long[]{weights[i], keys[i]};
+        }
+        Arrays.sort(order, (a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+
+        PriorityQueue<long[]> partitions = new PriorityQueue<>(numPartitions,
+                (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        for (int i = 0; i < numPartitions; i++) {
+            partitions.add(new long[]{0, i});
+        }
+        long[] lightest;
+        for (long[] keyWeight : order) {
+            lightest = partitions.poll();
+            assignment.put(keyWeight[1], (int) lightest[1]);
+            lightest[0] += Math.max(1, keyWeight[0]);
+            loads[(int) lightest[1]] = lightest[0];
+            partitions.add(lightest);
+        }
+    }
+
+    @Override
+    public int partition(Object key, int numPartitions) throws NullPointerException {
+        if (key instanceof Number && numPartitions == loads.length) {
+            int p = assignment.get(((Number) key).longValue());
+            if (p != assignment.getMissingValue()) {
+                return p;
+            }
+        }
+        return fallback.partition(key, numPartitions);
+    }
+
+    /**
+     * Returns the total weight assigned to each partition
+     *
+     * @return The weight of each partition
+     */
+    public long[] getLoads() {
+        return loads.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "DegreeBalancedPartitioner{" + "loads=" + Arrays.toString(loads) + '}';
+    }
+}
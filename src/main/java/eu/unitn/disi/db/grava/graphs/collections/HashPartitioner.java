@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+/**
+ * Partitions the keys on their hash code, scrambled with a bit mixing
+ * function. Plain modulo on {@link Long#hashCode() } or on the polynomial
+ * hash of an edge leaves visible patterns in the low bits and gives uneven
+ * partitions, mixing spreads every input bit over the whole hash.
+ *
+ * @author agent <agent@local>
+ */
+public class HashPartitioner implements Partitioner {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public int partition(Object key, int numPartitions) throws NullPointerException {
+        return (int) ((mix(key.hashCode()) & 0xFFFFFFFFL) % numPartitions);
+    }
+
+    /**
+     * Finalization step of MurmurHash3, every bit of the input affects every
+     * bit of the output.
+     *
+     * @param h The hash to be mixed
+     * @return The mixed hash
+     */
+    public static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "HashPartitioner";
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A map from primitive long keys to primitive int values with open
+ * addressing, it avoids boxing and the per-entry objects of a
+ * {@link java.util.HashMap} on large key sets. Removal is not supported.
+ *
+ * @author agent <agent@local>
+ */
+public class LongIntHashMap implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final float LOAD_FACTOR = .6f;
+    private static final int DEFAULT_CAPACITY = 16;
+    //Zero marks a free slot, the zero key is stored apart
+    private static final long FREE = 0L;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    private int threshold;
+    private boolean hasFreeKey;
+    private int freeValue;
+    private final int missingValue;
+
+    public LongIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        this(expectedSize, -1);
+    }
+
+    /**
+     * Construct a map presized for the expected number of keys
+     *
+     * @param expectedSize The expected number of keys
+     * @param missingValue The value returned for missing keys
+     */
+    public LongIntHashMap(int expectedSize, int missingValue) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR) + 1) - 1) << 1;
+        this.missingValue = missingValue;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the value of the key or the missing value if not present
+     *
+     * @param key The key to look up
+     * @return The value of the key, or the missing value
+     */
+    public int get(long key) {
+        if (key == FREE) {
+            return hasFreeKey ? freeValue : missingValue;
+        }
+        int i = slot(key) & mask;
+        long k;
+        while ((k = keys[i]) != FREE) {
+            if (k == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == FREE) {
+            return hasFreeKey;
+        }
+        int i = slot(key) & mask;
+        long k;
+        while ((k = keys[i]) != FREE) {
+            if (k == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Associate the value to the key
+     *
+     * @param key The key
+     * @param value The value
+     * @return The previous value, or the missing value
+     */
+    public int put(long key, int value) {
+        return put(key, value, true);
+    }
+
+    /**
+     * Associate the value to the key only if the key is not present
+     *
+     * @param key The key
+     * @param value The value
+     * @return The current value, or the missing value if the key was added
+     */
+    public int putIfAbsent(long key, int value) {
+        return put(key, value, false);
+    }
+
+    private int put(long key, int value, boolean replace) {
+        if (key == FREE) {
+            if (hasFreeKey) {
+                int old = freeValue;
+                if (replace) {
+                    freeValue = value;
+                }
+                return old;
+            }
+            hasFreeKey = true;
+            freeValue = value;
+            size++;
+            return missingValue;
+        }
+        int i = slot(key) & mask;
+        long k;
+        while ((k = keys[i]) != FREE) {
+            if (k == key) {
+                int old = values[i];
+                if (replace) {
+                    values[i] = value;
+                }
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold + (hasFreeKey ? 1 : 0)) {
+            rehash(keys.length << 1);
+        }
+        return missingValue;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        int i;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != FREE) {
+                i = slot(oldKeys[j]) & mask;
+                while (keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getMissingValue() {
+        return missingValue;
+    }
+
+    /**
+     * Returns the keys in the map, in no particular order
+     *
+     * @return A new array with the keys
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int j = 0;
+        if (hasFreeKey) {
+            result[j++] = FREE;
+        }
+        for (long k : keys) {
+            if (k != FREE) {
+                result[j++] = k;
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+        hasFreeKey = false;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.Arrays;
+
+/**
+ * Balance metrics of a partitioned object, computed on the sizes of its
+ * partitions. The imbalance is the ratio between the largest partition and
+ * the average one: 1 means perfectly balanced, P means that all the elements
+ * are in a single partition out of P.
+ *
+ * @author agent <agent@local>
+ */
+public class PartitionBalance {
+
+    private final int[] sizes;
+    private final long total;
+    private final int min;
+    private final int max;
+    private final double mean;
+    private final double stdDev;
+
+    public PartitionBalance(int[] sizes) {
+        this.sizes = sizes.clone();
+        long sum = 0;
+        int mn = Integer.MAX_VALUE, mx = 0;
+        for (int s : sizes) {
+            sum += s;
+            mn = Math.min(mn, s);
+            mx = Math.max(mx, s);
+        }
+        this.total = sum;
+        this.min = sizes.length == 0 ? 0 : mn;
+        this.max = mx;
+        this.mean = sizes.length == 0 ? 0 : (double) sum / sizes.length;
+        double var = 0;
+        for (int s : sizes) {
+            var += (s - mean) * (s - mean);
+        }
+        this.stdDev = sizes.length == 0 ? 0 : Math.sqrt(var / sizes.length);
+    }
+
+    /**
+     * Compute the balance of the partitions of the input object
+     *
+     * @param partitionable The partitioned object
+     * @return The balance metrics
+     */
+    public static PartitionBalance of(Partitionable partitionable) {
+        int[] sizes = new int[partitionable.getNumPartitions()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = partitionable.getPartitionSize(i);
+        }
+        return new PartitionBalance(sizes);
+    }
+
+    public int[] getSizes() {
+        return sizes.clone();
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStdDev() {
+        return stdDev;
+    }
+
+    /**
+     * Returns the ratio between the largest partition and the mean
+     *
+     * @return The imbalance, 1 if perfectly balanced (or empty)
+     */
+    public double getImbalance() {
+        return mean == 0 ? 1 : max / mean;
+    }
+
+    /**
+     * Returns the largest partition
+     *
+     * @return The index of the largest partition
+     */
+    public int getLargestPartition() {
+        int index = 0;
+        for (int i = 1; i < sizes.length; i++) {
+            if (sizes[i] > sizes[index]) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PartitionBalance{total=%d, min=%d, max=%d, mean=%.2f, stdDev=%.2f, imbalance=%.3f, sizes=%s}",
+                total, min, max, mean, stdDev, getImbalance(), Arrays.toString(sizes));
+    }
+}
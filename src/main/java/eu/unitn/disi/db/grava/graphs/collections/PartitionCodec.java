@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads the elements of a partition in a compact binary form, used
+ * to spill the partitions to disk. 
+ *
+ * @param <E> The type of the elements
+ * @author agent <agent@local>
+ */
+public interface PartitionCodec<E> {
+
+    /**
+     * Write an element
+     * @param out The output
+     * @param element The element to be written
+     * @throws IOException If the element cannot be written
+     */
+    public void write(DataOutput out, E element) throws IOException;
+
+    /**
+     * Read an element written by {@link #write(java.io.DataOutput, java.lang.Object) }
+     * @param in The input
+     * @return The element
+     * @throws IOException If the element cannot be read
+     */
+    public E read(DataInput in) throws IOException;
+
+    /**
+     * Codec of long values
+     */
+    public static final PartitionCodec<Long> LONG = new PartitionCodec<Long>() {
+        @Override
+        public void write(DataOutput out, Long element) throws IOException {
+            out.writeLong(element);
+        }
+
+        @Override
+        public Long read(DataInput in) throws IOException {
+            return in.readLong();
+        }
+    };
+}
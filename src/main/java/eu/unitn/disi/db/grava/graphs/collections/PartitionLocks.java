@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.io.Serializable;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * One read-write lock per partition. Operations that span several partitions
+ * always acquire the locks in ascending partition order and release them in
+ * the opposite order, so they cannot deadlock each other.
+ *
+ * @author agent <agent@local>
+ */
+final class PartitionLocks implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ReentrantReadWriteLock[] locks;
+
+    PartitionLocks(int partitions) {
+        locks = new ReentrantReadWriteLock[partitions];
+        for (int i = 0; i < partitions; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    ReentrantReadWriteLock get(int partition) {
+        return locks[partition];
+    }
+
+    Lock read(int partition) {
+        return locks[partition].readLock();
+    }
+
+    Lock write(int partition) {
+        return locks[partition].writeLock();
+    }
+
+    void lockAll(boolean exclusive) {
+        for (int i = 0; i < locks.length; i++) {
+            lock(i, exclusive);
+        }
+    }
+
+    void unlockAll(boolean exclusive) {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            unlock(i, exclusive);
+        }
+    }
+
+    /**
+     * Lock the partitions flagged in the input mask, in ascending order
+     * @param mask The partitions to be locked
+     * @param exclusive True for the write locks
+     */
+    void lock(boolean[] mask, boolean exclusive) {
+        for (int i = 0; i < mask.length; i++) {
+            if (mask[i]) {
+                lock(i, exclusive);
+            }
+        }
+    }
+
+    void unlock(boolean[] mask, boolean exclusive) {
+        for (int i = mask.length - 1; i >= 0; i--) {
+            if (mask[i]) {
+                unlock(i, exclusive);
+            }
+        }
+    }
+
+    /**
+     * Lock the partition of a key. The partition is computed again once the 
+     * lock is held, since a rebalance may have moved the key meanwhile: keys
+     * are moved only while the write locks of both partitions are held. 
+     * @param key The key
+     * @param partitionOf Computes the current partition of a key
+     * @param exclusive True for the write lock
+     * @return The partition locked
+     */
+    int lock(Object key, ToIntFunction<Object> partitionOf, boolean exclusive) {
+        int partition = partitionOf.applyAsInt(key);
+        while (true) {
+            lock(partition, exclusive);
+            int current = partitionOf.applyAsInt(key);
+            if (current == partition) {
+                return partition;
+            }
+            unlock(partition, exclusive);
+            partition = current;
+        }
+    }
+
+    void lock(int i, boolean exclusive) {
+        if (exclusive) {
+            locks[i].writeLock().lock();
+        } else {
+            locks[i].readLock().lock();
+        }
+    }
+
+    void unlock(int i, boolean exclusive) {
+        if (exclusive) {
+            locks[i].writeLock().unlock();
+        } else {
+            locks[i].readLock().unlock();
+        }
+    }
+}
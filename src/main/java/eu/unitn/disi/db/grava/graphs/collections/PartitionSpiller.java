@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Keeps the partitions of one or more spilling collections within a heap 
+ * budget. Partitions are loaded on access and, when the estimated heap used 
+ * by the resident ones exceeds the budget, the least recently used are 
+ * written to a file in the spill directory and dropped from the heap. 
+ * 
+ * The {@value #MIN_RESIDENT} most recently used partitions are never evicted,
+ * so an operation can work on that many partitions at once even if the 
+ * budget is exceeded. 
+ *
+ * @author agent <agent@local>
+ */
+public class PartitionSpiller implements Closeable {
+
+    /**
+     * Number of most recently used partitions that are never evicted
+     */
+    public static final int MIN_RESIDENT = 3;
+    //Accesses to resident partitions between two budget checks
+    private static final int CHECK_INTERVAL = 1024;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final File directory;
+    private final boolean ownDirectory;
+    private final long heapBudget;
+    //Resident partitions, in access order
+    private final LinkedHashMap<Slot<?>, Slot<?>> lru;
+    private final List<Slot<?>> slots;
+    private final SpillStatistics statistics;
+    private int sinceCheck;
+    private boolean closed;
+
+    /**
+     * A partition managed by the spiller. 
+     * @param <T> The type of the partition
+     */
+    abstract static class Slot<T> {
+
+        private final int id;
+        private File file;
+        private boolean resident;
+
+        Slot(PartitionSpiller spiller) {
+            id = spiller.register(this);
+        }
+
+        /**
+         * @return The resident partition
+         */
+        abstract T get();
+
+        /**
+         * @return The estimated heap used by the partition
+         */
+        abstract long heapSize();
+
+        abstract void write(DataOutput out) throws IOException;
+
+        /**
+         * Load the partition previously written with {@link #write(java.io.DataOutput) }
+         */
+        abstract void read(DataInput in) throws IOException;
+
+        /**
+         * Create the partition when it has never been written
+         */
+        abstract void create();
+
+        /**
+         * Release the in-memory partition
+         */
+        abstract void drop();
+
+        boolean isResident() {
+            return resident;
+        }
+    }
+
+    /**
+     * Construct a spiller that writes in a temporary directory, removed on 
+     * {@link #close() }
+     * @param heapBudget The heap, in bytes, available to the resident partitions
+     * @throws IOException If the directory cannot be created
+     */
+    public PartitionSpiller(long heapBudget) throws IOException {
+        this(Files.createTempDirectory("grava-spill").toFile(), heapBudget, true);
+    }
+
+    /**
+     * Construct a spiller
+     * @param directory The directory of the spill files
+     * @param heapBudget The heap, in bytes, available to the resident partitions
+     */
+    public PartitionSpiller(File directory, long heapBudget) {
+        this(directory, heapBudget, false);
+    }
+
+    private PartitionSpiller(File directory, long heapBudget, boolean ownDirectory) {
+        if (heapBudget <= 0) {
+            throw new IllegalArgumentException("The heap budget must be positive");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create the spill directory " + directory);
+        }
+        this.directory = directory;
+        this.heapBudget = heapBudget;
+        this.ownDirectory = ownDirectory;
+        lru = new LinkedHashMap<>(16, 0.75f, true);
+        slots = new ArrayList<>();
+        statistics = new SpillStatistics();
+    }
+
+    private synchronized int register(Slot<?> slot) {
+        slots.add(slot);
+        return slots.size() - 1;
+    }
+
+    /**
+     * Make the partition resident, loading it if needed, and mark it as the 
+     * most recently used
+     * @return The resident partition
+     */
+    synchronized <T> T access(Slot<T> slot) {
+        if (closed) {
+            throw new IllegalStateException("The spiller has been closed");
+        }
+        if (slot.resident) {
+            statistics.hits++;
+            lru.get(slot);
+            if (++sinceCheck >= CHECK_INTERVAL) {
+                enforceBudget();
+            }
+            return slot.get();
+        }
+        statistics.misses++;
+        if (slot.file == null) {
+            slot.create();
+        } else {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(slot.file), BUFFER_SIZE))) {
+                slot.read(in);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot load partition from " + slot.file, ex);
+            }
+            statistics.bytesRead += slot.file.length();
+        }
+        slot.resident = true;
+        lru.put(slot, slot);
+        enforceBudget();
+        return slot.get();
+    }
+
+    /**
+     * Drop both the in-memory and the spilled copy of a partition
+     */
+    synchronized void discard(Slot<?> slot) {
+        if (slot.resident) {
+            lru.remove(slot);
+            slot.drop();
+            slot.resident = false;
+        }
+        if (slot.file != null) {
+            slot.file.delete();
+            slot.file = null;
+        }
+    }
+
+    private void enforceBudget() {
+        sinceCheck = 0;
+        long bytes = 0;
+        for (Slot<?> s : lru.keySet()) {
+            bytes += s.heapSize();
+        }
+        Iterator<Slot<?>> it = lru.keySet().iterator();
+        int resident = lru.size();
+        while (bytes > heapBudget && resident > MIN_RESIDENT) {
+            Slot<?> eldest = it.next();
+            bytes -= eldest.heapSize();
+            spill(eldest);
+            it.remove();
+            resident--;
+        }
+        statistics.residentPartitions = resident;
+        statistics.residentBytes = bytes;
+    }
+
+    private void spill(Slot<?> slot) {
+        if (slot.file == null) {
+            slot.file = new File(directory, "partition-" + slot.id + ".bin");
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(slot.file), BUFFER_SIZE))) {
+            slot.write(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot spill partition to " + slot.file, ex);
+        }
+        statistics.bytesWritten += slot.file.length();
+        slot.drop();
+        slot.resident = false;
+        statistics.evictions++;
+    }
+
+    /**
+     * @return A copy of the current statistics
+     */
+    public synchronized SpillStatistics getStatistics() {
+        return new SpillStatistics(statistics);
+    }
+
+    public long getHeapBudget() {
+        return heapBudget;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Delete the spill files, the collections using this spiller cannot be 
+     * used afterwards
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Slot<?> slot : slots) {
+            if (slot.file != null) {
+                slot.file.delete();
+                slot.file = null;
+            }
+        }
+        lru.clear();
+        if (ownDirectory) {
+            directory.delete();
+        }
+    }
+}
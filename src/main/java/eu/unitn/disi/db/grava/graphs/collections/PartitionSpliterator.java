@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.Collection;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the concatenation of an array of partitions. Splits happen
+ * along partition boundaries first, so each half of a split owns whole
+ * partitions; when a single partition is left the split is delegated to the
+ * spliterator of the partition itself.
+ *
+ * @author agent <agent@local>
+ */
+class PartitionSpliterator<E> implements Spliterator<E> {
+
+    private final Collection<? extends E>[] partitions;
+    private int index;
+    private final int fence;
+    private Spliterator<? extends E> current;
+    private final int characteristics;
+
+    /**
+     * Spliterator covering the partitions in [from, to)
+     *
+     * @param partitions The partitions
+     * @param from The first partition (inclusive)
+     * @param to The last partition (exclusive)
+     * @param characteristics The characteristics shared by all the partitions
+     */
+    PartitionSpliterator(Collection<? extends E>[] partitions, int from, int to, int characteristics) {
+        this.partitions = partitions;
+        this.index = from;
+        this.fence = to;
+        this.characteristics = characteristics;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> action) {
+        while (true) {
+            if (current == null) {
+                if (index >= fence) {
+                    return false;
+                }
+                current = partitions[index++].spliterator();
+            }
+            if (current.tryAdvance(action)) {
+                return true;
+            }
+            current = null;
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> action) {
+        if (current != null) {
+            current.forEachRemaining(action);
+            current = null;
+        }
+        for (; index < fence; index++) {
+            partitions[index].forEach(action);
+        }
+    }
+
+    //The partitions are only read, so a split of a subtype is a split of E
+    @SuppressWarnings("unchecked")
+    @Override
+    public Spliterator<E> trySplit() {
+        if (current == null) {
+            int remaining = fence - index;
+            if (remaining > 1) {
+                int mid = index + remaining / 2;
+                Spliterator<E> prefix = new PartitionSpliterator<>(partitions, index, mid, characteristics);
+                index = mid;
+                return prefix;
+            }
+            if (remaining == 0) {
+                return null;
+            }
+            current = partitions[index++].spliterator();
+        }
+        return (Spliterator<E>) current.trySplit();
+    }
+
+    @Override
+    public long estimateSize() {
+        long size = current == null ? 0 : current.estimateSize();
+        for (int i = index; i < fence; i++) {
+            size += partitions[i].size();
+        }
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+}
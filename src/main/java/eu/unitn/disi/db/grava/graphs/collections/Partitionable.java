@@ -40,4 +40,12 @@ public interface Partitionable {
      * than 0 or greater then the number of partitions. 
      */
     public int getPartitionSize(int i);
+    /**
+     * Returns the strategy used to assign the elements to the partitions, by
+     * default the elements are partitioned on their hash code.
+     * @return The partitioner of the object
+     */
+    public default Partitioner getPartitioner() {
+        return new HashPartitioner();
+    }
 }
@@ -21,11 +21,16 @@ package eu.unitn.disi.db.grava.graphs.collections;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
 import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
 
 /**
  * A partitioned list contains an array of {@link ArrayList{, that are indexed using 
@@ -37,21 +42,61 @@ public class PartitionedList<E>
     implements List<E>, Serializable, RandomAccess, Cloneable
 {
     private ArrayList<E>[] lists; 
-    private int sizes[];
+    /*
+     * Fenwick tree over the partition sizes, 1-based: offsets and positional
+     * lookups cost O(log partitions) instead of a scan over the partitions
+     */
+    private int[] offsets;
+    private int size;
+    /*
+     * Optional side index: element -> number of copies, per partition. It is
+     * updated with every change, so membership never scans the partition 
+     * and the positions are searched only for the elements in the list.
+     */
+    private HashMap<Object, Integer>[] counts;
 
     private static final int DEFAULT_INITIAL_CAPACITY = 10;
     private static final int DEFAULT_NUM_PARTITIONS = 2;
 
     
     public PartitionedList(int initialCapacity, int numPartitions) {
+        this(initialCapacity, numPartitions, new HashPartitioner());
+    }
+
+    public PartitionedList(int initialCapacity, int numPartitions, Partitioner partitioner) {
+        this(initialCapacity, numPartitions, partitioner, false);
+    }
+
+    /**
+     * Construct a partitioned list 
+     * @param initialCapacity The initial capacity of each partition
+     * @param numPartitions The number of partitions
+     * @param partitioner The partitioner used to place the elements
+     * @param indexed If true, keeps a hash index of the elements in each 
+     * partition, so that {@link #contains(java.lang.Object) } does not scan
+     * the partition and the lookups of absent elements are constant time, at
+     * the cost of an index entry per distinct element
+     */
+    public PartitionedList(int initialCapacity, int numPartitions, Partitioner partitioner, boolean indexed) {
         if (numPartitions < 1) {
             throw new IllegalArgumentException("Number of partitions must be > 1");
         }
+        if (partitioner == null) {
+            throw new NullPointerException("Partitioner cannot be null");
+        }
         partitions = numPartitions;
+        this.partitioner = partitioner;
         lists = new ArrayList[partitions]; 
         for (int i = 0; i < partitions; i++) {
             lists[i] = new ArrayList<E>(initialCapacity);
         }
+        offsets = new int[partitions + 1];
+        if (indexed) {
+            counts = newIndex(partitions);
+            for (int i = 0; i < partitions; i++) {
+                counts[i] = new HashMap<>();
+            }
+        }
     }
     
     public PartitionedList(int initialCapacity) {
@@ -66,40 +111,322 @@ public class PartitionedList<E>
     protected Collection<E>[] getPartitions() {
         return lists;
     }
-    
-    
+
     @Override
-    public E get(int index) {
-        int sum = 0, size = 0;
+    protected int spliteratorCharacteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+    }
+
+    /**
+     * Returns a read-only view of the partition, modifications must go through
+     * the list to keep the offsets consistent
+     * @param i The index of the partition
+     * @return A read-only view of the partition
+     */
+    @Override
+    public Collection<E> getPartition(int i) {
+        if (i < 0 || i >= partitions) {
+            throw new IllegalArgumentException("i cannot be less than 0 or greter than num partitions");
+        }
+        return Collections.unmodifiableList(partition(i));
+    }
+
+    @Override
+    public int getPartitionSize(int i) {
+        if (i < 0 || i >= partitions) {
+            throw new IllegalArgumentException("i cannot be less than 0 or greter than num partitions");
+        }
+        return offsetOf(i + 1) - offsetOf(i);
+    }
+
+    /**
+     * Returns the list of the i-th partition. All the operations of the list
+     * reach the partitions through this method, so that subclasses can store
+     * them elsewhere and load them on access. 
+     * @param i The index of the partition
+     * @return The list of the partition
+     */
+    protected ArrayList<E> partition(int i) {
+        return lists[i];
+    }
+
+    /**
+     * Empty the index of a partition. Must be called when the partition is
+     * emptied without going through the list. 
+     * @param i The index of the partition
+     */
+    protected void clearIndex(int i) {
+        if (counts != null) {
+            counts[i].clear();
+        }
+    }
+
+    /**
+     * @return True if the list keeps a hash index of the elements
+     */
+    public boolean isIndexed() {
+        return counts != null;
+    }
+
+    /**
+     * Record a change in the size of a partition
+     * @param partition The partition that changed
+     * @param delta The number of elements added (or removed if negative)
+     */
+    protected void sizeChanged(int partition, int delta) {
+        size += delta;
+        for (int i = partition + 1; i <= partitions; i += i & -i) {
+            offsets[i] += delta;
+        }
+    }
+
+    /**
+     * Returns the global position of the first element of a partition
+     * @param partition The partition
+     * @return The number of elements stored in the partitions before it
+     */
+    protected int offsetOf(int partition) {
+        int sum = 0;
+        for (int i = partition; i > 0; i -= i & -i) {
+            sum += offsets[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the partition containing a global position
+     * @param index The global position
+     * @return The partition in the high 32 bits and the position within the
+     * partition in the low ones
+     * @throws ArrayIndexOutOfBoundsException If the index is out of the list
+     */
+    protected long locate(int index) {
         if (index < 0) {
             throw new ArrayIndexOutOfBoundsException("Index is less than 0");
         }
-            
-        for (int i = 0; i < partitions; i++) {
-            sum += lists[i].size();
-            if (sum > index) {
-                return lists[i].get(index - size);
+        if (index >= size) {
+            throw new ArrayIndexOutOfBoundsException("Input index is greater than the size of the list");
+        }
+        int pos = 0, remaining = index;
+        for (int step = Integer.highestOneBit(partitions); step > 0; step >>= 1) {
+            if (pos + step <= partitions && offsets[pos + step] <= remaining) {
+                pos += step;
+                remaining -= offsets[pos];
             }
-            size = sum;
         }
-        throw new ArrayIndexOutOfBoundsException("Input index is greater than the size of the list");
+        return ((long) pos << 32) | remaining;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static HashMap<Object, Integer>[] newIndex(int partitions) {
+        return new HashMap[partitions];
+    }
+
+    private void counted(int partition, E e) {
+        if (counts != null) {
+            counts[partition].merge(e, 1, Integer::sum);
+        }
+    }
+
+    private void uncounted(int partition, Object o) {
+        if (counts != null) {
+            counts[partition].computeIfPresent(o, (e, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /*
+     * False only if the index tells that the partition does not contain o
+     */
+    private boolean mayContain(int partition, Object o) {
+        return counts == null || counts[partition].containsKey(o);
+    }
+    
+    /**
+     * Make room for the input number of elements, assuming they are spread 
+     * evenly on the partitions
+     * @param minCapacity The number of elements expected in the list
+     */
+    public void ensureCapacity(int minCapacity) {
+        int perPartition = minCapacity / partitions + 1;
+        for (int i = 0; i < partitions; i++) {
+            partition(i).ensureCapacity(perPartition);
+        }
+    }
+    
+    @Override
+    public boolean add(E e) {
+        int p = getIndexPartition(e);
+        ArrayList<E> list = partition(p);
+        list.add(e);
+        sizeChanged(p, 1);
+        counted(p, e);
+        return true;
     }
 
     @Override
-    public E set(int index, E element) {
-        int sum = 0, size = 0;
-        if (index < 0) {
-            throw new ArrayIndexOutOfBoundsException("Index is less than 0");
+    public boolean remove(Object o) {
+        int p = getIndexPartition(o);
+        int local = localIndexOf(p, o);
+        if (local == -1) {
+            return false;
         }
-            
+        partition(p).remove(local);
+        sizeChanged(p, -1);
+        uncounted(p, o);
+        return true;
+    }
+
+    @Override
+    protected void removed(int partition, Object o) {
+        sizeChanged(partition, -1);
+        uncounted(partition, o);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        int p = getIndexPartition(o);
+        if (counts != null) {
+            return counts[p].containsKey(o);
+        }
+        return partition(p).contains(o);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < partitions; i++) {
+            sizeChanged(i, -getPartitionSize(i));
+            partition(i).clear();
+            clearIndex(i);
+        }
+        if (partitioner instanceof RebalancedPartitioner) {
+            ((RebalancedPartitioner) partitioner).clear();
+        }
+    }
+
+    /**
+     * Move elements from the partitions larger than the mean to the smaller 
+     * ones, if the imbalance (see {@link PartitionBalance#getImbalance() }) 
+     * exceeds the threshold. All the copies of an element are moved together, 
+     * and the moved elements are remembered by a {@link RebalancedPartitioner}
+     * wrapping the partitioner of the list, installed by the first rebalance. 
+     * The positions of the elements change. 
+     * @param threshold The largest imbalance tolerated, at least 1
+     * @return The balance before and after the rebalance
+     */
+    public RebalanceReport rebalance(double threshold) {
+        if (partitioner instanceof RebalancedPartitioner && ((RebalancedPartitioner) partitioner).needsCompaction(size())) {
+            compactOverrides((RebalancedPartitioner) partitioner);
+        }
+        PartitionBalance before = getBalance();
+        int[][] moves = RebalanceReport.plan(before.getSizes(), threshold);
+        int moved = 0;
+        if (moves.length > 0) {
+            RebalancedPartitioner overrides = rebalancedPartitioner();
+            for (int[] move : moves) {
+                moved += migrate(move[0], move[1], move[2], overrides);
+            }
+        }
+        return new RebalanceReport(before, moved == 0 ? before : getBalance(), moved);
+    }
+
+    /**
+     * Returns the partitioner recording the moved elements, wrapping the 
+     * current one the first time
+     * @return The partitioner of the list
+     */
+    protected RebalancedPartitioner rebalancedPartitioner() {
+        if (!(partitioner instanceof RebalancedPartitioner)) {
+            partitioner = new RebalancedPartitioner(partitioner, partitions);
+        }
+        return (RebalancedPartitioner) partitioner;
+    }
+
+    /**
+     * Drop the overrides of the elements no longer in the list. Removals do 
+     * not release the overrides, since other copies of an element may remain,
+     * so the rebalances compact them once they outnumber the elements
+     * @param overrides The partitioner recording the moved elements
+     */
+    protected void compactOverrides(RebalancedPartitioner overrides) {
+        Set<Object> live = new HashSet<>();
         for (int i = 0; i < partitions; i++) {
-            sum += lists[i].size();
-            if (sum > index) {
-                return lists[i].set(index - size, element);
+            live.addAll(partition(i));
+        }
+        overrides.retain(live::contains);
+    }
+
+    /**
+     * Move about count elements, taken from the tail, from a partition to 
+     * another, keeping their relative order
+     * @param from The source partition
+     * @param to The target partition
+     * @param count The number of elements to be moved
+     * @param overrides Records the new partition of the elements
+     * @return The number of elements moved
+     */
+    protected int migrate(int from, int to, int count, RebalancedPartitioner overrides) {
+        ArrayList<E> source = partition(from);
+        ArrayList<E> target = partition(to);
+        Set<E> chosen = new HashSet<>();
+        for (int i = source.size() - 1; i >= 0 && chosen.size() < count; i--) {
+            chosen.add(source.get(i));
+        }
+        int kept = 0;
+        for (int i = 0; i < source.size(); i++) {
+            E e = source.get(i);
+            if (chosen.contains(e)) {
+                target.add(e);
+                uncounted(from, e);
+                counted(to, e);
+            } else {
+                source.set(kept++, e);
             }
-            size = sum;
         }
-        throw new ArrayIndexOutOfBoundsException("Input index is greater than the size of the list");
+        int moved = source.size() - kept;
+        source.subList(kept, source.size()).clear();
+        for (E e : chosen) {
+            overrides.assign(e, to);
+        }
+        //Grow the target first, so that concurrent readers never see a list
+        //shorter than it is
+        sizeChanged(to, moved);
+        sizeChanged(from, -moved);
+        return moved;
+    }
+    
+    @Override
+    public E get(int index) {
+        long loc = locate(index);
+        return partition((int) (loc >>> 32)).get((int) loc);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        long loc = locate(index);
+        return setLocal((int) (loc >>> 32), (int) loc, element);
+    }
+
+    /**
+     * Replace the element at a position of a partition
+     * @param partition The partition
+     * @param local The position within the partition
+     * @param element The new element, it must belong to the partition
+     * @return The replaced element
+     */
+    protected E setLocal(int partition, int local, E element) {
+        if (getIndexPartition(element) != partition) {
+            throw new IllegalArgumentException(
+                    "The element does not belong to the partition of the input index.");
+        }
+        E old = partition(partition).set(local, element);
+        uncounted(partition, old);
+        counted(partition, element);
+        return old;
     }
 
     @Override
@@ -110,48 +437,42 @@ public class PartitionedList<E>
 
     @Override
     public E remove(int index) {
-        int sum = 0, size = 0;
-        if (index < 0) {
-            throw new ArrayIndexOutOfBoundsException("Index is less than 0");
-        }
-            
-        for (int i = 0; i < partitions; i++) {
-            sum += lists[i].size();
-            if (sum > index) {
-                return lists[i].remove(index - size);
-            }
-            size = sum;
-        }
-        throw new ArrayIndexOutOfBoundsException("Input index is greater than the size of the list");
+        long loc = locate(index);
+        return removeLocal((int) (loc >>> 32), (int) loc);
+    }
+
+    /**
+     * Remove the element at a position of a partition
+     * @param partition The partition
+     * @param local The position within the partition
+     * @return The removed element
+     */
+    protected E removeLocal(int partition, int local) {
+        E removed = partition(partition).remove(local);
+        sizeChanged(partition, -1);
+        uncounted(partition, removed);
+        return removed;
+    }
 
+    private int localIndexOf(int partition, Object o) {
+        return mayContain(partition, o) ? partition(partition).indexOf(o) : -1;
     }
 
     @Override
     public int indexOf(Object o) {
-        int index;
-        int sumSizes = 0;
-        for (int i = 0; i < partitions; i++) {
-            index = lists[i].indexOf(o);
-            if (index != -1) {
-                return index + sumSizes;
-            }
-            sumSizes += lists[i].size();
-        }
-        return -1;
+        int p = getIndexPartition(o);
+        int local = localIndexOf(p, o);
+        return local == -1 ? -1 : offsetOf(p) + local;
     }
 
     @Override
     public int lastIndexOf(Object o) {
-        int index;
-        int sumSizes = 0;
-        for (int i = partitions - 1; i >= 0; i--) {
-            index = lists[i].lastIndexOf(o);
-            sumSizes += lists[i].size();
-            if (index != -1) {
-                return index + (size() - sumSizes);
-            }
+        int p = getIndexPartition(o);
+        if (!mayContain(p, o)) {
+            return -1;
         }
-        return -1;
+        int local = partition(p).lastIndexOf(o);
+        return local == -1 ? -1 : offsetOf(p) + local;
     }
     
     //TODO: I have to test the new collections before continuing in this crazyness
@@ -217,9 +538,17 @@ public class PartitionedList<E>
 
     @Override
     protected Object clone() throws CloneNotSupportedException {
-        PartitionedList<E> newList = new PartitionedList<E>(DEFAULT_INITIAL_CAPACITY, partitions);
+        PartitionedList<E> newList = new PartitionedList<E>(DEFAULT_INITIAL_CAPACITY, partitions, 
+                partitioner instanceof RebalancedPartitioner ? ((RebalancedPartitioner) partitioner).copy() : partitioner);
         for (int i = 0; i < partitions; i++) {
-            newList.lists[i] = (ArrayList<E>) lists[i].clone();
+            newList.lists[i] = (ArrayList<E>) partition(i).clone();
+            newList.sizeChanged(i, newList.lists[i].size());
+        }
+        if (counts != null) {
+            newList.counts = newIndex(partitions);
+            for (int i = 0; i < partitions; i++) {
+                newList.counts[i] = new HashMap<>(counts[i]);
+            }
         }
         return newList;
     }
@@ -34,6 +34,10 @@ import java.util.Set;
 public class PartitionedMap<K,V> implements PartitionableMap<K, V>, Serializable {
     private Map<K,V>[] maps;
     private final int partitions;
+    private volatile Partitioner partitioner;
+    private transient Set<K> keySet;
+    private transient Collection<V> values;
+    private transient Set<Entry<K, V>> entrySet;
     
     private static final int DEFAULT_INITIAL_CAPACITY = 16;
     private static final float DEFAULT_LOAD_FACTOR = 0.75F;
@@ -41,10 +45,18 @@ public class PartitionedMap<K,V> implements PartitionableMap<K, V>, Serializable
     
 
     public PartitionedMap(int initialCapacity, float loadFactor, int numPartitions) {
+        this(initialCapacity, loadFactor, numPartitions, new HashPartitioner());
+    }
+
+    public PartitionedMap(int initialCapacity, float loadFactor, int numPartitions, Partitioner partitioner) {
         if (numPartitions < 1) {
             throw new IllegalArgumentException("Number of partitions must be > 1");
         }
+        if (partitioner == null) {
+            throw new NullPointerException("Partitioner cannot be null");
+        }
         partitions = numPartitions;
+        this.partitioner = partitioner;
         maps = new Map[numPartitions];
         for (int i = 0; i < numPartitions; i++) {
             maps[i] = new HashMap<K, V>(initialCapacity, loadFactor);
@@ -65,56 +77,69 @@ public class PartitionedMap<K,V> implements PartitionableMap<K, V>, Serializable
     }
 
     private int getIndexPartition(Object key) {
-        return Math.abs(key.hashCode()) % partitions;
+        return partitioner.partition(key, partitions);
     }
-    
-    private static int hash(int h) {
-      // This function ensures that hashCodes that differ only by
-      // constant multiples at each bit position have a bounded
-      // number of collisions (approximately 8 at default load factor).
-        h ^= (h >>> 20) ^ (h >>> 12);
-        return h ^ (h >>> 7) ^ (h >>> 4);
+
+    /*
+     * Routes the views through the current partitioner, that changes on the
+     * first rebalance
+     */
+    private int partitionOfKey(Object key, int numPartitions) {
+        return partitioner.partition(key, numPartitions);
     }
 
+    /**
+     * Returns the map of the i-th partition. All the operations of the map 
+     * reach the partitions through this method, so that subclasses can store
+     * them elsewhere and load them on access. 
+     * @param i The index of the partition
+     * @return The map of the partition
+     */
+    protected Map<K, V> partition(int i) {
+        return maps[i];
+    }
+    
     public PartitionedMap(Map<? extends K, ? extends V> m) {
         this();
-        Iterator<K> it = (Iterator<K>) m.keySet().iterator();
-        K key; 
-        while (it.hasNext()) {
-            key = it.next();
-            addEntry(key, m.get(key));
+        for (Entry<? extends K, ? extends V> e : m.entrySet()) {
+            addEntry(e.getKey(), e.getValue());
         }
     }
 
     private V addEntry(K key, V value) {
         int index = getIndexPartition(key);
-        return maps[index].put(key, value);
+        return partition(index).put(key, value);
     }
     
     @Override
     public int size() {
         int size = 0;
         for (int i = 0; i < partitions; i++) {
-            size += maps[i].size();
+            size += partition(i).size();
         }
         return size;
     }
 
     @Override
     public boolean isEmpty() {
-        return size() != 0;
+        for (int i = 0; i < partitions; i++) {
+            if (!partition(i).isEmpty()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public boolean containsKey(Object key) {
         int index = getIndexPartition(key);
-        return maps[index].containsKey(key);
+        return partition(index).containsKey(key);
     }
 
     @Override
     public boolean containsValue(Object value) {
         for (int i = 0; i < partitions; i++) {
-            if (maps[i].containsValue(value)) {
+            if (partition(i).containsValue(value)) {
                 return true;
             }
         }
@@ -124,7 +149,7 @@ public class PartitionedMap<K,V> implements PartitionableMap<K, V>, Serializable
     @Override
     public V get(Object key) {
         int index = getIndexPartition(key);
-        return maps[index].get(key);
+        return partition(index).get(key);
     }
 
     @Override
@@ -135,51 +160,139 @@ public class PartitionedMap<K,V> implements PartitionableMap<K, V>, Serializable
     @Override
     public V remove(Object key) {
         int index = getIndexPartition(key);
-        return maps[index].remove(key);
+        V value = partition(index).remove(key);
+        if (partitioner instanceof RebalancedPartitioner) {
+            ((RebalancedPartitioner) partitioner).release(key);
+        }
+        return value;
     }
 
     @Override
     public void putAll(Map<? extends K, ? extends V> m) {
-        Iterator<K> it = (Iterator<K>) m.keySet().iterator();
-        K key; 
-        while (it.hasNext()) {
-            key = it.next();
-            addEntry(key, m.get(key));
+        for (Entry<? extends K, ? extends V> e : m.entrySet()) {
+            addEntry(e.getKey(), e.getValue());
         }
     }
 
     @Override
     public void clear() {
         for (int i = 0; i < partitions; i++) {
-            maps[i].clear();
+            partition(i).clear();
+        }
+        if (partitioner instanceof RebalancedPartitioner) {
+            ((RebalancedPartitioner) partitioner).clear();
         }
     }
 
     @Override
     public Set<K> keySet() {
-        Set<K>[] keySets = new Set[partitions];
-        for (int i = 0; i < partitions; i++) {
-            keySets[i] = maps[i].keySet();
+        if (keySet == null) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Set<K>[] keySets = new Set[partitions];
+            for (int i = 0; i < partitions; i++) {
+                keySets[i] = maps[i].keySet();
+            }
+            keySet = new PartitionedSet<K>(keySets, this::partitionOfKey);
         }
-        return new PartitionedSet<K>(keySets);
+        return keySet;
     }
 
+    /**
+     * Returns a view of the values, backed by the value views of the
+     * partitions. 
+     * @return The values of the map
+     */
     @Override
     public Collection<V> values() {
-        throw new UnsupportedOperationException("Not supported yet.");
+        if (values == null) {
+            values = new Values();
+        }
+        return values;
     }
 
+    /**
+     * Returns a view of the entries, backed by the entry sets of the 
+     * partitions. The view is partitioned as the map, so its iterator and 
+     * spliterator scan each partition once, without hashing the keys again. 
+     * @return The entries of the map
+     */
     @Override
     public Set<Entry<K, V>> entrySet() {
-        throw new UnsupportedOperationException("Not supported yet.");
+        if (entrySet == null) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Set<Entry<K, V>>[] entrySets = new Set[partitions];
+            for (int i = 0; i < partitions; i++) {
+                entrySets[i] = maps[i].entrySet();
+            }
+            entrySet = new PartitionedSet<>(entrySets, new EntryPartitioner(this::partitionOfKey));
+        }
+        return entrySet;
+    }
+
+    /*
+     * Routes an entry to the partition of its key
+     */
+    private static class EntryPartitioner implements Partitioner {
+        private static final long serialVersionUID = 1L;
+        private final Partitioner keyPartitioner;
+
+        EntryPartitioner(Partitioner keyPartitioner) {
+            this.keyPartitioner = keyPartitioner;
+        }
+
+        @Override
+        public int partition(Object key, int numPartitions) {
+            if (key instanceof Entry) {
+                return keyPartitioner.partition(((Entry<?, ?>) key).getKey(), numPartitions);
+            }
+            return 0;
+        }
+    }
+
+    private class Values extends AbstractPartitionedCollection<V> {
+        private final Collection<V>[] values;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Values() {
+            partitions = PartitionedMap.this.partitions;
+            values = new Collection[partitions];
+            for (int i = 0; i < partitions; i++) {
+                values[i] = maps[i].values();
+            }
+        }
+
+        @Override
+        protected Collection<V>[] getPartitions() {
+            return values;
+        }
+
+        @Override
+        public boolean add(V e) {
+            throw new UnsupportedOperationException("Values cannot be added without a key.");
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            for (int i = 0; i < partitions; i++) {
+                if (values[i].remove(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
     @Override
     public Map<K, V> getPartition(int i) {
-        if (i < 0 || i > size() - 1) {
+        if (i < 0 || i >= partitions) {
             throw new IllegalArgumentException("i cannot be less than 0 or greter than num partitions");
         }
-        return maps[i];
+        return partition(i);
     }
 
     @Override
@@ -192,4 +305,86 @@ public class PartitionedMap<K,V> implements PartitionableMap<K, V>, Serializable
         return getPartition(i).size();
     }
 
+    @Override
+    public Partitioner getPartitioner() {
+        return partitioner;
+    }
+
+    /**
+     * Returns the balance metrics of the partitions
+     * @return The balance of the map
+     */
+    public PartitionBalance getBalance() {
+        return PartitionBalance.of(this);
+    }
+
+    /**
+     * Move keys from the partitions larger than the mean to the smaller ones,
+     * if the imbalance (see {@link PartitionBalance#getImbalance() }) exceeds
+     * the threshold. The moved keys are remembered by a 
+     * {@link RebalancedPartitioner} wrapping the partitioner of the map, 
+     * installed by the first rebalance. 
+     * @param threshold The largest imbalance tolerated, at least 1
+     * @return The balance before and after the rebalance
+     */
+    public RebalanceReport rebalance(double threshold) {
+        if (partitioner instanceof RebalancedPartitioner && ((RebalancedPartitioner) partitioner).needsCompaction(size())) {
+            compactOverrides((RebalancedPartitioner) partitioner);
+        }
+        PartitionBalance before = getBalance();
+        int[][] moves = RebalanceReport.plan(before.getSizes(), threshold);
+        int moved = 0;
+        if (moves.length > 0) {
+            RebalancedPartitioner overrides = rebalancedPartitioner();
+            for (int[] move : moves) {
+                moved += migrate(move[0], move[1], move[2], overrides);
+            }
+        }
+        return new RebalanceReport(before, moved == 0 ? before : getBalance(), moved);
+    }
+
+    /**
+     * Returns the partitioner recording the moved keys, wrapping the current
+     * one the first time
+     * @return The partitioner of the map
+     */
+    protected RebalancedPartitioner rebalancedPartitioner() {
+        if (!(partitioner instanceof RebalancedPartitioner)) {
+            partitioner = new RebalancedPartitioner(partitioner, partitions);
+        }
+        return (RebalancedPartitioner) partitioner;
+    }
+
+    /**
+     * Drop the overrides of the keys no longer in the map, e.g. removed 
+     * through the views, which do not release them
+     * @param overrides The partitioner recording the moved keys
+     */
+    protected void compactOverrides(RebalancedPartitioner overrides) {
+        overrides.retain(this::containsKey);
+    }
+
+    /**
+     * Move some keys from a partition to another
+     * @param from The source partition
+     * @param to The target partition
+     * @param count The number of keys to be moved
+     * @param overrides Records the new partition of the keys
+     * @return The number of keys moved
+     */
+    protected int migrate(int from, int to, int count, RebalancedPartitioner overrides) {
+        Map<K, V> source = partition(from);
+        Map<K, V> target = partition(to);
+        Iterator<Entry<K, V>> it = source.entrySet().iterator();
+        int moved = 0;
+        while (moved < count && it.hasNext()) {
+            Entry<K, V> e = it.next();
+            target.put(e.getKey(), e.getValue());
+            overrides.assign(e.getKey(), to);
+            it.remove();
+            moved++;
+        }
+        return moved;
+    }
+
 }
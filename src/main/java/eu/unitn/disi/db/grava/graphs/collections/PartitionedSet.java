@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.Spliterator;
 
 /**
  * Partitioned Set contains a set of sets, in order to keep objects into 
@@ -41,10 +42,18 @@ public class PartitionedSet<E>
     private static final int DEFAULT_NUM_PARTITIONS = 2;
     
     public PartitionedSet(int initialCapacity, float loadFactor, int numPartitions) {
+        this(initialCapacity, loadFactor, numPartitions, new HashPartitioner());
+    }
+
+    public PartitionedSet(int initialCapacity, float loadFactor, int numPartitions, Partitioner partitioner) {
         if (numPartitions < 1) {
             throw new IllegalArgumentException("Number of partitions must be > 1");
         }
+        if (partitioner == null) {
+            throw new NullPointerException("Partitioner cannot be null");
+        }
         partitions = numPartitions;
+        this.partitioner = partitioner;
         sets = new Set[partitions];
         for (int i = 0; i < partitions; i++) {
             sets[i] = new HashSet<E>(initialCapacity, loadFactor);
@@ -73,8 +82,9 @@ public class PartitionedSet<E>
         this(initialCapacity, DEFAULT_LOAD_FACTOR);
     }
     
-    PartitionedSet(Set<E>[] sets) {
+    PartitionedSet(Set<E>[] sets, Partitioner partitioner) {
         this.sets = sets;
+        this.partitioner = partitioner;
         partitions = sets.length;
     }
     
@@ -87,5 +97,10 @@ public class PartitionedSet<E>
     protected Collection<E>[] getPartitions() {
         return sets;
     }
+
+    @Override
+    protected int spliteratorCharacteristics() {
+        return Spliterator.DISTINCT;
+    }
     
 }
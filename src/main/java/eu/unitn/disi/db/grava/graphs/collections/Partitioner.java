@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.io.Serializable;
+
+/**
+ * A partitioner decides in which partition of a partitioned collection an
+ * element (or a key) is stored. It must be deterministic: the same key must
+ * always go to the same partition for a given number of partitions.
+ *
+ * @author agent <agent@local>
+ */
+public interface Partitioner extends Serializable {
+
+    /**
+     * Returns the index of the partition of the input key
+     *
+     * @param key The key (or element) to be placed
+     * @param numPartitions The total number of partitions
+     * @return A partition index between 0 and numPartitions - 1
+     * @throws NullPointerException if the key is null
+     */
+    public int partition(Object key, int numPartitions) throws NullPointerException;
+}
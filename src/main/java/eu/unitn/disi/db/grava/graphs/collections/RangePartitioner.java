@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.Arrays;
+
+/**
+ * Partitions numeric keys by ranges: partition i contains the keys between
+ * the (i-1)-th (inclusive) and the i-th (exclusive) bound. Keys that are not
+ * numbers are hashed.
+ *
+ * @author agent <agent@local>
+ */
+public class RangePartitioner implements Partitioner {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long[] bounds;
+    private final Partitioner fallback;
+
+    /**
+     * Construct a range partitioner from the upper bounds of each partition
+     * but the last one.
+     *
+     * @param bounds The sorted exclusive upper bounds of the partitions
+     */
+    public RangePartitioner(long[] bounds) {
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i - 1] > bounds[i]) {
+                throw new IllegalArgumentException("Bounds must be sorted");
+            }
+        }
+        this.bounds = bounds.clone();
+        this.fallback = new HashPartitioner();
+    }
+
+    /**
+     * Compute equi-depth ranges from a sample of the keys, so that each
+     * partition receives about the same number of keys.
+     *
+     * @param sample A sample of the keys (it is sorted in place)
+     * @param numPartitions The number of partitions
+     * @return The range partitioner for the sample
+     */
+    public static RangePartitioner fromSample(long[] sample, int numPartitions) {
+        if (numPartitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be > 1");
+        }
+        Arrays.sort(sample);
+        long[] bounds = new long[numPartitions - 1];
+        for (int i = 1; i < numPartitions; i++) {
+            bounds[i - 1] = sample.length == 0 ? 0 : sample[(int) ((long) i * sample.length / numPartitions)];
+        }
+        return new RangePartitioner(bounds);
+    }
+
+    @Override
+    public int partition(Object key, int numPartitions) throws NullPointerException {
+        if (!(key instanceof Number)) {
+            return fallback.partition(key, numPartitions);
+        }
+        long value = ((Number) key).longValue();
+        int index = Arrays.binarySearch(bounds, value);
+        //Equal to a bound goes on the right, duplicated bounds leave empty ranges
+        if (index >= 0) {
+            while (index < bounds.length && bounds[index] == value) {
+                index++;
+            }
+        } else {
+            index = -index - 1;
+        }
+        return Math.min(index, numPartitions - 1);
+    }
+
+    public long[] getBounds() {
+        return bounds.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "RangePartitioner{" + "bounds=" + Arrays.toString(bounds) + '}';
+    }
+}
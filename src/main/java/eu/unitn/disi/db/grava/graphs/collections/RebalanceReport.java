@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+/**
+ * The outcome of a rebalance: the balance of the partitions before and after
+ * it and the number of elements moved.
+ *
+ * @author agent <agent@local>
+ */
+public class RebalanceReport {
+
+    private final PartitionBalance before;
+    private final PartitionBalance after;
+    private final int moved;
+
+    public RebalanceReport(PartitionBalance before, PartitionBalance after, int moved) {
+        this.before = before;
+        this.after = after;
+        this.moved = moved;
+    }
+
+    public PartitionBalance getBefore() {
+        return before;
+    }
+
+    public PartitionBalance getAfter() {
+        return after;
+    }
+
+    public int getMoved() {
+        return moved;
+    }
+
+    /**
+     * @return True if some element has been moved
+     */
+    public boolean isRebalanced() {
+        return moved > 0;
+    }
+
+    /**
+     * Compute the moves that bring every partition to at most the mean size
+     * (rounded up), if the imbalance exceeds the threshold. Elements are moved
+     * from the largest partitions to the smallest ones.
+     *
+     * @param sizes The sizes of the partitions
+     * @param threshold The largest imbalance tolerated, at least 1
+     * @return The moves as triples (from, to, count), empty if the partitions
+     * are balanced enough
+     */
+    static int[][] plan(int[] sizes, double threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("The threshold must be at least 1");
+        }
+        PartitionBalance balance = new PartitionBalance(sizes);
+        if (balance.getTotal() == 0 || balance.getImbalance() <= threshold) {
+            return new int[0][];
+        }
+        int n = sizes.length;
+        int cap = (int) ((balance.getTotal() + n - 1) / n);
+        int[] left = sizes.clone();
+        int[][] moves = new int[2 * n][];
+        int numMoves = 0;
+        int to = 0;
+        for (int from = 0; from < n; from++) {
+            while (left[from] > cap) {
+                while (left[to] >= cap) {
+                    to++;
+                }
+                int count = Math.min(left[from] - cap, cap - left[to]);
+                moves[numMoves++] = new int[]{from, to, count};
+                left[from] -= count;
+                left[to] += count;
+            }
+        }
+        int[][] result = new int[numMoves][];
+        System.arraycopy(moves, 0, result, 0, numMoves);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RebalanceReport{moved=%d, before=%s, after=%s}", moved, before, after);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * A partitioner that remembers the keys moved by a rebalance. The keys that 
+ * have not been moved are placed by the wrapped partitioner, the others in the 
+ * partition they have been moved to. The overrides hold only for the number
+ * of partitions of the rebalanced collection. 
+ * 
+ * Every override costs a hash table entry, so the partitioner grows with the
+ * number of keys ever moved. The collections release the override of a key 
+ * when they know it is gone, and otherwise {@link #retain(java.util.function.Predicate) }
+ * the overrides of their live keys at the next rebalance once the overrides 
+ * are more than {@value #MAX_OVERRIDES_PER_KEY} times their size. 
+ *
+ * @author agent <agent@local>
+ */
+public class RebalancedPartitioner implements Partitioner {
+
+    private static final long serialVersionUID = 1L;
+    /**
+     * Overrides per key of the collection above which they are compacted
+     */
+    public static final int MAX_OVERRIDES_PER_KEY = 2;
+
+    private final Partitioner base;
+    private final int numPartitions;
+    private final ConcurrentHashMap<Object, Integer> overrides;
+
+    /**
+     * Wrap a partitioner
+     *
+     * @param base The partitioner of the keys that have not been moved
+     * @param numPartitions The number of partitions of the collection
+     */
+    public RebalancedPartitioner(Partitioner base, int numPartitions) {
+        if (base == null) {
+            throw new NullPointerException("Partitioner cannot be null");
+        }
+        this.base = base;
+        this.numPartitions = numPartitions;
+        this.overrides = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public int partition(Object key, int numPartitions) throws NullPointerException {
+        if (key != null && numPartitions == this.numPartitions && !overrides.isEmpty()) {
+            Integer p = overrides.get(key);
+            if (p != null) {
+                return p;
+            }
+        }
+        return base.partition(key, numPartitions);
+    }
+
+    /**
+     * @return A partitioner with the same overrides, changed independently
+     */
+    public RebalancedPartitioner copy() {
+        RebalancedPartitioner copy = new RebalancedPartitioner(base, numPartitions);
+        copy.overrides.putAll(overrides);
+        return copy;
+    }
+
+    /**
+     * Place a key in a partition, the override is dropped if the partition 
+     * is the one of the wrapped partitioner
+     *
+     * @param key The moved key
+     * @param partition The new partition of the key
+     */
+    public void assign(Object key, int partition) {
+        if (base.partition(key, numPartitions) == partition) {
+            overrides.remove(key);
+        } else {
+            overrides.put(key, partition);
+        }
+    }
+
+    /**
+     * Forget the override of a key, e.g. when it is removed
+     *
+     * @param key The key
+     */
+    public void release(Object key) {
+        if (key != null) {
+            overrides.remove(key);
+        }
+    }
+
+    /**
+     * Forget the overrides of the keys that are no longer in the collection
+     *
+     * @param live Tells whether a key is still in the collection
+     * @return The number of overrides dropped
+     */
+    public int retain(Predicate<Object> live) {
+        int before = overrides.size();
+        overrides.keySet().removeIf(live.negate());
+        return before - overrides.size();
+    }
+
+    /**
+     * Tells whether the overrides are worth compacting
+     *
+     * @param size The number of keys in the collection
+     * @return True if there are more than {@value #MAX_OVERRIDES_PER_KEY} 
+     * overrides per key
+     */
+    public boolean needsCompaction(int size) {
+        return overrides.size() > (long) MAX_OVERRIDES_PER_KEY * size;
+    }
+
+    /**
+     * Forget all the overrides
+     */
+    public void clear() {
+        overrides.clear();
+    }
+
+    /**
+     * @return The number of keys placed outside their original partition
+     */
+    public int getNumOverrides() {
+        return overrides.size();
+    }
+
+    /**
+     * @return The partitioner of the keys that have not been moved
+     */
+    public Partitioner getBase() {
+        return base;
+    }
+}
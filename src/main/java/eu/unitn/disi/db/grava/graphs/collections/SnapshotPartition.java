@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Read-only view of a partition, possibly guarded by a lock or stored out of
+ * the heap. Iterators and spliterators work on a copy of the partition taken
+ * under the read lock, so they are weakly consistent and never throw {@link java.util.ConcurrentModificationException}.
+ * Removals through the iterator are delegated to the owning collection. 
+ *
+ * @param <S> The type of the elements in the partition
+ * @param <T> The type of the elements exposed by the view
+ * @author agent <agent@local>
+ */
+class SnapshotPartition<S, T> extends AbstractCollection<T> {
+
+    private final Supplier<? extends Collection<S>> source;
+    private final IntSupplier size;
+    private final Lock lock;
+    private final Function<? super S, ? extends S> copy;
+    private final Function<? super S, ? extends T> view;
+    private final Consumer<? super S> remover;
+
+    /**
+     * @param source Returns the partition, it may load it
+     * @param size Returns the size of the partition without loading it
+     * @param lock The read lock of the partition, null if not needed
+     * @param copy Copies an element while the lock is held
+     * @param view Maps a copied element to the exposed one
+     * @param remover Removes a copied element from the owning collection
+     */
+    SnapshotPartition(Supplier<? extends Collection<S>> source, IntSupplier size, Lock lock,
+            Function<? super S, ? extends S> copy, Function<? super S, ? extends T> view, Consumer<? super S> remover) {
+        this.source = source;
+        this.size = size;
+        this.lock = lock;
+        this.copy = copy;
+        this.view = view;
+        this.remover = remover;
+    }
+
+    SnapshotPartition(Collection<S> source, Lock lock, Function<? super S, ? extends S> copy,
+            Function<? super S, ? extends T> view, Consumer<? super S> remover) {
+        this(() -> source, source::size, lock, copy, view, remover);
+    }
+
+    SnapshotPartition(Collection<S> source, Lock lock, Function<? super S, ? extends T> view, Consumer<? super S> remover) {
+        this(source, lock, Function.identity(), view, remover);
+    }
+
+    private ArrayList<S> snapshot() {
+        if (lock != null) {
+            lock.lock();
+        }
+        try {
+            Collection<S> partition = source.get();
+            ArrayList<S> snapshot = new ArrayList<>(partition.size());
+            for (S s : partition) {
+                snapshot.add(copy.apply(s));
+            }
+            return snapshot;
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        final ArrayList<S> snapshot = snapshot();
+        return new Iterator<T>() {
+            private int next;
+            private S last;
+
+            @Override
+            public boolean hasNext() {
+                return next < snapshot.size();
+            }
+
+            @Override
+            public T next() {
+                if (next >= snapshot.size()) {
+                    throw new NoSuchElementException("No more elements in the partition");
+                }
+                last = snapshot.get(next++);
+                return view.apply(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException("next() has not been called");
+                }
+                remover.accept(last);
+                last = null;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        ArrayList<S> snapshot = snapshot();
+        ArrayList<T> views = new ArrayList<>(snapshot.size());
+        for (S s : snapshot) {
+            views.add(view.apply(s));
+        }
+        return views.spliterator();
+    }
+
+    @Override
+    public int size() {
+        if (lock != null) {
+            lock.lock();
+        }
+        try {
+            return size.getAsInt();
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+/**
+ * Access statistics of a {@link PartitionSpiller}: hits are accesses to 
+ * resident partitions, misses the accesses that loaded a partition from disk
+ * (or created it) and evictions the partitions written out to free the heap.
+ *
+ * @author agent <agent@local>
+ */
+public class SpillStatistics {
+
+    long hits;
+    long misses;
+    long evictions;
+    long bytesRead;
+    long bytesWritten;
+    int residentPartitions;
+    long residentBytes;
+
+    SpillStatistics() {
+    }
+
+    SpillStatistics(SpillStatistics other) {
+        hits = other.hits;
+        misses = other.misses;
+        evictions = other.evictions;
+        bytesRead = other.bytesRead;
+        bytesWritten = other.bytesWritten;
+        residentPartitions = other.residentPartitions;
+        residentBytes = other.residentBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return The fraction of accesses served by resident partitions
+     */
+    public double getHitRate() {
+        long accesses = hits + misses;
+        return accesses == 0 ? 1 : (double) hits / accesses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public int getResidentPartitions() {
+        return residentPartitions;
+    }
+
+    /**
+     * @return The estimated heap used by the resident partitions at the last
+     * budget check
+     */
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d (hit rate %.3f), evictions=%d, read=%d bytes, written=%d bytes, resident=%d partitions (%d bytes)",
+                hits, misses, getHitRate(), evictions, bytesRead, bytesWritten, residentPartitions, residentBytes);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Function;
+
+/**
+ * A {@link PartitionedList} whose partitions are kept within a heap budget by
+ * a {@link PartitionSpiller}: cold partitions are written to disk with a 
+ * {@link PartitionCodec} and loaded back on access. The partition offsets 
+ * stay in memory, so sizes do not load anything, while positional access 
+ * loads only the partition holding the position. 
+ * 
+ * Iterators copy a partition when the iteration reaches it. The list is not
+ * thread-safe. 
+ *
+ * @author agent <agent@local>
+ */
+public class SpillingPartitionedList<E> extends PartitionedList<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final PartitionSpiller spiller;
+    private final PartitionCodec<E> codec;
+    private final long bytesPerElement;
+    private final ArrayList<E>[] resident;
+    private final PartitionSpiller.Slot<ArrayList<E>>[] slots;
+    private final Collection<E>[] views;
+    private final SnapshotView<E> paged;
+
+    /**
+     * Construct a spilling list
+     * @param numPartitions The number of partitions
+     * @param partitioner Assigns the elements to the partitions
+     * @param indexed If true, keeps a hash index of the elements of every
+     * partition; the index stays on the heap while the partitions are spilled
+     * @param spiller Keeps the partitions within the heap budget
+     * @param codec Writes and reads the elements
+     * @param bytesPerElement The estimated heap used by an element
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SpillingPartitionedList(int numPartitions, Partitioner partitioner, boolean indexed, PartitionSpiller spiller, PartitionCodec<E> codec, long bytesPerElement) {
+        super(0, numPartitions, partitioner, indexed);
+        if (spiller == null || codec == null) {
+            throw new NullPointerException("Spiller and codec cannot be null");
+        }
+        this.spiller = spiller;
+        this.codec = codec;
+        this.bytesPerElement = bytesPerElement;
+        resident = new ArrayList[numPartitions];
+        slots = new PartitionSpiller.Slot[numPartitions];
+        views = new Collection[numPartitions];
+        for (int i = 0; i < numPartitions; i++) {
+            final int p = i;
+            slots[i] = new ListSlot(i);
+            views[i] = new SnapshotPartition<E, E>(() -> partition(p), () -> getPartitionSize(p), null,
+                    Function.identity(), Function.identity(), this::remove);
+        }
+        paged = new SnapshotView<>(views);
+    }
+
+    private class ListSlot extends PartitionSpiller.Slot<ArrayList<E>> {
+
+        private final int partition;
+
+        ListSlot(int partition) {
+            super(spiller);
+            this.partition = partition;
+        }
+
+        @Override
+        ArrayList<E> get() {
+            return resident[partition];
+        }
+
+        @Override
+        long heapSize() {
+            return resident[partition].size() * bytesPerElement;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            ArrayList<E> list = resident[partition];
+            out.writeInt(list.size());
+            for (int i = 0; i < list.size(); i++) {
+                codec.write(out, list.get(i));
+            }
+        }
+
+        @Override
+        void read(DataInput in) throws IOException {
+            int size = in.readInt();
+            ArrayList<E> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add(codec.read(in));
+            }
+            resident[partition] = list;
+        }
+
+        @Override
+        void create() {
+            resident[partition] = new ArrayList<>();
+        }
+
+        @Override
+        void drop() {
+            resident[partition] = null;
+        }
+    }
+
+    @Override
+    protected ArrayList<E> partition(int i) {
+        return spiller.access(slots[i]);
+    }
+
+    @Override
+    protected Collection<E>[] getPartitions() {
+        return views;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < partitions; i++) {
+            spiller.discard(slots[i]);
+            sizeChanged(i, -getPartitionSize(i));
+            clearIndex(i);
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return paged.iterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return paged.spliterator();
+    }
+
+    /**
+     * @return The spiller of the list
+     */
+    public PartitionSpiller getSpiller() {
+        return spiller;
+    }
+
+    @Override
+    protected Object clone() throws CloneNotSupportedException {
+        throw new CloneNotSupportedException("A spilling list cannot be cloned");
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A {@link PartitionedMap} whose partitions are kept within a heap budget by a
+ * {@link PartitionSpiller}: cold partitions are written to disk with a 
+ * {@link PartitionCodec} and loaded back on access. The size of a spilled 
+ * partition is remembered, so {@link #size() } and the balance metrics do not
+ * load anything. 
+ * 
+ * Values obtained from the map may belong to a partition that is spilled 
+ * later on: changing them in place is only safe while their partition is one
+ * of the {@value PartitionSpiller#MIN_RESIDENT} most recently used. The key,
+ * value and entry views copy a partition when the iteration reaches it. 
+ * The map is not thread-safe. 
+ *
+ * @author agent <agent@local>
+ */
+public class SpillingPartitionedMap<K, V> extends PartitionedMap<K, V> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final PartitionSpiller spiller;
+    private final PartitionCodec<Entry<K, V>> codec;
+    private final long bytesPerEntry;
+    private final Map<K, V>[] resident;
+    private final int[] spilledSizes;
+    private final PartitionSpiller.Slot<Map<K, V>>[] slots;
+    private transient Set<K> keySet;
+    private transient Collection<V> values;
+    private transient Set<Entry<K, V>> entrySet;
+
+    /**
+     * Construct a spilling map
+     * @param numPartitions The number of partitions
+     * @param partitioner Assigns the keys to the partitions
+     * @param spiller Keeps the partitions within the heap budget
+     * @param codec Writes and reads the entries
+     * @param bytesPerEntry The estimated heap used by an entry
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SpillingPartitionedMap(int numPartitions, Partitioner partitioner, PartitionSpiller spiller, PartitionCodec<Entry<K, V>> codec, long bytesPerEntry) {
+        super(0, 0.75f, numPartitions, partitioner);
+        if (spiller == null || codec == null) {
+            throw new NullPointerException("Spiller and codec cannot be null");
+        }
+        this.spiller = spiller;
+        this.codec = codec;
+        this.bytesPerEntry = bytesPerEntry;
+        resident = new Map[numPartitions];
+        spilledSizes = new int[numPartitions];
+        slots = new PartitionSpiller.Slot[numPartitions];
+        for (int i = 0; i < numPartitions; i++) {
+            slots[i] = new MapSlot(i);
+        }
+    }
+
+    private class MapSlot extends PartitionSpiller.Slot<Map<K, V>> {
+
+        private final int partition;
+
+        MapSlot(int partition) {
+            super(spiller);
+            this.partition = partition;
+        }
+
+        @Override
+        Map<K, V> get() {
+            return resident[partition];
+        }
+
+        @Override
+        long heapSize() {
+            return resident[partition].size() * bytesPerEntry;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            Map<K, V> map = resident[partition];
+            out.writeInt(map.size());
+            for (Entry<K, V> e : map.entrySet()) {
+                codec.write(out, e);
+            }
+        }
+
+        @Override
+        void read(DataInput in) throws IOException {
+            int size = in.readInt();
+            Map<K, V> map = new HashMap<>((int) (size / 0.75f) + 1);
+            for (int i = 0; i < size; i++) {
+                Entry<K, V> e = codec.read(in);
+                map.put(e.getKey(), e.getValue());
+            }
+            resident[partition] = map;
+        }
+
+        @Override
+        void create() {
+            resident[partition] = new HashMap<>();
+        }
+
+        @Override
+        void drop() {
+            spilledSizes[partition] = resident[partition].size();
+            resident[partition] = null;
+        }
+    }
+
+    @Override
+    protected Map<K, V> partition(int i) {
+        return spiller.access(slots[i]);
+    }
+
+    private int sizeOf(int i) {
+        return slots[i].isResident() ? resident[i].size() : spilledSizes[i];
+    }
+
+    @Override
+    public int getPartitionSize(int i) {
+        if (i < 0 || i >= getNumPartitions()) {
+            throw new IllegalArgumentException("i cannot be less than 0 or greter than num partitions");
+        }
+        return sizeOf(i);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < getNumPartitions(); i++) {
+            size += sizeOf(i);
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < getNumPartitions(); i++) {
+            spiller.discard(slots[i]);
+            spilledSizes[i] = 0;
+        }
+    }
+
+    /**
+     * @return The spiller of the map
+     */
+    public PartitionSpiller getSpiller() {
+        return spiller;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        if (keySet == null) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Collection<K>[] parts = new Collection[getNumPartitions()];
+            for (int i = 0; i < parts.length; i++) {
+                final int p = i;
+                parts[i] = new SnapshotPartition<K, K>(() -> partition(p).keySet(), () -> sizeOf(p), null,
+                        Function.identity(), Function.identity(), this::remove);
+            }
+            keySet = new KeySet(parts);
+        }
+        return keySet;
+    }
+
+    @Override
+    public Collection<V> values() {
+        if (values == null) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Collection<V>[] parts = new Collection[getNumPartitions()];
+            for (int i = 0; i < parts.length; i++) {
+                final int p = i;
+                parts[i] = new SnapshotPartition<Entry<K, V>, V>(() -> partition(p).entrySet(), () -> sizeOf(p), null,
+                        AbstractMap.SimpleImmutableEntry::new, Entry::getValue, e -> remove(e.getKey(), e.getValue()));
+            }
+            values = new Values(parts);
+        }
+        return values;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Collection<Entry<K, V>>[] parts = new Collection[getNumPartitions()];
+            for (int i = 0; i < parts.length; i++) {
+                final int p = i;
+                parts[i] = new SnapshotPartition<Entry<K, V>, Entry<K, V>>(() -> partition(p).entrySet(), () -> sizeOf(p), null,
+                        AbstractMap.SimpleImmutableEntry::new, WriteThroughEntry::new, e -> remove(e.getKey(), e.getValue()));
+            }
+            entrySet = new EntrySet(parts);
+        }
+        return entrySet;
+    }
+
+    private int partitionOf(Object key) {
+        return getPartitioner().partition(key, getNumPartitions());
+    }
+
+    /*
+     * Entry of a copied partition, setValue writes through to the map
+     */
+    private class WriteThroughEntry extends AbstractMap.SimpleEntry<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        WriteThroughEntry(Entry<K, V> e) {
+            super(e);
+        }
+
+        @Override
+        public V setValue(V value) {
+            super.setValue(value);
+            return put(getKey(), value);
+        }
+    }
+
+    private class KeySet extends SnapshotView<K> implements Set<K> {
+
+        KeySet(Collection<K>[] parts) {
+            super(parts);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return partition(partitionOf(o)).keySet().remove(o);
+        }
+
+        @Override
+        public int size() {
+            return SpillingPartitionedMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            SpillingPartitionedMap.this.clear();
+        }
+    }
+
+    private class Values extends SnapshotView<V> {
+
+        Values(Collection<V>[] parts) {
+            super(parts);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            for (int i = 0; i < getNumPartitions(); i++) {
+                if (sizeOf(i) > 0 && partition(i).values().remove(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return SpillingPartitionedMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            SpillingPartitionedMap.this.clear();
+        }
+    }
+
+    private class EntrySet extends SnapshotView<Entry<K, V>> implements Set<Entry<K, V>> {
+
+        EntrySet(Collection<Entry<K, V>>[] parts) {
+            super(parts);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            return partition(partitionOf(((Entry) o).getKey())).entrySet().contains(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return SpillingPartitionedMap.this.remove(e.getKey(), e.getValue());
+        }
+
+        @Override
+        public int size() {
+            return SpillingPartitionedMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            SpillingPartitionedMap.this.clear();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import eu.unitn.disi.db.grava.graphs.EdgeDirection;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel breadth first search that chooses the direction of each level 
+ * (Beamer et al., direction-optimizing BFS): a level is expanded top-down, 
+ * from the frontier to its unvisited neighbors, while the frontier is small,
+ * and bottom-up, from every unvisited node looking for a neighbor in the 
+ * frontier, when the frontier has more edges than the unvisited nodes. 
+ * Bottom-up levels stop scanning a node at the first parent found, which 
+ * saves most of the edge checks on the large middle levels of small-world 
+ * graphs.
+ * 
+ * Frontiers and visited set are bitmaps over the dense ids of a 
+ * {@link CompactGraph}, and each level is processed in parallel by blocks of
+ * ids. An instance runs one search at a time.
+ *
+ * @author agent <agent@local>
+ */
+public class BreadthFirstSearch {
+
+    /**
+     * Switch to bottom-up when the frontier has more than 1/ALPHA of the 
+     * edges of the unvisited nodes
+     */
+    private static final int ALPHA = 14;
+    /**
+     * Switch back to top-down when the frontier has less than 1/BETA of the 
+     * nodes
+     */
+    private static final int BETA = 24;
+    /**
+     * Number of bitmap words processed by a task
+     */
+    private static final int WORDS_PER_TASK = 64;
+
+    private final CompactGraph graph;
+    private final EdgeDirection direction;
+    private int topDownLevels;
+    private int bottomUpLevels;
+
+    /**
+     * Construct a search following the outgoing edges
+     *
+     * @param graph The graph to be searched
+     */
+    public BreadthFirstSearch(CompactGraph graph) {
+        this(graph, EdgeDirection.OUTGOING);
+    }
+
+    /**
+     * Construct a search following the edges in the input direction, 
+     * {@link EdgeDirection#BOTH} ignores the direction of the edges.
+     *
+     * @param graph The graph to be searched
+     * @param direction The direction of the edges followed
+     */
+    public BreadthFirstSearch(CompactGraph graph, EdgeDirection direction) {
+        if (graph == null || direction == null) {
+            throw new NullPointerException("Graph and direction cannot be null");
+        }
+        this.graph = graph;
+        this.direction = direction;
+    }
+
+    /**
+     * Compute the number of hops from the source to every node
+     *
+     * @param source The source node
+     * @return The hops of each node indexed by id (see 
+     * {@link CompactGraph#idOf(long) }), -1 if it cannot be reached
+     */
+    public int[] distances(long source) {
+        int[] distances = new int[graph.numberOfNodes()];
+        Arrays.fill(distances, -1);
+        int id = graph.idOf(source);
+        if (id >= 0) {
+            search(id, -1, distances);
+        }
+        return distances;
+    }
+
+    /**
+     * Compute the number of hops from the source to the target, stopping at
+     * the level that reaches the target
+     *
+     * @param source The source node
+     * @param target The target node
+     * @return The number of hops, -1 if the target cannot be reached
+     */
+    public int hops(long source, long target) {
+        int s = graph.idOf(source), t = graph.idOf(target);
+        if (s < 0 || t < 0) {
+            return -1;
+        }
+        int[] distances = new int[graph.numberOfNodes()];
+        Arrays.fill(distances, -1);
+        search(s, t, distances);
+        return distances[t];
+    }
+
+    /**
+     * @param source The source node
+     * @param target The target node
+     * @return True if there is a path from the source to the target
+     */
+    public boolean isReachable(long source, long target) {
+        return hops(source, target) >= 0;
+    }
+
+    /**
+     * @return The number of levels expanded top-down by the last search
+     */
+    public int getTopDownLevels() {
+        return topDownLevels;
+    }
+
+    /**
+     * @return The number of levels expanded bottom-up by the last search
+     */
+    public int getBottomUpLevels() {
+        return bottomUpLevels;
+    }
+
+    private void search(int source, int target, int[] distances) {
+        final int n = graph.numberOfNodes();
+        final int words = (n + 63) >>> 6;
+        final int tasks = (words + WORDS_PER_TASK - 1) / WORDS_PER_TASK;
+        AtomicLongArray visited = new AtomicLongArray(words);
+        AtomicLongArray frontier = new AtomicLongArray(words);
+        AtomicLongArray next = new AtomicLongArray(words);
+        LongAdder frontierNodes = new LongAdder(), frontierEdges = new LongAdder();
+        long unvisitedEdges = edgeCount();
+        boolean bottomUp = false;
+        int level = 0;
+        
+        topDownLevels = 0;
+        bottomUpLevels = 0;
+        visited.set(source >>> 6, 1L << source);
+        frontier.set(source >>> 6, 1L << source);
+        distances[source] = 0;
+        long nodes = 1, edges = degreeOf(source);
+        while (nodes > 0 && (target < 0 || distances[target] < 0)) {
+            unvisitedEdges -= edges;
+            if (bottomUp) {
+                bottomUp = nodes >= n / BETA;
+            } else {
+                bottomUp = edges > unvisitedEdges / ALPHA;
+            }
+            final int current = level;
+            final AtomicLongArray in = frontier, out = next;
+            frontierNodes.reset();
+            frontierEdges.reset();
+            if (bottomUp) {
+                bottomUpLevels++;
+                IntStream.range(0, tasks).parallel().forEach(task
+                        -> bottomUp(task, words, in, out, visited, distances, current, frontierNodes, frontierEdges));
+            } else {
+                topDownLevels++;
+                IntStream.range(0, tasks).parallel().forEach(task
+                        -> topDown(task, words, in, out, visited, distances, current, frontierNodes, frontierEdges));
+            }
+            nodes = frontierNodes.sum();
+            edges = frontierEdges.sum();
+            //The old frontier becomes the next one
+            for (int w = 0; w < words; w++) {
+                frontier.set(w, 0);
+            }
+            frontier = next;
+            next = in;
+            level++;
+        }
+    }
+
+    private void topDown(int task, int words, AtomicLongArray frontier, AtomicLongArray next, AtomicLongArray visited, 
+            int[] distances, int level, LongAdder frontierNodes, LongAdder frontierEdges) 
+    {
+        int end = Math.min(words, (task + 1) * WORDS_PER_TASK);
+        long nodes = 0, edges = 0;
+        for (int w = task * WORDS_PER_TASK; w < end; w++) {
+            long word = frontier.get(w);
+            while (word != 0) {
+                int node = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (direction != EdgeDirection.INCOMING) {
+                    int[] offsets = graph.getOutOffsets(), targets = graph.getOutTargets();
+                    for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                        if (visit(targets[e], visited, next)) {
+                            distances[targets[e]] = level + 1;
+                            nodes++;
+                            edges += degreeOf(targets[e]);
+                        }
+                    }
+                }
+                if (direction != EdgeDirection.OUTGOING) {
+                    int[] offsets = graph.getInOffsets(), sources = graph.getInSources();
+                    for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                        if (visit(sources[e], visited, next)) {
+                            distances[sources[e]] = level + 1;
+                            nodes++;
+                            edges += degreeOf(sources[e]);
+                        }
+                    }
+                }
+            }
+        }
+        frontierNodes.add(nodes);
+        frontierEdges.add(edges);
+    }
+
+    /*
+     * Mark a node as visited, returns false if it was already
+     */
+    private static boolean visit(int node, AtomicLongArray visited, AtomicLongArray next) {
+        int w = node >>> 6;
+        long bit = 1L << node;
+        long word;
+        do {
+            word = visited.get(w);
+            if ((word & bit) != 0) {
+                return false;
+            }
+        } while (!visited.compareAndSet(w, word, word | bit));
+        do {
+            word = next.get(w);
+        } while (!next.compareAndSet(w, word, word | bit));
+        return true;
+    }
+
+    /*
+     * Each task owns its words of the visited and next bitmaps
+     */
+    private void bottomUp(int task, int words, AtomicLongArray frontier, AtomicLongArray next, AtomicLongArray visited, 
+            int[] distances, int level, LongAdder frontierNodes, LongAdder frontierEdges) 
+    {
+        int n = graph.numberOfNodes();
+        int end = Math.min(words, (task + 1) * WORDS_PER_TASK);
+        long nodes = 0, edges = 0;
+        for (int w = task * WORDS_PER_TASK; w < end; w++) {
+            long seen = visited.get(w);
+            long unvisited = ~seen;
+            if (w == words - 1 && (n & 63) != 0) {
+                unvisited &= (1L << (n & 63)) - 1;
+            }
+            long found = 0;
+            while (unvisited != 0) {
+                int node = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+                long bit = unvisited & -unvisited;
+                unvisited &= unvisited - 1;
+                if (hasParent(node, frontier)) {
+                    found |= bit;
+                    distances[node] = level + 1;
+                    nodes++;
+                    edges += degreeOf(node);
+                }
+            }
+            if (found != 0) {
+                visited.set(w, seen | found);
+                next.set(w, found);
+            }
+        }
+        frontierNodes.add(nodes);
+        frontierEdges.add(edges);
+    }
+
+    /*
+     * Look for a neighbor in the frontier, on the edges reversed with 
+     * respect to the direction of the search
+     */
+    private boolean hasParent(int node, AtomicLongArray frontier) {
+        if (direction != EdgeDirection.INCOMING) {
+            int[] offsets = graph.getInOffsets(), sources = graph.getInSources();
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                if ((frontier.get(sources[e] >>> 6) & (1L << sources[e])) != 0) {
+                    return true;
+                }
+            }
+        }
+        if (direction != EdgeDirection.OUTGOING) {
+            int[] offsets = graph.getOutOffsets(), targets = graph.getOutTargets();
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                if ((frontier.get(targets[e] >>> 6) & (1L << targets[e])) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * The edges scanned when a node is expanded top-down
+     */
+    private int degreeOf(int node) {
+        switch (direction) {
+            case INCOMING:
+                return graph.inDegreeOf(node);
+            case OUTGOING:
+                return graph.outDegreeOf(node);
+            default:
+                return graph.inDegreeOf(node) + graph.outDegreeOf(node);
+        }
+    }
+
+    private long edgeCount() {
+        return direction == EdgeDirection.BOTH ? 2L * graph.numberOfEdges() : graph.numberOfEdges();
+    }
+}
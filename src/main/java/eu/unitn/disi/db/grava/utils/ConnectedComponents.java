@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * The weakly connected components of a graph, computed with a lock-free 
+ * union-find over the edges of a {@link CompactGraph}, processed in parallel
+ * by ranges of nodes. Roots are always linked to the smaller root with a 
+ * compare-and-set, so the trees have no cycles whatever the interleaving, and
+ * finds halve the paths they walk.
+ * 
+ * The components are numbered from 0 in order of their smallest node id.
+ *
+ * @author agent <agent@local>
+ */
+public class ConnectedComponents {
+
+    private static final int NODES_PER_TASK = 4096;
+
+    private final CompactGraph graph;
+    private final int[] components;
+    private final int[] sizes;
+
+    private ConnectedComponents(CompactGraph graph, int[] components, int[] sizes) {
+        this.graph = graph;
+        this.components = components;
+        this.sizes = sizes;
+    }
+
+    /**
+     * Compute the components of a graph, converted to a {@link CompactGraph}
+     *
+     * @param graph The graph, that must not change during the computation
+     * @return The components of the graph
+     */
+    public static ConnectedComponents of(Multigraph graph) {
+        return of(CompactGraph.of(graph));
+    }
+
+    /**
+     * Compute the components of a graph
+     *
+     * @param graph The graph
+     * @return The components of the graph
+     */
+    public static ConnectedComponents of(CompactGraph graph) {
+        final int n = graph.numberOfNodes();
+        final int[] offsets = graph.getOutOffsets(), targets = graph.getOutTargets();
+        AtomicIntegerArray parents = new AtomicIntegerArray(n);
+        IntStream.range(0, n).parallel().forEach(i -> parents.lazySet(i, i));
+        IntStream.range(0, (n + NODES_PER_TASK - 1) / NODES_PER_TASK).parallel().forEach(task -> {
+            for (int u = task * NODES_PER_TASK, end = Math.min(n, u + NODES_PER_TASK); u < end; u++) {
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    union(parents, u, targets[e]);
+                }
+            }
+        });
+        int[] components = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> components[i] = find(parents, i));
+        //The root of a component is its smallest id, so it is numbered first
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            components[i] = components[i] == i ? count++ : components[components[i]];
+        }
+        int[] sizes = new int[count];
+        for (int c : components) {
+            sizes[c]++;
+        }
+        return new ConnectedComponents(graph, components, sizes);
+    }
+
+    private static int find(AtomicIntegerArray parents, int x) {
+        int parent;
+        while ((parent = parents.get(x)) != x) {
+            int grandParent = parents.get(parent);
+            if (parent != grandParent) {
+                //Path halving, it fails harmlessly if another thread got there first
+                parents.compareAndSet(x, parent, grandParent);
+            }
+            x = parent;
+        }
+        return x;
+    }
+
+    private static void union(AtomicIntegerArray parents, int u, int v) {
+        while (true) {
+            int ru = find(parents, u), rv = find(parents, v);
+            if (ru == rv) {
+                return;
+            }
+            if (ru < rv) {
+                int tmp = ru;
+                ru = rv;
+                rv = tmp;
+            }
+            //Succeeds only if ru is still a root
+            if (parents.compareAndSet(ru, ru, rv)) {
+                return;
+            }
+        }
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int getNumComponents() {
+        return sizes.length;
+    }
+
+    /**
+     * @return The component of each node, indexed by id (see 
+     * {@link CompactGraph#idOf(long) })
+     */
+    public int[] getComponents() {
+        return components;
+    }
+
+    /**
+     * @param node A node
+     * @return The component of the node, -1 if it is not in the graph
+     */
+    public int componentOf(long node) {
+        int id = graph.idOf(node);
+        return id < 0 ? -1 : components[id];
+    }
+
+    /**
+     * @return The number of nodes of each component
+     */
+    public int[] getSizes() {
+        return sizes;
+    }
+
+    /**
+     * @return The component with the most nodes, -1 if the graph is empty
+     */
+    public int getLargest() {
+        int largest = -1;
+        for (int c = 0; c < sizes.length; c++) {
+            if (largest < 0 || sizes[c] > sizes[largest]) {
+                largest = c;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * @return The number of components with a single node
+     */
+    public int getNumSingletons() {
+        int singletons = 0;
+        for (int size : sizes) {
+            if (size == 1) {
+                singletons++;
+            }
+        }
+        return singletons;
+    }
+
+    /**
+     * @param component A component
+     * @return The nodes of the component, sorted
+     */
+    public long[] nodesOf(int component) {
+        long[] nodes = new long[sizes[component]];
+        int k = 0;
+        for (int i = 0; i < components.length && k < nodes.length; i++) {
+            if (components[i] == component) {
+                nodes[k++] = graph.nodeOf(i);
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public String toString() {
+        int largest = getLargest();
+        return String.format("ConnectedComponents{nodes=%d, components=%d, largest=%d, singletons=%d}",
+                components.length, sizes.length, largest < 0 ? 0 : sizes[largest], getNumSingletons());
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.Edge;
+import eu.unitn.disi.db.grava.graphs.EdgeDirection;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import eu.unitn.disi.db.grava.graphs.collections.LongIntHashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongToDoubleFunction;
+
+/**
+ * An incremental Dijkstra expansion from a source, that settles one node at a 
+ * time. The nodes reached get dense ids in order of discovery, and distances
+ * and parents are kept in primitive arrays indexed by id, with an 
+ * {@link IndexedDaryHeap} as the frontier; the memory is proportional to the
+ * nodes reached, not to the graph. 
+ * 
+ * The weight of an edge depends on its label, labels without a weight cost 0.
+ * Weights must not be negative. An optional potential turns the expansion 
+ * into A*: the nodes are settled by distance plus potential, which must be a
+ * consistent lower bound of the distance to the target (see 
+ * {@link Landmarks#lowerBound(long, long) }).
+ *
+ * @author agent <agent@local>
+ */
+public class Dijkstra {
+
+    private static final int NO_PARENT = -1;
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final Multigraph graph;
+    private final EdgeDirection direction;
+    private final Map<Long, Double> edgeWeights;
+    private final LongToDoubleFunction potential;
+    private final long source;
+    private final LongIntHashMap ids;
+    private final IndexedDaryHeap frontier;
+    private long[] nodes;
+    private double[] distances;
+    private int[] parents;
+    private long[] parentLabels;
+    //True if the parent edge goes from the parent to the node
+    private boolean[] parentOutgoing;
+    private boolean[] settled;
+    private double[] potentials;
+    private int reached;
+    private int numSettled;
+
+    /**
+     * Start an expansion, that follows the edges in the input direction: 
+     * {@link EdgeDirection#OUTGOING} computes the distances from the source, 
+     * {@link EdgeDirection#INCOMING} the distances to the source and 
+     * {@link EdgeDirection#BOTH} ignores the direction of the edges.
+     *
+     * @param graph The graph, that must not change during the expansion
+     * @param source The source of the expansion
+     * @param direction The direction of the edges followed
+     * @param edgeWeights The weight of the edges by label
+     */
+    public Dijkstra(Multigraph graph, long source, EdgeDirection direction, Map<Long, Double> edgeWeights) {
+        this(graph, source, direction, edgeWeights, null);
+    }
+
+    /**
+     * Start an A* expansion, that settles first the nodes with the smallest
+     * distance plus potential. Nodes with infinite potential are never 
+     * reached.
+     *
+     * @param graph The graph, that must not change during the expansion
+     * @param source The source of the expansion
+     * @param direction The direction of the edges followed
+     * @param edgeWeights The weight of the edges by label
+     * @param potential A consistent lower bound of the distance from each 
+     * node to the target, null for none
+     */
+    public Dijkstra(Multigraph graph, long source, EdgeDirection direction, Map<Long, Double> edgeWeights, LongToDoubleFunction potential) {
+        if (graph == null || direction == null || edgeWeights == null) {
+            throw new NullPointerException("Graph, direction and weights cannot be null");
+        }
+        this.graph = graph;
+        this.direction = direction;
+        this.edgeWeights = edgeWeights;
+        this.source = source;
+        this.potential = potential;
+        ids = new LongIntHashMap(DEFAULT_CAPACITY);
+        frontier = new IndexedDaryHeap(DEFAULT_CAPACITY);
+        nodes = new long[DEFAULT_CAPACITY];
+        distances = new double[DEFAULT_CAPACITY];
+        parents = new int[DEFAULT_CAPACITY];
+        parentLabels = new long[DEFAULT_CAPACITY];
+        parentOutgoing = new boolean[DEFAULT_CAPACITY];
+        settled = new boolean[DEFAULT_CAPACITY];
+        potentials = potential == null ? null : new double[DEFAULT_CAPACITY];
+        if (graph.containsVertex(source)) {
+            int id = reach(source);
+            distances[id] = 0.0;
+            if (potentialOf(id) < Double.POSITIVE_INFINITY) {
+                frontier.offer(id, potentialOf(id));
+            }
+        }
+    }
+
+    /*
+     * Assign an id to a new node
+     */
+    private int reach(long node) {
+        if (reached == nodes.length) {
+            int capacity = reached + (reached >> 1);
+            nodes = Arrays.copyOf(nodes, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            parentLabels = Arrays.copyOf(parentLabels, capacity);
+            parentOutgoing = Arrays.copyOf(parentOutgoing, capacity);
+            settled = Arrays.copyOf(settled, capacity);
+            if (potentials != null) {
+                potentials = Arrays.copyOf(potentials, capacity);
+            }
+        }
+        int id = reached++;
+        ids.put(node, id);
+        nodes[id] = node;
+        distances[id] = Double.POSITIVE_INFINITY;
+        parents[id] = NO_PARENT;
+        if (potentials != null) {
+            potentials[id] = potential.applyAsDouble(node);
+        }
+        return id;
+    }
+
+    private double potentialOf(int id) {
+        return potentials == null ? 0.0 : potentials[id];
+    }
+
+    public long getSource() {
+        return source;
+    }
+
+    /**
+     * @return True if there are no more nodes to settle
+     */
+    public boolean isExhausted() {
+        return frontier.isEmpty();
+    }
+
+    /**
+     * @return The distance of the next node to be settled, plus its potential
+     * @throws java.util.NoSuchElementException If the expansion is exhausted
+     */
+    public double peekDistance() {
+        return frontier.peekKey();
+    }
+
+    /**
+     * Settle the closest node not settled yet and relax its edges
+     *
+     * @return The node settled
+     * @throws java.util.NoSuchElementException If the expansion is exhausted
+     */
+    public long next() {
+        int id = frontier.poll();
+        double distance = distances[id];
+        settled[id] = true;
+        numSettled++;
+        long node = nodes[id];
+        if (direction != EdgeDirection.OUTGOING) {
+            relax(id, distance, graph.incomingEdgesIteratorOf(node), false);
+        }
+        if (direction != EdgeDirection.INCOMING) {
+            relax(id, distance, graph.outgoingEdgesIteratorOf(node), true);
+        }
+        return node;
+    }
+
+    private void relax(int id, double distance, Iterator<Edge> edges, boolean outgoing) {
+        while (edges.hasNext()) {
+            Edge e = edges.next();
+            long label = e.getLabel();
+            long adjacent = outgoing ? e.getDestination() : e.getSource();
+            int adjacentId = ids.get(adjacent);
+            if (adjacentId >= 0 && settled[adjacentId]) {
+                continue;
+            }
+            Double weight = edgeWeights.get(label);
+            double d = distance + (weight == null ? 0.0 : weight);
+            if (adjacentId < 0) {
+                adjacentId = reach(adjacent);
+            } else if (d >= distances[adjacentId]) {
+                continue;
+            }
+            distances[adjacentId] = d;
+            parents[adjacentId] = id;
+            parentLabels[adjacentId] = label;
+            parentOutgoing[adjacentId] = outgoing;
+            if (potentialOf(adjacentId) < Double.POSITIVE_INFINITY) {
+                frontier.offer(adjacentId, d + potentialOf(adjacentId));
+            }
+        }
+    }
+
+    /**
+     * Settle the nodes up to the input one
+     *
+     * @param node The target node
+     * @return The distance of the node, infinite if it cannot be reached
+     */
+    public double settle(long node) {
+        int id = ids.get(node);
+        while ((id < 0 || !settled[id]) && !frontier.isEmpty()) {
+            next();
+            if (id < 0) {
+                id = ids.get(node);
+            }
+        }
+        return id >= 0 && settled[id] ? distances[id] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @param node A node
+     * @return True if the shortest distance of the node is known
+     */
+    public boolean isSettled(long node) {
+        int id = ids.get(node);
+        return id >= 0 && settled[id];
+    }
+
+    /**
+     * @return The number of nodes settled so far
+     */
+    public int getNumSettled() {
+        return numSettled;
+    }
+
+    /**
+     * @return The number of nodes reached so far, settled or in the frontier
+     */
+    public int getNumReached() {
+        return reached;
+    }
+
+    /**
+     * Returns the distance found so far, which is the shortest one if the node
+     * is settled
+     *
+     * @param node A node
+     * @return The distance of the node, infinite if it was not reached
+     */
+    public double distanceOf(long node) {
+        int id = ids.get(node);
+        return id < 0 ? Double.POSITIVE_INFINITY : distances[id];
+    }
+
+    /**
+     * Returns the edges on the path from the node to the source, in this 
+     * order; with {@link EdgeDirection#INCOMING} the edges go from the node 
+     * to the source, with {@link EdgeDirection#OUTGOING} from the source to
+     * the node (and the list has to be reversed to walk them in order).
+     *
+     * @param node A node reached by the expansion
+     * @return The edges from the node to the source, null if the node was 
+     * not reached
+     */
+    public List<Edge> pathTo(long node) {
+        int id = ids.get(node);
+        if (id < 0) {
+            return null;
+        }
+        List<Edge> path = new ArrayList<>();
+        while (parents[id] != NO_PARENT) {
+            int parent = parents[id];
+            path.add(parentOutgoing[id]
+                    ? new Edge(nodes[parent], nodes[id], parentLabels[id])
+                    : new Edge(nodes[id], nodes[parent], parentLabels[id]));
+            id = parent;
+        }
+        return path;
+    }
+}
@@ -19,17 +19,27 @@
 package eu.unitn.disi.db.grava.utils;
 
 import eu.unitn.disi.db.grava.graphs.Edge;
+import eu.unitn.disi.db.grava.graphs.EdgeDirection;
 import eu.unitn.disi.db.grava.graphs.Multigraph;
+import eu.unitn.disi.db.grava.graphs.collections.LongIntHashMap;
 import eu.unitn.disi.db.mutilities.Pair;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 
 /**
  *
@@ -37,181 +47,402 @@ import java.util.TreeMap;
  */
 public class GraphAlgorithms {   
     
-    private static class KeyPair implements Comparable<KeyPair> {
-        private final long node; 
-        private final double weight; 
+    /**
+     * Number of nodes each source settles between two synchronizations of 
+     * the parallel expansion
+     */
+    private static final int STEPS_PER_ROUND = 256;
+    
+    /*
+     * The sources that settled a node, with the time they settled it, as an
+     * immutable list so that it can be replaced atomically 
+     */
+    private static class Visit {
+        private final int source; 
+        private final long time; 
+        private final Visit next; 
 
-        public KeyPair(long node, double weight) {
-            this.node = node;
-            this.weight = weight;
-        }
-        
-        public long getNode() {
-            return node;
+        Visit(int source, long time, Visit next) {
+            this.source = source;
+            this.time = time;
+            this.next = next;
         }
+    }
+    
+    /*
+     * The first node where the expansions of two sources met
+     */
+    private static class Meeting implements Comparable<Meeting> {
+        private final int sourceA; 
+        private final int sourceB; 
+        private final long node; 
+        private final long time;
 
-        public double getWeight() {
-            return weight;
+        Meeting(int sourceA, int sourceB, long node, long time) {
+            this.sourceA = sourceA;
+            this.sourceB = sourceB;
+            this.node = node;
+            this.time = time;
         }
         
         @Override
-        public int hashCode() {
-            int hash = 5;
-            hash = 47 * hash + (int) (this.node ^ (this.node >>> 32));
-            return hash;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == null) {
-                return false;
-            }
-            if (getClass() != obj.getClass()) {
-                return false;
+        public int compareTo(Meeting o) {
+            int cmp = Long.compare(time, o.time); 
+            if (cmp == 0) {
+                cmp = Integer.compare(sourceA, o.sourceA);
             }
-            final KeyPair other = (KeyPair) obj;
-            if (this.node != other.node) {
-                return false;
+            return cmp == 0 ? Integer.compare(sourceB, o.sourceB) : cmp;
+        }
+    }
+    
+    /**
+     * Find a path between each pair of sources, running a Dijkstra expansion
+     * from each source on the incoming edges. The path of two sources goes 
+     * through the first node settled by both expansions, when they advance 
+     * one node at a time in turn. The expansions run in parallel on the 
+     * common fork-join pool.
+     *
+     * @param graph The graph, that must not be modified during the search
+     * @param sources The sources to be connected
+     * @param edgeWeights The weight of the edges by label, 0 if missing
+     * @return The paths found, sources that are not connected have no path
+     * @see #shortestPath(Multigraph, List, Map, ForkJoinPool) 
+     */
+    public static List<List<Edge>> shortestPath(Multigraph graph, List<Long> sources, Map<Long, Double> edgeWeights) {
+        return shortestPath(graph, sources, edgeWeights, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Find a path between each pair of sources, running the expansions of 
+     * the sources in parallel on a pool. Each source settles a batch of nodes
+     * per round and registers them in a concurrent map of meeting points; the 
+     * paths are built between the rounds, in the order the expansions met.
+     *
+     * @param graph The graph, that must not be modified during the search
+     * @param sources The sources to be connected
+     * @param edgeWeights The weight of the edges by label, 0 if missing
+     * @param pool The pool running the expansions
+     * @return The paths found, from the first to the second source of each 
+     * pair; sources that are not connected have no path
+     */
+    public static List<List<Edge>> shortestPath(final Multigraph graph, List<Long> sources, final Map<Long, Double> edgeWeights, ForkJoinPool pool) {
+        final int n = sources.size();
+        final Dijkstra[] nodeDistances = expansions(graph, sources, edgeWeights);
+        Set<Pair<Integer,Integer>> pathPairs = new HashSet<>();
+        List<List<Edge>> shortestPaths = new ArrayList<>(); 
+        int[] pendingPairs = new int[n];
+        int i, j; 
+        //1. Build the path pairs to create. 
+        for (i = 0; i < n; i++) {
+            for (j = i + 1; j < n; j++) {
+                pathPairs.add(new Pair<>(i,j));
+                pendingPairs[i]++;
+                pendingPairs[j]++;
             }
-            return true;
         }
-        
-        @Override
-        public int compareTo(KeyPair o) {
-            if (weight > o.weight) 
-                return 1; 
-            if (weight < o.weight)
-                return -1;
-            return 0;
+        //2. Store the paths of the sources that met, in meeting order
+        meet(nodeDistances, source -> pendingPairs[source] > 0, pool, m -> {
+            if (pathPairs.remove(new Pair<>(m.sourceA, m.sourceB))) {
+                pendingPairs[m.sourceA]--;
+                pendingPairs[m.sourceB]--;
+                shortestPaths.add(path(nodeDistances, m));
+            }
+            return !pathPairs.isEmpty();
+        });
+        return shortestPaths; 
+    }
+    
+    /**
+     * Connect the terminals with an approximate Steiner tree
+     *
+     * @param graph The graph, that must not be modified during the search
+     * @param terminals The nodes to be connected
+     * @param edgeWeights The weight of the edges by label, 0 if missing
+     * @return The edges of the tree
+     * @see #steinerTree(Multigraph, List, Map, ForkJoinPool) 
+     */
+    public static List<Edge> steinerTree(Multigraph graph, List<Long> terminals, Map<Long, Double> edgeWeights) {
+        return steinerTree(graph, terminals, edgeWeights, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Connect the terminals with an approximate Steiner tree, in the spirit 
+     * of Mehlhorn's algorithm. The terminals are expanded in parallel as in 
+     * {@link #shortestPath(Multigraph, List, Map, ForkJoinPool) }, and the 
+     * meetings of two expansions, taken in order, are the edges of a Kruskal
+     * spanning tree of the terminals: a meeting only adds its path if it 
+     * joins two groups of terminals not connected yet, and the expansions 
+     * stop as soon as all the terminals are connected, without building the
+     * path of every pair. The union of the paths is then reduced to a 
+     * minimum spanning tree, ignoring the direction of the edges, whose 
+     * leaves that are not terminals are pruned.
+     *
+     * @param graph The graph, that must not be modified during the search
+     * @param terminals The nodes to be connected
+     * @param edgeWeights The weight of the edges by label, 0 if missing
+     * @param pool The pool running the expansions
+     * @return The distinct edges of the tree; if some terminals cannot be 
+     * connected, a tree for each group of connected terminals
+     */
+    public static List<Edge> steinerTree(Multigraph graph, List<Long> terminals, Map<Long, Double> edgeWeights, ForkJoinPool pool) {
+        final int n = terminals.size();
+        final Dijkstra[] nodeDistances = expansions(graph, terminals, edgeWeights);
+        final int[] groups = new int[n];
+        final int[] numGroups = {n};
+        Set<Edge> edges = new LinkedHashSet<>();
+        for (int i = 0; i < n; i++) {
+            groups[i] = i;
         }
+        meet(nodeDistances, source -> numGroups[0] > 1, pool, m -> {
+            int a = find(groups, m.sourceA), b = find(groups, m.sourceB);
+            if (a != b) {
+                groups[Math.max(a, b)] = Math.min(a, b);
+                numGroups[0]--;
+                edges.addAll(path(nodeDistances, m));
+            }
+            return numGroups[0] > 1;
+        });
+        return prune(new ArrayList<>(edges), new HashSet<>(terminals), edgeWeights);
     }
     
+    private static int find(int[] parents, int x) {
+        while (parents[x] != x) {
+            parents[x] = parents[parents[x]];
+            x = parents[x];
+        }
+        return x;
+    }
     
-    private static class NodeDistances {
-        private final Set<Long> visitedNodes; 
-        private final TreeMap<KeyPair,Double> minDistNodes; 
-        private final Long source; 
-        private final Map<Long,Edge> previousEdge; 
-        
-        public NodeDistances(Long source) {
-            this.source = source; 
-            visitedNodes = new HashSet<>();
-            minDistNodes = new TreeMap<>();//Ordered by weights
-            minDistNodes.put(new KeyPair(source, 0.0), 0.0);
-            previousEdge = new HashMap<>();
+    /*
+     * The minimum spanning forest of the edges, without the branches that 
+     * lead to no terminal
+     */
+    private static List<Edge> prune(List<Edge> edges, Set<Long> terminals, Map<Long, Double> edgeWeights) {
+        //Kruskal, ties broken by the order of the paths
+        List<Edge> sorted = new ArrayList<>(edges);
+        sorted.sort((e1, e2) -> Double.compare(weightOf(e1, edgeWeights), weightOf(e2, edgeWeights)));
+        LongIntHashMap ids = new LongIntHashMap(2 * edges.size() + 1);
+        int[] parents = new int[2 * edges.size()];
+        List<Edge> tree = new ArrayList<>();
+        for (Edge e : sorted) {
+            int u = find(parents, idOf(ids, parents, e.getSource()));
+            int v = find(parents, idOf(ids, parents, e.getDestination()));
+            if (u != v) {
+                parents[Math.max(u, v)] = Math.min(u, v);
+                tree.add(e);
+            }
         }
-
-        public TreeMap<KeyPair, Double> getMinDistNodes() {
-            return minDistNodes;
+        //Remove the leaves that are not terminals, until there are none
+        Map<Long, List<Edge>> incident = new HashMap<>();
+        for (Edge e : tree) {
+            incident.computeIfAbsent(e.getSource(), node -> new ArrayList<>()).add(e);
+            incident.computeIfAbsent(e.getDestination(), node -> new ArrayList<>()).add(e);
         }
-        
-        public Set<Long> getVisitedNodes() {
-            return visitedNodes;
+        Set<Edge> removed = new HashSet<>();
+        Deque<Long> leaves = new ArrayDeque<>();
+        for (Map.Entry<Long, List<Edge>> entry : incident.entrySet()) {
+            if (entry.getValue().size() == 1 && !terminals.contains(entry.getKey())) {
+                leaves.add(entry.getKey());
+            }
         }
-        
-        public Long getSource() {
-            return source;
+        while (!leaves.isEmpty()) {
+            Long leaf = leaves.poll();
+            for (Edge e : incident.get(leaf)) {
+                if (removed.add(e)) {
+                    Long other = leaf.equals(e.getSource()) ? e.getDestination() : e.getSource();
+                    List<Edge> otherEdges = incident.get(other);
+                    otherEdges.remove(e);
+                    if (otherEdges.size() == 1 && !terminals.contains(other)) {
+                        leaves.add(other);
+                    }
+                }
+            }
         }
-
-        public Map<Long, Edge> getPreviousNode() {
-            return previousEdge;
+        tree.removeAll(removed);
+        return tree;
+    }
+    
+    private static int idOf(LongIntHashMap ids, int[] parents, long node) {
+        int id = ids.get(node);
+        if (id < 0) {
+            id = ids.size();
+            ids.put(node, id);
+            parents[id] = id;
         }
-    }    
+        return id;
+    }
     
-    public static List<List<Edge>> shortestPath(Multigraph graph, List<Long> sources, Map<Long, Double> edgeWeights) {
-        final NodeDistances[] nodeDistances = new NodeDistances[sources.size()]; 
-        NodeDistances dist2; 
-        List<List<Edge>> shortestPaths = new ArrayList<>(); 
-        KeyPair minDistNode;
-        Pair<Integer, Integer> pathPair; 
-        Double weight, edgeWeight; 
-        long adjNode;
-        Map<Long, Set<Integer>> commonVisitedNodes = new HashMap<>(); 
-        Set<Integer> visitedSources; 
-        Set<Pair<Integer,Integer>> pathPairs = new HashSet<>();
-        Collection<Edge> neighborEdges; 
-        List<Edge> path; 
-        int i, j; 
-        //1. Initialize
-        i = 0; 
+    private static double weightOf(Edge e, Map<Long, Double> edgeWeights) {
+        Double weight = edgeWeights.get(e.getLabel());
+        return weight == null ? 0.0 : weight;
+    }
+    
+    private static Dijkstra[] expansions(Multigraph graph, List<Long> sources, Map<Long, Double> edgeWeights) {
+        Dijkstra[] nodeDistances = new Dijkstra[sources.size()];
+        int i = 0; 
         for (Long src : sources) {
-            nodeDistances[i] = new NodeDistances(src);
-            i++;
+            nodeDistances[i++] = new Dijkstra(graph, src, EdgeDirection.INCOMING, edgeWeights);
         }
-        //1.1 Build the path pairs to create. 
-        for (i = 0; i <  sources.size(); i++) {
-            for (j = i + 1; j < sources.size(); j++) {
-                pathPairs.add(new Pair<>(i,j));
+        return nodeDistances;
+    }
+    
+    /*
+     * The path from the first to the second source of a meeting
+     */
+    private static List<Edge> path(Dijkstra[] nodeDistances, Meeting m) {
+        List<Edge> path = nodeDistances[m.sourceA].pathTo(m.node);
+        Collections.reverse(path);
+        path.addAll(nodeDistances[m.sourceB].pathTo(m.node));
+        return path;
+    }
+    
+    /*
+     * Expand the sources in parallel rounds, and pass the meetings of each 
+     * round to the consumer in the order they happened, until it returns 
+     * false or no source left to expand
+     */
+    private static void meet(Dijkstra[] nodeDistances, IntPredicate expanding, ForkJoinPool pool, Predicate<Meeting> consumer) {
+        final int n = nodeDistances.length;
+        final Map<Long, Visit> commonVisitedNodes = new ConcurrentHashMap<>(); 
+        final Map<Pair<Integer,Integer>, Meeting> meetings = new ConcurrentHashMap<>(); 
+        List<Callable<Void>> round = new ArrayList<>(n);
+        List<Meeting> found = new ArrayList<>();
+        while (true) {
+            //A batch of steps in each source, in parallel
+            round.clear();
+            for (int i = 0; i < n; i++) {
+                final Dijkstra dist = nodeDistances[i];
+                final int source = i;
+                if (expanding.test(i) && !dist.isExhausted()) {
+                    round.add(() -> {
+                        expand(dist, source, n, commonVisitedNodes, meetings);
+                        return null;
+                    });
+                }
             }
-        }
-        while (!pathPairs.isEmpty()) {
-            //2. Single Step in each source -- PARALLELIZABLE!!!
-            for (i = 0; i < nodeDistances.length; i++) {
-                NodeDistances dist =  nodeDistances[i];
-                minDistNode = dist.minDistNodes.pollFirstEntry().getKey();
-                neighborEdges = graph.incomingEdgesOf(minDistNode.getNode());
-                for (Edge e : neighborEdges) {
-                    adjNode = e.getSource();
-                    if (!dist.visitedNodes.contains(adjNode)) {
-                        weight = dist.minDistNodes.get(new KeyPair(adjNode, 0.0));
-                        //if weight is null then the distance has not been computed yet
-                        edgeWeight = edgeWeights.get(e.getLabel());
-                        edgeWeight = edgeWeight == null? 0.0 : edgeWeight;
-                        if (weight == null || minDistNode.getWeight() + edgeWeight < weight) {
-                            //Update weights
-                            dist.minDistNodes.put(new KeyPair(adjNode, minDistNode.getWeight() + edgeWeight), minDistNode.getWeight() + edgeWeight);
-                            dist.previousEdge.put(adjNode, e);
-                        }
-                    }
+            if (round.isEmpty()) {
+                //The remaining sources are not connected
+                return;
+            }
+            try {
+                for (Future<Void> task : pool.invokeAll(round)) {
+                    task.get();
                 }
-                visitedSources = commonVisitedNodes.get(minDistNode.node);
-                //3. If visited intersect, store the path - increment the counter
-                if (visitedSources == null) {
-                    visitedSources = new HashSet<>();
-                } else {
-                    for (Integer source : visitedSources) {
-                        int nodeA, nodeB; 
-                        if (i < source) {
-                            nodeA = i; 
-                            nodeB = source;
-                        } else {
-                            nodeA = source; 
-                            nodeB = i; 
-                        }
-                        pathPair = new Pair<>(nodeA, nodeB);
-                        //Check if we have already computed the path. 
-                        if (pathPairs.contains(pathPair)) {
-                            System.out.printf("Removed path pair %s\n", pathPair);
-                            pathPairs.remove(pathPair);
-                            //Build the path.
-                            path = buildPartialPath(minDistNode.node, dist.previousEdge, true);
-                            dist2 = nodeDistances[source];
-                            path.addAll(buildPartialPath(dist2.source, dist2.previousEdge, false));
-                            shortestPaths.add(path);
-                        } 
-                    }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while expanding the sources", ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Cannot expand the sources", ex.getCause());
+            }
+            found.clear();
+            found.addAll(meetings.values());
+            meetings.clear();
+            Collections.sort(found);
+            for (Meeting m : found) {
+                if (!consumer.test(m)) {
+                    return;
                 }
-                visitedSources.add(i);
-                commonVisitedNodes.put(minDistNode.node, visitedSources);
-                
-                dist.visitedNodes.add(minDistNode.node);
             }
         }
-        return shortestPaths; 
     }
     
-    private static List<Edge> buildPartialPath(Long startingNode, Map<Long,Edge> previousEdge, boolean reverse) {
-        List<Edge> edges  = new ArrayList<>(); 
-        Edge prev = previousEdge.get(startingNode);
-        while (prev != null) {
-            edges.add(prev);
-            prev = previousEdge.get(prev.getSource() == startingNode.longValue()? prev.getDestination() : prev.getSource());
+    /**
+     * Find the shortest path from a source to a target with a bidirectional
+     * Dijkstra: a forward search from the source on the outgoing edges and a
+     * backward search from the target on the incoming edges, advancing the 
+     * one with the closest frontier, until the sum of the two frontiers 
+     * exceeds the best path found through a node reached by both.
+     *
+     * @param graph The graph, that must not be modified during the search
+     * @param source The source of the path
+     * @param target The target of the path
+     * @param edgeWeights The weight of the edges by label, 0 if missing
+     * @return The edges from the source to the target, null if the target 
+     * cannot be reached
+     */
+    public static List<Edge> shortestPath(Multigraph graph, long source, long target, Map<Long, Double> edgeWeights) {
+        Dijkstra forward = new Dijkstra(graph, source, EdgeDirection.OUTGOING, edgeWeights);
+        Dijkstra backward = new Dijkstra(graph, target, EdgeDirection.INCOMING, edgeWeights);
+        Dijkstra side, other; 
+        double best = Double.POSITIVE_INFINITY, distance; 
+        long node, meeting = source; 
+        while (!forward.isExhausted() && !backward.isExhausted() 
+                && forward.peekDistance() + backward.peekDistance() < best) 
+        {
+            if (forward.peekDistance() <= backward.peekDistance()) {
+                side = forward;
+                other = backward;
+            } else {
+                side = backward;
+                other = forward;
+            }
+            node = side.next();
+            //The other search may have reached the node, but not settled it
+            distance = side.distanceOf(node) + other.distanceOf(node);
+            if (distance < best) {
+                best = distance; 
+                meeting = node;
+            }
         }
-        if (reverse) {
-            Collections.reverse(edges);
+        if (best == Double.POSITIVE_INFINITY) {
+            return null;
         }
-        return edges; 
+        List<Edge> path = forward.pathTo(meeting);
+        Collections.reverse(path);
+        path.addAll(backward.pathTo(meeting));
+        return path;
     }
     
-            
+    /**
+     * Find the shortest path from a source to a target with A*, using the 
+     * landmark lower bounds as potential (ALT). The landmarks must have been
+     * computed on the same graph with the same weights.
+     *
+     * @param graph The graph, that must not be modified during the search
+     * @param source The source of the path
+     * @param target The target of the path
+     * @param edgeWeights The weight of the edges by label, 0 if missing
+     * @param landmarks The landmarks of the graph
+     * @return The edges from the source to the target, null if the target 
+     * cannot be reached
+     */
+    public static List<Edge> shortestPath(Multigraph graph, long source, long target, Map<Long, Double> edgeWeights, Landmarks landmarks) {
+        Dijkstra search = new Dijkstra(graph, source, EdgeDirection.OUTGOING, edgeWeights, 
+                node -> landmarks.lowerBound(node, target));
+        if (search.settle(target) == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        List<Edge> path = search.pathTo(target);
+        Collections.reverse(path);
+        return path;
+    }
+    
+    /*
+     * Settle a round of nodes from a source. The i-th node settled by a 
+     * source gets time i * numSources + source, the step it would have in a
+     * sequential expansion taking turns, so the meeting of two sources is the
+     * same whatever the interleaving of the threads.
+     */
+    private static void expand(Dijkstra dist, int source, int numSources, 
+            Map<Long, Visit> commonVisitedNodes, Map<Pair<Integer,Integer>, Meeting> meetings) 
+    {
+        long node, time; 
+        for (int step = 0; step < STEPS_PER_ROUND && !dist.isExhausted(); step++) {
+            node = dist.next();
+            time = (dist.getNumSettled() - 1L) * numSources + source;
+            final Visit[] previous = new Visit[1];
+            final long settled = time;
+            commonVisitedNodes.compute(node, (key, visit) -> {
+                previous[0] = visit;
+                return new Visit(source, settled, visit);
+            });
+            //Met the sources that settled the node before, keep the earliest meeting
+            for (Visit v = previous[0]; v != null; v = v.next) {
+                Meeting meeting = new Meeting(Math.min(source, v.source), Math.max(source, v.source), 
+                        node, Math.max(time, v.time));
+                meetings.merge(new Pair<>(meeting.sourceA, meeting.sourceB), meeting, 
+                        (m1, m2) -> m1.compareTo(m2) <= 0 ? m1 : m2);
+            }
+        }
+    }
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.Edge;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import eu.unitn.disi.db.grava.graphs.collections.AssignmentPartitioner;
+import eu.unitn.disi.db.grava.graphs.collections.LongIntHashMap;
+import eu.unitn.disi.db.grava.graphs.collections.PartitionBalance;
+import eu.unitn.disi.db.grava.graphs.collections.Partitioner;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+
+/**
+ * The assignment of the nodes of a graph to partitions, with the edges it 
+ * cuts. The partitions can be exported as graph files, or used to partition a
+ * {@link eu.unitn.disi.db.grava.graphs.PartitionedMultigraph} through 
+ * {@link #getNodePartitioner() } and {@link #getEdgePartitioner() }.
+ *
+ * @author agent <agent@local>
+ */
+public class GraphPartitioning {
+
+    private final LongIntHashMap assignment;
+    private final int numPartitions;
+    private final int[] sizes;
+    private final long cutEdges;
+    private final long totalEdges;
+
+    public GraphPartitioning(LongIntHashMap assignment, int numPartitions, int[] sizes, long cutEdges, long totalEdges) {
+        this.assignment = assignment;
+        this.numPartitions = numPartitions;
+        this.sizes = sizes.clone();
+        this.cutEdges = cutEdges;
+        this.totalEdges = totalEdges;
+    }
+
+    /**
+     * Compute the partitioning of a graph induced by a partitioner, e.g. to
+     * write the files of hash or range partitioned shards.
+     *
+     * @param graph The graph to be partitioned
+     * @param partitioner Assigns each node to a partition
+     * @param numPartitions The number of partitions
+     * @return The partitioning of the graph
+     */
+    public static GraphPartitioning of(Multigraph graph, Partitioner partitioner, int numPartitions) {
+        if (numPartitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be > 1");
+        }
+        LongIntHashMap assignment = new LongIntHashMap(graph.numberOfNodes());
+        int[] sizes = new int[numPartitions];
+        for (Long node : graph) {
+            int p = partitioner.partition(node, numPartitions);
+            assignment.put(node, p);
+            sizes[p]++;
+        }
+        long cut = 0, total = 0;
+        Iterator<Edge> it = graph.edgesIterator();
+        while (it.hasNext()) {
+            Edge e = it.next();
+            if (assignment.get(e.getSource()) != assignment.get(e.getDestination())) {
+                cut++;
+            }
+            total++;
+        }
+        return new GraphPartitioning(assignment, numPartitions, sizes, cut, total);
+    }
+
+    /**
+     * Returns the partition of a node
+     *
+     * @param node The node
+     * @return The partition of the node, -1 if the node was not in the graph
+     */
+    public int partitionOf(long node) {
+        return assignment.get(node);
+    }
+
+    public int getNumPartitions() {
+        return numPartitions;
+    }
+
+    /**
+     * @return The number of edges whose endpoints are in different partitions
+     */
+    public long getCutEdges() {
+        return cutEdges;
+    }
+
+    public long getTotalEdges() {
+        return totalEdges;
+    }
+
+    /**
+     * @return The fraction of edges cut, 0 if the graph has no edges
+     */
+    public double getCutRatio() {
+        return totalEdges == 0 ? 0 : (double) cutEdges / totalEdges;
+    }
+
+    /**
+     * @return The balance of the number of nodes in the partitions
+     */
+    public PartitionBalance getBalance() {
+        return new PartitionBalance(sizes);
+    }
+
+    /**
+     * @return A partitioner placing each node in its partition
+     */
+    public Partitioner getNodePartitioner() {
+        return new AssignmentPartitioner(assignment, numPartitions);
+    }
+
+    /**
+     * @return A partitioner placing each edge in the partition of its source
+     */
+    public Partitioner getEdgePartitioner() {
+        return new SourcePartitioner(new AssignmentPartitioner(assignment, numPartitions));
+    }
+
+    private static class SourcePartitioner implements Partitioner {
+
+        private static final long serialVersionUID = 1L;
+        private final Partitioner nodes;
+
+        SourcePartitioner(Partitioner nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public int partition(Object key, int numPartitions) throws NullPointerException {
+            return nodes.partition(key instanceof Edge ? ((Edge) key).getSource() : key, numPartitions);
+        }
+    }
+
+    /**
+     * Write the partitions of the graph in two files each, with lines
+     * 
+     * line := source SPACE destination SPACE label
+     * 
+     * The file prefix-p[i].graph contains the edges with both endpoints in 
+     * the partition i, the file prefix-p[i].halo.graph the cut edges with one
+     * endpoint in it, so that the two files together contain all the edges of 
+     * the nodes in the partition. Nodes without edges are not written. 
+     *
+     * @param graph The partitioned graph
+     * @param prefix The path and prefix of the files
+     * @return The files written, the partition and halo files of partition i
+     * are in positions 2i and 2i + 1
+     * @throws IOException If a file cannot be written
+     */
+    public File[] write(Multigraph graph, String prefix) throws IOException {
+        File[] files = new File[2 * numPartitions];
+        Writer[] writers = new Writer[2 * numPartitions];
+        try {
+            for (int i = 0; i < numPartitions; i++) {
+                files[2 * i] = new File(prefix + "-p" + i + ".graph");
+                files[2 * i + 1] = new File(prefix + "-p" + i + ".halo.graph");
+                writers[2 * i] = new BufferedWriter(new FileWriter(files[2 * i]));
+                writers[2 * i + 1] = new BufferedWriter(new FileWriter(files[2 * i + 1]));
+            }
+            Iterator<Edge> it = graph.edgesIterator();
+            while (it.hasNext()) {
+                Edge e = it.next();
+                int src = assignment.get(e.getSource());
+                int dest = assignment.get(e.getDestination());
+                if (src < 0 || dest < 0) {
+                    throw new IllegalArgumentException("Edge " + e + " has an endpoint that is not in the partitioning");
+                }
+                String line = e.getSource() + " " + e.getDestination() + " " + e.getLabel() + "\n";
+                if (src == dest) {
+                    writers[2 * src].write(line);
+                } else {
+                    writers[2 * src + 1].write(line);
+                    writers[2 * dest + 1].write(line);
+                }
+            }
+        } finally {
+            IOException error = null;
+            for (Writer w : writers) {
+                if (w != null) {
+                    try {
+                        w.close();
+                    } catch (IOException ex) {
+                        error = ex;
+                    }
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Write the partition of each node, with lines
+     * 
+     * line := node SPACE partition
+     * 
+     * so that the shards can be served with the same partitioner, see 
+     * {@link eu.unitn.disi.db.grava.graphs.ShardServer#parsePartitioner}
+     *
+     * @param file The file to be written
+     * @throws IOException If the file cannot be written
+     */
+    public void writeAssignment(File file) throws IOException {
+        try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+            for (long node : assignment.keys()) {
+                writer.write(node + " " + assignment.get(node) + "\n");
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GraphPartitioning{partitions=%d, cutEdges=%d, totalEdges=%d, cutRatio=%.4f, balance=%s}",
+                numPartitions, cutEdges, totalEdges, getCutRatio(), getBalance());
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A min-heap of int ids with double keys, with decrease-key in O(log n). Each
+ * node of the heap has d children, so that the heap is shallower and more 
+ * cache friendly than a binary heap when there are many decrease-keys, as in
+ * Dijkstra. The ids must be dense: the heap keeps arrays as large as the 
+ * largest id, grown on demand.
+ *
+ * @author agent <agent@local>
+ */
+public class IndexedDaryHeap {
+
+    private static final int DEFAULT_ARITY = 4;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int ABSENT = -1;
+
+    private final int arity;
+    private int[] heap;
+    //Position of each id in the heap, ABSENT if it is not in the heap
+    private int[] positions;
+    private double[] keys;
+    private int size;
+
+    public IndexedDaryHeap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IndexedDaryHeap(int capacity) {
+        this(capacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * Construct an empty heap
+     *
+     * @param capacity The expected number of ids
+     * @param arity The number of children of each node of the heap
+     */
+    public IndexedDaryHeap(int capacity, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Arity must be at least 2");
+        }
+        capacity = Math.max(1, capacity);
+        this.arity = arity;
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(positions, ABSENT);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param id The id
+     * @return True if the id is in the heap
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < positions.length && positions[id] != ABSENT;
+    }
+
+    /**
+     * @param id An id in the heap
+     * @return The key of the id
+     * @throws NoSuchElementException If the id is not in the heap
+     */
+    public double keyOf(int id) {
+        if (!contains(id)) {
+            throw new NoSuchElementException("Id " + id + " is not in the heap");
+        }
+        return keys[id];
+    }
+
+    /**
+     * Insert an id, or decrease its key if it is already in the heap with a
+     * larger one
+     *
+     * @param id The id, at least 0
+     * @param key The key of the id
+     * @return True if the heap changed
+     */
+    public boolean offer(int id, double key) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Id cannot be negative");
+        }
+        if (contains(id)) {
+            if (key >= keys[id]) {
+                return false;
+            }
+            keys[id] = key;
+            siftUp(positions[id]);
+            return true;
+        }
+        ensureCapacity(id + 1);
+        keys[id] = key;
+        heap[size] = id;
+        positions[id] = size;
+        siftUp(size++);
+        return true;
+    }
+
+    /**
+     * @return The id with the minimum key
+     * @throws NoSuchElementException If the heap is empty
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * @return The minimum key
+     * @throws NoSuchElementException If the heap is empty
+     */
+    public double peekKey() {
+        return keys[peek()];
+    }
+
+    /**
+     * Remove the id with the minimum key
+     *
+     * @return The id removed
+     * @throws NoSuchElementException If the heap is empty
+     */
+    public int poll() {
+        int min = peek();
+        positions[min] = ABSENT;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Remove all the ids
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > positions.length) {
+            int newCapacity = Math.max(capacity, positions.length + (positions.length >> 1));
+            int old = positions.length;
+            positions = Arrays.copyOf(positions, newCapacity);
+            Arrays.fill(positions, old, newCapacity, ABSENT);
+            keys = Arrays.copyOf(keys, newCapacity);
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, Math.max(size + 1, size + (size >> 1)));
+        }
+    }
+
+    private void siftUp(int pos) {
+        int id = heap[pos];
+        double key = keys[id];
+        while (pos > 0) {
+            int parent = (pos - 1) / arity;
+            int parentId = heap[parent];
+            if (keys[parentId] <= key) {
+                break;
+            }
+            heap[pos] = parentId;
+            positions[parentId] = pos;
+            pos = parent;
+        }
+        heap[pos] = id;
+        positions[id] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int id = heap[pos];
+        double key = keys[id];
+        while (true) {
+            int first = pos * arity + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + arity, size);
+            int min = first;
+            double minKey = keys[heap[first]];
+            for (int c = first + 1; c < last; c++) {
+                double k = keys[heap[c]];
+                if (k < minKey) {
+                    min = c;
+                    minKey = k;
+                }
+            }
+            if (minKey >= key) {
+                break;
+            }
+            int childId = heap[min];
+            heap[pos] = childId;
+            positions[childId] = pos;
+            pos = min;
+        }
+        heap[pos] = id;
+        positions[id] = pos;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import eu.unitn.disi.db.grava.graphs.EdgeDirection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.IntStream;
+
+/**
+ * Expands the k-hop neighborhoods of nodes following only some labels in a 
+ * direction. The expansion scans only the ranges of the adjacency of 
+ * {@link CompactGraph} with the requested labels, and marks the visited 
+ * nodes in a bitset that each thread reuses across expansions, clearing only 
+ * the bits it set.
+ * 
+ * An instance can be shared by many threads; the batch 
+ * {@link #khop(long[], int, Collection, EdgeDirection) } expands the seeds 
+ * in parallel.
+ *
+ * @author agent <agent@local>
+ */
+public class KHop {
+
+    private final CompactGraph graph;
+    private final ThreadLocal<long[]> visited;
+
+    /**
+     * The nodes within k hops of a seed, in order of distance. The nodes at 
+     * distance h are in positions from getHopStart(h) (inclusive) to 
+     * getHopStart(h + 1) (exclusive); the seed is the only node at 0.
+     */
+    public static class Neighborhood {
+
+        private final CompactGraph graph;
+        private final int[] ids;
+        private final int[] hopStarts;
+
+        Neighborhood(CompactGraph graph, int[] ids, int[] hopStarts) {
+            this.graph = graph;
+            this.ids = ids;
+            this.hopStarts = hopStarts;
+        }
+
+        /**
+         * @return The number of nodes, the seed included
+         */
+        public int size() {
+            return ids.length;
+        }
+
+        /**
+         * @return The largest distance of a node, at most k
+         */
+        public int getHops() {
+            return hopStarts.length - 2;
+        }
+
+        public int getHopStart(int hop) {
+            return hopStarts[hop];
+        }
+
+        /**
+         * @param i A position
+         * @return The id of the node in the position
+         */
+        public int idAt(int i) {
+            return ids[i];
+        }
+
+        /**
+         * @param i A position
+         * @return The node in the position
+         */
+        public long nodeAt(int i) {
+            return graph.nodeOf(ids[i]);
+        }
+
+        /**
+         * @param hop The distance
+         * @return The nodes at the distance from the seed
+         */
+        public long[] nodesAt(int hop) {
+            long[] nodes = new long[hopStarts[hop + 1] - hopStarts[hop]];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = graph.nodeOf(ids[hopStarts[hop] + i]);
+            }
+            return nodes;
+        }
+
+        /**
+         * @return All the nodes, in order of distance
+         */
+        public long[] nodes() {
+            long[] nodes = new long[ids.length];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = graph.nodeOf(ids[i]);
+            }
+            return nodes;
+        }
+    }
+
+    public KHop(CompactGraph graph) {
+        if (graph == null) {
+            throw new NullPointerException("Graph cannot be null");
+        }
+        this.graph = graph;
+        final int words = (graph.numberOfNodes() + 63) >>> 6;
+        this.visited = ThreadLocal.withInitial(() -> new long[words]);
+    }
+
+    /**
+     * Expand the neighborhood of a node
+     *
+     * @param vertex The seed node
+     * @param k The maximum number of hops
+     * @param labels The labels followed, null for all
+     * @param direction The direction of the edges followed
+     * @return The nodes within k hops, null if the seed is not in the graph
+     */
+    public Neighborhood khop(long vertex, int k, Collection<Long> labels, EdgeDirection direction) {
+        return khop(vertex, k, sorted(labels), direction);
+    }
+
+    /**
+     * Expand the neighborhoods of many nodes in parallel
+     *
+     * @param vertices The seed nodes
+     * @param k The maximum number of hops
+     * @param labels The labels followed, null for all
+     * @param direction The direction of the edges followed
+     * @return The neighborhood of each seed, null for the seeds that are not
+     * in the graph
+     */
+    public Neighborhood[] khop(long[] vertices, int k, Collection<Long> labels, EdgeDirection direction) {
+        final long[] sortedLabels = sorted(labels);
+        Neighborhood[] neighborhoods = new Neighborhood[vertices.length];
+        IntStream.range(0, vertices.length).parallel().forEach(i
+                -> neighborhoods[i] = khop(vertices[i], k, sortedLabels, direction));
+        return neighborhoods;
+    }
+
+    private static long[] sorted(Collection<Long> labels) {
+        if (labels == null) {
+            return null;
+        }
+        long[] sorted = new long[labels.size()];
+        int i = 0;
+        for (Long label : labels) {
+            sorted[i++] = label;
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private Neighborhood khop(long vertex, int k, long[] labels, EdgeDirection direction) {
+        if (k < 0) {
+            throw new IllegalArgumentException("The number of hops cannot be negative");
+        }
+        if (direction == null) {
+            throw new NullPointerException("Direction cannot be null");
+        }
+        int seed = graph.idOf(vertex);
+        if (seed < 0) {
+            return null;
+        }
+        long[] seen = visited.get();
+        Buffer found = new Buffer();
+        int[] hopStarts = new int[k + 2];
+        found.add(seed);
+        seen[seed >>> 6] |= 1L << seed;
+        int hop = 0;
+        hopStarts[1] = 1;
+        try {
+            while (hop < k && hopStarts[hop + 1] > hopStarts[hop]) {
+                for (int i = hopStarts[hop]; i < hopStarts[hop + 1]; i++) {
+                    if (direction != EdgeDirection.INCOMING) {
+                        expand(found.ids[i], graph.getOutOffsets(), graph.getOutTargets(), graph.getOutLabels(), labels, seen, found);
+                    }
+                    if (direction != EdgeDirection.OUTGOING) {
+                        expand(found.ids[i], graph.getInOffsets(), graph.getInSources(), graph.getInLabels(), labels, seen, found);
+                    }
+                }
+                hop++;
+                hopStarts[hop + 1] = found.size;
+            }
+        } finally {
+            //Leave the bitset clean for the next expansion
+            for (int i = 0; i < found.size; i++) {
+                seen[found.ids[i] >>> 6] = 0;
+            }
+        }
+        //The last hop is empty if the neighborhood ended before k
+        int hops = hopStarts[hop + 1] > hopStarts[hop] ? hop : hop - 1;
+        return new Neighborhood(graph, Arrays.copyOf(found.ids, found.size), Arrays.copyOf(hopStarts, hops + 2));
+    }
+
+    /*
+     * Add the unvisited neighbors of a node through the edges with the labels
+     */
+    private static void expand(int node, int[] offsets, int[] adjacent, long[] edgeLabels, long[] labels, long[] seen, Buffer found) {
+        if (labels == null) {
+            visit(offsets[node], offsets[node + 1], adjacent, seen, found);
+            return;
+        }
+        int end = offsets[node + 1];
+        for (long label : labels) {
+            int e = CompactGraph.firstEdgeOf(offsets, edgeLabels, node, label);
+            int last = e;
+            while (last < end && edgeLabels[last] == label) {
+                last++;
+            }
+            visit(e, last, adjacent, seen, found);
+        }
+    }
+
+    private static void visit(int from, int to, int[] adjacent, long[] seen, Buffer found) {
+        for (int e = from; e < to; e++) {
+            int v = adjacent[e];
+            long bit = 1L << v;
+            if ((seen[v >>> 6] & bit) == 0) {
+                seen[v >>> 6] |= bit;
+                found.add(v);
+            }
+        }
+    }
+
+    private static class Buffer {
+
+        private int[] ids = new int[16];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.EdgeDirection;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import eu.unitn.disi.db.grava.graphs.collections.LongIntHashMap;
+import eu.unitn.disi.db.mutilities.exceptions.ParseException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * The distances from and to a few landmark nodes, that give lower bounds of 
+ * the distance between any two nodes by the triangle inequality (the ALT 
+ * technique: A*, Landmarks, Triangle inequality). The bounds are consistent, 
+ * so they can be used as the potential of an A* search with {@link Dijkstra}.
+ * 
+ * The landmarks are chosen far from each other, so that they lie "behind" 
+ * most of the nodes. The distances can be saved and loaded, since computing 
+ * them takes two full Dijkstra expansions per landmark.
+ *
+ * @author agent <agent@local>
+ */
+public class Landmarks {
+
+    private static final int MAGIC = 0x414c5431; //ALT1
+
+    private final long[] landmarks;
+    private final long[] nodes;
+    private final LongIntHashMap ids;
+    //Distance from the landmark to the node, and from the node to the landmark
+    private final double[][] from;
+    private final double[][] to;
+
+    private Landmarks(long[] landmarks, long[] nodes, double[][] from, double[][] to) {
+        this.landmarks = landmarks;
+        this.nodes = nodes;
+        this.from = from;
+        this.to = to;
+        ids = new LongIntHashMap(nodes.length);
+        for (int i = 0; i < nodes.length; i++) {
+            ids.put(nodes[i], i);
+        }
+    }
+
+    /**
+     * Choose the landmarks with the farthest heuristic and compute their 
+     * distances: the first landmark is the node with the highest degree, 
+     * each next one is the node farthest from the landmarks chosen so far, 
+     * preferring nodes they cannot reach at all. Isolated nodes are skipped.
+     *
+     * @param graph The graph, that must not change during the computation
+     * @param numLandmarks The number of landmarks
+     * @param edgeWeights The weight of the edges by label, 0 if missing
+     * @return The landmarks of the graph
+     */
+    public static Landmarks compute(Multigraph graph, int numLandmarks, Map<Long, Double> edgeWeights) {
+        if (numLandmarks < 1) {
+            throw new IllegalArgumentException("Number of landmarks must be > 0");
+        }
+        long[] nodes = nodesOf(graph);
+        numLandmarks = Math.min(numLandmarks, nodes.length);
+        long[] landmarks = new long[numLandmarks];
+        double[][] from = new double[numLandmarks][];
+        double[][] to = new double[numLandmarks][];
+        double[] closest = new double[nodes.length];
+        Arrays.fill(closest, Double.POSITIVE_INFINITY);
+        int[] degrees = new int[nodes.length];
+        int next = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            degrees[i] = graph.degreeOf(nodes[i]);
+            if (degrees[i] > degrees[next]) {
+                next = i;
+            }
+        }
+        for (int l = 0; l < numLandmarks; l++) {
+            landmarks[l] = nodes[next];
+            final int landmark = l;
+            //The two expansions are independent
+            IntStream.range(0, 2).parallel().forEach(d -> {
+                if (d == 0) {
+                    from[landmark] = distances(graph, nodes, landmarks[landmark], EdgeDirection.OUTGOING, edgeWeights);
+                } else {
+                    to[landmark] = distances(graph, nodes, landmarks[landmark], EdgeDirection.INCOMING, edgeWeights);
+                }
+            });
+            double farthest = -1;
+            for (int i = 0; i < nodes.length; i++) {
+                closest[i] = Math.min(closest[i], Math.min(from[l][i], to[l][i]));
+                //Landmarks are at distance 0, isolated nodes would bound nothing
+                if (closest[i] > farthest && degrees[i] > 0) {
+                    farthest = closest[i];
+                    next = i;
+                }
+            }
+        }
+        return new Landmarks(landmarks, nodes, from, to);
+    }
+
+    /**
+     * Compute the distances of the input landmarks, in parallel
+     *
+     * @param graph The graph, that must not change during the computation
+     * @param landmarks The landmarks
+     * @param edgeWeights The weight of the edges by label, 0 if missing
+     * @return The landmarks of the graph
+     */
+    public static Landmarks compute(Multigraph graph, long[] landmarks, Map<Long, Double> edgeWeights) {
+        long[] nodes = nodesOf(graph);
+        double[][] from = new double[landmarks.length][];
+        double[][] to = new double[landmarks.length][];
+        IntStream.range(0, 2 * landmarks.length).parallel().forEach(i -> {
+            int l = i / 2;
+            if (i % 2 == 0) {
+                from[l] = distances(graph, nodes, landmarks[l], EdgeDirection.OUTGOING, edgeWeights);
+            } else {
+                to[l] = distances(graph, nodes, landmarks[l], EdgeDirection.INCOMING, edgeWeights);
+            }
+        });
+        return new Landmarks(landmarks.clone(), nodes, from, to);
+    }
+
+    private static long[] nodesOf(Multigraph graph) {
+        long[] nodes = new long[graph.numberOfNodes()];
+        int n = 0;
+        for (Long node : graph) {
+            if (n == nodes.length) {
+                nodes = Arrays.copyOf(nodes, n * 2 + 1);
+            }
+            nodes[n++] = node;
+        }
+        return n == nodes.length ? nodes : Arrays.copyOf(nodes, n);
+    }
+
+    private static double[] distances(Multigraph graph, long[] nodes, long landmark, EdgeDirection direction, Map<Long, Double> edgeWeights) {
+        Dijkstra dijkstra = new Dijkstra(graph, landmark, direction, edgeWeights);
+        while (!dijkstra.isExhausted()) {
+            dijkstra.next();
+        }
+        double[] distances = new double[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            distances[i] = dijkstra.distanceOf(nodes[i]);
+        }
+        return distances;
+    }
+
+    /**
+     * Returns a lower bound of the distance between two nodes, infinite if 
+     * the landmarks prove that the target cannot be reached. 
+     *
+     * @param node The source node
+     * @param target The target node
+     * @return The lower bound, 0 if the nodes are not known
+     */
+    public double lowerBound(long node, long target) {
+        int v = ids.get(node), t = ids.get(target);
+        if (v < 0 || t < 0) {
+            return 0;
+        }
+        double bound = 0;
+        for (int l = 0; l < landmarks.length; l++) {
+            //d(L,t) <= d(L,v) + d(v,t) and d(v,L) <= d(v,t) + d(t,L)
+            double lv = from[l][v], lt = from[l][t], vl = to[l][v], tl = to[l][t];
+            if (lv < Double.POSITIVE_INFINITY) {
+                if (lt == Double.POSITIVE_INFINITY) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                bound = Math.max(bound, lt - lv);
+            }
+            if (tl < Double.POSITIVE_INFINITY) {
+                if (vl == Double.POSITIVE_INFINITY) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                bound = Math.max(bound, vl - tl);
+            }
+        }
+        return bound;
+    }
+
+    public long[] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    public int getNumLandmarks() {
+        return landmarks.length;
+    }
+
+    /**
+     * Save the landmarks and their distances in a binary file
+     *
+     * @param file The path of the file
+     * @throws IOException If the file cannot be written
+     */
+    public void write(String file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(landmarks.length);
+            out.writeInt(nodes.length);
+            for (long landmark : landmarks) {
+                out.writeLong(landmark);
+            }
+            for (long node : nodes) {
+                out.writeLong(node);
+            }
+            for (int l = 0; l < landmarks.length; l++) {
+                for (int i = 0; i < nodes.length; i++) {
+                    out.writeDouble(from[l][i]);
+                }
+                for (int i = 0; i < nodes.length; i++) {
+                    out.writeDouble(to[l][i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the landmarks saved with {@link #write(java.lang.String) }. They
+     * are valid as long as the graph and the weights did not change.
+     *
+     * @param file The path of the file
+     * @return The landmarks
+     * @throws IOException If the file cannot be read
+     * @throws ParseException If the file is not a landmark file
+     */
+    public static Landmarks read(String file) throws IOException, ParseException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new ParseException("File %s does not contain landmarks", file);
+            }
+            int numLandmarks = in.readInt(), numNodes = in.readInt();
+            if (numLandmarks < 0 || numNodes < 0) {
+                throw new ParseException("File %s has a malformed header", file);
+            }
+            long[] landmarks = new long[numLandmarks];
+            long[] nodes = new long[numNodes];
+            double[][] from = new double[numLandmarks][numNodes];
+            double[][] to = new double[numLandmarks][numNodes];
+            for (int l = 0; l < numLandmarks; l++) {
+                landmarks[l] = in.readLong();
+            }
+            for (int i = 0; i < numNodes; i++) {
+                nodes[i] = in.readLong();
+            }
+            for (int l = 0; l < numLandmarks; l++) {
+                for (int i = 0; i < numNodes; i++) {
+                    from[l][i] = in.readDouble();
+                }
+                for (int i = 0; i < numNodes; i++) {
+                    to[l][i] = in.readDouble();
+                }
+            }
+            return new Landmarks(landmarks, nodes, from, to);
+        } catch (EOFException ex) {
+            throw new ParseException("File %s is truncated", file);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.mutilities.ThreadUtilities;
+import eu.unitn.disi.db.mutilities.exceptions.ParseException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads text files made of lines of long numbers, e.g. edge and degree files, 
+ * in parallel. The file is memory mapped and split in chunks aligned to line
+ * boundaries, each chunk is parsed byte by byte into primitive columns 
+ * without creating any String. 
+ * 
+ * Numbers are separated by spaces, tabs or commas; empty lines and lines
+ * starting with '#' are skipped. 
+ *
+ * @author agent <agent@local>
+ */
+public final class LongTableReader {
+
+    private static final int CHUNKS_PER_THREAD = 4;
+    //Below this size a chunk is not worth a task
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    //A mapped buffer cannot be larger than 2GB
+    private static final long MAX_CHUNK_SIZE = 1 << 30;
+    private static final int INITIAL_ROWS = 1024;
+    //Longest number parsed without overflow checks
+    private static final int MAX_FAST_DIGITS = 18;
+
+    private LongTableReader() {
+    }
+
+    /**
+     * Read the file using as many threads as the available processors
+     * 
+     * @param file The file to be read
+     * @param columns The number of numbers in each line
+     * @return The columns of the file, the i-th row is in result[c][i]
+     * @throws IOException If the file cannot be read
+     * @throws ParseException If a line is malformed
+     */
+    public static long[][] read(String file, int columns) throws IOException, ParseException {
+        return read(file, columns, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Read the file
+     * 
+     * @param file The file to be read
+     * @param columns The number of numbers in each line
+     * @param numThreads The number of threads parsing the file
+     * @return The columns of the file, the i-th row is in result[c][i]
+     * @throws IOException If the file cannot be read
+     * @throws ParseException If a line is malformed
+     */
+    public static long[][] read(String file, int columns, int numThreads) throws IOException, ParseException {
+        if (columns < 1 || numThreads < 1) {
+            throw new IllegalArgumentException("Columns and threads must be positive");
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = chunkBounds(channel, size, numThreads);
+            int chunks = bounds.length - 1;
+            Chunk[] parsed = new Chunk[chunks];
+
+            if (chunks == 1) {
+                parsed[0] = parse(channel, bounds[0], bounds[1], columns);
+            } else {
+                ExecutorService pool = Executors.newFixedThreadPool(Math.min(numThreads, chunks));
+                try {
+                    List<Future<Chunk>> tasks = new ArrayList<>(chunks);
+                    for (int i = 0; i < chunks; i++) {
+                        final long start = bounds[i], end = bounds[i + 1];
+                        tasks.add(pool.submit(() -> parse(channel, start, end, columns)));
+                    }
+                    for (int i = 0; i < chunks; i++) {
+                        parsed[i] = tasks.get(i).get();
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while reading " + file, ex);
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof ParseException) {
+                        throw (ParseException) cause;
+                    }
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                } finally {
+                    ThreadUtilities.shutdownAndAwaitTermination(pool);
+                }
+            }
+            return concat(parsed, columns);
+        }
+    }
+
+    /*
+     * Split the file in chunks whose boundaries are the beginning of a line
+     */
+    private static long[] chunkBounds(FileChannel channel, long size, int numThreads) throws IOException {
+        int chunks = (int) Math.min(numThreads * CHUNKS_PER_THREAD, Math.max(1, size / MIN_CHUNK_SIZE));
+        chunks = (int) Math.max(chunks, size / MAX_CHUNK_SIZE + 1);
+        long[] bounds = new long[chunks + 1];
+        bounds[chunks] = size;
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        for (int i = 1; i < chunks; i++) {
+            long pos = Math.max(size / chunks * i, bounds[i - 1]);
+            //Move after the next new line
+            boolean found = false;
+            while (!found && pos < size) {
+                buffer.clear();
+                int read = channel.read(buffer, pos);
+                if (read <= 0) {
+                    break;
+                }
+                for (int j = 0; j < read; j++) {
+                    if (buffer.get(j) == '\n') {
+                        pos += j + 1;
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    pos += read;
+                }
+            }
+            bounds[i] = Math.min(pos, size);
+        }
+        return bounds;
+    }
+
+    private static class Chunk {
+
+        private final long[][] values;
+        private final int rows;
+
+        Chunk(long[][] values, int rows) {
+            this.values = values;
+            this.rows = rows;
+        }
+    }
+
+    private static Chunk parse(FileChannel channel, long start, long end, int columns) throws IOException, ParseException {
+        long[][] values = new long[columns][INITIAL_ROWS];
+        int rows = 0;
+        if (end <= start) {
+            return new Chunk(values, 0);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        int n = buffer.limit();
+        int pos = 0;
+        byte b;
+
+        while (pos < n) {
+            int lineStart = pos;
+            while (pos < n && isBlank(b = buffer.get(pos))) {
+                pos++;
+            }
+            if (pos >= n) {
+                break;
+            }
+            b = buffer.get(pos);
+            if (b == '\n') {
+                pos++;
+                continue;
+            }
+            if (b == '#') {
+                while (pos < n && buffer.get(pos) != '\n') {
+                    pos++;
+                }
+                continue;
+            }
+            if (rows == values[0].length) {
+                for (int c = 0; c < columns; c++) {
+                    long[] grown = new long[rows + (rows >> 1)];
+                    System.arraycopy(values[c], 0, grown, 0, rows);
+                    values[c] = grown;
+                }
+            }
+            for (int c = 0; c < columns; c++) {
+                while (pos < n && isSeparator(b = buffer.get(pos))) {
+                    pos++;
+                }
+                if (pos >= n || (b = buffer.get(pos)) == '\n' || b == '#') {
+                    throw new ParseException("Line at byte %d has %d numbers, %d expected", start + lineStart, c, columns);
+                }
+                boolean negative = b == '-';
+                if (negative || b == '+') {
+                    pos++;
+                }
+                int from = pos;
+                long value = 0;
+                while (pos < n && (b = buffer.get(pos)) >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                    pos++;
+                }
+                int digits = pos - from;
+                if (digits == 0 || (pos < n && !isSeparator(b) && b != '\n')) {
+                    throw new ParseException("Line at byte %d contains a malformed number", start + lineStart);
+                }
+                if (digits > MAX_FAST_DIGITS) {
+                    value = parseLong(buffer, negative ? from - 1 : from, pos, start + lineStart);
+                } else if (negative) {
+                    value = -value;
+                }
+                values[c][rows] = value;
+            }
+            while (pos < n && isSeparator(b = buffer.get(pos))) {
+                pos++;
+            }
+            if (pos < n && buffer.get(pos) != '\n') {
+                throw new ParseException("Line at byte %d has more than %d numbers", start + lineStart, columns);
+            }
+            rows++;
+        }
+        return new Chunk(values, rows);
+    }
+
+    private static long parseLong(ByteBuffer buffer, int from, int to, long line) throws ParseException {
+        StringBuilder sb = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            sb.append((char) buffer.get(i));
+        }
+        try {
+            return Long.parseLong(sb.toString());
+        } catch (NumberFormatException ex) {
+            throw new ParseException("Line at byte %d contains a number out of range: %s", line, sb);
+        }
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == ',';
+    }
+
+    private static long[][] concat(Chunk[] chunks, int columns) {
+        int rows = 0;
+        for (Chunk chunk : chunks) {
+            rows += chunk.rows;
+        }
+        if (chunks.length == 1 && chunks[0].values[0].length == rows) {
+            return chunks[0].values;
+        }
+        long[][] result = new long[columns][rows];
+        int offset = 0;
+        for (Chunk chunk : chunks) {
+            for (int c = 0; c < columns; c++) {
+                System.arraycopy(chunk.values[c], 0, result[c], offset, chunk.rows);
+            }
+            offset += chunk.rows;
+        }
+        return result;
+    }
+}
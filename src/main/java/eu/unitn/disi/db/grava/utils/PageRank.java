@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * PageRank and personalized PageRank by power iteration. Each iteration pulls
+ * the rank of every node from its incoming edges, so that the nodes can be 
+ * updated in parallel by ranges of ids without synchronization. 
+ * 
+ * The random surfer leaves a node through an edge with probability 
+ * proportional to the weight of its label; labels without a weight weigh 1,
+ * and edges of weight 0 are never followed. The rank of nodes without 
+ * outgoing weight is spread as the teleport, that is uniform for PageRank 
+ * and follows the preferences for personalized PageRank. 
+ * An instance runs one computation at a time.
+ *
+ * @author agent <agent@local>
+ */
+public class PageRank {
+
+    private static final double DEFAULT_DAMPING = 0.85;
+    private static final double DEFAULT_TOLERANCE = 1e-9;
+    private static final int DEFAULT_MAX_ITERATIONS = 100;
+    /**
+     * Number of nodes updated by a task
+     */
+    private static final int NODES_PER_TASK = 4096;
+
+    private final CompactGraph graph;
+    //Transition probability of each incoming edge, 0 if it is never followed
+    private final double[] transitions;
+    private final boolean[] dangling;
+    private double damping;
+    private double tolerance;
+    private int maxIterations;
+    private int iterations;
+    private double residual;
+
+    /**
+     * Construct PageRank on a graph, converted to a {@link CompactGraph}
+     *
+     * @param graph The graph
+     * @param labelWeights The weight of the edges by label, null for uniform
+     */
+    public PageRank(Multigraph graph, Map<Long, Double> labelWeights) {
+        this(CompactGraph.of(graph), labelWeights);
+    }
+
+    /**
+     * Construct PageRank on a graph
+     *
+     * @param graph The graph
+     * @param labelWeights The weight of the edges by label, null for uniform
+     */
+    public PageRank(CompactGraph graph, Map<Long, Double> labelWeights) {
+        this.graph = graph;
+        this.damping = DEFAULT_DAMPING;
+        this.tolerance = DEFAULT_TOLERANCE;
+        this.maxIterations = DEFAULT_MAX_ITERATIONS;
+        int n = graph.numberOfNodes();
+        int[] outOffsets = graph.getOutOffsets(), inOffsets = graph.getInOffsets(), inSources = graph.getInSources();
+        long[] outLabels = graph.getOutLabels(), inLabels = graph.getInLabels();
+        //Avoid a lookup in the input map per edge, there are few labels
+        final Map<Long, Double> weights = labelWeights == null ? new HashMap<>() : new HashMap<>(labelWeights);
+        for (Double w : weights.values()) {
+            if (w == null || w < 0 || Double.isNaN(w)) {
+                throw new IllegalArgumentException("Label weights must be non negative");
+            }
+        }
+        double[] outWeights = new double[n];
+        IntStream.range(0, n).parallel().forEach(u -> {
+            double sum = 0;
+            for (int e = outOffsets[u]; e < outOffsets[u + 1]; e++) {
+                sum += weightOf(weights, outLabels[e]);
+            }
+            outWeights[u] = sum;
+        });
+        dangling = new boolean[n];
+        for (int u = 0; u < n; u++) {
+            dangling[u] = outWeights[u] == 0;
+        }
+        transitions = new double[inSources.length];
+        IntStream.range(0, n).parallel().forEach(v -> {
+            for (int e = inOffsets[v]; e < inOffsets[v + 1]; e++) {
+                double w = weightOf(weights, inLabels[e]);
+                transitions[e] = w == 0 ? 0 : w / outWeights[inSources[e]];
+            }
+        });
+    }
+
+    private static double weightOf(Map<Long, Double> weights, long label) {
+        Double w = weights.get(label);
+        return w == null ? 1.0 : w;
+    }
+
+    /**
+     * @param damping The probability of following an edge instead of 
+     * teleporting, 0.85 by default
+     */
+    public void setDamping(double damping) {
+        if (damping < 0 || damping >= 1) {
+            throw new IllegalArgumentException("Damping must be in [0,1)");
+        }
+        this.damping = damping;
+    }
+
+    /**
+     * @param tolerance The L1 distance between two iterations that stops 
+     * the computation, 1e-9 by default
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @param maxIterations The maximum number of iterations, 100 by default
+     */
+    public void setMaxIterations(int maxIterations) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("Number of iterations must be > 0");
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * @return The number of iterations of the last computation
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return The L1 distance of the last two iterations of the last 
+     * computation, below the tolerance if it converged
+     */
+    public double getResidual() {
+        return residual;
+    }
+
+    /**
+     * @return True if the last computation converged within the maximum 
+     * number of iterations
+     */
+    public boolean hasConverged() {
+        return residual < tolerance;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Compute the PageRank of the nodes
+     *
+     * @return The rank of each node indexed by id (see 
+     * {@link CompactGraph#idOf(long) }), summing to 1
+     */
+    public double[] compute() {
+        int n = graph.numberOfNodes();
+        double[] teleport = new double[n];
+        Arrays.fill(teleport, 1.0 / n);
+        return iterate(teleport);
+    }
+
+    /**
+     * Compute the PageRank personalized on some seed nodes, that receive the
+     * teleports in equal parts
+     *
+     * @param seeds The seed nodes
+     * @return The rank of each node indexed by id, summing to 1
+     * @throws IllegalArgumentException If no seed is in the graph
+     */
+    public double[] personalized(long... seeds) {
+        Map<Long, Double> preferences = new HashMap<>();
+        for (long seed : seeds) {
+            preferences.put(seed, 1.0);
+        }
+        return personalized(preferences);
+    }
+
+    /**
+     * Compute the PageRank personalized on some seed nodes, that receive the
+     * teleports in proportion to their preference
+     *
+     * @param preferences The preference of each seed node
+     * @return The rank of each node indexed by id, summing to 1
+     * @throws IllegalArgumentException If no seed is in the graph
+     */
+    public double[] personalized(Map<Long, Double> preferences) {
+        double[] teleport = new double[graph.numberOfNodes()];
+        double sum = 0;
+        for (Map.Entry<Long, Double> p : preferences.entrySet()) {
+            int id = graph.idOf(p.getKey());
+            if (p.getValue() < 0) {
+                throw new IllegalArgumentException("Preferences must be non negative");
+            }
+            if (id >= 0) {
+                teleport[id] += p.getValue();
+                sum += p.getValue();
+            }
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("No seed with a positive preference is in the graph");
+        }
+        for (int i = 0; i < teleport.length; i++) {
+            teleport[i] /= sum;
+        }
+        return iterate(teleport);
+    }
+
+    private double[] iterate(double[] teleport) {
+        final int n = teleport.length;
+        final int tasks = (n + NODES_PER_TASK - 1) / NODES_PER_TASK;
+        final int[] inOffsets = graph.getInOffsets(), inSources = graph.getInSources();
+        double[] rank = teleport.clone();
+        double[] next = new double[n];
+        iterations = 0;
+        residual = Double.POSITIVE_INFINITY;
+        while (iterations < maxIterations && residual >= tolerance) {
+            final double[] current = rank, updated = next;
+            double lost = IntStream.range(0, tasks).parallel().mapToDouble(task -> {
+                double sum = 0;
+                for (int u = task * NODES_PER_TASK, end = Math.min(n, u + NODES_PER_TASK); u < end; u++) {
+                    if (dangling[u]) {
+                        sum += current[u];
+                    }
+                }
+                return sum;
+            }).sum();
+            //The teleports and the rank of the dangling nodes
+            final double jump = (1 - damping) + damping * lost;
+            residual = IntStream.range(0, tasks).parallel().mapToDouble(task -> {
+                double diff = 0;
+                for (int v = task * NODES_PER_TASK, end = Math.min(n, v + NODES_PER_TASK); v < end; v++) {
+                    double sum = 0;
+                    for (int e = inOffsets[v]; e < inOffsets[v + 1]; e++) {
+                        sum += transitions[e] * current[inSources[e]];
+                    }
+                    updated[v] = damping * sum + jump * teleport[v];
+                    diff += Math.abs(updated[v] - current[v]);
+                }
+                return diff;
+            }).sum();
+            next = rank;
+            rank = updated;
+            iterations++;
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the ids of the k nodes with the highest rank
+     *
+     * @param rank The rank of each node, indexed by id
+     * @param k The number of nodes
+     * @return The ids of the top k nodes, by decreasing rank
+     */
+    public static int[] top(double[] rank, int k) {
+        k = Math.min(k, rank.length);
+        IndexedDaryHeap heap = new IndexedDaryHeap(rank.length);
+        //A min-heap of the best k seen so far
+        for (int i = 0; i < rank.length; i++) {
+            if (heap.size() < k) {
+                heap.offer(i, rank[i]);
+            } else if (k > 0 && rank[i] > heap.peekKey()) {
+                heap.poll();
+                heap.offer(i, rank[i]);
+            }
+        }
+        int[] top = new int[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll();
+        }
+        return top;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.Edge;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import eu.unitn.disi.db.grava.graphs.collections.LongIntHashMap;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Partitions the nodes of a graph (edge-cut) streaming them once or more: 
+ * each node is placed in the partition holding most of its neighbors, 
+ * penalized by the size of the partition so that the partitions stay 
+ * balanced. Two heuristics are available:
+ * 
+ * LDG (Linear Deterministic Greedy, Stanton and Kliot): the number of 
+ * neighbors in the partition times the free fraction of its capacity. 
+ * 
+ * FENNEL (Tsourakakis et al.): the number of neighbors in the partition minus
+ * the marginal cost alpha * gamma * size^(gamma - 1), with gamma = 1.5 and 
+ * alpha = m * k^(gamma - 1) / n^gamma.
+ * 
+ * Further passes (restreaming) place each node again knowing the partition of
+ * all its neighbors, and usually cut fewer edges. No partition grows over 
+ * slack times the average size.
+ *
+ * @author agent <agent@local>
+ */
+public class StreamingGraphPartitioner {
+
+    public enum Heuristic {
+        LDG,
+        FENNEL
+    }
+
+    private static final double FENNEL_GAMMA = 1.5;
+    private static final double DEFAULT_SLACK = 1.1;
+
+    private final int numPartitions;
+    private final Heuristic heuristic;
+    private double slack;
+    private int passes;
+
+    /**
+     * Construct a partitioner with a single pass and 10% of slack
+     *
+     * @param numPartitions The number of partitions
+     * @param heuristic The placement heuristic
+     */
+    public StreamingGraphPartitioner(int numPartitions, Heuristic heuristic) {
+        if (numPartitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be > 1");
+        }
+        if (heuristic == null) {
+            throw new NullPointerException("Heuristic cannot be null");
+        }
+        this.numPartitions = numPartitions;
+        this.heuristic = heuristic;
+        this.slack = DEFAULT_SLACK;
+        this.passes = 1;
+    }
+
+    /**
+     * Set the largest partition allowed as a multiple of the average size
+     *
+     * @param slack The slack, at least 1
+     * @return This partitioner
+     */
+    public StreamingGraphPartitioner setSlack(double slack) {
+        if (slack < 1) {
+            throw new IllegalArgumentException("The slack must be at least 1");
+        }
+        this.slack = slack;
+        return this;
+    }
+
+    /**
+     * Set the number of passes over the nodes
+     *
+     * @param passes The number of passes, at least 1
+     * @return This partitioner
+     */
+    public StreamingGraphPartitioner setPasses(int passes) {
+        if (passes < 1) {
+            throw new IllegalArgumentException("The number of passes must be at least 1");
+        }
+        this.passes = passes;
+        return this;
+    }
+
+    /**
+     * Partition the nodes of the graph, streamed in the order of 
+     * {@link Multigraph#vertexSet() }
+     *
+     * @param graph The graph to be partitioned
+     * @return The partition of each node with the cut edges
+     */
+    public GraphPartitioning partition(Multigraph graph) {
+        int n = graph.numberOfNodes();
+        long m = graph.numberOfEdges();
+        long[] ids = new long[n];
+        LongIntHashMap dense = new LongIntHashMap(n);
+        int i = 0;
+        for (Long v : graph.vertexSet()) {
+            ids[i] = v;
+            dense.put(v, i++);
+        }
+        int[] part = new int[n];
+        int[] sizes = new int[numPartitions];
+        int[] neighbors = new int[numPartitions];
+        int[] touched = new int[numPartitions];
+        double capacity = Math.max(1, slack * n / numPartitions);
+        double alpha = n == 0 ? 0 : m * Math.pow(numPartitions, FENNEL_GAMMA - 1) / Math.pow(n, FENNEL_GAMMA);
+
+        Arrays.fill(part, -1);
+        for (int pass = 0; pass < passes; pass++) {
+            for (int v = 0; v < n; v++) {
+                if (part[v] >= 0) {
+                    sizes[part[v]]--;
+                }
+                int numTouched = 0;
+                for (int dir = 0; dir < 2; dir++) {
+                    Iterator<Edge> it = dir == 0 ? graph.outgoingEdgesIteratorOf(ids[v]) : graph.incomingEdgesIteratorOf(ids[v]);
+                    while (it.hasNext()) {
+                        Edge e = it.next();
+                        int u = dense.get(dir == 0 ? e.getDestination() : e.getSource());
+                        if (u >= 0 && u != v && part[u] >= 0) {
+                            if (neighbors[part[u]]++ == 0) {
+                                touched[numTouched++] = part[u];
+                            }
+                        }
+                    }
+                }
+                part[v] = place(sizes, neighbors, capacity, alpha);
+                sizes[part[v]]++;
+                for (int t = 0; t < numTouched; t++) {
+                    neighbors[touched[t]] = 0;
+                }
+            }
+        }
+        LongIntHashMap assignment = new LongIntHashMap(n);
+        for (int v = 0; v < n; v++) {
+            assignment.put(ids[v], part[v]);
+        }
+        return new GraphPartitioning(assignment, numPartitions, sizes, countCut(graph, assignment), m);
+    }
+
+    /*
+     * The best partition with room left, ties go to the smallest one
+     */
+    private int place(int[] sizes, int[] neighbors, double capacity, double alpha) {
+        int best = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int p = 0; p < numPartitions; p++) {
+            if (sizes[p] + 1 > capacity) {
+                continue;
+            }
+            double score;
+            if (heuristic == Heuristic.LDG) {
+                score = neighbors[p] * (1 - sizes[p] / capacity);
+            } else {
+                score = neighbors[p] - alpha * FENNEL_GAMMA * Math.pow(sizes[p], FENNEL_GAMMA - 1);
+            }
+            if (score > bestScore || (score == bestScore && sizes[p] < sizes[best])) {
+                best = p;
+                bestScore = score;
+            }
+        }
+        if (best == -1) {
+            //Every partition is full because of the rounding, take the smallest
+            best = 0;
+            for (int p = 1; p < numPartitions; p++) {
+                if (sizes[p] < sizes[best]) {
+                    best = p;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static long countCut(Multigraph graph, LongIntHashMap assignment) {
+        long cut = 0;
+        Iterator<Edge> it = graph.edgesIterator();
+        while (it.hasNext()) {
+            Edge e = it.next();
+            if (assignment.get(e.getSource()) != assignment.get(e.getDestination())) {
+                cut++;
+            }
+        }
+        return cut;
+    }
+}
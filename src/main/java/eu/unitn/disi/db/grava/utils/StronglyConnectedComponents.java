@@ -0,0 +1,406 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * The strongly connected components of a directed graph, computed without
+ * recursion in three parallel phases over a {@link CompactGraph}:
+ * <ol>
+ * <li>trimming: nodes without incoming or outgoing edges among the 
+ * remaining nodes are components on their own, repeatedly;</li>
+ * <li>forward-backward: the nodes both reachable from and reaching the 
+ * node of highest degree are a component, usually the giant one;</li>
+ * <li>coloring: the remaining nodes take the largest id that reaches them,
+ * and each node whose color is its own id collects its component backwards 
+ * among the nodes of its color, until no node is left.</li>
+ * </ol>
+ * Every phase updates the nodes in parallel by ranges of ids. The components
+ * are numbered from 0 in order of their smallest node id.
+ *
+ * @author agent <agent@local>
+ */
+public class StronglyConnectedComponents {
+
+    private static final int NODES_PER_TASK = 4096;
+    private static final int UNASSIGNED = -1;
+
+    private final CompactGraph graph;
+    private final int[] components;
+    private final int[] sizes;
+
+    private StronglyConnectedComponents(CompactGraph graph, int[] components, int[] sizes) {
+        this.graph = graph;
+        this.components = components;
+        this.sizes = sizes;
+    }
+
+    /**
+     * Compute the components of a graph, converted to a {@link CompactGraph}
+     *
+     * @param graph The graph, that must not change during the computation
+     * @return The strongly connected components of the graph
+     */
+    public static StronglyConnectedComponents of(Multigraph graph) {
+        return of(CompactGraph.of(graph));
+    }
+
+    /**
+     * Compute the components of a graph
+     *
+     * @param graph The graph
+     * @return The strongly connected components of the graph
+     */
+    public static StronglyConnectedComponents of(CompactGraph graph) {
+        int n = graph.numberOfNodes();
+        //The representative of the component of each node, while computing
+        int[] roots = new int[n];
+        Arrays.fill(roots, UNASSIGNED);
+        int[] active = IntStream.range(0, n).toArray();
+
+        active = trim(graph, roots, active);
+        if (active.length > 0) {
+            int pivot = active[0];
+            for (int v : active) {
+                if ((long) graph.inDegreeOf(v) * graph.outDegreeOf(v) > (long) graph.inDegreeOf(pivot) * graph.outDegreeOf(pivot)) {
+                    pivot = v;
+                }
+            }
+            AtomicLongArray forward = reach(graph, roots, pivot, true);
+            AtomicLongArray backward = reach(graph, roots, pivot, false);
+            final int root = pivot;
+            IntStream.range(0, n).parallel().forEach(v -> {
+                if (isSet(forward, v) && isSet(backward, v)) {
+                    roots[v] = root;
+                }
+            });
+            active = remaining(roots, active);
+        }
+        int[] colors = new int[n];
+        while (active.length > 0) {
+            active = trim(graph, roots, active);
+            color(graph, roots, colors, active);
+            active = remaining(roots, active);
+        }
+
+        //Number the components by smallest id
+        int[] numbers = new int[n];
+        Arrays.fill(numbers, UNASSIGNED);
+        int[] components = new int[n];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            if (numbers[roots[v]] == UNASSIGNED) {
+                numbers[roots[v]] = count++;
+            }
+            components[v] = numbers[roots[v]];
+        }
+        int[] sizes = new int[count];
+        for (int c : components) {
+            sizes[c]++;
+        }
+        return new StronglyConnectedComponents(graph, components, sizes);
+    }
+
+    private static boolean isSet(AtomicLongArray bits, int v) {
+        return (bits.get(v >>> 6) & (1L << v)) != 0;
+    }
+
+    /*
+     * Set a bit, returns false if it was already set
+     */
+    private static boolean set(AtomicLongArray bits, int v) {
+        int w = v >>> 6;
+        long bit = 1L << v, word;
+        do {
+            word = bits.get(w);
+            if ((word & bit) != 0) {
+                return false;
+            }
+        } while (!bits.compareAndSet(w, word, word | bit));
+        return true;
+    }
+
+    private static int[] remaining(int[] roots, int[] active) {
+        return Arrays.stream(active).parallel().filter(v -> roots[v] == UNASSIGNED).toArray();
+    }
+
+    /*
+     * Remove the nodes without edges from or to the other active nodes, that
+     * are components on their own, until there are none
+     */
+    private static int[] trim(CompactGraph graph, int[] roots, int[] active) {
+        int[] outOffsets = graph.getOutOffsets(), targets = graph.getOutTargets();
+        int[] inOffsets = graph.getInOffsets(), sources = graph.getInSources();
+        int removed;
+        do {
+            final int[] nodes = active;
+            removed = IntStream.range(0, (nodes.length + NODES_PER_TASK - 1) / NODES_PER_TASK).parallel().map(task -> {
+                int count = 0;
+                for (int i = task * NODES_PER_TASK, end = Math.min(nodes.length, i + NODES_PER_TASK); i < end; i++) {
+                    int v = nodes[i];
+                    if (!hasActive(v, outOffsets, targets, roots) || !hasActive(v, inOffsets, sources, roots)) {
+                        //A node removed concurrently only makes the others easier to trim
+                        roots[v] = v;
+                        count++;
+                    }
+                }
+                return count;
+            }).sum();
+            if (removed > 0) {
+                active = remaining(roots, active);
+            }
+        } while (removed > 0 && active.length > 0);
+        return active;
+    }
+
+    /*
+     * Self loops do not count
+     */
+    private static boolean hasActive(int v, int[] offsets, int[] adjacent, int[] roots) {
+        for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+            if (adjacent[e] != v && roots[adjacent[e]] == UNASSIGNED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * The active nodes reachable from (or reaching) the pivot, level by level
+     */
+    private static AtomicLongArray reach(CompactGraph graph, int[] roots, int pivot, boolean forward) {
+        int[] offsets = forward ? graph.getOutOffsets() : graph.getInOffsets();
+        int[] adjacent = forward ? graph.getOutTargets() : graph.getInSources();
+        AtomicLongArray visited = new AtomicLongArray((graph.numberOfNodes() + 63) >>> 6);
+        set(visited, pivot);
+        int[] frontier = {pivot};
+        while (frontier.length > 0) {
+            final int[] current = frontier;
+            frontier = IntStream.range(0, current.length).parallel().flatMap(i -> {
+                int v = current[i];
+                int[] found = new int[offsets[v + 1] - offsets[v]];
+                int k = 0;
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    int u = adjacent[e];
+                    if (roots[u] == UNASSIGNED && set(visited, u)) {
+                        found[k++] = u;
+                    }
+                }
+                return Arrays.stream(found, 0, k);
+            }).toArray();
+        }
+        return visited;
+    }
+
+    /*
+     * One round of coloring: propagate the largest id forward until it is 
+     * stable, then collect backwards the component of each node that kept 
+     * its own id. Every round assigns at least the node with the largest id.
+     */
+    private static void color(CompactGraph graph, int[] roots, int[] colors, int[] active) {
+        int[] inOffsets = graph.getInOffsets(), sources = graph.getInSources();
+        int[] outOffsets = graph.getOutOffsets(), targets = graph.getOutTargets();
+        int tasks = (active.length + NODES_PER_TASK - 1) / NODES_PER_TASK;
+        for (int v : active) {
+            colors[v] = v;
+        }
+        AtomicBoolean changed = new AtomicBoolean();
+        do {
+            changed.set(false);
+            IntStream.range(0, tasks).parallel().forEach(task -> {
+                boolean updated = false;
+                for (int i = task * NODES_PER_TASK, end = Math.min(active.length, i + NODES_PER_TASK); i < end; i++) {
+                    int v = active[i], color = colors[v];
+                    for (int e = inOffsets[v]; e < inOffsets[v + 1]; e++) {
+                        int u = sources[e];
+                        //Colors only grow, reading a stale one delays the fixpoint
+                        if (roots[u] == UNASSIGNED && colors[u] > color) {
+                            color = colors[u];
+                        }
+                    }
+                    if (color > colors[v]) {
+                        colors[v] = color;
+                        updated = true;
+                    }
+                }
+                if (updated) {
+                    changed.set(true);
+                }
+            });
+        } while (changed.get());
+
+        //The roots of the colors, then the nodes reaching them within the color
+        for (int v : active) {
+            if (colors[v] == v) {
+                roots[v] = v;
+            }
+        }
+        do {
+            changed.set(false);
+            IntStream.range(0, tasks).parallel().forEach(task -> {
+                boolean updated = false;
+                for (int i = task * NODES_PER_TASK, end = Math.min(active.length, i + NODES_PER_TASK); i < end; i++) {
+                    int v = active[i];
+                    if (roots[v] != UNASSIGNED) {
+                        continue;
+                    }
+                    for (int e = outOffsets[v]; e < outOffsets[v + 1]; e++) {
+                        int w = targets[e];
+                        if (roots[w] == colors[v] && colors[w] == colors[v]) {
+                            roots[v] = colors[v];
+                            updated = true;
+                            break;
+                        }
+                    }
+                }
+                if (updated) {
+                    changed.set(true);
+                }
+            });
+        } while (changed.get());
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int getNumComponents() {
+        return sizes.length;
+    }
+
+    /**
+     * @return The component of each node, indexed by id (see 
+     * {@link CompactGraph#idOf(long) })
+     */
+    public int[] getComponents() {
+        return components;
+    }
+
+    /**
+     * @param node A node
+     * @return The component of the node, -1 if it is not in the graph
+     */
+    public int componentOf(long node) {
+        int id = graph.idOf(node);
+        return id < 0 ? -1 : components[id];
+    }
+
+    /**
+     * @return The number of nodes of each component
+     */
+    public int[] getSizes() {
+        return sizes;
+    }
+
+    /**
+     * @return The component with the most nodes, -1 if the graph is empty
+     */
+    public int getLargest() {
+        int largest = -1;
+        for (int c = 0; c < sizes.length; c++) {
+            if (largest < 0 || sizes[c] > sizes[largest]) {
+                largest = c;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * @return True if the graph has no cycles, self loops included
+     */
+    public boolean isAcyclic() {
+        if (sizes.length < components.length) {
+            return false;
+        }
+        int[] offsets = graph.getOutOffsets(), targets = graph.getOutTargets();
+        return IntStream.range(0, components.length).parallel().noneMatch(v -> {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (targets[e] == v) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Build the condensation of the graph: a DAG with a node for each 
+     * component, numbered as the components, and an edge between two 
+     * components for each distinct label of the edges between their nodes. 
+     *
+     * @return The condensed graph
+     */
+    public CompactGraph condensation() {
+        int[] offsets = graph.getOutOffsets(), targets = graph.getOutTargets();
+        long[] labels = graph.getOutLabels();
+        long[] nodes = new long[sizes.length];
+        for (int c = 0; c < nodes.length; c++) {
+            nodes[c] = c;
+        }
+        int m = 0;
+        for (int v = 0; v < components.length; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (components[targets[e]] != components[v]) {
+                    m++;
+                }
+            }
+        }
+        long[] src = new long[m], dest = new long[m], edgeLabels = new long[m];
+        m = 0;
+        for (int v = 0; v < components.length; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (components[targets[e]] != components[v]) {
+                    src[m] = components[v];
+                    dest[m] = components[targets[e]];
+                    edgeLabels[m++] = labels[e];
+                }
+            }
+        }
+        CompactGraph condensed = CompactGraph.of(nodes, src, dest, edgeLabels);
+        //The edges of each component are sorted by label and target, drop the repeated ones
+        int[] cOffsets = condensed.getOutOffsets(), cTargets = condensed.getOutTargets();
+        long[] cLabels = condensed.getOutLabels();
+        m = 0;
+        for (int c = 0; c < nodes.length; c++) {
+            for (int e = cOffsets[c]; e < cOffsets[c + 1]; e++) {
+                if (e == cOffsets[c] || cTargets[e] != cTargets[e - 1] || cLabels[e] != cLabels[e - 1]) {
+                    src[m] = c;
+                    dest[m] = cTargets[e];
+                    edgeLabels[m++] = cLabels[e];
+                }
+            }
+        }
+        if (m == src.length) {
+            return condensed;
+        }
+        return CompactGraph.of(nodes, Arrays.copyOf(src, m), Arrays.copyOf(dest, m), Arrays.copyOf(edgeLabels, m));
+    }
+
+    @Override
+    public String toString() {
+        int largest = getLargest();
+        return String.format("StronglyConnectedComponents{nodes=%d, components=%d, largest=%d}",
+                components.length, sizes.length, largest < 0 ? 0 : sizes[largest]);
+    }
+}
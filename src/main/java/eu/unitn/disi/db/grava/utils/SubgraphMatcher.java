@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import eu.unitn.disi.db.grava.vectorization.InvertedIndexNeighborTables;
+import eu.unitn.disi.db.grava.vectorization.NeighborTables;
+import eu.unitn.disi.db.grava.vectorization.NeighborTablesBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the embeddings of a labeled pattern in a graph: the injective maps of
+ * the nodes of the pattern to nodes of the graph such that every edge of the
+ * pattern is an edge of the graph with the same label.
+ * 
+ * The candidates of each pattern node are pruned with the neighbor tables 
+ * (see {@link NeighborTablesBuilder}) of the graph, before any traversal. The table 
+ * of a node counts, for each level l, the edges of each label whose nearest 
+ * endpoint is at distance l from it, ignoring the direction. A pattern node 
+ * can only be mapped to a node having, up to each level, at least as many 
+ * edges of each label as it has in the pattern, as distances can only shrink
+ * through an embedding. 
+ * 
+ * The search then maps the pattern nodes in order of selectivity, each one 
+ * connected to the ones before when possible, so that it only scans the 
+ * edges of an already mapped node. The searches from the candidates of the 
+ * first node run in parallel.
+ *
+ * @author agent <agent@local>
+ */
+public class SubgraphMatcher {
+
+    private final CompactGraph graph;
+    private final NeighborTables tables;
+
+    /**
+     * A pattern edge between the node in a position and a node before it
+     */
+    private static class Constraint {
+
+        private final int other;
+        private final long label;
+        //True if the edge goes from the node to the other one
+        private final boolean outgoing;
+
+        Constraint(int other, long label, boolean outgoing) {
+            this.other = other;
+            this.label = label;
+            this.outgoing = outgoing;
+        }
+    }
+
+    /**
+     * Computes the neighbor tables of the graph up to k levels
+     *
+     * @param graph The graph
+     * @param k The number of levels of the tables
+     */
+    public SubgraphMatcher(Multigraph graph, int k) {
+        this(CompactGraph.of(graph), k);
+    }
+
+    /**
+     * Computes the neighbor tables of the graph up to k levels
+     *
+     * @param graph The graph
+     * @param k The number of levels of the tables
+     */
+    public SubgraphMatcher(CompactGraph graph, int k) {
+        this(graph, new NeighborTablesBuilder(graph, k).build());
+    }
+
+    /**
+     * @param graph The graph
+     * @param tables The neighbor tables of the graph, as computed by 
+     * {@link NeighborTablesBuilder}
+     */
+    public SubgraphMatcher(Multigraph graph, NeighborTables tables) {
+        this(CompactGraph.of(graph), tables);
+    }
+
+    /**
+     * @param graph The graph
+     * @param tables The neighbor tables of the graph, as computed by 
+     * {@link NeighborTablesBuilder}
+     */
+    public SubgraphMatcher(CompactGraph graph, NeighborTables tables) {
+        if (graph == null || tables == null) {
+            throw new NullPointerException("Graph and tables cannot be null");
+        }
+        if (tables.getMaxLevel() < 1) {
+            throw new IllegalArgumentException("The tables must have at least one level");
+        }
+        this.graph = graph;
+        this.tables = tables;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public NeighborTables getTables() {
+        return tables;
+    }
+
+    /**
+     * Compute the candidates of each node of a pattern, the nodes of the 
+     * graph whose neighbor tables dominate its own
+     *
+     * @param query The pattern
+     * @return The candidates of each node of the pattern, sorted
+     */
+    public Map<Long, long[]> candidates(Multigraph query) {
+        CompactGraph pattern = CompactGraph.of(query);
+        int[][] candidates = candidates(pattern);
+        Map<Long, long[]> nodes = new HashMap<>();
+        for (int q = 0; q < candidates.length; q++) {
+            long[] mapped = new long[candidates[q].length];
+            for (int i = 0; i < mapped.length; i++) {
+                mapped[i] = graph.nodeOf(candidates[q][i]);
+            }
+            nodes.put(pattern.nodeOf(q), mapped);
+        }
+        return nodes;
+    }
+
+    /**
+     * Find all the embeddings of a pattern
+     *
+     * @param query The pattern
+     * @return The embeddings, each mapping the nodes of the pattern to the 
+     * nodes of the graph
+     */
+    public List<Map<Long, Long>> match(Multigraph query) {
+        return match(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Find the embeddings of a pattern, stopping after some of them. Which 
+     * ones are returned when there are more depends on the scheduling
+     *
+     * @param query The pattern
+     * @param limit The maximum number of embeddings returned
+     * @return The embeddings, each mapping the nodes of the pattern to the 
+     * nodes of the graph
+     */
+    public List<Map<Long, Long>> match(Multigraph query, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("The limit cannot be negative");
+        }
+        CompactGraph pattern = CompactGraph.of(query);
+        int m = pattern.numberOfNodes();
+        if (m == 0 || limit == 0) {
+            return new ArrayList<>();
+        }
+        int[][] candidates = candidates(pattern);
+        int[] order = order(pattern, candidates);
+        int[] positions = new int[m];
+        for (int i = 0; i < m; i++) {
+            positions[order[i]] = i;
+        }
+        //The edges of each node with the nodes before it in the order
+        Constraint[][] constraints = new Constraint[m][];
+        int[][] sortedCandidates = new int[m][];
+        for (int i = 0; i < m; i++) {
+            int q = order[i];
+            List<Constraint> before = new ArrayList<>();
+            for (int e = pattern.getOutOffsets()[q]; e < pattern.getOutOffsets()[q + 1]; e++) {
+                if (positions[pattern.getOutTargets()[e]] <= i) {
+                    before.add(new Constraint(positions[pattern.getOutTargets()[e]], pattern.getOutLabels()[e], true));
+                }
+            }
+            for (int e = pattern.getInOffsets()[q]; e < pattern.getInOffsets()[q + 1]; e++) {
+                if (positions[pattern.getInSources()[e]] < i) {
+                    before.add(new Constraint(positions[pattern.getInSources()[e]], pattern.getInLabels()[e], false));
+                }
+            }
+            //Scan from a node before, a self loop is only checked
+            final int position = i;
+            before.sort((a, b) -> Boolean.compare(a.other == position, b.other == position));
+            constraints[i] = before.toArray(new Constraint[before.size()]);
+            sortedCandidates[i] = candidates[q];
+        }
+        AtomicInteger found = new AtomicInteger();
+        List<int[]> embeddings = IntStream.range(0, sortedCandidates[0].length).parallel().mapToObj(c -> {
+            List<int[]> local = new ArrayList<>();
+            int[] mapped = new int[m];
+            mapped[0] = sortedCandidates[0][c];
+            if (satisfies(constraints[0], mapped, 0, mapped[0])) {
+                search(1, mapped, sortedCandidates, constraints, local, found, limit);
+            }
+            return local;
+        }).flatMap(List::stream).collect(Collectors.toList());
+
+        List<Map<Long, Long>> matches = new ArrayList<>(Math.min(limit, embeddings.size()));
+        for (int[] mapped : embeddings.subList(0, Math.min(limit, embeddings.size()))) {
+            Map<Long, Long> match = new HashMap<>();
+            for (int i = 0; i < m; i++) {
+                match.put(pattern.nodeOf(order[i]), graph.nodeOf(mapped[i]));
+            }
+            matches.add(match);
+        }
+        return matches;
+    }
+
+    private void search(int i, int[] mapped, int[][] candidates, Constraint[][] constraints, List<int[]> found, AtomicInteger count, int limit) {
+        if (count.get() >= limit) {
+            return;
+        }
+        if (i == mapped.length) {
+            if (count.getAndIncrement() < limit) {
+                found.add(mapped.clone());
+            }
+            return;
+        }
+        if (constraints[i].length == 0 || constraints[i][0].other == i) {
+            //Not connected to the nodes before
+            for (int v : candidates[i]) {
+                if (!isMapped(mapped, i, v) && satisfies(constraints[i], mapped, i, v)) {
+                    mapped[i] = v;
+                    search(i + 1, mapped, candidates, constraints, found, count, limit);
+                }
+            }
+            return;
+        }
+        Constraint anchor = constraints[i][0];
+        int[] offsets = anchor.outgoing ? graph.getInOffsets() : graph.getOutOffsets();
+        int[] adjacent = anchor.outgoing ? graph.getInSources() : graph.getOutTargets();
+        long[] labels = anchor.outgoing ? graph.getInLabels() : graph.getOutLabels();
+        int u = mapped[anchor.other], end = offsets[u + 1];
+        int first = CompactGraph.firstEdgeOf(offsets, labels, u, anchor.label);
+        for (int e = first; e < end && labels[e] == anchor.label; e++) {
+            int v = adjacent[e];
+            //Parallel edges give the same node again
+            if ((e > first && adjacent[e - 1] == v) || Arrays.binarySearch(candidates[i], v) < 0 || isMapped(mapped, i, v)) {
+                continue;
+            }
+            if (satisfies(constraints[i], mapped, i, v)) {
+                mapped[i] = v;
+                search(i + 1, mapped, candidates, constraints, found, count, limit);
+            }
+        }
+    }
+
+    private static boolean isMapped(int[] mapped, int i, int v) {
+        for (int j = 0; j < i; j++) {
+            if (mapped[j] == v) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean satisfies(Constraint[] constraints, int[] mapped, int i, int v) {
+        for (Constraint c : constraints) {
+            int other = c.other == i ? v : mapped[c.other];
+            if (!(c.outgoing ? hasEdge(v, other, c.label) : hasEdge(other, v, c.label))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasEdge(int src, int dest, long label) {
+        int[] offsets = graph.getOutOffsets(), targets = graph.getOutTargets();
+        long[] labels = graph.getOutLabels();
+        int lo = CompactGraph.firstEdgeOf(offsets, labels, src, label), hi = lo;
+        while (hi < offsets[src + 1] && labels[hi] == label) {
+            hi++;
+        }
+        return Arrays.binarySearch(targets, lo, hi, dest) >= 0;
+    }
+
+    /*
+     * The ids of the candidates of each pattern node, sorted
+     */
+    private int[][] candidates(CompactGraph pattern) {
+        int k = tables.getMaxLevel();
+        NeighborTables patternTables = new NeighborTablesBuilder(pattern, k).build();
+        int[][] candidates = new int[pattern.numberOfNodes()][];
+        for (int q = 0; q < candidates.length; q++) {
+            List<Map<Long, Integer>> table = patternTables.getNodeMap(pattern.nodeOf(q));
+            //The edges of each label up to each level
+            Map<Long, int[]> required = new HashMap<>();
+            for (int level = 0; level < k; level++) {
+                for (Map.Entry<Long, Integer> entry : table.get(level).entrySet()) {
+                    required.computeIfAbsent(entry.getKey(), label -> new int[k])[level] += entry.getValue();
+                }
+            }
+            for (int[] counts : required.values()) {
+                for (int level = 1; level < k; level++) {
+                    counts[level] += counts[level - 1];
+                }
+            }
+            candidates[q] = seeds(table.get(0).keySet()).filter(id -> dominates(graph.nodeOf(id), required, k)).toArray();
+        }
+        return candidates;
+    }
+
+    /*
+     * The nodes that can be candidates, from the inverted index if there is 
+     * one: only the nodes with the rarest label of the first level
+     */
+    private IntStream seeds(Set<Long> labels) {
+        if (tables instanceof InvertedIndexNeighborTables && !labels.isEmpty()) {
+            Set<Long> rarest = null;
+            for (Long label : labels) {
+                Set<Long> nodes = ((InvertedIndexNeighborTables) tables).getNodesForLabel(label, 0);
+                if (nodes == null) {
+                    return IntStream.empty();
+                }
+                if (rarest == null || nodes.size() < rarest.size()) {
+                    rarest = nodes;
+                }
+            }
+            return rarest.stream().mapToInt(graph::idOf).filter(id -> id >= 0).sorted().parallel();
+        }
+        return IntStream.range(0, graph.numberOfNodes()).parallel();
+    }
+
+    private boolean dominates(long node, Map<Long, int[]> required, int k) {
+        for (Map.Entry<Long, int[]> entry : required.entrySet()) {
+            int[] counts = entry.getValue();
+            int total = 0;
+            for (int level = 0; level < k; level++) {
+                total += tables.getCountForNodeLabel(node, entry.getKey(), level);
+                if (total < counts[level]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+     * The pattern nodes by selectivity: the one with fewest candidates first,
+     * then the one with fewest candidates among those connected to the nodes
+     * already ordered, if any
+     */
+    private static int[] order(CompactGraph pattern, int[][] candidates) {
+        int m = pattern.numberOfNodes();
+        int[] order = new int[m];
+        boolean[] ordered = new boolean[m];
+        boolean[] connected = new boolean[m];
+        for (int i = 0; i < m; i++) {
+            int best = -1;
+            for (int q = 0; q < m; q++) {
+                if (ordered[q]) {
+                    continue;
+                }
+                if (best < 0 || (connected[q] && !connected[best])
+                        || (connected[q] == connected[best] && candidates[q].length < candidates[best].length)) {
+                    best = q;
+                }
+            }
+            order[i] = best;
+            ordered[best] = true;
+            for (int e = pattern.getOutOffsets()[best]; e < pattern.getOutOffsets()[best + 1]; e++) {
+                connected[pattern.getOutTargets()[e]] = true;
+            }
+            for (int e = pattern.getInOffsets()[best]; e < pattern.getInOffsets()[best + 1]; e++) {
+                connected[pattern.getInSources()[e]] = true;
+            }
+        }
+        return order;
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Counts the triangles of a graph, ignoring the direction of the edges, the 
+ * self loops and the parallel edges, and derives the clustering coefficients.
+ * 
+ * Each edge is oriented from the endpoint of lower degree to the one of 
+ * higher degree (ties broken by id), so that every triangle is found once, 
+ * at its lowest node, by intersecting two oriented neighbor lists sorted by 
+ * id. Lists of similar length are merged, while a short list is searched in 
+ * a much longer one by galloping. Nodes are processed in parallel by ranges 
+ * of ids.
+ *
+ * @author agent <agent@local>
+ */
+public class Triangles {
+
+    private static final int NODES_PER_TASK = 4096;
+    /*
+     * Gallop when the longer list is at least this many times the shorter
+     */
+    private static final int GALLOP_RATIO = 16;
+
+    private final CompactGraph graph;
+    private final int[] degrees;
+    private final long[] counts;
+    private final long triangles;
+
+    private Triangles(CompactGraph graph, int[] degrees, long[] counts, long triangles) {
+        this.graph = graph;
+        this.degrees = degrees;
+        this.counts = counts;
+        this.triangles = triangles;
+    }
+
+    /**
+     * Count the triangles of a graph, converted to a {@link CompactGraph}
+     *
+     * @param graph The graph, that must not change during the computation
+     * @param labels The labels of the edges considered, null for all
+     * @return The triangles of the graph
+     */
+    public static Triangles of(Multigraph graph, Collection<Long> labels) {
+        return of(CompactGraph.of(graph), labels);
+    }
+
+    /**
+     * Count the triangles of a graph
+     *
+     * @param graph The graph
+     * @return The triangles of the graph
+     */
+    public static Triangles of(CompactGraph graph) {
+        return of(graph, null);
+    }
+
+    /**
+     * Count the triangles formed by the edges with some labels
+     *
+     * @param graph The graph
+     * @param labels The labels of the edges considered, null for all
+     * @return The triangles of the graph
+     */
+    public static Triangles of(CompactGraph graph, Collection<Long> labels) {
+        final int n = graph.numberOfNodes();
+        final int tasks = (n + NODES_PER_TASK - 1) / NODES_PER_TASK;
+        long[] sortedLabels = sorted(labels);
+
+        //The distinct neighbors of each node, sorted by id, built by each task on its own
+        int[] degrees = new int[n];
+        int[][] chunks = new int[tasks][];
+        IntStream.range(0, tasks).parallel().forEach(task -> {
+            int[] chunk = new int[64];
+            int size = 0;
+            for (int u = task * NODES_PER_TASK, end = Math.min(n, u + NODES_PER_TASK); u < end; u++) {
+                int needed = size + graph.outDegreeOf(u) + graph.inDegreeOf(u);
+                if (needed > chunk.length) {
+                    chunk = Arrays.copyOf(chunk, Math.max(needed, chunk.length * 2));
+                }
+                int last = collect(u, graph.getOutOffsets(), graph.getOutTargets(), graph.getOutLabels(), sortedLabels, chunk, size);
+                last = collect(u, graph.getInOffsets(), graph.getInSources(), graph.getInLabels(), sortedLabels, chunk, last);
+                Arrays.sort(chunk, size, last);
+                int degree = 0;
+                for (int i = size; i < last; i++) {
+                    if (chunk[i] != u && (degree == 0 || chunk[i] != chunk[size + degree - 1])) {
+                        chunk[size + degree++] = chunk[i];
+                    }
+                }
+                degrees[u] = degree;
+                size += degree;
+            }
+            chunks[task] = Arrays.copyOf(chunk, size);
+        });
+
+        //Keep only the neighbors of higher degree
+        int[] offsets = new int[n + 1];
+        IntStream.range(0, tasks).parallel().forEach(task -> {
+            int i = 0;
+            for (int u = task * NODES_PER_TASK, end = Math.min(n, u + NODES_PER_TASK); u < end; u++) {
+                int higher = 0;
+                for (int last = i + degrees[u]; i < last; i++) {
+                    if (isHigher(degrees, chunks[task][i], u)) {
+                        higher++;
+                    }
+                }
+                offsets[u + 1] = higher;
+            }
+        });
+        Arrays.parallelPrefix(offsets, Integer::sum);
+        int[] neighbors = new int[offsets[n]];
+        IntStream.range(0, tasks).parallel().forEach(task -> {
+            int i = 0;
+            for (int u = task * NODES_PER_TASK, end = Math.min(n, u + NODES_PER_TASK); u < end; u++) {
+                int k = offsets[u];
+                for (int last = i + degrees[u]; i < last; i++) {
+                    if (isHigher(degrees, chunks[task][i], u)) {
+                        neighbors[k++] = chunks[task][i];
+                    }
+                }
+            }
+            chunks[task] = null;
+        });
+
+        //A triangle u < v < w is found at u, as w is both in N(u) and N(v)
+        AtomicLongArray found = new AtomicLongArray(n);
+        long triangles = IntStream.range(0, tasks).parallel().mapToLong(task -> {
+            long total = 0;
+            for (int u = task * NODES_PER_TASK, end = Math.min(n, u + NODES_PER_TASK); u < end; u++) {
+                long atU = 0;
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = neighbors[e];
+                    long common = intersect(neighbors, offsets[u], offsets[u + 1], offsets[v], offsets[v + 1], found);
+                    if (common > 0) {
+                        found.addAndGet(v, common);
+                        atU += common;
+                    }
+                }
+                if (atU > 0) {
+                    found.addAndGet(u, atU);
+                    total += atU;
+                }
+            }
+            return total;
+        }).sum();
+        long[] counts = new long[n];
+        IntStream.range(0, n).parallel().forEach(u -> counts[u] = found.get(u));
+        return new Triangles(graph, degrees, counts, triangles);
+    }
+
+    private static long[] sorted(Collection<Long> labels) {
+        if (labels == null) {
+            return null;
+        }
+        long[] sorted = new long[labels.size()];
+        int i = 0;
+        for (Long label : labels) {
+            sorted[i++] = label;
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /*
+     * Append the adjacent nodes through the edges with the labels, returns 
+     * the new size of the buffer
+     */
+    private static int collect(int node, int[] offsets, int[] adjacent, long[] edgeLabels, long[] labels, int[] buffer, int size) {
+        if (labels == null) {
+            int from = offsets[node], length = offsets[node + 1] - from;
+            System.arraycopy(adjacent, from, buffer, size, length);
+            return size + length;
+        }
+        int end = offsets[node + 1];
+        for (long label : labels) {
+            for (int e = CompactGraph.firstEdgeOf(offsets, edgeLabels, node, label); e < end && edgeLabels[e] == label; e++) {
+                buffer[size++] = adjacent[e];
+            }
+        }
+        return size;
+    }
+
+    private static boolean isHigher(int[] degrees, int v, int u) {
+        return degrees[v] > degrees[u] || (degrees[v] == degrees[u] && v > u);
+    }
+
+    /*
+     * Count the common nodes of two sorted ranges of the neighbors, crediting
+     * each of them with a triangle
+     */
+    private static long intersect(int[] neighbors, int aFrom, int aTo, int bFrom, int bTo, AtomicLongArray found) {
+        int aLength = aTo - aFrom, bLength = bTo - bFrom;
+        if (aLength == 0 || bLength == 0) {
+            return 0;
+        }
+        if (aLength > bLength) {
+            return intersect(neighbors, bFrom, bTo, aFrom, aTo, found);
+        }
+        long common = 0;
+        int i = aFrom, j = bFrom;
+        if (bLength >= GALLOP_RATIO * aLength) {
+            for (; i < aTo && j < bTo; i++) {
+                j = gallop(neighbors, neighbors[i], j, bTo);
+                if (j < bTo && neighbors[j] == neighbors[i]) {
+                    found.incrementAndGet(neighbors[j++]);
+                    common++;
+                }
+            }
+            return common;
+        }
+        while (i < aTo && j < bTo) {
+            int a = neighbors[i], b = neighbors[j];
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                found.incrementAndGet(a);
+                common++;
+                i++;
+                j++;
+            }
+        }
+        return common;
+    }
+
+    /*
+     * The first position from 'from' with a value not less than the key, 
+     * 'to' if there is none
+     */
+    private static int gallop(int[] values, int key, int from, int to) {
+        int step = 1, low = from, high = from;
+        while (high < to && values[high] < key) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, to);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return The number of triangles of the graph
+     */
+    public long getTriangles() {
+        return triangles;
+    }
+
+    /**
+     * @return The number of triangles of each node, indexed by id (see 
+     * {@link CompactGraph#idOf(long) })
+     */
+    public long[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * @param node A node
+     * @return The number of triangles of the node, -1 if it is not in the graph
+     */
+    public long trianglesOf(long node) {
+        int id = graph.idOf(node);
+        return id < 0 ? -1 : counts[id];
+    }
+
+    /**
+     * @param node A node
+     * @return The number of distinct neighbors of the node, through the edges
+     * considered, -1 if it is not in the graph
+     */
+    public int degreeOf(long node) {
+        int id = graph.idOf(node);
+        return id < 0 ? -1 : degrees[id];
+    }
+
+    /**
+     * The local clustering coefficient of a node: the fraction of the pairs 
+     * of its neighbors that are connected
+     *
+     * @param node A node
+     * @return The coefficient, 0 if the node has less than two neighbors, NaN
+     * if it is not in the graph
+     */
+    public double clusteringOf(long node) {
+        int id = graph.idOf(node);
+        return id < 0 ? Double.NaN : clustering(id);
+    }
+
+    private double clustering(int id) {
+        long d = degrees[id];
+        return d < 2 ? 0 : 2.0 * counts[id] / (d * (d - 1));
+    }
+
+    /**
+     * @return The local clustering coefficient of each node, indexed by id
+     */
+    public double[] getClusteringCoefficients() {
+        double[] coefficients = new double[counts.length];
+        IntStream.range(0, counts.length).parallel().forEach(id -> coefficients[id] = clustering(id));
+        return coefficients;
+    }
+
+    /**
+     * @return The mean of the local clustering coefficients, 0 if the graph 
+     * is empty
+     */
+    public double getAverageClustering() {
+        return counts.length == 0 ? 0 : IntStream.range(0, counts.length).parallel().mapToDouble(this::clustering).sum() / counts.length;
+    }
+
+    /**
+     * The global clustering coefficient: the fraction of the paths of length
+     * two that are closed by a triangle
+     *
+     * @return The transitivity, 0 if there are no such paths
+     */
+    public double getTransitivity() {
+        long wedges = IntStream.range(0, degrees.length).parallel().mapToLong(id -> (long) degrees[id] * (degrees[id] - 1) / 2).sum();
+        return wedges == 0 ? 0 : 3.0 * triangles / wedges;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Triangles{nodes=%d, triangles=%d, transitivity=%.4f}",
+                counts.length, triangles, getTransitivity());
+    }
+}
@@ -112,7 +112,12 @@ public class InvertedIndexNeighborTables extends NeighborTables {
     @Override
     public int getCountForNodeLabel(long node, long label, int level){
         checkLevel(level);
-        return labelIndex.get(label).get(level).get(node);                
+        ArrayList<Map<Long, Integer>> labelNodes = labelIndex.get(label);
+        if (labelNodes == null) {
+            return 0;
+        }
+        Integer count = labelNodes.get(level).get(node);
+        return count == null ? 0 : count;
     }
     
     /**
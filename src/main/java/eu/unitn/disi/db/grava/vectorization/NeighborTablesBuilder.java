@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.vectorization;
+
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import eu.unitn.disi.db.mutilities.LoggableObject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Computes the neighbor tables of all the nodes of a graph up to k levels. 
+ * The table of a node counts, for each level l from 0 to k - 1, the edges of 
+ * each label whose nearest endpoint is at distance l from the node, ignoring
+ * the direction of the edges; each edge is counted once.
+ * 
+ * The nodes are split in ranges that the threads of a fork-join pool steal 
+ * from each other, and each node is expanded with a breadth first search 
+ * bounded to k levels over the adjacency of a {@link CompactGraph}. Each 
+ * thread reuses its queue and an array of one byte per node with the levels,
+ * clearing only the nodes it reached. The tables of a range are handed over
+ * together, so that they can be added to a table in memory or flushed to a 
+ * {@link TablesIndex} while the other ranges are computed.
+ *
+ * @author agent <agent@local>
+ */
+public class NeighborTablesBuilder extends LoggableObject {
+
+    public static final int DEFAULT_FLUSH_SIZE = 100_000;
+    private static final int NODES_PER_TASK = 1024;
+    private static final byte UNREACHED = -1;
+
+    private final CompactGraph graph;
+    private final int k;
+    private final ThreadLocal<byte[]> levels;
+    private final ThreadLocal<Buffers> buffers;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * @param graph The graph, converted to a {@link CompactGraph}, that must
+     * not change during the conversion
+     * @param k The number of levels of the tables
+     */
+    public NeighborTablesBuilder(Multigraph graph, int k) {
+        this(CompactGraph.of(graph), k);
+    }
+
+    /**
+     * @param graph The graph
+     * @param k The number of levels of the tables
+     */
+    public NeighborTablesBuilder(CompactGraph graph, int k) {
+        if (graph == null) {
+            throw new NullPointerException("Graph cannot be null");
+        }
+        if (k < 1 || k >= Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("The number of levels must be between 1 and " + (Byte.MAX_VALUE - 1));
+        }
+        this.graph = graph;
+        this.k = k;
+        final int n = graph.numberOfNodes();
+        this.levels = ThreadLocal.withInitial(() -> {
+            byte[] nodeLevels = new byte[n];
+            Arrays.fill(nodeLevels, UNREACHED);
+            return nodeLevels;
+        });
+        this.buffers = ThreadLocal.withInitial(Buffers::new);
+    }
+
+    public CompactGraph getGraph() {
+        return graph;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @param pool The pool computing the tables
+     */
+    public void setPool(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new NullPointerException("Pool cannot be null");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * @return The tables of all the nodes, in memory
+     */
+    public MemoryNeighborTables build() {
+        return build(new MemoryNeighborTables(k));
+    }
+
+    /**
+     * @return The tables of all the nodes, indexed by label
+     */
+    public InvertedIndexNeighborTables buildInverted() {
+        return build(new InvertedIndexNeighborTables(k, Math.min(InvertedIndexNeighborTables.DEFAULT_CAPACITY, graph.numberOfNodes() + 1)));
+    }
+
+    /**
+     * Add the tables of all the nodes to some tables, overwriting the ones of
+     * the same nodes
+     *
+     * @param <T> The type of the tables
+     * @param tables The tables to be filled, with k levels
+     * @return The input tables
+     */
+    public <T extends NeighborTables> T build(T tables) {
+        if (tables.getMaxLevel() != k) {
+            throw new IllegalArgumentException("Cannot add tables of " + k + " levels to tables of " + tables.getMaxLevel());
+        }
+        compute(batch -> {
+            synchronized (tables) {
+                for (Long node : batch.getNodes()) {
+                    tables.addNodeTable(batch.getNodeMap(node), node);
+                }
+            }
+        });
+        return tables;
+    }
+
+    /**
+     * Store the tables of all the nodes in an index, flushing them each time
+     * the tables computed reach the default number
+     *
+     * @param index The index, with k levels
+     * @return The number of flushes
+     * @throws IOException If the index cannot be written
+     */
+    public int build(TablesIndex index) throws IOException {
+        return build(index, DEFAULT_FLUSH_SIZE);
+    }
+
+    /**
+     * Store the tables of all the nodes in an index, flushing them each time
+     * the tables computed reach a number, so that only about that many tables
+     * are kept in memory. The flushes are serialized, while the tables of 
+     * other nodes are being computed.
+     *
+     * @param index The index, with k levels
+     * @param flushSize The number of tables stored together
+     * @return The number of flushes
+     * @throws IOException If the index cannot be written
+     */
+    public int build(TablesIndex index, int flushSize) throws IOException {
+        if (index.getK() != k) {
+            throw new IllegalArgumentException("Cannot store tables of " + k + " levels in an index of " + index.getK());
+        }
+        if (index.isReadOnly()) {
+            throw new IllegalStateException("This index is in Read Only MODE");
+        }
+        if (flushSize < 1) {
+            throw new IllegalArgumentException("The flush size must be positive");
+        }
+        final MemoryNeighborTables[] pending = {new MemoryNeighborTables(k)};
+        final int[] flushes = {0};
+        try {
+            compute(batch -> {
+                MemoryNeighborTables full = null;
+                synchronized (pending) {
+                    for (Long node : batch.getNodes()) {
+                        pending[0].addNodeTable(batch.getNodeMap(node), node);
+                    }
+                    if (pending[0].size() >= flushSize) {
+                        full = pending[0];
+                        pending[0] = new MemoryNeighborTables(k);
+                    }
+                }
+                if (full != null) {
+                    flush(index, full, flushes);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        if (pending[0].size() > 0) {
+            flush(index, pending[0], flushes);
+        }
+        return flushes[0];
+    }
+
+    private void flush(TablesIndex index, MemoryNeighborTables tables, int[] flushes) {
+        synchronized (index) {
+            try {
+                index.storeTable(tables);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            flushes[0]++;
+            debug("Flushed %d tables to %s", tables.size(), index.getIndexPath());
+        }
+    }
+
+    /*
+     * Compute the tables of all the nodes, passing those of each range to 
+     * the consumer
+     */
+    private void compute(Consumer<MemoryNeighborTables> consumer) {
+        pool.invoke(new Range(0, graph.numberOfNodes(), consumer));
+    }
+
+    /*
+     * A range of nodes, split in halves until it is small enough
+     */
+    private class Range extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final Consumer<MemoryNeighborTables> consumer;
+
+        Range(int from, int to, Consumer<MemoryNeighborTables> consumer) {
+            this.from = from;
+            this.to = to;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > NODES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Range(from, mid, consumer), new Range(mid, to, consumer));
+                return;
+            }
+            MemoryNeighborTables batch = new MemoryNeighborTables(k);
+            for (int node = from; node < to; node++) {
+                batch.addNodeTable(tableOf(node), graph.nodeOf(node));
+            }
+            consumer.accept(batch);
+        }
+    }
+
+    /**
+     * Compute the table of a single node
+     *
+     * @param node The node
+     * @return The table of the node, a map from label to count for each 
+     * level, null if the node is not in the graph
+     */
+    public List<Map<Long, Integer>> tableOf(long node) {
+        int id = graph.idOf(node);
+        return id < 0 ? null : tableOf(id);
+    }
+
+    private List<Map<Long, Integer>> tableOf(int node) {
+        byte[] nodeLevels = levels.get();
+        Buffers buffer = buffers.get();
+        List<Map<Long, Integer>> nodeTable = new ArrayList<>(k);
+        int head = 0;
+        buffer.tail = 0;
+        buffer.enqueue(node);
+        nodeLevels[node] = 0;
+        try {
+            for (int level = 0; level < k; level++) {
+                buffer.numLabels = 0;
+                for (int end = buffer.tail; head < end; head++) {
+                    int u = buffer.queue[head];
+                    count(u, level, true, graph.getOutOffsets(), graph.getOutTargets(), graph.getOutLabels(), nodeLevels, buffer);
+                    count(u, level, false, graph.getInOffsets(), graph.getInSources(), graph.getInLabels(), nodeLevels, buffer);
+                }
+                nodeTable.add(buffer.labelCounts());
+            }
+        } finally {
+            //Leave the levels clean for the next node
+            for (int i = 0; i < buffer.tail; i++) {
+                nodeLevels[buffer.queue[i]] = UNREACHED;
+            }
+        }
+        return nodeTable;
+    }
+
+    /*
+     * Collect the labels of the edges of a node at a level whose other 
+     * endpoint is not nearer; an edge between two nodes at the same level is
+     * counted by the smaller one, a self loop as outgoing
+     */
+    private static void count(int u, int level, boolean outgoing, int[] offsets, int[] adjacent, long[] edgeLabels,
+            byte[] levels, Buffers buffer) {
+        for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+            int w = adjacent[e];
+            if (levels[w] == UNREACHED) {
+                //The nodes at level k are never expanded, but cleared with the queue
+                levels[w] = (byte) (level + 1);
+                buffer.enqueue(w);
+            }
+            if (levels[w] > level || (levels[w] == level && (u < w || (u == w && outgoing)))) {
+                buffer.addLabel(edgeLabels[e]);
+            }
+        }
+    }
+
+    /*
+     * The queue of the search and the labels of a level, reused by a thread
+     */
+    private static class Buffers {
+
+        private int[] queue = new int[64];
+        private int tail;
+        private long[] labels = new long[64];
+        private int numLabels;
+
+        void enqueue(int node) {
+            if (tail == queue.length) {
+                queue = Arrays.copyOf(queue, tail * 2);
+            }
+            queue[tail++] = node;
+        }
+
+        void addLabel(long label) {
+            if (numLabels == labels.length) {
+                labels = Arrays.copyOf(labels, numLabels * 2);
+            }
+            labels[numLabels++] = label;
+        }
+
+        /*
+         * Count the labels sorting them, with one map entry per label
+         */
+        Map<Long, Integer> labelCounts() {
+            Arrays.sort(labels, 0, numLabels);
+            Map<Long, Integer> counts = new HashMap<>();
+            int i = 0;
+            while (i < numLabels) {
+                int j = i + 1;
+                while (j < numLabels && labels[j] == labels[i]) {
+                    j++;
+                }
+                counts.put(labels[i], j - i);
+                i = j;
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class BaseMultigraphTest extends TestCase {
+
+    public BaseMultigraphTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * The edge and label views follow the later changes of the graph and 
+     * cannot be modified
+     */
+    public void testViews() {
+        BaseMultigraph graph = graph(3);
+        Collection<Edge> edges = graph.edgeSet();
+        Collection<Long> labels = graph.labelSet();
+        graph.addEdge(0L, 1L, 5L);
+        graph.addEdge(1L, 2L, 6L);
+        assertEquals(2, edges.size());
+        assertTrue(edges.contains(new Edge(0L, 1L, 5L)));
+        assertEquals(set(5L, 6L), new HashSet<>(labels));
+        graph.removeEdge(0L, 1L, 5L);
+        assertEquals(1, edges.size());
+        assertEquals(set(6L), new HashSet<>(labels));
+        try {
+            edges.add(new Edge(0L, 2L, 1L));
+            fail("The edge view must be read-only");
+        } catch (UnsupportedOperationException ex) {
+        }
+        try {
+            labels.remove(6L);
+            fail("The label view must be read-only");
+        } catch (UnsupportedOperationException ex) {
+        }
+        try {
+            graph.edgesOf(1L).clear();
+            fail("The edges of a node must be read-only");
+        } catch (UnsupportedOperationException ex) {
+        }
+        assertEquals(1, graph.numberOfEdges());
+    }
+
+    /**
+     * A snapshot does not change with the graph, and is shared until the 
+     * graph is modified
+     */
+    public void testSnapshots() {
+        BaseMultigraph graph = graph(3);
+        graph.addEdge(0L, 1L, 5L);
+        Collection<Edge> edges = graph.edgeSnapshot();
+        Collection<Long> labels = graph.labelSnapshot();
+        assertSame(edges, graph.edgeSnapshot());
+        assertSame(labels, graph.labelSnapshot());
+        //Adding an edge already in the graph or removing a missing one
+        //changes nothing
+        graph.addEdge(0L, 1L, 5L);
+        graph.removeEdge(1L, 2L, 5L);
+        assertSame(edges, graph.edgeSnapshot());
+        assertSame(labels, graph.labelSnapshot());
+
+        graph.addEdge(1L, 2L, 6L);
+        graph.removeEdge(0L, 1L, 5L);
+        assertEquals(set(new Edge(0L, 1L, 5L)), new HashSet<>(edges));
+        assertEquals(set(5L), new HashSet<>(labels));
+        Collection<Edge> rebuilt = graph.edgeSnapshot();
+        assertNotSame(edges, rebuilt);
+        assertNotSame(labels, graph.labelSnapshot());
+        assertEquals(set(new Edge(1L, 2L, 6L)), new HashSet<>(rebuilt));
+        assertEquals(set(6L), new HashSet<>(graph.labelSnapshot()));
+        try {
+            rebuilt.clear();
+            fail("A snapshot must be read-only");
+        } catch (UnsupportedOperationException ex) {
+        }
+    }
+
+    /**
+     * A label stays while some edge has it, and a self loop is one of the 
+     * edges of its node
+     */
+    public void testLabelsAndSelfLoops() {
+        BaseMultigraph graph = graph(3);
+        graph.addEdge(0L, 1L, 5L);
+        graph.addEdge(1L, 2L, 5L);
+        graph.addEdge(1L, 1L, 7L);
+        graph.addEdge(1L, 1L, 5L);
+        assertEquals(4, graph.edgesOf(1L).size());
+        assertEquals(4, count(graph.edgesOf(1L)));
+        assertTrue(graph.edgesOf(1L).contains(new Edge(1L, 1L, 7L)));
+        assertEquals(3, graph.inDegreeOf(1L));
+        assertEquals(3, graph.outDegreeOf(1L));
+
+        graph.removeEdge(1L, 1L, 7L);
+        assertEquals(set(5L), new HashSet<>(graph.labelSet()));
+        assertEquals(3, graph.edgesOf(1L).size());
+        graph.removeEdge(1L, 1L, 7L);
+        assertEquals(3, graph.edgesOf(1L).size());
+        graph.removeEdge(0L, 1L, 5L);
+        graph.removeEdge(1L, 2L, 5L);
+        assertEquals(set(5L), new HashSet<>(graph.labelSet()));
+        graph.removeEdge(1L, 1L, 5L);
+        assertTrue(graph.labelSet().isEmpty());
+        assertEquals(0, graph.edgesOf(1L).size());
+    }
+
+    /**
+     * Labels, edges and the edges of each node follow a random sequence of
+     * additions and removals, with repeated edges and self loops
+     */
+    public void testAgainstModel() {
+        Random rnd = new Random(26);
+        BaseMultigraph graph = graph(20);
+        Set<Edge> model = new HashSet<>();
+        for (int i = 0; i < 3000; i++) {
+            Edge e = new Edge(rnd.nextInt(20), rnd.nextInt(20), rnd.nextInt(6));
+            if (rnd.nextInt(3) == 0) {
+                graph.removeEdge(e);
+                model.remove(e);
+            } else {
+                graph.addEdge(e);
+                model.add(e);
+            }
+            if (i % 100 == 0) {
+                checkAgainstModel(graph, model);
+            }
+        }
+        checkAgainstModel(graph, model);
+    }
+
+    /**
+     * Batches large enough to be applied in parallel by groups of vertices
+     * leave the graph as adding and removing the edges one at a time, with 
+     * repeated edges, self loops and edges not in the graph
+     */
+    public void testBatches() {
+        Random rnd = new Random(27);
+        BaseMultigraph graph = graph(300);
+        BaseMultigraph sequential = graph(300);
+        Set<Edge> model = new HashSet<>();
+        for (int round = 0; round < 4; round++) {
+            int n = 6000;
+            long[] src = new long[n], dest = new long[n], labels = new long[n];
+            for (int i = 0; i < n; i++) {
+                if (i > 0 && rnd.nextInt(10) == 0) {
+                    //A repetition of an edge of the batch
+                    int j = rnd.nextInt(i);
+                    src[i] = src[j];
+                    dest[i] = dest[j];
+                    labels[i] = labels[j];
+                } else {
+                    src[i] = rnd.nextInt(300);
+                    dest[i] = rnd.nextInt(20) == 0 ? src[i] : rnd.nextInt(300);
+                    labels[i] = rnd.nextInt(8);
+                }
+            }
+            if (round % 2 == 0) {
+                graph.addEdges(src, dest, labels);
+                for (int i = 0; i < n; i++) {
+                    sequential.addEdge(src[i], dest[i], labels[i]);
+                    model.add(new Edge(src[i], dest[i], labels[i]));
+                }
+            } else {
+                //Most of the edges removed are not in the graph
+                graph.removeEdges(src, dest, labels);
+                for (int i = 0; i < n; i++) {
+                    sequential.removeEdge(src[i], dest[i], labels[i]);
+                    model.remove(new Edge(src[i], dest[i], labels[i]));
+                }
+            }
+            checkAgainstModel(graph, model);
+            assertEquals(new HashSet<>(sequential.labelSet()), new HashSet<>(graph.labelSet()));
+            assertEquals(sequential.numberOfEdges(), graph.numberOfEdges());
+        }
+        assertTrue(graph.numberOfEdges() > 5000);
+    }
+
+    /**
+     * A batch with an endpoint not in the graph fails without changing it
+     */
+    public void testBatchWithMissingNode() {
+        BaseMultigraph graph = graph(300);
+        int n = 5000;
+        long[] src = new long[n], dest = new long[n], labels = new long[n];
+        for (int i = 0; i < n; i++) {
+            src[i] = i % 300;
+            dest[i] = (i * 7) % 300;
+            labels[i] = i % 5;
+        }
+        graph.addEdges(src, dest, labels);
+        Collection<Edge> before = graph.edgeSnapshot();
+        Set<Long> labelsBefore = new HashSet<>(graph.labelSet());
+        long[] other = labels.clone();
+        for (int i = 0; i < n; i++) {
+            other[i] = 10 + i % 3;
+        }
+        dest[n - 1] = 1000;
+        try {
+            graph.addEdges(src, dest, other);
+            fail("A missing destination must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+        dest[n - 1] = (n - 1) * 7 % 300;
+        src[0] = -1;
+        try {
+            graph.removeEdges(src, dest, labels);
+            fail("A missing source must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+        assertSame(before, graph.edgeSnapshot());
+        assertEquals(labelsBefore, new HashSet<>(graph.labelSet()));
+        checkAgainstModel(graph, new HashSet<>(before));
+        try {
+            graph.addEdges(src, dest, new long[1]);
+            fail("Arrays of different lengths must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    static void checkAgainstModel(BaseMultigraph graph, Set<Edge> model) {
+        assertEquals(model.size(), graph.numberOfEdges());
+        assertEquals(model, new HashSet<>(graph.edgeSet()));
+        assertEquals(model, new HashSet<>(graph.edgeSnapshot()));
+        Set<Long> labels = new HashSet<>();
+        for (Edge e : model) {
+            labels.add(e.getLabel());
+        }
+        assertEquals(labels, new HashSet<>(graph.labelSet()));
+        assertEquals(labels, new HashSet<>(graph.labelSnapshot()));
+        for (Long v : graph.vertexSet()) {
+            Set<Edge> incident = new HashSet<>();
+            int in = 0, out = 0;
+            for (Edge e : model) {
+                if (e.getSource().equals(v) || e.getDestination().equals(v)) {
+                    incident.add(e);
+                }
+                in += e.getDestination().equals(v) ? 1 : 0;
+                out += e.getSource().equals(v) ? 1 : 0;
+            }
+            assertEquals(incident.size(), graph.edgesOf(v).size());
+            assertEquals(incident, new HashSet<>(graph.edgesOf(v)));
+            assertEquals(in, graph.inDegreeOf(v));
+            assertEquals(out, graph.outDegreeOf(v));
+        }
+    }
+
+    static BaseMultigraph graph(int nodes) {
+        BaseMultigraph graph = new BaseMultigraph();
+        for (long v = 0; v < nodes; v++) {
+            graph.addVertex(v);
+        }
+        return graph;
+    }
+
+    @SafeVarargs
+    private static <T> Set<T> set(T... elements) {
+        Set<T> set = new HashSet<>();
+        for (T e : elements) {
+            set.add(e);
+        }
+        return set;
+    }
+
+    private static int count(Collection<Edge> edges) {
+        List<Edge> visited = new ArrayList<>();
+        for (Edge e : edges) {
+            visited.add(e);
+        }
+        assertEquals(visited.size(), new HashSet<>(visited).size());
+        return visited.size();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class CompactGraphTest extends TestCase {
+
+    private static final Comparator<long[]> BY_LABEL_AND_NODE = (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]);
+
+    public CompactGraphTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * The adjacency of every node matches the graph, sorted by label and 
+     * adjacent node
+     */
+    public void testAgainstGraph() {
+        Random rnd = new Random(42);
+        BaseMultigraph graph = new BaseMultigraph();
+        //Sparse ids, with isolated nodes
+        for (long v = 0; v < 300; v++) {
+            graph.addVertex(v * 7 - 100);
+        }
+        Set<Edge> edges = randomEdges(rnd, 300, 2000);
+        for (Edge e : edges) {
+            graph.addEdge(e.getSource() * 7 - 100, e.getDestination() * 7 - 100, e.getLabel());
+        }
+        CompactGraph compact = CompactGraph.of(graph);
+        assertEquals(300, compact.numberOfNodes());
+        assertEquals(edges.size(), compact.numberOfEdges());
+        checkAgainstGraph(graph, compact);
+    }
+
+    /**
+     * A graph loaded from a file is converted from its edge tables to the 
+     * same compact graph
+     */
+    public void testBigMultigraph() throws Exception {
+        Random rnd = new Random(420);
+        Set<Edge> edges = randomEdges(rnd, 500, 3000);
+        File file = File.createTempFile("compact", ".graph");
+        try {
+            try (PrintWriter out = new PrintWriter(file)) {
+                for (Edge e : edges) {
+                    out.println(e.getSource() + " " + e.getDestination() + " " + e.getLabel());
+                }
+            }
+            BigMultigraph big = new BigMultigraph(file.getPath());
+            BaseMultigraph graph = new BaseMultigraph();
+            for (Edge e : edges) {
+                graph.addVertex(e.getSource());
+                graph.addVertex(e.getDestination());
+                graph.addEdge(e.getSource(), e.getDestination(), e.getLabel());
+            }
+            CompactGraph fromTables = CompactGraph.of(big);
+            CompactGraph fromEdges = CompactGraph.of(graph);
+            assertEquals(fromEdges.numberOfNodes(), fromTables.numberOfNodes());
+            for (int id = 0; id < fromEdges.numberOfNodes(); id++) {
+                assertEquals(fromEdges.nodeOf(id), fromTables.nodeOf(id));
+            }
+            checkAgainstGraph(graph, fromTables);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * The first edge with a label is found by binary search in the range of
+     * the node
+     */
+    public void testFirstEdgeOf() {
+        CompactGraph compact = CompactGraph.of(new long[]{1, 2, 3},
+                new long[]{1, 1, 1, 1, 2}, new long[]{2, 3, 2, 3, 1}, new long[]{5, 1, 1, 9, 5});
+        int[] offsets = compact.getOutOffsets();
+        long[] labels = compact.getOutLabels();
+        int id = compact.idOf(1);
+        assertEquals(offsets[id], CompactGraph.firstEdgeOf(offsets, labels, id, 0));
+        assertEquals(offsets[id], CompactGraph.firstEdgeOf(offsets, labels, id, 1));
+        assertEquals(offsets[id] + 2, CompactGraph.firstEdgeOf(offsets, labels, id, 2));
+        assertEquals(offsets[id] + 2, CompactGraph.firstEdgeOf(offsets, labels, id, 5));
+        assertEquals(offsets[id] + 3, CompactGraph.firstEdgeOf(offsets, labels, id, 9));
+        assertEquals(offsets[id + 1], CompactGraph.firstEdgeOf(offsets, labels, id, 10));
+        id = compact.idOf(3);
+        assertEquals(offsets[id], CompactGraph.firstEdgeOf(offsets, labels, id, 1));
+        assertEquals(2, compact.inDegreeOf(compact.idOf(3)));
+        assertEquals(0, compact.outDegreeOf(compact.idOf(3)));
+    }
+
+    /**
+     * Unknown nodes have no id and edges must connect known nodes
+     */
+    public void testInvalidInput() {
+        CompactGraph compact = CompactGraph.of(new long[]{1, 4}, new long[]{1}, new long[]{4}, new long[]{0});
+        assertEquals(-1, compact.idOf(2));
+        assertEquals(-1, compact.idOf(5));
+        try {
+            CompactGraph.of(new long[]{1, 4}, new long[]{1}, new long[]{3}, new long[]{0});
+            fail("An edge to a missing node must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+        try {
+            CompactGraph.of(new long[]{1, 4}, new long[]{1, 4}, new long[]{4}, new long[]{0});
+            fail("Arrays of different lengths must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+        CompactGraph empty = CompactGraph.of(new BaseMultigraph());
+        assertEquals(0, empty.numberOfNodes());
+        assertEquals(0, empty.numberOfEdges());
+    }
+
+    private static Set<Edge> randomEdges(Random rnd, int nodes, int count) {
+        Set<Edge> edges = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            //Skewed destinations, so that some nodes have many edges
+            long dest = rnd.nextBoolean() ? rnd.nextInt(nodes) : Math.min(nodes - 1, (long) Math.abs(rnd.nextGaussian() * 10));
+            edges.add(new Edge((long) rnd.nextInt(nodes), dest, (long) rnd.nextInt(5)));
+        }
+        return edges;
+    }
+
+    private static void checkAgainstGraph(Multigraph graph, CompactGraph compact) {
+        for (int id = 0; id < compact.numberOfNodes(); id++) {
+            long node = compact.nodeOf(id);
+            assertEquals(id, compact.idOf(node));
+            if (id > 0) {
+                assertTrue(compact.nodeOf(id - 1) < node);
+            }
+            List<long[]> out = new ArrayList<>(), in = new ArrayList<>();
+            for (Edge e : graph.outgoingEdgesOf(node)) {
+                out.add(new long[]{e.getLabel(), compact.idOf(e.getDestination())});
+            }
+            for (Edge e : graph.incomingEdgesOf(node)) {
+                in.add(new long[]{e.getLabel(), compact.idOf(e.getSource())});
+            }
+            checkRange(out, compact.getOutOffsets(), compact.getOutTargets(), compact.getOutLabels(), id);
+            checkRange(in, compact.getInOffsets(), compact.getInSources(), compact.getInLabels(), id);
+            assertEquals(out.size(), compact.outDegreeOf(id));
+            assertEquals(in.size(), compact.inDegreeOf(id));
+        }
+    }
+
+    private static void checkRange(List<long[]> expected, int[] offsets, int[] adjacent, long[] labels, int id) {
+        Collections.sort(expected, BY_LABEL_AND_NODE);
+        assertEquals(expected.size(), offsets[id + 1] - offsets[id]);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i)[0], labels[offsets[id] + i]);
+            assertEquals(expected.get(i)[1], adjacent[offsets[id] + i]);
+        }
+    }
+}
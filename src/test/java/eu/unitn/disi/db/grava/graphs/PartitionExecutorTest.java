@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class PartitionExecutorTest extends TestCase {
+
+    private static final int NODES = 500;
+    private static final int EDGES = 5000;
+
+    private PartitionedMultigraph graph;
+
+    public PartitionExecutorTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() {
+        Random rnd = new Random(29);
+        graph = new PartitionedMultigraph(NODES, 5, 7);
+        for (long v = 0; v < NODES; v++) {
+            graph.addVertex(v);
+        }
+        for (int i = 0; i < EDGES; i++) {
+            graph.addEdge((long) rnd.nextInt(NODES), (long) rnd.nextInt(NODES), (long) rnd.nextInt(4));
+        }
+    }
+
+    /**
+     * The vertex function must see every vertex once with its adjacency
+     */
+    public void testForEachVertex() throws ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            PartitionExecutor executor = new PartitionExecutor(graph, pool);
+            long[] result = executor.forEachVertex(() -> new long[2],
+                    (acc, v, edges) -> {
+                        acc[0]++;
+                        acc[1] += edges.getOutgoing().size();
+                    },
+                    (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]});
+            assertEquals(graph.numberOfNodes(), result[0]);
+            assertEquals(graph.numberOfEdges(), result[1]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The edge function must see every edge once
+     */
+    public void testForEachEdge() throws ExecutionException {
+        PartitionExecutor executor = new PartitionExecutor(graph);
+        Map<Long, Integer> labels = executor.forEachEdge(HashMap::new,
+                (acc, e) -> acc.merge(e.getLabel(), 1, Integer::sum),
+                (a, b) -> {
+                    b.forEach((l, c) -> a.merge(l, c, Integer::sum));
+                    return a;
+                });
+        Map<Long, Integer> expected = new HashMap<>();
+        for (Edge e : graph.edgeSet()) {
+            expected.merge(e.getLabel(), 1, Integer::sum);
+        }
+        assertEquals(expected, labels);
+    }
+
+    /**
+     * The partial results are reduced in partition order
+     */
+    public void testRunReducesInOrder() throws ExecutionException {
+        PartitionExecutor executor = new PartitionExecutor(graph);
+        String order = executor.run(10, p -> Integer.toString(p), (a, b) -> a + b);
+        assertEquals("0123456789", order);
+    }
+
+    /**
+     * Null partial results are reduced as any other, wherever they are, 
+     * and there must be at least a partition
+     */
+    public void testNullPartials() throws ExecutionException {
+        PartitionExecutor executor = new PartitionExecutor(graph);
+        String order = executor.run(4, p -> p % 2 == 0 ? null : Integer.toString(p), (a, b) -> a + "," + b);
+        assertEquals("null,1,null,3", order);
+        assertNull(executor.run(1, p -> null, (a, b) -> "reduced"));
+        try {
+            executor.run(0, p -> p, Integer::sum);
+            fail("No partitions must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    /**
+     * A failing task is reported as an ExecutionException
+     */
+    public void testFailure() {
+        PartitionExecutor executor = new PartitionExecutor(graph);
+        try {
+            executor.run(4, p -> {
+                if (p == 2) {
+                    throw new IllegalStateException("failure");
+                }
+                return p;
+            }, Integer::sum);
+            fail("The failure of a task must be reported");
+        } catch (ExecutionException ex) {
+        }
+    }
+}
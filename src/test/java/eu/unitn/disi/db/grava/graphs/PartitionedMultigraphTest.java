@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import eu.unitn.disi.db.grava.graphs.collections.Partitioner;
+import eu.unitn.disi.db.grava.graphs.collections.RebalanceReport;
+import eu.unitn.disi.db.mutilities.exceptions.ParseException;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class PartitionedMultigraphTest extends TestCase {
+
+    private static final int NODES = 3000;
+    private static final int EDGES = 20000;
+
+    private File degrees;
+    private File edges;
+
+    public PartitionedMultigraphTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws IOException {
+        degrees = File.createTempFile("degrees", ".txt");
+        edges = File.createTempFile("edges", ".txt");
+    }
+
+    @Override
+    protected void tearDown() {
+        degrees.delete();
+        edges.delete();
+    }
+
+    /**
+     * Loading the degree and edge files must give the same graph as adding
+     * the edges one by one
+     */
+    public void testLoadFromFiles() throws Exception {
+        BaseMultigraph expected = new BaseMultigraph();
+        Random rnd = new Random(35);
+        for (long v = 0; v < NODES; v++) {
+            expected.addVertex(v * 7);
+        }
+        for (int i = 0; i < EDGES; i++) {
+            expected.addEdge(rnd.nextInt(NODES) * 7L, rnd.nextInt(NODES) * 7L, (long) rnd.nextInt(5));
+        }
+        writeFiles(expected, 0);
+
+        for (int threads : new int[]{1, 3}) {
+            PartitionedMultigraph graph = new PartitionedMultigraph(degrees.getPath(), edges.getPath(), 8, 8, threads);
+            assertEquals(expected.numberOfNodes(), graph.numberOfNodes());
+            assertEquals(expected.numberOfEdges(), graph.numberOfEdges());
+            assertEquals(new HashSet<>(expected.vertexSet()), new HashSet<>(graph.vertexSet()));
+            assertEquals(new HashSet<>(expected.edgeSet()), new HashSet<>(graph.edgeSet()));
+            for (Long v : expected.vertexSet()) {
+                assertEquals(new HashSet<>(expected.incomingEdgesOf(v)), new HashSet<>(graph.incomingEdgesOf(v)));
+                assertEquals(new HashSet<>(expected.outgoingEdgesOf(v)), new HashSet<>(graph.outgoingEdgesOf(v)));
+                assertEquals(expected.edgesOf(v).size(), graph.edgesOf(v).size());
+            }
+            //The loaded graph can still be updated
+            graph.addEdge(0L, 7L, 99L);
+            assertTrue(graph.outgoingEdgesOf(0L).contains(new Edge(0, 7, 99)));
+        }
+
+        PartitionedMultigraph nodesOnly = new PartitionedMultigraph(degrees.getPath(), null, 4, 4, 2);
+        assertEquals(NODES, nodesOnly.numberOfNodes());
+        assertEquals(0, nodesOnly.numberOfEdges());
+    }
+
+    /**
+     * An edge to a node missing from the degree file is a parse error
+     */
+    public void testInconsistentFiles() throws Exception {
+        BaseMultigraph graph = new BaseMultigraph();
+        graph.addVertex(1L);
+        graph.addVertex(2L);
+        graph.addEdge(1L, 2L, 0L);
+        writeFiles(graph, 1);
+        try {
+            new PartitionedMultigraph(degrees.getPath(), edges.getPath(), 2, 2, 1);
+            fail("The edge to the missing node must not be loaded");
+        } catch (ParseException ex) {
+        }
+    }
+
+    /**
+     * Rebalancing the nodes and the edges of a skewed concurrent graph lowers
+     * the imbalance, and readers running meanwhile find every node and edge
+     */
+    public void testRebalance() throws Exception {
+        Partitioner skewedNodes = (key, n) -> ((Long) key) % 10 == 0 ? (int) (((Long) key) % n) : 0;
+        Partitioner skewedEdges = (key, n) -> ((Edge) key).getSource() % 10 == 0 ? (int) (((Edge) key).getSource() % n) : n - 1;
+        final PartitionedMultigraph graph = new PartitionedMultigraph(16, 8, 8, skewedNodes, skewedEdges, true);
+        Random rnd = new Random(36);
+        final List<Edge> added = new ArrayList<>();
+        for (long v = 0; v < NODES; v++) {
+            graph.addVertex(v);
+        }
+        HashSet<Edge> distinct = new HashSet<>();
+        while (added.size() < EDGES) {
+            Edge e = new Edge((long) rnd.nextInt(NODES), (long) rnd.nextInt(NODES), (long) rnd.nextInt(5));
+            if (distinct.add(e)) {
+                graph.addEdge(e);
+                added.add(e);
+            }
+        }
+        final AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        RebalanceReport nodes, edgeReport;
+        try {
+            Future<?> reader = executor.submit(() -> {
+                do {
+                    for (int i = 0; i < added.size(); i += 13) {
+                        Edge e = added.get(i);
+                        assertTrue(graph.containsVertex(e.getSource()));
+                        assertTrue(graph.outgoingEdgesOf(e.getSource()).contains(e));
+                        assertTrue(graph.incomingEdgesOf(e.getDestination()).contains(e));
+                    }
+                } while (!done.get());
+            });
+            try {
+                nodes = graph.rebalanceNodes(1.1);
+                edgeReport = graph.rebalanceEdges(1.1);
+            } finally {
+                done.set(true);
+            }
+            reader.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(nodes.getAfter().getImbalance() < nodes.getBefore().getImbalance());
+        assertTrue(edgeReport.getAfter().getImbalance() < edgeReport.getBefore().getImbalance());
+        assertEquals(nodes.getAfter().getImbalance(), graph.getNodeBalance().getImbalance(), 1e-12);
+        assertEquals(edgeReport.getAfter().getImbalance(), graph.getEdgeBalance().getImbalance(), 1e-12);
+
+        assertEquals(NODES, graph.numberOfNodes());
+        assertEquals(EDGES, graph.numberOfEdges());
+        for (long v = 0; v < NODES; v++) {
+            assertTrue(graph.containsVertex(v));
+        }
+        for (Edge e : added) {
+            assertTrue(graph.outgoingEdgesOf(e.getSource()).contains(e));
+            assertTrue(graph.incomingEdgesOf(e.getDestination()).contains(e));
+        }
+        assertEquals(new HashSet<>(added), new HashSet<>(graph.edgeSet()));
+        assertEquals(EDGES, graph.edgeSet().size());
+    }
+
+    /*
+     * Write the degree file and the edge file of the graph, plus some edges
+     * to a node missing from the degree file
+     */
+    private void writeFiles(Multigraph graph, int dangling) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(degrees))) {
+            out.println("# node incoming outgoing");
+            for (Long v : graph.vertexSet()) {
+                out.printf("%d %d %d\n", v, graph.inDegreeOf(v), graph.outDegreeOf(v));
+            }
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(edges))) {
+            for (Edge e : graph.edgeSet()) {
+                out.printf("%d\t%d\t%d\n", e.getSource(), e.getDestination(), e.getLabel());
+            }
+            for (int i = 0; i < dangling; i++) {
+                out.printf("%d\t%d\t%d\n", -1, graph.vertexSet().iterator().next(), 0);
+            }
+        }
+    }
+}
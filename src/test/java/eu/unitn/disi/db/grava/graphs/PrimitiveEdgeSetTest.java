@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class PrimitiveEdgeSetTest extends TestCase {
+
+    private static final long NODE = 3;
+
+    public PrimitiveEdgeSetTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Adding, removing and looking up edges must behave as a hash set, both
+     * below and above the size where the hash table is built
+     */
+    public void testAgainstHashSet() {
+        for (int expected : new int[]{0, 4, 100}) {
+            checkAgainstModel(true, expected, 10);
+            checkAgainstModel(false, expected, 10);
+            checkAgainstModel(true, expected, 500);
+            checkAgainstModel(false, expected, 500);
+        }
+    }
+
+    /**
+     * Removing through the iterator must visit every edge exactly once
+     */
+    public void testIteratorRemove() {
+        PrimitiveEdgeSet edges = new PrimitiveEdgeSet(NODE, false, 0);
+        for (long i = 0; i < 200; i++) {
+            edges.add(new Edge(NODE, i, i % 3));
+        }
+        List<Edge> visited = new ArrayList<>();
+        Iterator<Edge> it = edges.iterator();
+        while (it.hasNext()) {
+            Edge e = it.next();
+            visited.add(e);
+            if (e.getDestination() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(200, visited.size());
+        assertEquals(200, new HashSet<>(visited).size());
+        assertEquals(100, edges.size());
+        for (long i = 0; i < 200; i++) {
+            assertEquals(i % 2 == 1, edges.contains(new Edge(NODE, i, i % 3)));
+        }
+    }
+
+    /**
+     * Edges that are not incident to the node are rejected
+     */
+    public void testForeignEdges() {
+        PrimitiveEdgeSet incoming = new PrimitiveEdgeSet(NODE, true, 2);
+        incoming.add(new Edge(1, NODE, 0));
+        assertFalse(incoming.contains(new Edge(NODE, 1, 0)));
+        assertFalse(incoming.remove(new Edge(NODE, 1, 0)));
+        try {
+            incoming.add(new Edge(NODE, 1, 0));
+            fail("An outgoing edge cannot be added to the incoming edges");
+        } catch (IllegalArgumentException ex) {
+        }
+        //A self loop is both incoming and outgoing
+        assertTrue(incoming.add(new Edge(NODE, NODE, 0)));
+        assertEquals(2, incoming.size());
+    }
+
+    /**
+     * Reserving capacity must keep the edges already in the set
+     */
+    public void testEnsureCapacity() {
+        PrimitiveEdgeSet edges = new PrimitiveEdgeSet(NODE, true, 2);
+        Set<Edge> model = new HashSet<>();
+        for (long i = 0; i < 5; i++) {
+            edges.add(new Edge(i, NODE, 1));
+            model.add(new Edge(i, NODE, 1));
+        }
+        edges.ensureCapacity(1000);
+        for (long i = 5; i < 1000; i++) {
+            edges.add(new Edge(i, NODE, 1));
+            model.add(new Edge(i, NODE, 1));
+        }
+        assertEquals(model, new HashSet<>(edges));
+        edges.clear();
+        assertTrue(edges.isEmpty());
+        assertFalse(edges.contains(new Edge(0, NODE, 1)));
+    }
+
+    private void checkAgainstModel(boolean incoming, int expected, int neighbors) {
+        Random rnd = new Random(35 + neighbors + expected);
+        PrimitiveEdgeSet edges = new PrimitiveEdgeSet(NODE, incoming, expected);
+        Set<Edge> model = new HashSet<>();
+        for (int i = 0; i < 5000; i++) {
+            long other = rnd.nextInt(neighbors), label = rnd.nextInt(3);
+            Edge e = incoming ? new Edge(other, NODE, label) : new Edge(NODE, other, label);
+            switch (rnd.nextInt(4)) {
+                case 0:
+                case 1:
+                    assertEquals(model.add(e), edges.add(e));
+                    break;
+                case 2:
+                    assertEquals(model.remove(e), edges.remove(e));
+                    break;
+                default:
+                    assertEquals(model.contains(e), edges.contains(e));
+            }
+            assertEquals(model.size(), edges.size());
+        }
+        assertEquals(model, new HashSet<>(edges));
+    }
+}
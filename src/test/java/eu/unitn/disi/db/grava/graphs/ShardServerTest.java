@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import eu.unitn.disi.db.grava.graphs.collections.HashPartitioner;
+import eu.unitn.disi.db.grava.graphs.collections.Partitioner;
+import eu.unitn.disi.db.grava.utils.GraphPartitioning;
+import eu.unitn.disi.db.grava.utils.StreamingGraphPartitioner;
+import eu.unitn.disi.db.mutilities.exceptions.ParseException;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class ShardServerTest extends TestCase {
+
+    private static final int SHARDS = 3;
+    private static final int NODES = 500;
+
+    private BaseMultigraph graph;
+    private final List<ShardServer> servers = new ArrayList<>();
+
+    public ShardServerTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws IOException {
+        graph = new BaseMultigraph();
+        Random rnd = new Random(38);
+        for (long v = 0; v < NODES; v++) {
+            graph.addVertex(v);
+        }
+        for (int i = 0; i < 3000; i++) {
+            graph.addEdge((long) rnd.nextInt(NODES), (long) rnd.nextInt(NODES), (long) rnd.nextInt(4));
+        }
+        //Every shard serves the whole graph, but owns only its vertices
+        for (int s = 0; s < SHARDS; s++) {
+            servers.add(new ShardServer(graph, s, SHARDS, new HashPartitioner(), 0));
+        }
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        for (ShardServer server : servers) {
+            server.close();
+        }
+    }
+
+    private List<InetSocketAddress> addresses() {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (ShardServer server : servers) {
+            addresses.add(new InetSocketAddress(server.getAddress(), server.getPort()));
+        }
+        return addresses;
+    }
+
+    /**
+     * Servers listen on the loopback interface by default
+     */
+    public void testLoopback() {
+        for (ShardServer server : servers) {
+            assertTrue(server.getAddress().isLoopbackAddress());
+        }
+    }
+
+    /**
+     * The sharded graph answers as the graph it shards, also for batches 
+     * larger than a single request
+     */
+    public void testQueries() throws IOException {
+        Partitioner partitioner = new HashPartitioner();
+        try (ShardedMultigraph sharded = new ShardedMultigraph(addresses(), partitioner)) {
+            checkGraph(graph, sharded);
+            long[] vertices = new long[2 * ShardProtocol.MAX_BATCH + 5];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = i % (NODES + 10);
+            }
+            boolean[] contained = sharded.containsVertices(vertices);
+            int[] degrees = sharded.outDegreesOf(vertices);
+            for (int i = 0; i < vertices.length; i++) {
+                assertEquals(vertices[i] < NODES, contained[i]);
+                assertEquals(vertices[i] < NODES ? graph.outDegreeOf(vertices[i]) : 0, degrees[i]);
+            }
+        }
+    }
+
+    /**
+     * A batch over the limit is rejected before it is read
+     */
+    public void testOversizedBatch() throws IOException {
+        try (Socket socket = new Socket(servers.get(0).getAddress(), servers.get(0).getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.writeByte(ShardProtocol.CONTAINS);
+            out.writeInt(Integer.MAX_VALUE);
+            out.flush();
+            assertEquals(ShardProtocol.ERROR, in.readByte());
+            in.readUTF();
+            assertEquals(-1, in.read());
+        }
+    }
+
+    /**
+     * Closing a server drops the open connections
+     */
+    public void testCloseDropsConnections() throws IOException {
+        ShardServer server = servers.get(0);
+        try (Socket socket = new Socket(server.getAddress(), server.getPort())) {
+            socket.setSoTimeout(10000);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.writeByte(ShardProtocol.INFO);
+            out.flush();
+            assertEquals(ShardProtocol.OK, in.readByte());
+            assertEquals(0, in.readInt());
+            in.readInt();
+            in.readInt();
+            in.readLong();
+            server.close();
+            try {
+                assertEquals(-1, in.read());
+            } catch (SocketTimeoutException ex) {
+                fail("The connection is still open");
+            } catch (IOException ex) {
+                //Reset by the server
+            }
+        }
+    }
+
+    /**
+     * After a shard goes away the whole graph fails, also on the other 
+     * shards
+     */
+    public void testFailureBreaksGraph() throws IOException {
+        ShardedMultigraph sharded = new ShardedMultigraph(addresses(), new HashPartitioner());
+        long first = -1, other = -1;
+        for (long v = 0; v < NODES && (first < 0 || other < 0); v++) {
+            if (sharded.shardOf(v) == 0) {
+                first = v;
+            } else {
+                other = v;
+            }
+        }
+        assertEquals(graph.outDegreeOf(other), sharded.outDegreeOf(other));
+        servers.get(0).close();
+        try {
+            sharded.outDegreeOf(first);
+            fail("The shard is closed");
+        } catch (UncheckedIOException ex) {
+        }
+        try {
+            sharded.outDegreeOf(other);
+            fail("The graph is broken");
+        } catch (UncheckedIOException ex) {
+            assertNotNull(ex.getCause());
+        }
+        sharded.close();
+    }
+
+    public void testClosedGraph() throws IOException {
+        ShardedMultigraph sharded = new ShardedMultigraph(addresses(), new HashPartitioner());
+        sharded.close();
+        try {
+            sharded.containsVertex(0L);
+            fail("The graph is closed");
+        } catch (UncheckedIOException ex) {
+        }
+    }
+
+    /**
+     * Shards started as separate processes from the partition files, with
+     * each kind of partitioner of the command line
+     */
+    public void testSeparateProcesses() throws Exception {
+        BaseMultigraph expected = new BaseMultigraph();
+        Random rnd = new Random(39);
+        for (int i = 0; i < 2000; i++) {
+            long src = rnd.nextInt(NODES), dest = rnd.nextInt(NODES);
+            expected.addVertex(src);
+            expected.addVertex(dest);
+            expected.addEdge(src, dest, (long) rnd.nextInt(4));
+        }
+        File dir = File.createTempFile("shards", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        try {
+            File assignment = new File(dir, "assignment.txt");
+            new StreamingGraphPartitioner(SHARDS, StreamingGraphPartitioner.Heuristic.FENNEL).partition(expected).writeAssignment(assignment);
+            for (String spec : new String[]{"hash", "range:150,300", "assignment:" + assignment.getPath()}) {
+                Partitioner partitioner = ShardServer.parsePartitioner(spec, SHARDS);
+                File[] files = GraphPartitioning.of(expected, partitioner, SHARDS).write(expected, new File(dir, "g").getPath());
+                List<Process> processes = new ArrayList<>();
+                try {
+                    List<InetSocketAddress> addresses = new ArrayList<>();
+                    for (int s = 0; s < SHARDS; s++) {
+                        Process process = new ProcessBuilder(
+                                new File(System.getProperty("java.home"), "bin/java").getPath(),
+                                "-cp", System.getProperty("java.class.path"), ShardServer.class.getName(),
+                                "0", String.valueOf(s), String.valueOf(SHARDS), spec,
+                                files[2 * s].getPath(), files[2 * s + 1].getPath())
+                                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                        processes.add(process);
+                        addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), readPort(process)));
+                    }
+                    try (ShardedMultigraph sharded = new ShardedMultigraph(addresses, partitioner)) {
+                        checkGraph(expected, sharded);
+                    }
+                } finally {
+                    for (Process process : processes) {
+                        process.destroy();
+                        process.waitFor();
+                    }
+                }
+            }
+        } finally {
+            for (File f : dir.listFiles()) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    public void testParsePartitioner() throws Exception {
+        assertTrue(ShardServer.parsePartitioner("hash", SHARDS) instanceof HashPartitioner);
+        assertEquals(1, ShardServer.parsePartitioner("range:10,20", SHARDS).partition(15L, SHARDS));
+        File file = File.createTempFile("assignment", ".txt");
+        try {
+            try (PrintWriter out = new PrintWriter(file)) {
+                out.println("7 2");
+                out.println("8 0");
+            }
+            Partitioner partitioner = ShardServer.parsePartitioner("assignment:" + file.getPath(), SHARDS);
+            assertEquals(2, partitioner.partition(7L, SHARDS));
+            assertEquals(0, partitioner.partition(8L, SHARDS));
+            try {
+                ShardServer.parsePartitioner("assignment:" + file.getPath(), 2);
+                fail("Shard 2 does not exist");
+            } catch (ParseException ex) {
+            }
+        } finally {
+            file.delete();
+        }
+        for (String spec : new String[]{"range:1,x", "metis"}) {
+            try {
+                ShardServer.parsePartitioner(spec, SHARDS);
+                fail("Malformed partitioner " + spec);
+            } catch (ParseException ex) {
+            }
+        }
+        assertTrue(ShardServer.parseAddress("1234").getAddress().isLoopbackAddress());
+        assertEquals(1234, ShardServer.parseAddress("127.0.0.1:1234").getPort());
+    }
+
+    /*
+     * The port is the first number printed by the server
+     */
+    private static int readPort(Process process) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().matches("\\d+")) {
+                return Integer.parseInt(line.trim());
+            }
+        }
+        fail("The shard server did not start");
+        return -1;
+    }
+
+    static void checkGraph(Multigraph expected, ShardedMultigraph sharded) {
+        assertEquals(expected.numberOfNodes(), sharded.numberOfNodes());
+        assertEquals(expected.numberOfEdges(), sharded.numberOfEdges());
+        assertEquals(new HashSet<>(expected.vertexSet()), new HashSet<>(sharded.vertexSet()));
+        assertEquals(new HashSet<>(expected.edgeSet()), new HashSet<>(sharded.edgeSet()));
+        assertEquals(new HashSet<>(expected.labelSet()), new HashSet<>(sharded.labelSet()));
+        long[] vertices = new long[expected.numberOfNodes()];
+        int i = 0;
+        for (Long v : expected.vertexSet()) {
+            vertices[i++] = v;
+        }
+        int[] in = sharded.inDegreesOf(vertices);
+        Edge[][] outgoing = sharded.outgoingEdgesOf(vertices);
+        Edge[][] incoming = sharded.incomingEdgesOf(vertices);
+        for (i = 0; i < vertices.length; i++) {
+            assertEquals(expected.inDegreeOf(vertices[i]), in[i]);
+            assertEquals(new HashSet<>(expected.outgoingEdgesOf(vertices[i])), new HashSet<>(Arrays.asList(outgoing[i])));
+            assertEquals(new HashSet<>(expected.incomingEdgesOf(vertices[i])), new HashSet<>(Arrays.asList(incoming[i])));
+        }
+        assertFalse(sharded.containsVertex(-1L));
+    }
+}
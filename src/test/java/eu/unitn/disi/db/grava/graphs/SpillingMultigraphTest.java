@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import eu.unitn.disi.db.grava.graphs.collections.PartitionSpiller;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class SpillingMultigraphTest extends TestCase {
+
+    private static final int NODES = 2000;
+    private static final int EDGES = 10000;
+
+    public SpillingMultigraphTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * A multigraph whose partitions are spilled must hold the same edges as
+     * an in-memory one under the same updates
+     */
+    public void testAgainstInMemory() throws IOException {
+        Random rnd = new Random(34);
+        PartitionedMultigraph memory = new PartitionedMultigraph(16, 16, 16);
+        try (PartitionSpiller spiller = new PartitionSpiller(500000)) {
+            PartitionedMultigraph spilled = new PartitionedMultigraph(32, 32, 5f, spiller);
+            for (int i = 0; i < EDGES; i++) {
+                long src = rnd.nextInt(NODES), dest = rnd.nextInt(NODES), label = rnd.nextInt(4);
+                memory.forceAddEdge(src, dest, label);
+                spilled.forceAddEdge(src, dest, label);
+            }
+            long[] src = new long[500], dest = new long[500], labels = new long[500];
+            for (int i = 0; i < src.length; i++) {
+                src[i] = rnd.nextInt(NODES);
+                dest[i] = rnd.nextInt(NODES);
+                labels[i] = 7;
+                memory.addVertex(src[i]);
+                memory.addVertex(dest[i]);
+                spilled.addVertex(src[i]);
+                spilled.addVertex(dest[i]);
+            }
+            memory.addEdges(src, dest, labels);
+            spilled.addEdges(src, dest, labels);
+            int k = 0;
+            for (Edge e : new ArrayList<>(memory.edgeSet())) {
+                if (k++ % 5 == 0) {
+                    memory.removeEdge(e);
+                    spilled.removeEdge(e);
+                }
+            }
+
+            assertTrue(spiller.getStatistics().getEvictions() > 0);
+            assertEquals(memory.numberOfNodes(), spilled.numberOfNodes());
+            assertEquals(memory.numberOfEdges(), spilled.numberOfEdges());
+            assertEquals(new HashSet<>(memory.edgeSet()), new HashSet<>(spilled.edgeSet()));
+            assertEquals(new HashSet<>(memory.labelSet()), new HashSet<>(spilled.labelSet()));
+            for (Long v : memory.vertexSet()) {
+                assertEquals(new HashSet<>(memory.incomingEdgesOf(v)), new HashSet<>(spilled.incomingEdgesOf(v)));
+                assertEquals(new HashSet<>(memory.outgoingEdgesOf(v)), new HashSet<>(spilled.outgoingEdgesOf(v)));
+            }
+        }
+    }
+}
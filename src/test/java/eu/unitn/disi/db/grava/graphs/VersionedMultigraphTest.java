@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class VersionedMultigraphTest extends TestCase {
+
+    private static final int NODES = 50;
+
+    public VersionedMultigraphTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * A snapshot must not see the modifications made after it was taken
+     */
+    public void testSnapshotIsolation() {
+        VersionedMultigraph graph = new VersionedMultigraph();
+        for (long v = 0; v < 3; v++) {
+            graph.addVertex(v);
+        }
+        VersionedMultigraph.Snapshot empty = graph.snapshot();
+        graph.addEdge(1L, 2L, 3L);
+        graph.addEdge(2L, 2L, 4L);
+        VersionedMultigraph.Snapshot two = graph.snapshot();
+        graph.removeVertex(2L);
+
+        assertEquals(0, empty.numberOfEdges());
+        assertEquals(2, two.numberOfEdges());
+        assertTrue(two.containsVertex(2L));
+        assertEquals(1, two.outgoingEdgesOf(1L).size());
+        assertFalse(graph.containsVertex(2L));
+        assertEquals(2, graph.getNumSnapshots());
+        empty.close();
+        two.close();
+        assertEquals(0, graph.getNumSnapshots());
+        try {
+            two.numberOfEdges();
+            fail("A closed snapshot cannot be read");
+        } catch (IllegalStateException ex) {
+        }
+    }
+
+    /**
+     * Uncommitted modifications are visible to the writer but not to the
+     * snapshots
+     */
+    public void testCommit() {
+        VersionedMultigraph graph = new VersionedMultigraph();
+        graph.setAutoCommit(false);
+        graph.addVertex(0L);
+        graph.addVertex(1L);
+        graph.addEdge(0L, 1L, 0L);
+        try (VersionedMultigraph.Snapshot snapshot = graph.snapshot()) {
+            assertEquals(0, snapshot.numberOfNodes());
+            assertEquals(1, graph.numberOfEdges());
+        }
+        graph.commit();
+        try (VersionedMultigraph.Snapshot snapshot = graph.snapshot()) {
+            assertEquals(2, snapshot.numberOfNodes());
+            assertEquals(1, snapshot.numberOfEdges());
+        }
+    }
+
+    /**
+     * The latest version must follow a BaseMultigraph under the same updates
+     */
+    public void testAgainstBaseMultigraph() {
+        VersionedMultigraph graph = new VersionedMultigraph();
+        BaseMultigraph model = new BaseMultigraph();
+        Random rnd = new Random(28);
+        for (long v = 0; v < NODES; v++) {
+            graph.addVertex(v);
+            model.addVertex(v);
+        }
+        for (int i = 0; i < 5000; i++) {
+            long src = rnd.nextInt(NODES), dest = rnd.nextInt(NODES), label = rnd.nextInt(3);
+            if (rnd.nextInt(3) > 0) {
+                graph.addEdge(src, dest, label);
+                model.addEdge(src, dest, label);
+            } else {
+                graph.removeEdge(src, dest, label);
+                model.removeEdge(src, dest, label);
+            }
+        }
+        assertEquals(model.numberOfEdges(), graph.numberOfEdges());
+        assertEquals(new HashSet<>(model.edgeSet()), new HashSet<>(graph.edgeSet()));
+        assertEquals(new HashSet<>(model.labelSet()), new HashSet<>(graph.labelSet()));
+        for (long v = 0; v < NODES; v++) {
+            assertEquals(new HashSet<>(model.outgoingEdgesOf(v)), new HashSet<>(graph.outgoingEdgesOf(v)));
+            assertEquals(new HashSet<>(model.incomingEdgesOf(v)), new HashSet<>(graph.incomingEdgesOf(v)));
+        }
+    }
+
+    /**
+     * Readers must always see both directions of the edges, which the writer
+     * adds and removes in pairs within a commit
+     */
+    public void testConcurrentReaders() throws InterruptedException {
+        final VersionedMultigraph graph = new VersionedMultigraph();
+        for (long v = 0; v < NODES; v++) {
+            graph.addVertex(v);
+        }
+        graph.setAutoCommit(false);
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicInteger errors = new AtomicInteger();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            Thread reader = new Thread(() -> {
+                while (!stop.get()) {
+                    try (VersionedMultigraph.Snapshot snapshot = graph.snapshot()) {
+                        int count = 0;
+                        Iterator<Edge> it = snapshot.edgesIterator();
+                        while (it.hasNext()) {
+                            Edge e = it.next();
+                            count++;
+                            if (!snapshot.getEdge(e.getDestination(), e.getSource()).contains(new Edge(e.getDestination(), e.getSource(), e.getLabel()))) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                        if (count != snapshot.numberOfEdges()) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        Random rnd = new Random(29);
+        for (int i = 0; i < 5000; i++) {
+            long x = rnd.nextInt(NODES), y = rnd.nextInt(NODES), label = rnd.nextInt(3);
+            if (rnd.nextBoolean()) {
+                graph.addEdge(x, y, label);
+                graph.addEdge(y, x, label);
+            } else {
+                graph.removeEdge(x, y, label);
+                graph.removeEdge(y, x, label);
+            }
+            graph.commit();
+        }
+        stop.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(0, errors.get());
+        assertEquals(0, graph.getNumSnapshots());
+    }
+}
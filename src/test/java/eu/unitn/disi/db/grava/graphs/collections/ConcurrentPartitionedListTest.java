@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class ConcurrentPartitionedListTest extends TestCase {
+
+    private static final int PARTITIONS = 8;
+    private static final int THREADS = 4;
+    private static final int PER_THREAD = 5000;
+
+    public ConcurrentPartitionedListTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Concurrent additions and removals must not lose elements
+     */
+    public void testConcurrentUpdates() throws InterruptedException, ExecutionException {
+        final ConcurrentPartitionedList<Integer> list = new ConcurrentPartitionedList<>(10, PARTITIONS, new HashPartitioner(), true);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        list.add(i * THREADS + thread);
+                    }
+                    for (int i = 0; i < PER_THREAD; i += 2) {
+                        assertTrue(list.remove((Integer) (i * THREADS + thread)));
+                    }
+                    //Positional reads while the other threads update
+                    for (int i = 0; i < 1000; i++) {
+                        int size = list.size();
+                        if (size > 0) {
+                            assertNotNull(list.get(i % size));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(THREADS * PER_THREAD / 2, list.size());
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 1; i < PER_THREAD; i += 2) {
+            for (int t = 0; t < THREADS; t++) {
+                expected.add(i * THREADS + t);
+            }
+        }
+        Set<Integer> actual = new HashSet<>();
+        for (int i = 0; i < list.size(); i++) {
+            actual.add(list.get(i));
+        }
+        assertEquals(expected, actual);
+        for (Integer e : expected) {
+            assertTrue(list.contains(e));
+            assertEquals(e, list.get(list.indexOf(e)));
+        }
+    }
+
+    /**
+     * Positional operations lock a single partition and agree with a
+     * sequential list
+     */
+    public void testPositionalAccess() {
+        ConcurrentPartitionedList<Integer> list = new ConcurrentPartitionedList<>(10, PARTITIONS);
+        PartitionedList<Integer> model = new PartitionedList<>(10, PARTITIONS);
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+            model.add(i);
+        }
+        for (int i = 0; i < 300; i++) {
+            int index = (i * 7919) % list.size();
+            assertEquals(model.remove(index), list.remove(index));
+        }
+        assertEquals(model.size(), list.size());
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals(model.get(i), list.get(i));
+            assertEquals(model.set(i, model.get(i)), list.set(i, list.get(i)));
+        }
+        try {
+            list.get(list.size());
+            fail("Index out of bounds expected");
+        } catch (ArrayIndexOutOfBoundsException ex) {
+        }
+        list.clear();
+        assertEquals(0, list.size());
+        assertEquals(0, list.getPartitionSize(0));
+    }
+
+    /**
+     * A rebalance running with concurrent readers keeps every element
+     */
+    public void testConcurrentRebalance() throws InterruptedException, ExecutionException {
+        Partitioner skewed = (key, n) -> ((Integer) key) % 10 == 0 ? 0 : ((Integer) key) % n;
+        final ConcurrentPartitionedList<Integer> list = new ConcurrentPartitionedList<>(10, PARTITIONS, skewed, true);
+        List<Integer> all = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            all.add(i);
+        }
+        list.addAll(all);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> reader = executor.submit(() -> {
+                for (int i = 0; i < 20000; i += 7) {
+                    assertTrue(list.contains(i));
+                }
+            });
+            RebalanceReport report = list.rebalance(1.1);
+            reader.get();
+            assertTrue(report.getAfter().getImbalance() <= report.getBefore().getImbalance());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(all.size(), list.size());
+        assertEquals(new HashSet<>(all), new HashSet<>(list));
+    }
+}
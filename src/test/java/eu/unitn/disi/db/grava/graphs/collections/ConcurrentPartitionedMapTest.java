@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class ConcurrentPartitionedMapTest extends TestCase {
+
+    private static final int PARTITIONS = 16;
+    private static final int THREADS = 4;
+    private static final int KEYS = 1000;
+
+    private ExecutorService executor;
+
+    public ConcurrentPartitionedMapTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @Override
+    protected void tearDown() {
+        executor.shutdown();
+    }
+
+    private void runAll(Runnable task) throws InterruptedException, ExecutionException {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(task));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+    }
+
+    /**
+     * The atomic operations of the map must not lose updates, while other
+     * threads iterate the views
+     */
+    public void testAtomicMerge() throws InterruptedException, ExecutionException {
+        final ConcurrentPartitionedMap<Integer, Integer> map = new ConcurrentPartitionedMap<>(16, .75f, PARTITIONS);
+        runAll(() -> {
+            for (int i = 0; i < 20 * KEYS; i++) {
+                map.merge(i % KEYS, 1, Integer::sum);
+                if (i % KEYS == 0) {
+                    for (Map.Entry<Integer, Integer> e : map.entrySet()) {
+                        assertNotNull(e.getValue());
+                    }
+                }
+            }
+            map.computeIfAbsent(-1, k -> 0);
+            map.compute(-2, (k, v) -> v == null ? 1 : v + 1);
+        });
+        assertEquals(KEYS + 2, map.size());
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(THREADS * 20, (int) map.get(i));
+        }
+        assertEquals(0, (int) map.get(-1));
+        assertEquals(THREADS, (int) map.get(-2));
+        assertEquals(KEYS + 2, map.keySet().parallelStream().count());
+    }
+
+    /**
+     * putIfAbsent, replace and conditional remove follow the ConcurrentMap
+     * contract
+     */
+    public void testConditionalOperations() {
+        ConcurrentPartitionedMap<Integer, String> map = new ConcurrentPartitionedMap<>(16, .75f, PARTITIONS);
+        assertNull(map.putIfAbsent(1, "a"));
+        assertEquals("a", map.putIfAbsent(1, "b"));
+        assertFalse(map.replace(1, "b", "c"));
+        assertTrue(map.replace(1, "a", "c"));
+        assertFalse(map.remove(1, "a"));
+        assertTrue(map.remove(1, "c"));
+        assertTrue(map.isEmpty());
+        map.put(2, "x");
+        map.entrySet().iterator().next().setValue("y");
+        assertEquals("y", map.get(2));
+    }
+
+    /**
+     * Concurrent bulk additions to a set are atomic per call and the
+     * iterator can remove
+     */
+    public void testSet() throws InterruptedException, ExecutionException {
+        final ConcurrentPartitionedSet<Integer> set = new ConcurrentPartitionedSet<>(16, .75f, PARTITIONS);
+        final int[] next = {0};
+        runAll(() -> {
+            int thread;
+            synchronized (next) {
+                thread = next[0]++;
+            }
+            List<Integer> batch = new ArrayList<>();
+            for (int i = 0; i < KEYS; i++) {
+                batch.add(i * THREADS + thread);
+            }
+            set.addAll(batch);
+            set.addAll(batch);
+            for (Integer e : set) {
+                assertNotNull(e);
+            }
+        });
+        assertEquals(THREADS * KEYS, set.size());
+        Iterator<Integer> it = set.iterator();
+        while (it.hasNext()) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(THREADS * KEYS / 2, set.size());
+        assertFalse(set.contains(0));
+        assertTrue(set.contains(1));
+    }
+
+    /**
+     * Readers running get and containsKey during a rebalance never miss a
+     * key
+     */
+    public void testConcurrentRebalance() throws InterruptedException, ExecutionException {
+        Partitioner skewed = (key, n) -> ((Integer) key) % 10 == 0 ? ((Integer) key) % n : 0;
+        final ConcurrentPartitionedMap<Integer, Integer> map = new ConcurrentPartitionedMap<>(16, .75f, PARTITIONS, skewed);
+        for (int i = 0; i < 20 * KEYS; i++) {
+            map.put(i, -i);
+        }
+        final AtomicBoolean done = new AtomicBoolean();
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int offset = t;
+            readers.add(executor.submit(() -> {
+                do {
+                    for (int i = offset; i < 20 * KEYS; i += THREADS * 3) {
+                        assertTrue(map.containsKey(i));
+                        assertEquals(-i, (int) map.get(i));
+                    }
+                } while (!done.get());
+            }));
+        }
+        RebalanceReport report;
+        try {
+            report = map.rebalance(1.1);
+        } finally {
+            done.set(true);
+        }
+        for (Future<?> reader : readers) {
+            reader.get();
+        }
+        assertTrue(report.getMoved() > 0);
+        assertTrue(report.getAfter().getImbalance() < report.getBefore().getImbalance());
+        assertEquals(20 * KEYS, map.size());
+        for (int i = 0; i < 20 * KEYS; i++) {
+            assertEquals(-i, (int) map.get(i));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class PartitionSpliteratorTest extends TestCase {
+
+    private static final int PARTITIONS = 7;
+    private static final int ELEMENTS = 10000;
+
+    public PartitionSpliteratorTest(String testName) {
+        super(testName);
+    }
+
+    private static PartitionedList<Integer> list() {
+        PartitionedList<Integer> list = new PartitionedList<>(10, PARTITIONS);
+        for (int i = 0; i < ELEMENTS; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    /**
+     * A sequential traversal follows the order of the list
+     */
+    public void testOrder() {
+        PartitionedList<Integer> list = list();
+        List<Integer> expected = new ArrayList<>();
+        for (Integer e : list) {
+            expected.add(e);
+        }
+        List<Integer> actual = new ArrayList<>();
+        Spliterator<Integer> it = list.spliterator();
+        while (it.tryAdvance(actual::add)) {
+        }
+        assertEquals(expected, actual);
+        assertTrue(list.spliterator().hasCharacteristics(Spliterator.ORDERED));
+    }
+
+    /**
+     * The splits cover the list exactly once, in order, and their sizes are
+     * exact
+     */
+    public void testSplits() {
+        PartitionedList<Integer> list = list();
+        List<Integer> expected = list.stream().collect(Collectors.toList());
+        List<Integer> actual = new ArrayList<>();
+        split(list.spliterator(), actual, 0);
+        assertEquals(expected, actual);
+    }
+
+    private static void split(Spliterator<Integer> it, List<Integer> out, int depth) {
+        long size = it.estimateSize();
+        int before = out.size();
+        Spliterator<Integer> prefix = depth < 6 ? it.trySplit() : null;
+        if (prefix != null) {
+            split(prefix, out, depth + 1);
+            split(it, out, depth + 1);
+        } else {
+            it.forEachRemaining(out::add);
+        }
+        assertEquals(size, out.size() - before);
+    }
+
+    /**
+     * Parallel streams see every element of the partitioned collections
+     */
+    public void testParallelStreams() {
+        PartitionedList<Integer> list = list();
+        long expected = (long) ELEMENTS * (ELEMENTS - 1) / 2;
+        assertEquals(expected, list.parallelStream().mapToLong(Integer::longValue).sum());
+        assertEquals(list.stream().collect(Collectors.toList()), list.parallelStream().collect(Collectors.toList()));
+
+        PartitionedSet<Integer> set = new PartitionedSet<>(10, PARTITIONS);
+        for (int i = 0; i < ELEMENTS; i++) {
+            set.add(i % 1000);
+        }
+        assertEquals(1000, set.parallelStream().count());
+        assertEquals(1000 * 999 / 2, set.parallelStream().mapToInt(Integer::intValue).sum());
+    }
+
+    /**
+     * Empty partitions are skipped
+     */
+    public void testEmptyPartitions() {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Collection<Integer>[] partitions = new Collection[]{new ArrayList<>(), new ArrayList<>(), new ArrayList<>()};
+        partitions[1].add(1);
+        partitions[1].add(2);
+        Spliterator<Integer> it = new PartitionSpliterator<>(partitions, 0, 3, Spliterator.ORDERED);
+        assertEquals(2, it.estimateSize());
+        assertEquals(3, StreamSupport.stream(it, true).mapToInt(Integer::intValue).sum());
+        it = new PartitionSpliterator<>(partitions, 2, 3, Spliterator.ORDERED);
+        assertNull(it.trySplit());
+        assertFalse(it.tryAdvance(e -> fail("The partition is empty")));
+    }
+}
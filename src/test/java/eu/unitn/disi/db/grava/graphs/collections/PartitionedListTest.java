@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class PartitionedListTest extends TestCase {
+
+    private static final int PARTITIONS = 7;
+    private static final int OPERATIONS = 20000;
+
+    public PartitionedListTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Positional access must follow the concatenation of the partitions
+     */
+    public void testPositionalAccess() {
+        checkAgainstModel(false);
+    }
+
+    public void testIndexedPositionalAccess() {
+        checkAgainstModel(true);
+    }
+
+    public void testIteratorRemove() {
+        PartitionedList<Integer> list = new PartitionedList<>(10, PARTITIONS, new HashPartitioner(), true);
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        Iterator<Integer> it = list.iterator();
+        while (it.hasNext()) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(500, list.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 1, list.contains(i));
+        }
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(i, list.indexOf(list.get(i)));
+        }
+    }
+
+    /**
+     * After a rebalance every element must still be found, with all its copies
+     */
+    public void testRebalance() {
+        //Most of the elements in the first partition
+        Partitioner skewed = (key, n) -> (Integer) key % 10 < 7 ? 0 : (Integer) key % n;
+        PartitionedList<Integer> list = new PartitionedList<>(10, PARTITIONS, skewed, true);
+        for (int i = 0; i < 5000; i++) {
+            list.add(i);
+            if (i % 5 == 0) {
+                list.add(i);
+            }
+        }
+        RebalanceReport report = list.rebalance(1.5);
+        assertTrue(report.isRebalanced());
+        assertTrue(report.getAfter().getImbalance() <= 1.5);
+        assertEquals(report.getBefore().getTotal(), report.getAfter().getTotal());
+        assertFalse(list.rebalance(1.5).isRebalanced());
+        int[] copies = new int[5000];
+        for (Integer value : list) {
+            copies[value]++;
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(list.contains(i));
+            assertEquals(i % 5 == 0 ? 2 : 1, copies[i]);
+        }
+    }
+
+    private void checkAgainstModel(boolean indexed) {
+        Random random = new Random(42);
+        Partitioner partitioner = new HashPartitioner();
+        PartitionedList<Integer> list = new PartitionedList<>(10, PARTITIONS, partitioner, indexed);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        List<Integer>[] model = new List[PARTITIONS];
+        for (int i = 0; i < PARTITIONS; i++) {
+            model[i] = new ArrayList<>();
+        }
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            Integer value = random.nextInt(200);
+            switch (random.nextInt(5)) {
+                case 0:
+                case 1:
+                    list.add(value);
+                    model[partitioner.partition(value, PARTITIONS)].add(value);
+                    break;
+                case 2:
+                    assertEquals(model[partitioner.partition(value, PARTITIONS)].remove(value), list.remove(value));
+                    break;
+                case 3:
+                    if (list.size() > 0) {
+                        int index = random.nextInt(list.size());
+                        int p = 0, local = index;
+                        while (local >= model[p].size()) {
+                            local -= model[p++].size();
+                        }
+                        assertEquals(model[p].remove(local), list.remove(index));
+                    }
+                    break;
+                default:
+                    List<Integer> flat = flatten(model);
+                    assertEquals(flat.indexOf(value), list.indexOf(value));
+                    assertEquals(flat.lastIndexOf(value), list.lastIndexOf(value));
+                    assertEquals(flat.contains(value), list.contains(value));
+            }
+        }
+        List<Integer> flat = flatten(model);
+        assertEquals(flat.size(), list.size());
+        for (int i = 0; i < flat.size(); i++) {
+            assertEquals(flat.get(i), list.get(i));
+        }
+        try {
+            list.get(flat.size());
+            fail("Index out of bounds expected");
+        } catch (ArrayIndexOutOfBoundsException ex) {
+        }
+    }
+
+    private static List<Integer> flatten(List<Integer>[] partitions) {
+        List<Integer> flat = new ArrayList<>();
+        for (List<Integer> p : partitions) {
+            flat.addAll(p);
+        }
+        return flat;
+    }
+}
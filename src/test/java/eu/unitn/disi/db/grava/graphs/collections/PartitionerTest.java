@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import eu.unitn.disi.db.grava.graphs.Edge;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class PartitionerTest extends TestCase {
+
+    //The hash of this long is Integer.MIN_VALUE
+    private static final long MIN_HASH = 0x80000000L;
+
+    public PartitionerTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Every partitioner returns a partition in range, also for keys hashing
+     * to Integer.MIN_VALUE and for extreme values
+     */
+    public void testIndexInRange() {
+        assertEquals(Integer.MIN_VALUE, Long.valueOf(MIN_HASH).hashCode());
+        Object minHash = new Object() {
+            @Override
+            public int hashCode() {
+                return Integer.MIN_VALUE;
+            }
+        };
+        Object[] keys = {MIN_HASH, Long.MIN_VALUE, Long.MAX_VALUE, -1L, 0L, -MIN_HASH, Integer.MIN_VALUE,
+            Integer.MAX_VALUE, minHash, "key", new Edge(-1L, Long.MIN_VALUE, Long.MAX_VALUE)};
+        LongIntHashMap assignment = new LongIntHashMap(4);
+        assignment.put(-1L, 2);
+        assignment.put(Long.MAX_VALUE, 0);
+        for (int n : new int[]{1, 2, 3, 7, 64}) {
+            Partitioner[] partitioners = {
+                new HashPartitioner(),
+                new RangePartitioner(new long[]{Long.MIN_VALUE, -5, 0, 0, 100, Long.MAX_VALUE}),
+                RangePartitioner.fromSample(new long[]{-10, 5, 3, Long.MAX_VALUE, 0}, n),
+                new DegreeBalancedPartitioner(new long[]{-1L, MIN_HASH, Long.MIN_VALUE}, new int[]{3, 0, 9}, n),
+                new AssignmentPartitioner(assignment, 3),
+                new RebalancedPartitioner(new HashPartitioner(), n)
+            };
+            for (Partitioner partitioner : partitioners) {
+                for (Object key : keys) {
+                    int p = partitioner.partition(key, n);
+                    assertTrue(partitioner + " puts " + key + " in " + p + " of " + n, p >= 0 && p < n);
+                }
+                Random rnd = new Random(30);
+                for (int i = 0; i < 1000; i++) {
+                    int p = partitioner.partition(rnd.nextLong(), n);
+                    assertTrue(p >= 0 && p < n);
+                }
+            }
+        }
+    }
+
+    /**
+     * A key equal to a bound goes to the range on its right, repeated bounds
+     * leave empty ranges and the keys beyond the last partition go to it
+     */
+    public void testRangeBounds() {
+        RangePartitioner partitioner = new RangePartitioner(new long[]{-5, 0, 0, 100});
+        assertEquals(0, partitioner.partition(Long.MIN_VALUE, 5));
+        assertEquals(0, partitioner.partition(-6L, 5));
+        assertEquals(1, partitioner.partition(-5L, 5));
+        assertEquals(1, partitioner.partition(-1L, 5));
+        assertEquals(3, partitioner.partition(0L, 5));
+        assertEquals(3, partitioner.partition(99L, 5));
+        assertEquals(4, partitioner.partition(100L, 5));
+        assertEquals(4, partitioner.partition(Long.MAX_VALUE, 5));
+        assertEquals(1, partitioner.partition(-3, 5));
+        assertEquals(2, partitioner.partition(100L, 3));
+        assertEquals(new HashPartitioner().partition("key", 5), partitioner.partition("key", 5));
+        try {
+            new RangePartitioner(new long[]{1, 0});
+            fail("Unsorted bounds must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+
+        long[] sample = new long[1000];
+        for (int i = 0; i < sample.length; i++) {
+            sample[i] = 999 - i;
+        }
+        RangePartitioner equiDepth = RangePartitioner.fromSample(sample, 4);
+        int[] sizes = new int[4];
+        for (long key = 0; key < 1000; key++) {
+            sizes[equiDepth.partition(key, 4)]++;
+        }
+        assertEquals(1.0, new PartitionBalance(sizes).getImbalance(), 1e-9);
+    }
+
+    /**
+     * The summed weights of any two partitions differ by at most the
+     * largest weight, on skewed degrees
+     */
+    public void testDegreeBalanced() {
+        Random rnd = new Random(300);
+        for (int n : new int[]{1, 3, 8, 32}) {
+            int numKeys = 2000;
+            long[] keys = new long[numKeys];
+            int[] weights = new int[numKeys];
+            int largest = 1;
+            for (int i = 0; i < numKeys; i++) {
+                keys[i] = rnd.nextLong();
+                //Power law degrees, with some zeros
+                weights[i] = (int) Math.min(100000, Math.floor(1 / Math.pow(1 - rnd.nextDouble(), 1.2))) - 1;
+                largest = Math.max(largest, weights[i]);
+            }
+            DegreeBalancedPartitioner partitioner = new DegreeBalancedPartitioner(keys, weights, n);
+            long[] loads = new long[n];
+            for (int i = 0; i < numKeys; i++) {
+                loads[partitioner.partition(keys[i], n)] += Math.max(1, weights[i]);
+            }
+            long min = Long.MAX_VALUE, max = 0;
+            for (int p = 0; p < n; p++) {
+                assertEquals(loads[p], partitioner.getLoads()[p]);
+                min = Math.min(min, loads[p]);
+                max = Math.max(max, loads[p]);
+            }
+            assertTrue(max - min <= largest);
+            //Another number of partitions ignores the assignment
+            assertEquals(new HashPartitioner().partition(keys[0], n + 1), partitioner.partition(keys[0], n + 1));
+        }
+    }
+
+    /**
+     * The balance metrics of a known skewed layout
+     */
+    public void testBalance() {
+        PartitionBalance balance = new PartitionBalance(new int[]{10, 2, 0, 4});
+        assertEquals(16, balance.getTotal());
+        assertEquals(0, balance.getMin());
+        assertEquals(10, balance.getMax());
+        assertEquals(4.0, balance.getMean(), 1e-12);
+        assertEquals(Math.sqrt((36 + 4 + 16 + 0) / 4.0), balance.getStdDev(), 1e-12);
+        assertEquals(2.5, balance.getImbalance(), 1e-12);
+        assertEquals(0, balance.getLargestPartition());
+        PartitionBalance even = new PartitionBalance(new int[]{3, 3, 3});
+        assertEquals(1.0, even.getImbalance(), 1e-12);
+        assertEquals(0.0, even.getStdDev(), 1e-12);
+        PartitionBalance empty = new PartitionBalance(new int[]{0, 0});
+        assertEquals(1.0, empty.getImbalance(), 1e-12);
+        PartitionBalance single = new PartitionBalance(new int[]{0, 0, 0, 8});
+        assertEquals(4.0, single.getImbalance(), 1e-12);
+        assertEquals(3, single.getLargestPartition());
+
+        PartitionedMap<Integer, Integer> map = new PartitionedMap<>(16, 0.75f, 4, (key, n) -> (Integer) key < 30 ? 0 : (Integer) key % n);
+        for (int i = 0; i < 40; i++) {
+            map.put(i, i);
+        }
+        PartitionBalance skewed = map.getBalance();
+        assertEquals(40, skewed.getTotal());
+        assertEquals(0, skewed.getLargestPartition());
+        assertEquals(32, skewed.getMax());
+        assertEquals(32 / 10.0, skewed.getImbalance(), 1e-12);
+    }
+}
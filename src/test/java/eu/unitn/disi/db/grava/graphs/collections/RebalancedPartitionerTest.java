@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.util.Iterator;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class RebalancedPartitionerTest extends TestCase {
+
+    private static final int PARTITIONS = 8;
+    //Most of the keys in the first partition
+    private static final Partitioner SKEWED = (key, n) -> (Integer) key % 10 < 7 ? 0 : (Integer) key % n;
+
+    public RebalancedPartitionerTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Overrides hold only for the rebalanced number of partitions, and are
+     * dropped when a key goes back to its original partition
+     */
+    public void testOverrides() {
+        RebalancedPartitioner partitioner = new RebalancedPartitioner(new HashPartitioner(), PARTITIONS);
+        HashPartitioner base = new HashPartitioner();
+        Integer key = 42;
+        int original = base.partition(key, PARTITIONS);
+        int moved = (original + 1) % PARTITIONS;
+        partitioner.assign(key, moved);
+        assertEquals(moved, partitioner.partition(key, PARTITIONS));
+        assertEquals(base.partition(key, PARTITIONS * 2), partitioner.partition(key, PARTITIONS * 2));
+        assertEquals(1, partitioner.getNumOverrides());
+
+        RebalancedPartitioner copy = partitioner.copy();
+        partitioner.assign(key, original);
+        assertEquals(0, partitioner.getNumOverrides());
+        assertEquals(moved, copy.partition(key, PARTITIONS));
+
+        assertEquals(1, copy.retain(k -> false));
+        assertFalse(copy.needsCompaction(0));
+    }
+
+    /**
+     * The overrides of the elements removed from a list are dropped by the
+     * next rebalance, while the remaining elements are still found
+     */
+    public void testListCompaction() {
+        PartitionedList<Integer> list = new PartitionedList<>(10, PARTITIONS, SKEWED, false);
+        for (int i = 0; i < 5000; i++) {
+            list.add(i);
+        }
+        assertTrue(list.rebalance(1.5).isRebalanced());
+        RebalancedPartitioner partitioner = (RebalancedPartitioner) list.getPartitioner();
+        int overrides = partitioner.getNumOverrides();
+        assertTrue(overrides > 0);
+        for (int i = 0; i < 4900; i++) {
+            assertTrue(list.remove((Integer) i));
+        }
+        //Removals cannot release the overrides
+        assertEquals(overrides, partitioner.getNumOverrides());
+        list.rebalance(1.5);
+        assertTrue(partitioner.getNumOverrides() <= list.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i >= 4900, list.contains(i));
+        }
+    }
+
+    /**
+     * The overrides of the keys removed through the views of a map are 
+     * dropped by the next rebalance
+     */
+    public void testMapCompaction() {
+        checkMapCompaction(new PartitionedMap<>(10, 0.75f, PARTITIONS, SKEWED));
+        checkMapCompaction(new ConcurrentPartitionedMap<>(10, 0.75f, PARTITIONS, SKEWED));
+    }
+
+    private void checkMapCompaction(PartitionedMap<Integer, Integer> map) {
+        for (int i = 0; i < 5000; i++) {
+            map.put(i, -i);
+        }
+        assertTrue(map.rebalance(1.5).isRebalanced());
+        RebalancedPartitioner partitioner = (RebalancedPartitioner) map.getPartitioner();
+        assertTrue(partitioner.getNumOverrides() > 0);
+        Iterator<Integer> keys = map.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next() < 4900) {
+                keys.remove();
+            }
+        }
+        map.rebalance(1.5);
+        assertTrue(partitioner.getNumOverrides() <= map.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i >= 4900 ? (Integer) (-i) : null, map.get(i));
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.graphs.collections;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class SpillingPartitionedCollectionsTest extends TestCase {
+
+    private static final int PARTITIONS = 16;
+    //A budget of a few partitions, so that most of them are spilled
+    private static final long BUDGET = 4096;
+    private static final long BYTES_PER_ELEMENT = 16;
+
+    private static final PartitionCodec<Map.Entry<Long, Long>> ENTRY_CODEC = new PartitionCodec<Map.Entry<Long, Long>>() {
+        @Override
+        public void write(DataOutput out, Map.Entry<Long, Long> element) throws IOException {
+            out.writeLong(element.getKey());
+            out.writeLong(element.getValue());
+        }
+
+        @Override
+        public Map.Entry<Long, Long> read(DataInput in) throws IOException {
+            return new AbstractMap.SimpleEntry<>(in.readLong(), in.readLong());
+        }
+    };
+
+    private PartitionSpiller spiller;
+
+    public SpillingPartitionedCollectionsTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws IOException {
+        spiller = new PartitionSpiller(BUDGET);
+    }
+
+    @Override
+    protected void tearDown() {
+        spiller.close();
+    }
+
+    /**
+     * A spilling list must behave as an in-memory one
+     */
+    public void testList() {
+        SpillingPartitionedList<Long> list = new SpillingPartitionedList<>(PARTITIONS, new HashPartitioner(), true, spiller, PartitionCodec.LONG, BYTES_PER_ELEMENT);
+        PartitionedList<Long> model = new PartitionedList<>(10, PARTITIONS);
+        Random rnd = new Random(34);
+        for (int i = 0; i < 20000; i++) {
+            Long value = (long) rnd.nextInt(5000);
+            if (rnd.nextInt(3) > 0) {
+                list.add(value);
+                model.add(value);
+            } else {
+                assertEquals(model.remove(value), list.remove(value));
+            }
+        }
+        assertEquals(model.size(), list.size());
+        for (int i = 0; i < model.size(); i += 7) {
+            assertEquals(model.get(i), list.get(i));
+        }
+        List<Long> expected = new ArrayList<>(model);
+        List<Long> actual = new ArrayList<>(list);
+        assertEquals(expected, actual);
+        assertEquals(model.stream().mapToLong(Long::longValue).sum(), list.parallelStream().mapToLong(Long::longValue).sum());
+
+        SpillStatistics statistics = spiller.getStatistics();
+        assertTrue(statistics.getEvictions() > 0);
+        assertTrue(statistics.getBytesRead() > 0);
+        assertTrue(statistics.getResidentPartitions() <= PARTITIONS);
+
+        list.clear();
+        assertEquals(0, list.size());
+        assertFalse(list.iterator().hasNext());
+    }
+
+    /**
+     * A spilling map must behave as an in-memory one, the views write
+     * through
+     */
+    public void testMap() {
+        SpillingPartitionedMap<Long, Long> map = new SpillingPartitionedMap<>(PARTITIONS, new HashPartitioner(), spiller, ENTRY_CODEC, BYTES_PER_ELEMENT);
+        Map<Long, Long> model = new HashMap<>();
+        Random rnd = new Random(35);
+        for (int i = 0; i < 20000; i++) {
+            Long key = (long) rnd.nextInt(3000);
+            switch (rnd.nextInt(3)) {
+                case 0:
+                    assertEquals(model.put(key, (long) i), map.put(key, (long) i));
+                    break;
+                case 1:
+                    assertEquals(model.remove(key), map.remove(key));
+                    break;
+                default:
+                    assertEquals(model.merge(key, 1L, Long::sum), map.merge(key, 1L, Long::sum));
+            }
+        }
+        assertEquals(model.size(), map.size());
+        assertEquals(model, new HashMap<>(map));
+        assertEquals(model.keySet(), new HashSet<>(map.keySet()));
+
+        for (Map.Entry<Long, Long> e : map.entrySet()) {
+            e.setValue(-e.getKey());
+        }
+        Iterator<Long> keys = map.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next() % 2 == 0) {
+                keys.remove();
+            }
+        }
+        for (Long key : model.keySet()) {
+            assertEquals(key % 2 == 0 ? null : (Long) (-key), map.get(key));
+        }
+        assertTrue(spiller.getStatistics().getEvictions() > 0);
+    }
+
+    /**
+     * Closing the spiller removes the spill files and its directory
+     */
+    public void testClose() {
+        SpillingPartitionedList<Long> list = new SpillingPartitionedList<>(PARTITIONS, new HashPartitioner(), false, spiller, PartitionCodec.LONG, BYTES_PER_ELEMENT);
+        for (long i = 0; i < 10000; i++) {
+            list.add(i);
+        }
+        File directory = spiller.getDirectory();
+        assertTrue(directory.list().length > 0);
+        spiller.close();
+        assertFalse(directory.exists());
+        try {
+            list.get(0);
+            fail("A closed spiller cannot load partitions");
+        } catch (IllegalStateException ex) {
+        }
+    }
+}
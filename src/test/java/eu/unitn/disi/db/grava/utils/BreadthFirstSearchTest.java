@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import eu.unitn.disi.db.grava.graphs.Edge;
+import eu.unitn.disi.db.grava.graphs.EdgeDirection;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class BreadthFirstSearchTest extends TestCase {
+
+    public BreadthFirstSearchTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * The hops match a plain queue based search in every direction, both on
+     * a sparse graph, searched top-down, and on a dense one, where the large
+     * levels are searched bottom-up
+     */
+    public void testAgainstQueue() {
+        Random rnd = new Random(42);
+        boolean bottomUp = false;
+        for (int edges : new int[]{600, 4000, 40000}) {
+            BaseMultigraph graph = GraphAlgorithmsTest.randomGraph(rnd, 3000, edges);
+            CompactGraph compact = CompactGraph.of(graph);
+            for (EdgeDirection direction : EdgeDirection.values()) {
+                BreadthFirstSearch bfs = new BreadthFirstSearch(compact, direction);
+                for (int i = 0; i < 5; i++) {
+                    long source = rnd.nextInt(3000);
+                    Map<Long, Integer> expected = hops(graph, source, direction);
+                    int[] distances = bfs.distances(source);
+                    assertEquals(compact.numberOfNodes(), distances.length);
+                    for (int id = 0; id < distances.length; id++) {
+                        Integer hops = expected.get(compact.nodeOf(id));
+                        assertEquals(hops == null ? -1 : hops, distances[id]);
+                    }
+                    bottomUp |= bfs.getBottomUpLevels() > 0;
+                    for (int j = 0; j < 20; j++) {
+                        long target = rnd.nextInt(3000);
+                        Integer hops = expected.get(target);
+                        assertEquals(hops == null ? -1 : hops, bfs.hops(source, target));
+                        assertEquals(hops != null, bfs.isReachable(source, target));
+                    }
+                }
+            }
+        }
+        assertTrue(bottomUp);
+    }
+
+    /**
+     * Nodes not in the graph reach nothing and cannot be reached
+     */
+    public void testMissingNodes() {
+        BaseMultigraph graph = GraphAlgorithmsTest.randomGraph(new Random(420), 50, 200);
+        BreadthFirstSearch bfs = new BreadthFirstSearch(CompactGraph.of(graph), EdgeDirection.BOTH);
+        for (int d : bfs.distances(-1L)) {
+            assertEquals(-1, d);
+        }
+        assertEquals(-1, bfs.hops(-1L, 3L));
+        assertEquals(-1, bfs.hops(3L, -1L));
+        assertEquals(0, bfs.hops(3L, 3L));
+        assertFalse(bfs.isReachable(3L, 100L));
+        try {
+            new BreadthFirstSearch(null);
+            fail("A null graph must be rejected");
+        } catch (NullPointerException ex) {
+        }
+    }
+
+    private static Map<Long, Integer> hops(Multigraph graph, long source, EdgeDirection direction) {
+        Map<Long, Integer> hops = new HashMap<>();
+        ArrayDeque<Long> queue = new ArrayDeque<>();
+        hops.put(source, 0);
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            long node = queue.poll();
+            if (direction != EdgeDirection.INCOMING) {
+                for (Edge e : graph.outgoingEdgesOf(node)) {
+                    if (!hops.containsKey(e.getDestination())) {
+                        hops.put(e.getDestination(), hops.get(node) + 1);
+                        queue.add(e.getDestination());
+                    }
+                }
+            }
+            if (direction != EdgeDirection.OUTGOING) {
+                for (Edge e : graph.incomingEdgesOf(node)) {
+                    if (!hops.containsKey(e.getSource())) {
+                        hops.put(e.getSource(), hops.get(node) + 1);
+                        queue.add(e.getSource());
+                    }
+                }
+            }
+        }
+        return hops;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class ConnectedComponentsTest extends TestCase {
+
+    public ConnectedComponentsTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * The components match a sequential union-find, numbered in order of 
+     * their smallest node id, on graphs from a few nodes to many ranges of 
+     * nodes processed in parallel
+     */
+    public void testAgainstUnionFind() {
+        Random rnd = new Random(45);
+        for (int t = 0; t < 60; t++) {
+            int n = 1 + rnd.nextInt(t < 50 ? 100 : 20000);
+            int m = rnd.nextInt(n + 1);
+            long[] nodes = new long[n];
+            for (int i = 0; i < n; i++) {
+                nodes[i] = i * 3 - 7;
+            }
+            long[] src = new long[m], dest = new long[m], labels = new long[m];
+            for (int i = 0; i < m; i++) {
+                src[i] = nodes[rnd.nextInt(n)];
+                dest[i] = nodes[rnd.nextInt(n)];
+            }
+            CompactGraph graph = CompactGraph.of(nodes, src, dest, labels);
+            ConnectedComponents cc = ConnectedComponents.of(graph);
+            int[] expected = unionFind(graph, src, dest);
+            assertTrue(Arrays.equals(expected, cc.getComponents()));
+            checkSizes(cc.getComponents(), cc.getSizes(), cc.getNumComponents());
+            int largest = cc.getLargest(), singletons = 0;
+            for (int c = 0; c < cc.getNumComponents(); c++) {
+                assertTrue(cc.getSizes()[c] <= cc.getSizes()[largest]);
+                singletons += cc.getSizes()[c] == 1 ? 1 : 0;
+                long[] members = cc.nodesOf(c);
+                for (int i = 0; i < members.length; i++) {
+                    assertEquals(c, cc.componentOf(members[i]));
+                    assertTrue(i == 0 || members[i - 1] < members[i]);
+                }
+            }
+            assertEquals(singletons, cc.getNumSingletons());
+        }
+    }
+
+    /**
+     * A multigraph is converted first, nodes not in the graph have no 
+     * component and the empty graph has none
+     */
+    public void testMultigraph() {
+        BaseMultigraph graph = new BaseMultigraph();
+        for (long v = 1; v <= 6; v++) {
+            graph.addVertex(v);
+        }
+        graph.addEdge(5L, 1L, 0L);
+        graph.addEdge(2L, 4L, 0L);
+        graph.addEdge(4L, 6L, 1L);
+        ConnectedComponents cc = ConnectedComponents.of(graph);
+        assertEquals(3, cc.getNumComponents());
+        assertTrue(Arrays.equals(new long[]{1, 5}, cc.nodesOf(cc.componentOf(5L))));
+        assertTrue(Arrays.equals(new long[]{2, 4, 6}, cc.nodesOf(1)));
+        assertEquals(2, cc.componentOf(3L));
+        assertEquals(-1, cc.componentOf(7L));
+        assertEquals(1, cc.getLargest());
+        assertEquals(1, cc.getNumSingletons());
+        ConnectedComponents empty = ConnectedComponents.of(new BaseMultigraph());
+        assertEquals(0, empty.getNumComponents());
+        assertEquals(-1, empty.getLargest());
+    }
+
+    /*
+     * The sizes count the nodes of each component
+     */
+    static void checkSizes(int[] components, int[] sizes, int numComponents) {
+        assertEquals(numComponents, sizes.length);
+        int[] counts = new int[numComponents];
+        for (int c : components) {
+            counts[c]++;
+        }
+        assertTrue(Arrays.equals(counts, sizes));
+    }
+
+    /*
+     * Numbers the classes of the roots in order of their smallest id
+     */
+    static int[] renumber(int[] roots) {
+        Map<Integer, Integer> numbers = new HashMap<>();
+        int[] components = new int[roots.length];
+        for (int v = 0; v < roots.length; v++) {
+            Integer c = numbers.get(roots[v]);
+            if (c == null) {
+                c = numbers.size();
+                numbers.put(roots[v], c);
+            }
+            components[v] = c;
+        }
+        return components;
+    }
+
+    private static int[] unionFind(CompactGraph graph, long[] src, long[] dest) {
+        int[] parent = new int[graph.numberOfNodes()];
+        for (int v = 0; v < parent.length; v++) {
+            parent[v] = v;
+        }
+        for (int i = 0; i < src.length; i++) {
+            int u = find(parent, graph.idOf(src[i])), v = find(parent, graph.idOf(dest[i]));
+            parent[u] = v;
+        }
+        int[] roots = new int[parent.length];
+        for (int v = 0; v < parent.length; v++) {
+            roots[v] = find(parent, v);
+        }
+        return renumber(roots);
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            v = parent[v];
+        }
+        return v;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.Edge;
+import eu.unitn.disi.db.grava.graphs.EdgeDirection;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class DijkstraTest extends TestCase {
+
+    private static final double EPSILON = 1e-9;
+    static final Map<Long, Double> WEIGHTS = new HashMap<>();
+
+    static {
+        //Label 3 has no weight and costs 0
+        WEIGHTS.put(0L, 1.0);
+        WEIGHTS.put(1L, 2.5);
+        WEIGHTS.put(2L, 0.25);
+    }
+
+    public DijkstraTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * The distances and paths must be the ones of Bellman-Ford, in every
+     * direction
+     */
+    public void testAgainstBellmanFord() {
+        for (int seed = 0; seed < 4; seed++) {
+            BaseMultigraph graph = GraphAlgorithmsTest.randomGraph(new Random(seed), 300, 300 + 300 * seed);
+            for (EdgeDirection direction : EdgeDirection.values()) {
+                long source = seed * 7;
+                Map<Long, Double> expected = bellmanFord(graph, source, direction);
+                Dijkstra dijkstra = new Dijkstra(graph, source, direction, WEIGHTS);
+                double last = 0;
+                while (!dijkstra.isExhausted()) {
+                    long node = dijkstra.next();
+                    assertTrue(dijkstra.distanceOf(node) >= last - EPSILON);
+                    last = dijkstra.distanceOf(node);
+                }
+                assertEquals(expected.size(), dijkstra.getNumSettled());
+                for (Long v : graph.vertexSet()) {
+                    Double distance = expected.get(v);
+                    if (distance == null) {
+                        assertFalse(dijkstra.isSettled(v));
+                        assertEquals(Double.POSITIVE_INFINITY, dijkstra.distanceOf(v));
+                        assertNull(dijkstra.pathTo(v));
+                    } else {
+                        assertTrue(dijkstra.isSettled(v));
+                        assertEquals(distance, dijkstra.distanceOf(v), EPSILON);
+                        checkPath(graph, dijkstra.pathTo(v), v, source, direction, distance);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * With the exact distance to the target as potential, A* settles the
+     * target at the same distance, and settles fewer nodes
+     */
+    public void testPotential() {
+        BaseMultigraph graph = GraphAlgorithmsTest.randomGraph(new Random(40), 500, 1500);
+        long source = 3, target = 11;
+        Map<Long, Double> toTarget = bellmanFord(graph, target, EdgeDirection.INCOMING);
+        Dijkstra plain = new Dijkstra(graph, source, EdgeDirection.OUTGOING, WEIGHTS);
+        Dijkstra guided = new Dijkstra(graph, source, EdgeDirection.OUTGOING, WEIGHTS,
+                node -> toTarget.getOrDefault(node, Double.POSITIVE_INFINITY));
+        double distance = plain.settle(target);
+        assertEquals(distance, guided.settle(target), EPSILON);
+        assertTrue(guided.getNumSettled() <= plain.getNumSettled());
+        assertEquals(Double.POSITIVE_INFINITY, plain.settle(-1L));
+    }
+
+    public void testMissingSource() {
+        Dijkstra dijkstra = new Dijkstra(new BaseMultigraph(), 1L, EdgeDirection.BOTH, WEIGHTS);
+        assertTrue(dijkstra.isExhausted());
+        assertEquals(Double.POSITIVE_INFINITY, dijkstra.settle(1L));
+    }
+
+    /*
+     * The path walks from the node to the source along the direction of the
+     * expansion, and weighs the distance of the node
+     */
+    private static void checkPath(Multigraph graph, List<Edge> path, long node, long source, EdgeDirection direction, double distance) {
+        double weight = 0;
+        long current = node;
+        if (direction == EdgeDirection.OUTGOING) {
+            Collections.reverse(path);
+            current = source;
+        }
+        for (Edge e : path) {
+            assertTrue(graph.containsEdge(e.getSource(), e.getDestination()));
+            weight += weightOf(e);
+            if (direction != EdgeDirection.BOTH) {
+                assertEquals(current, (long) e.getSource());
+                current = e.getDestination();
+            } else {
+                assertTrue(current == e.getSource() || current == e.getDestination());
+                current = current == e.getSource() ? e.getDestination() : e.getSource();
+            }
+        }
+        assertEquals(direction == EdgeDirection.OUTGOING ? node : source, current);
+        assertEquals(distance, weight, EPSILON);
+    }
+
+    private static double weightOf(Edge e) {
+        return WEIGHTS.getOrDefault(e.getLabel(), 0.0);
+    }
+
+    /*
+     * The distances of the nodes reachable from the source, following the 
+     * edges in the direction
+     */
+    static Map<Long, Double> bellmanFord(Multigraph graph, long source, EdgeDirection direction) {
+        Map<Long, Double> distances = new HashMap<>();
+        distances.put(source, 0.0);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Edge e : graph.edgeSet()) {
+                if (direction != EdgeDirection.INCOMING) {
+                    changed |= relax(distances, e.getSource(), e.getDestination(), weightOf(e));
+                }
+                if (direction != EdgeDirection.OUTGOING) {
+                    changed |= relax(distances, e.getDestination(), e.getSource(), weightOf(e));
+                }
+            }
+        }
+        return distances;
+    }
+
+    private static boolean relax(Map<Long, Double> distances, long from, long to, double weight) {
+        Double d = distances.get(from);
+        if (d != null && d + weight < distances.getOrDefault(to, Double.POSITIVE_INFINITY) - EPSILON) {
+            distances.put(to, d + weight);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.Edge;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class GraphAlgorithmsTest extends TestCase {
+
+    private static final Map<Long, Double> WEIGHTS = new HashMap<>();
+
+    static {
+        WEIGHTS.put(0L, 1.0);
+        WEIGHTS.put(1L, 2.0);
+        WEIGHTS.put(2L, 0.5);
+    }
+
+    public GraphAlgorithmsTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Every pair of sources reached by a common node gets one path, that
+     * walks the graph from the first to the second source, and the paths 
+     * do not depend on the number of threads
+     */
+    public void testMultiSourcePaths() {
+        for (int seed = 0; seed < 5; seed++) {
+            Random rnd = new Random(seed);
+            //Sparse, so that some sources are not connected
+            BaseMultigraph graph = randomGraph(rnd, 400, 300 + 100 * seed);
+            graph.addVertex(-1L);
+            List<Long> sources = new ArrayList<>();
+            while (sources.size() < 10) {
+                Long source = (long) rnd.nextInt(400);
+                if (!sources.contains(source)) {
+                    sources.add(source);
+                }
+            }
+            sources.add(-1L);
+            sources.add(-2L);
+
+            ForkJoinPool single = new ForkJoinPool(1), parallel = new ForkJoinPool(4);
+            List<List<Edge>> paths;
+            try {
+                paths = GraphAlgorithms.shortestPath(graph, sources, WEIGHTS, single);
+                assertEquals(paths, GraphAlgorithms.shortestPath(graph, sources, WEIGHTS, parallel));
+            } finally {
+                single.shutdown();
+                parallel.shutdown();
+            }
+
+            Set<Set<Long>> expected = new HashSet<>();
+            List<Set<Long>> ancestors = new ArrayList<>();
+            for (Long source : sources) {
+                ancestors.add(ancestors(graph, source));
+            }
+            for (int i = 0; i < sources.size(); i++) {
+                for (int j = i + 1; j < sources.size(); j++) {
+                    Set<Long> common = new HashSet<>(ancestors.get(i));
+                    common.retainAll(ancestors.get(j));
+                    if (!common.isEmpty()) {
+                        expected.add(pair(sources.get(i), sources.get(j)));
+                    }
+                }
+            }
+            Set<Set<Long>> connected = new HashSet<>();
+            for (List<Edge> path : paths) {
+                for (Edge e : path) {
+                    assertTrue(graph.containsEdge(e.getSource(), e.getDestination()));
+                }
+                Set<Long> ends = endpoints(path, sources);
+                assertNotNull("Path " + path + " does not join two sources", ends);
+                assertTrue(connected.add(ends));
+            }
+            assertEquals(expected, connected);
+        }
+    }
+
+    /**
+     * The Steiner tree is a forest of distinct edges of the graph, whose 
+     * leaves are terminals, taken from the paths between the terminals and 
+     * connecting the same terminals as those paths
+     */
+    public void testSteinerTree() {
+        for (int seed = 0; seed < 30; seed++) {
+            Random rnd = new Random(seed);
+            int nodes = 50 + rnd.nextInt(400);
+            BaseMultigraph graph = randomGraph(rnd, nodes, nodes * (1 + rnd.nextInt(3)) / 2);
+            List<Long> terminals = new ArrayList<>();
+            for (int i = rnd.nextInt(10); i >= 0; i--) {
+                terminals.add((long) rnd.nextInt(nodes));
+            }
+
+            ForkJoinPool single = new ForkJoinPool(1), parallel = new ForkJoinPool(4);
+            List<Edge> tree;
+            try {
+                tree = GraphAlgorithms.steinerTree(graph, terminals, WEIGHTS, single);
+                assertEquals(tree, GraphAlgorithms.steinerTree(graph, terminals, WEIGHTS, parallel));
+            } finally {
+                single.shutdown();
+                parallel.shutdown();
+            }
+            assertEquals(tree, GraphAlgorithms.steinerTree(graph, terminals, WEIGHTS));
+            assertEquals(tree.size(), new HashSet<>(tree).size());
+
+            Map<Long, Long> forest = new HashMap<>();
+            Map<Long, Integer> degrees = new HashMap<>();
+            for (Edge e : tree) {
+                assertTrue(graph.edgeSet().contains(e));
+                long a = find(forest, e.getSource()), b = find(forest, e.getDestination());
+                assertTrue("Edge " + e + " closes a cycle", a != b);
+                forest.put(a, b);
+                degrees.merge(e.getSource(), 1, Integer::sum);
+                degrees.merge(e.getDestination(), 1, Integer::sum);
+            }
+            for (Map.Entry<Long, Integer> d : degrees.entrySet()) {
+                assertTrue(d.getValue() > 1 || terminals.contains(d.getKey()));
+            }
+
+            //The pairs meet at the same nodes as in the multi-source paths
+            Set<Edge> paths = new HashSet<>();
+            Map<Long, Long> groups = new HashMap<>();
+            for (List<Edge> path : GraphAlgorithms.shortestPath(graph, terminals, WEIGHTS)) {
+                paths.addAll(path);
+                for (Edge e : path) {
+                    long a = find(groups, e.getSource()), b = find(groups, e.getDestination());
+                    if (a != b) {
+                        groups.put(a, b);
+                    }
+                }
+            }
+            assertTrue(paths.containsAll(tree));
+            for (Long a : terminals) {
+                for (Long b : terminals) {
+                    boolean connected = a.equals(b) || find(groups, a) == find(groups, b);
+                    assertEquals(connected, a.equals(b) || find(forest, a) == find(forest, b));
+                }
+            }
+        }
+        BaseMultigraph graph = randomGraph(new Random(49), 50, 100);
+        assertTrue(GraphAlgorithms.steinerTree(graph, new ArrayList<Long>(), WEIGHTS).isEmpty());
+        List<Long> single = new ArrayList<>();
+        single.add(3L);
+        assertTrue(GraphAlgorithms.steinerTree(graph, single, WEIGHTS).isEmpty());
+    }
+
+    private static long find(Map<Long, Long> parents, long x) {
+        Long parent;
+        while ((parent = parents.get(x)) != null) {
+            x = parent;
+        }
+        return x;
+    }
+
+    /*
+     * The nodes that reach a node, including itself
+     */
+    static Set<Long> ancestors(Multigraph graph, long node) {
+        Set<Long> visited = new HashSet<>();
+        if (!graph.containsVertex(node)) {
+            return visited;
+        }
+        Deque<Long> queue = new ArrayDeque<>();
+        visited.add(node);
+        queue.add(node);
+        while (!queue.isEmpty()) {
+            for (Edge e : graph.incomingEdgesOf(queue.poll())) {
+                if (visited.add(e.getSource())) {
+                    queue.add(e.getSource());
+                }
+            }
+        }
+        return visited;
+    }
+
+    /*
+     * The two sources joined by a walk along the edges of the path, null if
+     * the edges are not a walk between two sources
+     */
+    private static Set<Long> endpoints(List<Edge> path, List<Long> sources) {
+        if (path.isEmpty()) {
+            return null;
+        }
+        for (Long start : new Long[]{path.get(0).getSource(), path.get(0).getDestination()}) {
+            if (!sources.contains(start)) {
+                continue;
+            }
+            Long current = start;
+            for (Edge e : path) {
+                if (current.equals(e.getSource())) {
+                    current = e.getDestination();
+                } else if (current.equals(e.getDestination())) {
+                    current = e.getSource();
+                } else {
+                    current = null;
+                    break;
+                }
+            }
+            if (current != null && !current.equals(start) && sources.contains(current)) {
+                return pair(start, current);
+            }
+        }
+        return null;
+    }
+
+    private static Set<Long> pair(Long a, Long b) {
+        Set<Long> pair = new HashSet<>();
+        pair.add(a);
+        pair.add(b);
+        return pair;
+    }
+
+    static BaseMultigraph randomGraph(Random rnd, int nodes, int edges) {
+        BaseMultigraph graph = new BaseMultigraph();
+        for (long v = 0; v < nodes; v++) {
+            graph.addVertex(v);
+        }
+        for (int i = 0; i < edges; i++) {
+            graph.addEdge((long) rnd.nextInt(nodes), (long) rnd.nextInt(nodes), (long) rnd.nextInt(4));
+        }
+        return graph;
+    }
+}
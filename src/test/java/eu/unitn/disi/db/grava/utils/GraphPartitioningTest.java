@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.Edge;
+import eu.unitn.disi.db.grava.graphs.collections.AssignmentPartitioner;
+import eu.unitn.disi.db.grava.graphs.collections.HashPartitioner;
+import eu.unitn.disi.db.grava.graphs.collections.LongIntHashMap;
+import eu.unitn.disi.db.grava.graphs.collections.Partitioner;
+import java.io.File;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class GraphPartitioningTest extends TestCase {
+
+    private static final int PARTITIONS = 3;
+
+    public GraphPartitioningTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * The partitioners place nodes and edges as the assignment says, and
+     * hash what is not assigned
+     */
+    public void testPartitioners() {
+        BaseMultigraph graph = randomGraph(new Random(37), 300, 1500);
+        Partitioner byValue = (key, n) -> (int) ((Long) key % n);
+        GraphPartitioning partitioning = GraphPartitioning.of(graph, byValue, PARTITIONS);
+        Partitioner nodes = partitioning.getNodePartitioner();
+        Partitioner edges = partitioning.getEdgePartitioner();
+        for (Long v : graph.vertexSet()) {
+            assertEquals(v % PARTITIONS, partitioning.partitionOf(v));
+            assertEquals(v % PARTITIONS, nodes.partition(v, PARTITIONS));
+        }
+        for (Edge e : graph.edgeSet()) {
+            assertEquals(e.getSource() % PARTITIONS, edges.partition(e, PARTITIONS));
+        }
+        assertEquals(-1, partitioning.partitionOf(1000));
+        HashPartitioner hash = new HashPartitioner();
+        assertEquals(hash.partition(1000L, PARTITIONS), nodes.partition(1000L, PARTITIONS));
+        //The assignment holds only for its number of partitions
+        assertEquals(hash.partition(4L, 7), nodes.partition(4L, 7));
+
+        LongIntHashMap assignment = new LongIntHashMap(4);
+        assignment.put(5L, 2);
+        AssignmentPartitioner explicit = new AssignmentPartitioner(assignment, PARTITIONS);
+        assertEquals(2, explicit.partition(5L, PARTITIONS));
+        assertEquals(2, explicit.partitionOf(5L));
+        assertEquals(assignment.getMissingValue(), explicit.partitionOf(6L));
+    }
+
+    /**
+     * The partition and halo files hold every edge of the nodes of their
+     * partition, the cut edges in two halo files
+     */
+    public void testWrite() throws Exception {
+        BaseMultigraph graph = randomGraph(new Random(38), 200, 1000);
+        GraphPartitioning partitioning = GraphPartitioning.of(graph, new HashPartitioner(), PARTITIONS);
+        File dir = File.createTempFile("partitions", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        try {
+            File[] files = partitioning.write(graph, new File(dir, "g").getPath());
+            assertEquals(2 * PARTITIONS, files.length);
+            Set<Edge> internal = new HashSet<>();
+            Set<Edge> halo = new HashSet<>();
+            long haloLines = 0;
+            for (int p = 0; p < PARTITIONS; p++) {
+                for (Edge e : read(files[2 * p])) {
+                    assertEquals(p, partitioning.partitionOf(e.getSource()));
+                    assertEquals(p, partitioning.partitionOf(e.getDestination()));
+                    internal.add(e);
+                }
+                for (Edge e : read(files[2 * p + 1])) {
+                    assertTrue(partitioning.partitionOf(e.getSource()) == p ^ partitioning.partitionOf(e.getDestination()) == p);
+                    halo.add(e);
+                    haloLines++;
+                }
+            }
+            assertEquals(2 * partitioning.getCutEdges(), haloLines);
+            assertEquals(partitioning.getCutEdges(), halo.size());
+            internal.addAll(halo);
+            assertEquals(new HashSet<>(graph.edgeSet()), internal);
+        } finally {
+            for (File f : dir.listFiles()) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    private static Set<Edge> read(File file) throws Exception {
+        long[][] table = LongTableReader.read(file.getPath(), 3, 1);
+        Set<Edge> edges = new HashSet<>();
+        for (int i = 0; i < table[0].length; i++) {
+            edges.add(new Edge(table[0][i], table[1][i], table[2][i]));
+        }
+        return edges;
+    }
+
+    private static BaseMultigraph randomGraph(Random rnd, int nodes, int edges) {
+        BaseMultigraph graph = new BaseMultigraph();
+        for (long v = 0; v < nodes; v++) {
+            graph.addVertex(v);
+        }
+        for (int i = 0; i < edges; i++) {
+            graph.addEdge((long) rnd.nextInt(nodes), (long) rnd.nextInt(nodes), (long) rnd.nextInt(3));
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class IndexedDaryHeapTest extends TestCase {
+
+    public IndexedDaryHeapTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Inserts, decrease-keys and polls must follow a map of the keys, for
+     * several arities
+     */
+    public void testAgainstModel() {
+        for (int arity : new int[]{2, 3, 4, 8}) {
+            Random rnd = new Random(arity);
+            IndexedDaryHeap heap = new IndexedDaryHeap(4, arity);
+            Map<Integer, Double> model = new HashMap<>();
+            for (int i = 0; i < 20000; i++) {
+                if (rnd.nextInt(3) > 0) {
+                    int id = rnd.nextInt(500);
+                    double key = rnd.nextInt(1000);
+                    Double old = model.get(id);
+                    boolean changed = old == null || key < old;
+                    assertEquals(changed, heap.offer(id, key));
+                    if (changed) {
+                        model.put(id, key);
+                    }
+                } else if (!model.isEmpty()) {
+                    double min = Double.POSITIVE_INFINITY;
+                    for (double key : model.values()) {
+                        min = Math.min(min, key);
+                    }
+                    assertEquals(min, heap.peekKey());
+                    int id = heap.poll();
+                    assertEquals(min, model.remove(id));
+                }
+                assertEquals(model.size(), heap.size());
+            }
+            for (Map.Entry<Integer, Double> e : model.entrySet()) {
+                assertTrue(heap.contains(e.getKey()));
+                assertEquals(e.getValue(), heap.keyOf(e.getKey()));
+            }
+            heap.clear();
+            assertTrue(heap.isEmpty());
+            assertFalse(heap.contains(0));
+        }
+    }
+
+    public void testInvalidUse() {
+        IndexedDaryHeap heap = new IndexedDaryHeap();
+        try {
+            heap.poll();
+            fail("The heap is empty");
+        } catch (NoSuchElementException ex) {
+        }
+        try {
+            heap.keyOf(3);
+            fail("The id is not in the heap");
+        } catch (NoSuchElementException ex) {
+        }
+        try {
+            heap.offer(-1, 0);
+            fail("Ids cannot be negative");
+        } catch (IllegalArgumentException ex) {
+        }
+        try {
+            new IndexedDaryHeap(4, 1);
+            fail("The arity must be at least 2");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+}
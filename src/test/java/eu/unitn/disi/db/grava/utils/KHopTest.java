@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import eu.unitn.disi.db.grava.graphs.Edge;
+import eu.unitn.disi.db.grava.graphs.EdgeDirection;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class KHopTest extends TestCase {
+
+    private static final int NODES = 1000;
+
+    private BaseMultigraph graph;
+    private KHop khop;
+
+    public KHopTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() {
+        graph = GraphAlgorithmsTest.randomGraph(new Random(43), NODES, 3000);
+        khop = new KHop(CompactGraph.of(graph));
+    }
+
+    /**
+     * Every node of the neighborhood is at its distance from the seed, 
+     * following only the requested labels and direction, and every node 
+     * within k hops is found
+     */
+    public void testAgainstSearch() {
+        Random rnd = new Random(430);
+        for (int i = 0; i < 300; i++) {
+            long seed = rnd.nextInt(NODES);
+            int k = rnd.nextInt(5);
+            Set<Long> labels = rnd.nextBoolean() ? null : new HashSet<>(Arrays.asList((long) rnd.nextInt(4), (long) rnd.nextInt(4)));
+            EdgeDirection direction = EdgeDirection.values()[rnd.nextInt(EdgeDirection.values().length)];
+            KHop.Neighborhood neighborhood = khop.khop(seed, k, labels, direction);
+            Map<Long, Integer> expected = hops(graph, seed, k, labels, direction);
+            assertEquals(expected.size(), neighborhood.size());
+            assertEquals((int) Collections.max(expected.values()), neighborhood.getHops());
+            assertEquals(seed, neighborhood.nodeAt(0));
+            int position = 0;
+            for (int h = 0; h <= neighborhood.getHops(); h++) {
+                assertEquals(position, neighborhood.getHopStart(h));
+                for (long node : neighborhood.nodesAt(h)) {
+                    assertEquals(Integer.valueOf(h), expected.get(node));
+                    assertEquals(node, neighborhood.nodes()[position++]);
+                }
+            }
+            assertEquals(neighborhood.size(), position);
+        }
+    }
+
+    /**
+     * The batch expansion returns the same neighborhoods as the single one
+     */
+    public void testBatch() {
+        Random rnd = new Random(431);
+        long[] seeds = new long[500];
+        for (int i = 0; i < seeds.length; i++) {
+            seeds[i] = rnd.nextInt(NODES + 10);
+        }
+        List<Long> labels = Arrays.asList(3L, 1L);
+        KHop.Neighborhood[] batch = khop.khop(seeds, 3, labels, EdgeDirection.BOTH);
+        assertEquals(seeds.length, batch.length);
+        for (int i = 0; i < seeds.length; i++) {
+            KHop.Neighborhood single = khop.khop(seeds[i], 3, labels, EdgeDirection.BOTH);
+            if (seeds[i] >= NODES) {
+                assertNull(batch[i]);
+                assertNull(single);
+            } else {
+                assertTrue(Arrays.equals(single.nodes(), batch[i].nodes()));
+            }
+        }
+    }
+
+    /**
+     * Zero hops or no labels leave only the seed, and k cannot be negative
+     */
+    public void testDegenerate() {
+        KHop.Neighborhood neighborhood = khop.khop(5L, 0, null, EdgeDirection.BOTH);
+        assertEquals(1, neighborhood.size());
+        assertEquals(0, neighborhood.getHops());
+        neighborhood = khop.khop(5L, 3, Collections.<Long>emptyList(), EdgeDirection.BOTH);
+        assertEquals(1, neighborhood.size());
+        assertTrue(Arrays.equals(new long[]{5}, neighborhood.nodesAt(0)));
+        assertNull(khop.khop(-1L, 2, null, EdgeDirection.OUTGOING));
+        try {
+            khop.khop(5L, -1, null, EdgeDirection.OUTGOING);
+            fail("A negative number of hops must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    private static Map<Long, Integer> hops(Multigraph graph, long seed, int k, Set<Long> labels, EdgeDirection direction) {
+        Map<Long, Integer> hops = new HashMap<>();
+        hops.put(seed, 0);
+        List<Long> frontier = Collections.singletonList(seed);
+        for (int h = 1; h <= k; h++) {
+            List<Long> next = new ArrayList<>();
+            for (long node : frontier) {
+                if (direction != EdgeDirection.INCOMING) {
+                    visit(graph.outgoingEdgesOf(node), false, labels, hops, h, next);
+                }
+                if (direction != EdgeDirection.OUTGOING) {
+                    visit(graph.incomingEdgesOf(node), true, labels, hops, h, next);
+                }
+            }
+            frontier = next;
+        }
+        return hops;
+    }
+
+    private static void visit(Collection<Edge> edges, boolean incoming, Set<Long> labels, Map<Long, Integer> hops, int h, List<Long> next) {
+        for (Edge e : edges) {
+            long node = incoming ? e.getSource() : e.getDestination();
+            if ((labels == null || labels.contains(e.getLabel())) && !hops.containsKey(node)) {
+                hops.put(node, h);
+                next.add(node);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.Edge;
+import eu.unitn.disi.db.grava.graphs.EdgeDirection;
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class LandmarksTest extends TestCase {
+
+    private static final double EPSILON = 1e-9;
+    private static final int NODES = 250;
+    private static final Map<Long, Double> WEIGHTS = DijkstraTest.WEIGHTS;
+
+    private BaseMultigraph graph;
+    private Map<Long, Map<Long, Double>> distances;
+
+    public LandmarksTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() {
+        //Sparse enough to leave some nodes unreachable
+        graph = GraphAlgorithmsTest.randomGraph(new Random(41), NODES, 400);
+        graph.addVertex(-1L);
+        distances = new HashMap<>();
+        for (Long v : graph.vertexSet()) {
+            distances.put(v, DijkstraTest.bellmanFord(graph, v, EdgeDirection.OUTGOING));
+        }
+    }
+
+    /**
+     * The bounds never exceed the distances and are consistent along the 
+     * edges, and an infinite bound means the target cannot be reached
+     */
+    public void testBounds() {
+        for (Landmarks landmarks : new Landmarks[]{
+            Landmarks.compute(graph, 4, WEIGHTS),
+            Landmarks.compute(graph, new long[]{1, 2, 3}, WEIGHTS)}) {
+            for (Long v : graph.vertexSet()) {
+                for (Long t : graph.vertexSet()) {
+                    double bound = landmarks.lowerBound(v, t);
+                    Double distance = distances.get(v).get(t);
+                    if (distance == null) {
+                        continue;
+                    }
+                    assertTrue(bound <= distance + EPSILON);
+                }
+            }
+            for (Edge e : graph.edgeSet()) {
+                for (long t = 0; t < NODES; t += 10) {
+                    double weight = WEIGHTS.getOrDefault(e.getLabel(), 0.0);
+                    double bound = landmarks.lowerBound(e.getSource(), t);
+                    double next = landmarks.lowerBound(e.getDestination(), t);
+                    assertTrue(bound == Double.POSITIVE_INFINITY || bound <= weight + next + EPSILON);
+                }
+            }
+        }
+        Landmarks landmarks = Landmarks.compute(graph, 1000, WEIGHTS);
+        assertTrue(landmarks.getNumLandmarks() <= graph.numberOfNodes());
+        assertEquals(0.0, landmarks.lowerBound(-5L, 1L));
+    }
+
+    /**
+     * Bidirectional and landmark queries find paths as short as Bellman-Ford,
+     * and none when the target cannot be reached
+     */
+    public void testPointToPoint() {
+        Landmarks landmarks = Landmarks.compute(graph, 4, WEIGHTS);
+        Random rnd = new Random(410);
+        for (int i = 0; i < 300; i++) {
+            long source = rnd.nextInt(NODES), target = rnd.nextInt(NODES);
+            if (i == 0) {
+                target = -1;
+            }
+            Double distance = distances.get(source).get(target);
+            List<Edge> bidirectional = GraphAlgorithms.shortestPath(graph, source, target, WEIGHTS);
+            List<Edge> alt = GraphAlgorithms.shortestPath(graph, source, target, WEIGHTS, landmarks);
+            if (distance == null) {
+                assertNull(bidirectional);
+                assertNull(alt);
+            } else {
+                checkPath(bidirectional, source, target, distance);
+                checkPath(alt, source, target, distance);
+            }
+        }
+    }
+
+    /**
+     * Saved landmarks give the same bounds once loaded
+     */
+    public void testWriteAndRead() throws Exception {
+        Landmarks landmarks = Landmarks.compute(graph, 3, WEIGHTS);
+        File file = File.createTempFile("landmarks", ".txt");
+        try {
+            landmarks.write(file.getPath());
+            Landmarks read = Landmarks.read(file.getPath());
+            assertEquals(landmarks.getNumLandmarks(), read.getNumLandmarks());
+            for (int i = 0; i < landmarks.getNumLandmarks(); i++) {
+                assertEquals(landmarks.getLandmarks()[i], read.getLandmarks()[i]);
+            }
+            for (long v = -1; v < NODES; v += 3) {
+                for (long t = 0; t < NODES; t += 7) {
+                    assertEquals(landmarks.lowerBound(v, t), read.lowerBound(v, t));
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private void checkPath(List<Edge> path, long source, long target, double distance) {
+        assertNotNull(path);
+        long current = source;
+        double weight = 0;
+        for (Edge e : path) {
+            assertEquals(current, (long) e.getSource());
+            assertTrue(graph.containsEdge(e.getSource(), e.getDestination()));
+            weight += WEIGHTS.getOrDefault(e.getLabel(), 0.0);
+            current = e.getDestination();
+        }
+        assertEquals(target, current);
+        assertEquals(distance, weight, EPSILON);
+    }
+}
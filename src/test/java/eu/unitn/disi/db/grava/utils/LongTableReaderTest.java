@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.mutilities.exceptions.ParseException;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class LongTableReaderTest extends TestCase {
+
+    private File file;
+
+    public LongTableReaderTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws IOException {
+        file = File.createTempFile("table", ".txt");
+    }
+
+    @Override
+    protected void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Separators, comments, empty lines, signs and long numbers
+     */
+    public void testFormat() throws Exception {
+        write("# a comment\n"
+                + "1 2 3\n"
+                + "\n"
+                + "  -4,\t+5 ,6  \n"
+                + "9223372036854775807 -9223372036854775808 0\n"
+                + "7 8 9");
+        long[][] table = LongTableReader.read(file.getPath(), 3, 1);
+        assertTrue(Arrays.equals(new long[]{1, -4, Long.MAX_VALUE, 7}, table[0]));
+        assertTrue(Arrays.equals(new long[]{2, 5, Long.MIN_VALUE, 8}, table[1]));
+        assertTrue(Arrays.equals(new long[]{3, 6, 0, 9}, table[2]));
+    }
+
+    /**
+     * An empty file has no rows
+     */
+    public void testEmpty() throws Exception {
+        write("");
+        long[][] table = LongTableReader.read(file.getPath(), 2, 4);
+        assertEquals(2, table.length);
+        assertEquals(0, table[0].length);
+    }
+
+    /**
+     * Malformed lines are reported
+     */
+    public void testMalformed() throws Exception {
+        for (String content : new String[]{"1 2\n", "1 2 3 4\n", "1 x 3\n", "1 2 3a\n", "1 99999999999999999999 3\n", "1 - 3\n"}) {
+            write("5 6 7\n" + content);
+            try {
+                LongTableReader.read(file.getPath(), 3, 1);
+                fail("Malformed line accepted: " + content);
+            } catch (ParseException ex) {
+            }
+        }
+    }
+
+    /**
+     * A file larger than a chunk must be read in the same order by any
+     * number of threads
+     */
+    public void testParallel() throws Exception {
+        Random rnd = new Random(35);
+        int rows = 300000;
+        long[][] expected = new long[3][rows];
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            for (int i = 0; i < rows; i++) {
+                for (int c = 0; c < 3; c++) {
+                    expected[c][i] = rnd.nextInt();
+                }
+                out.printf("%d %d %d\n", expected[0][i], expected[1][i], expected[2][i]);
+            }
+        }
+        assertTrue(file.length() > 2 << 20);
+        for (int threads : new int[]{1, 2, 5}) {
+            long[][] table = LongTableReader.read(file.getPath(), 3, threads);
+            for (int c = 0; c < 3; c++) {
+                assertTrue(Arrays.equals(expected[c], table[c]));
+            }
+        }
+    }
+
+    private void write(String content) throws IOException {
+        try (FileWriter out = new FileWriter(file)) {
+            out.write(content);
+        }
+    }
+}
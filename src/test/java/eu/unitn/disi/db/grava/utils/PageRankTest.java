@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import eu.unitn.disi.db.grava.graphs.Edge;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class PageRankTest extends TestCase {
+
+    private static final double EPSILON = 1e-8;
+    private static final int NODES = 600;
+    private static final Map<Long, Double> WEIGHTS = new HashMap<>();
+
+    static {
+        //Label 3 weighs 1, label 1 is never followed
+        WEIGHTS.put(0L, 2.0);
+        WEIGHTS.put(1L, 0.0);
+        WEIGHTS.put(2L, 0.5);
+    }
+
+    private BaseMultigraph graph;
+    private PageRank pageRank;
+
+    public PageRankTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() {
+        graph = new BaseMultigraph();
+        Random rnd = new Random(44);
+        for (long v = 0; v < NODES; v++) {
+            graph.addVertex(v);
+        }
+        //Skewed towards the first third, leaving dangling nodes
+        for (int i = 0; i < 2000; i++) {
+            graph.addEdge((long) rnd.nextInt(NODES), (long) rnd.nextInt(NODES / 3), (long) rnd.nextInt(4));
+        }
+        pageRank = new PageRank(graph, WEIGHTS);
+        pageRank.setTolerance(1e-12);
+        pageRank.setMaxIterations(1000);
+    }
+
+    /**
+     * The ranks match a push based power iteration over the edges
+     */
+    public void testAgainstPowerIteration() {
+        CompactGraph compact = pageRank.getGraph();
+        double[] teleport = new double[NODES];
+        Arrays.fill(teleport, 1.0 / NODES);
+        check(pageRank.compute(), powerIteration(compact, teleport));
+
+        teleport = new double[NODES];
+        teleport[compact.idOf(5)] = 0.5;
+        teleport[compact.idOf(17)] = 0.5;
+        check(pageRank.personalized(5L, 17L, 17L, -1L), powerIteration(compact, teleport));
+
+        Map<Long, Double> preferences = new HashMap<>();
+        preferences.put(5L, 3.0);
+        preferences.put(400L, 1.0);
+        preferences.put(-1L, 7.0);
+        teleport = new double[NODES];
+        teleport[compact.idOf(5)] = 0.75;
+        teleport[compact.idOf(400)] = 0.25;
+        check(pageRank.personalized(preferences), powerIteration(compact, teleport));
+    }
+
+    /**
+     * The top nodes are those of largest rank, by decreasing rank
+     */
+    public void testTop() {
+        double[] rank = pageRank.compute();
+        Integer[] ids = new Integer[rank.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        Arrays.sort(ids, (a, b) -> Double.compare(rank[b], rank[a]));
+        int[] top = PageRank.top(rank, 10);
+        assertEquals(10, top.length);
+        for (int i = 0; i < top.length; i++) {
+            assertEquals(rank[ids[i]], rank[top[i]]);
+        }
+        assertEquals(0, PageRank.top(rank, 0).length);
+        assertEquals(rank.length, PageRank.top(rank, rank.length + 5).length);
+    }
+
+    /**
+     * The iterations stop at the limit and the parameters are checked
+     */
+    public void testParameters() {
+        pageRank.setMaxIterations(2);
+        pageRank.compute();
+        assertEquals(2, pageRank.getIterations());
+        assertFalse(pageRank.hasConverged());
+        pageRank.setMaxIterations(1000);
+        pageRank.compute();
+        assertTrue(pageRank.hasConverged());
+        assertTrue(pageRank.getResidual() < 1e-12);
+        try {
+            pageRank.setDamping(1);
+            fail("A damping of 1 must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+        try {
+            pageRank.personalized(-1L, -2L);
+            fail("Seeds not in the graph must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+        Map<Long, Double> preferences = new HashMap<>();
+        preferences.put(5L, -1.0);
+        try {
+            pageRank.personalized(preferences);
+            fail("Negative preferences must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    private void check(double[] rank, double[] expected) {
+        assertTrue(pageRank.hasConverged());
+        double sum = 0;
+        for (int i = 0; i < NODES; i++) {
+            assertEquals(expected[i], rank[i], EPSILON);
+            sum += rank[i];
+        }
+        assertEquals(1.0, sum, EPSILON);
+    }
+
+    /*
+     * Pushes the rank of each node along its outgoing edges, the rank of the
+     * nodes with no outgoing weight follows the teleport
+     */
+    private double[] powerIteration(CompactGraph compact, double[] teleport) {
+        double[] rank = teleport.clone();
+        for (int it = 0; it < 1000; it++) {
+            double[] next = new double[NODES];
+            double lost = 0;
+            for (long u = 0; u < NODES; u++) {
+                double total = 0;
+                for (Edge e : graph.outgoingEdgesOf(u)) {
+                    total += WEIGHTS.getOrDefault(e.getLabel(), 1.0);
+                }
+                int id = compact.idOf(u);
+                if (total == 0) {
+                    lost += rank[id];
+                    continue;
+                }
+                for (Edge e : graph.outgoingEdgesOf(u)) {
+                    next[compact.idOf(e.getDestination())] += 0.85 * rank[id] * WEIGHTS.getOrDefault(e.getLabel(), 1.0) / total;
+                }
+            }
+            for (int i = 0; i < NODES; i++) {
+                next[i] += (0.15 + 0.85 * lost) * teleport[i];
+            }
+            rank = next;
+        }
+        return rank;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.Edge;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import eu.unitn.disi.db.grava.graphs.collections.HashPartitioner;
+import eu.unitn.disi.db.grava.graphs.collections.PartitionBalance;
+import java.util.Random;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class StreamingGraphPartitionerTest extends TestCase {
+
+    private static final int PARTITIONS = 4;
+    private static final int NODES = 4000;
+
+    public StreamingGraphPartitionerTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * On a graph with planted clusters, every heuristic must respect the 
+     * slack, count the cut edges exactly and cut fewer edges than hashing
+     */
+    public void testPlantedClusters() {
+        Multigraph graph = plantedClusters(new Random(37));
+        long hashCut = GraphPartitioning.of(graph, new HashPartitioner(), PARTITIONS).getCutEdges();
+        for (StreamingGraphPartitioner.Heuristic heuristic : StreamingGraphPartitioner.Heuristic.values()) {
+            long previous = Long.MAX_VALUE;
+            for (int passes : new int[]{1, 4}) {
+                GraphPartitioning partitioning = new StreamingGraphPartitioner(PARTITIONS, heuristic)
+                        .setSlack(1.1).setPasses(passes).partition(graph);
+                checkPartitioning(graph, partitioning, 1.1);
+                assertTrue(heuristic + " cuts " + partitioning.getCutEdges() + " edges, hash " + hashCut,
+                        partitioning.getCutEdges() < hashCut);
+                assertTrue(partitioning.getCutEdges() <= previous);
+                previous = partitioning.getCutEdges();
+            }
+            assertTrue(heuristic + " restreamed cuts " + previous + " edges, hash " + hashCut, previous < hashCut / 2);
+        }
+    }
+
+    /**
+     * Graphs with no edges or fewer nodes than partitions
+     */
+    public void testDegenerateGraphs() {
+        BaseMultigraph graph = new BaseMultigraph();
+        GraphPartitioning empty = new StreamingGraphPartitioner(PARTITIONS, StreamingGraphPartitioner.Heuristic.FENNEL).partition(graph);
+        assertEquals(0, empty.getCutEdges());
+        assertEquals(0.0, empty.getCutRatio());
+        graph.addVertex(1L);
+        graph.addVertex(2L);
+        graph.addEdge(1L, 2L, 0L);
+        for (StreamingGraphPartitioner.Heuristic heuristic : StreamingGraphPartitioner.Heuristic.values()) {
+            checkPartitioning(graph, new StreamingGraphPartitioner(PARTITIONS, heuristic).setPasses(2).partition(graph), 1.1);
+        }
+    }
+
+    public void testInvalidParameters() {
+        try {
+            new StreamingGraphPartitioner(0, StreamingGraphPartitioner.Heuristic.LDG);
+            fail("At least one partition is needed");
+        } catch (IllegalArgumentException ex) {
+        }
+        try {
+            new StreamingGraphPartitioner(2, StreamingGraphPartitioner.Heuristic.LDG).setSlack(0.5);
+            fail("The slack cannot be below 1");
+        } catch (IllegalArgumentException ex) {
+        }
+        try {
+            new StreamingGraphPartitioner(2, StreamingGraphPartitioner.Heuristic.LDG).setPasses(0);
+            fail("At least one pass is needed");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    /*
+     * Every node is assigned, no partition is larger than the slack allows,
+     * and the cut edges are counted exactly
+     */
+    private static void checkPartitioning(Multigraph graph, GraphPartitioning partitioning, double slack) {
+        int[] sizes = new int[PARTITIONS];
+        for (Long v : graph.vertexSet()) {
+            int p = partitioning.partitionOf(v);
+            assertTrue(p >= 0 && p < PARTITIONS);
+            sizes[p]++;
+        }
+        PartitionBalance balance = partitioning.getBalance();
+        assertEquals(graph.numberOfNodes(), balance.getTotal());
+        for (int p = 0; p < PARTITIONS; p++) {
+            assertEquals(sizes[p], balance.getSizes()[p]);
+            assertTrue(sizes[p] <= Math.max(1, Math.ceil(slack * graph.numberOfNodes() / PARTITIONS)));
+        }
+        long cut = 0;
+        for (Edge e : graph.edgeSet()) {
+            if (partitioning.partitionOf(e.getSource()) != partitioning.partitionOf(e.getDestination())) {
+                cut++;
+            }
+        }
+        assertEquals(cut, partitioning.getCutEdges());
+        assertEquals(graph.numberOfEdges(), partitioning.getTotalEdges());
+    }
+
+    /*
+     * Four clusters of random ids, 95% of the edges inside a cluster
+     */
+    private static Multigraph plantedClusters(Random rnd) {
+        BaseMultigraph graph = new BaseMultigraph();
+        long[] ids = new long[NODES];
+        for (int i = 0; i < NODES; i++) {
+            ids[i] = rnd.nextLong() & Long.MAX_VALUE;
+            graph.addVertex(ids[i]);
+        }
+        int cluster = NODES / PARTITIONS;
+        for (int i = 0; i < 8 * NODES; i++) {
+            int u = rnd.nextInt(NODES);
+            int v = rnd.nextInt(20) > 0 ? u / cluster * cluster + rnd.nextInt(cluster) : rnd.nextInt(NODES);
+            graph.addEdge(ids[u], ids[v], 0L);
+        }
+        return graph;
+    }
+}
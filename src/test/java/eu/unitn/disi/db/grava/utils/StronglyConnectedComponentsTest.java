@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class StronglyConnectedComponentsTest extends TestCase {
+
+    public StronglyConnectedComponentsTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * The components match Tarjan's algorithm, numbered in order of their 
+     * smallest node id, and the condensation has an edge for each distinct
+     * label between two components and no cycles
+     */
+    public void testAgainstTarjan() {
+        Random rnd = new Random(46);
+        for (int t = 0; t < 120; t++) {
+            int n = 1 + rnd.nextInt(t < 100 ? 60 : 20000);
+            //Half of the graphs dense enough for a giant component
+            int m = rnd.nextInt(n * 3 + 1) + (t % 2) * n;
+            long[] nodes = new long[n];
+            for (int i = 0; i < n; i++) {
+                nodes[i] = i * 3 + 1;
+            }
+            long[] src = new long[m], dest = new long[m], labels = new long[m];
+            boolean selfLoop = false;
+            for (int i = 0; i < m; i++) {
+                src[i] = nodes[rnd.nextInt(n)];
+                dest[i] = nodes[rnd.nextInt(n)];
+                labels[i] = rnd.nextInt(3);
+                selfLoop |= src[i] == dest[i];
+            }
+            CompactGraph graph = CompactGraph.of(nodes, src, dest, labels);
+            StronglyConnectedComponents scc = StronglyConnectedComponents.of(graph);
+            int[] components = scc.getComponents();
+            assertTrue(Arrays.equals(tarjan(graph), components));
+            ConnectedComponentsTest.checkSizes(components, scc.getSizes(), scc.getNumComponents());
+            assertEquals(scc.getNumComponents() == n && !selfLoop, scc.isAcyclic());
+
+            CompactGraph condensation = scc.condensation();
+            assertEquals(scc.getNumComponents(), condensation.numberOfNodes());
+            assertTrue(StronglyConnectedComponents.of(condensation).isAcyclic());
+            Set<String> expected = new HashSet<>();
+            for (int i = 0; i < m; i++) {
+                int u = components[graph.idOf(src[i])], v = components[graph.idOf(dest[i])];
+                if (u != v) {
+                    expected.add(u + " " + v + " " + labels[i]);
+                }
+            }
+            assertEquals(expected.size(), condensation.numberOfEdges());
+            int[] offsets = condensation.getOutOffsets(), targets = condensation.getOutTargets();
+            long[] condensedLabels = condensation.getOutLabels();
+            for (int u = 0; u < condensation.numberOfNodes(); u++) {
+                assertEquals(u, condensation.nodeOf(u));
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    assertTrue(expected.contains(u + " " + targets[e] + " " + condensedLabels[e]));
+                }
+            }
+        }
+    }
+
+    /**
+     * A multigraph is converted first and nodes not in the graph have no 
+     * component
+     */
+    public void testMultigraph() {
+        BaseMultigraph graph = new BaseMultigraph();
+        for (long v = 1; v <= 5; v++) {
+            graph.addVertex(v);
+        }
+        graph.addEdge(1L, 2L, 0L);
+        graph.addEdge(2L, 3L, 0L);
+        graph.addEdge(3L, 1L, 0L);
+        graph.addEdge(3L, 4L, 0L);
+        graph.addEdge(5L, 5L, 0L);
+        StronglyConnectedComponents scc = StronglyConnectedComponents.of(graph);
+        assertEquals(3, scc.getNumComponents());
+        assertEquals(0, scc.componentOf(3L));
+        assertEquals(1, scc.componentOf(4L));
+        assertEquals(2, scc.componentOf(5L));
+        assertEquals(-1, scc.componentOf(6L));
+        assertEquals(0, scc.getLargest());
+        assertFalse(scc.isAcyclic());
+        assertEquals(1, scc.condensation().numberOfEdges());
+        assertEquals(-1, StronglyConnectedComponents.of(new BaseMultigraph()).getLargest());
+    }
+
+    /*
+     * Iterative Tarjan, components renumbered by smallest id
+     */
+    private static int[] tarjan(CompactGraph graph) {
+        int n = graph.numberOfNodes();
+        int[] offsets = graph.getOutOffsets(), targets = graph.getOutTargets();
+        int[] index = new int[n], low = new int[n], roots = new int[n];
+        int[] stack = new int[n], callNodes = new int[n], callEdges = new int[n];
+        boolean[] onStack = new boolean[n];
+        Arrays.fill(index, -1);
+        int sp = 0, counter = 0;
+        for (int s = 0; s < n; s++) {
+            if (index[s] >= 0) {
+                continue;
+            }
+            int top = 0;
+            callNodes[0] = s;
+            callEdges[0] = offsets[s];
+            index[s] = low[s] = counter++;
+            stack[sp++] = s;
+            onStack[s] = true;
+            while (top >= 0) {
+                int v = callNodes[top];
+                if (callEdges[top] < offsets[v + 1]) {
+                    int w = targets[callEdges[top]++];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        top++;
+                        callNodes[top] = w;
+                        callEdges[top] = offsets[w];
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                } else {
+                    if (low[v] == index[v]) {
+                        int w;
+                        do {
+                            w = stack[--sp];
+                            onStack[w] = false;
+                            roots[w] = v;
+                        } while (w != v);
+                    }
+                    top--;
+                    if (top >= 0) {
+                        low[callNodes[top]] = Math.min(low[callNodes[top]], low[v]);
+                    }
+                }
+            }
+        }
+        return ConnectedComponentsTest.renumber(roots);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import eu.unitn.disi.db.grava.graphs.Edge;
+import eu.unitn.disi.db.grava.graphs.Multigraph;
+import eu.unitn.disi.db.grava.vectorization.InvertedIndexNeighborTables;
+import eu.unitn.disi.db.grava.vectorization.MemoryNeighborTables;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class SubgraphMatcherTest extends TestCase {
+
+    public SubgraphMatcherTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * The embeddings are exactly those found by trying every injective map,
+     * with tables in memory or indexed by label, and the candidates of each
+     * pattern node contain its image in every embedding
+     */
+    public void testAgainstExhaustiveSearch() {
+        Random rnd = new Random(48);
+        for (int t = 0; t < 150; t++) {
+            int n = 4 + rnd.nextInt(18), m = rnd.nextInt(n * 3), numLabels = 1 + rnd.nextInt(4);
+            BaseMultigraph graph = new BaseMultigraph();
+            for (long v = 0; v < n; v++) {
+                graph.addVertex(v * 7);
+            }
+            for (int i = 0; i < m; i++) {
+                graph.addEdge((long) rnd.nextInt(n) * 7, (long) rnd.nextInt(n) * 7, (long) rnd.nextInt(numLabels));
+            }
+            BaseMultigraph pattern = new BaseMultigraph();
+            int patternNodes = 1 + rnd.nextInt(4);
+            for (long v = 0; v < patternNodes; v++) {
+                pattern.addVertex(100 + v);
+            }
+            for (int i = rnd.nextInt(patternNodes * 2 + 1); i > 0; i--) {
+                pattern.addEdge(100L + rnd.nextInt(patternNodes), 100L + rnd.nextInt(patternNodes), (long) rnd.nextInt(numLabels));
+            }
+            int k = 1 + rnd.nextInt(3);
+            SubgraphMatcher matcher = new SubgraphMatcher(graph, k);
+            Set<Map<Long, Long>> expected = embeddings(graph, pattern);
+            List<Map<Long, Long>> found = matcher.match(pattern);
+            assertEquals(expected.size(), found.size());
+            assertEquals(expected, new HashSet<>(found));
+
+            MemoryNeighborTables tables = (MemoryNeighborTables) matcher.getTables();
+            InvertedIndexNeighborTables inverted = new InvertedIndexNeighborTables(k, 16);
+            for (Long v : tables.getNodes()) {
+                inverted.addNodeTable(tables.getNodeMap(v), v);
+            }
+            SubgraphMatcher invertedMatcher = new SubgraphMatcher(CompactGraph.of(graph), inverted);
+            assertEquals(expected, new HashSet<>(invertedMatcher.match(pattern)));
+
+            List<Map<Long, Long>> limited = matcher.match(pattern, 2);
+            assertEquals(Math.min(2, expected.size()), limited.size());
+            assertTrue(expected.containsAll(limited));
+
+            Map<Long, long[]> candidates = matcher.candidates(pattern);
+            for (Map<Long, Long> embedding : expected) {
+                for (Map.Entry<Long, Long> e : embedding.entrySet()) {
+                    assertTrue(Arrays.binarySearch(candidates.get(e.getKey()), e.getValue()) >= 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * An empty pattern or a zero limit have no embeddings, the tables must
+     * have a level and count nothing for missing nodes and labels
+     */
+    public void testDegenerate() {
+        BaseMultigraph graph = GraphAlgorithmsTest.randomGraph(new Random(480), 20, 40);
+        SubgraphMatcher matcher = new SubgraphMatcher(graph, 2);
+        assertTrue(matcher.match(new BaseMultigraph()).isEmpty());
+        BaseMultigraph pattern = new BaseMultigraph();
+        pattern.addVertex(1L);
+        assertEquals(20, matcher.match(pattern).size());
+        assertTrue(matcher.match(pattern, 0).isEmpty());
+        try {
+            matcher.match(pattern, -1);
+            fail("A negative limit must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+        try {
+            new SubgraphMatcher(graph, new MemoryNeighborTables(0));
+            fail("Tables without levels must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+        InvertedIndexNeighborTables inverted = new InvertedIndexNeighborTables(2);
+        inverted.addNodeTable(((MemoryNeighborTables) matcher.getTables()).getNodeMap(3L), 3L);
+        assertEquals(0, inverted.getCountForNodeLabel(3L, 9L, 0));
+        assertEquals(0, inverted.getCountForNodeLabel(-1L, 0L, 1));
+    }
+
+    private static Set<Map<Long, Long>> embeddings(Multigraph graph, Multigraph pattern) {
+        Set<String> edges = new HashSet<>();
+        for (Edge e : graph.edgeSet()) {
+            edges.add(e.getSource() + " " + e.getDestination() + " " + e.getLabel());
+        }
+        Set<Map<Long, Long>> embeddings = new HashSet<>();
+        embed(0, new ArrayList<>(pattern.vertexSet()), new ArrayList<>(graph.vertexSet()), new HashMap<>(), pattern, edges, embeddings);
+        return embeddings;
+    }
+
+    private static void embed(int i, List<Long> patternNodes, List<Long> nodes, Map<Long, Long> map, Multigraph pattern, Set<String> edges, Set<Map<Long, Long>> embeddings) {
+        if (i == patternNodes.size()) {
+            for (Edge e : pattern.edgeSet()) {
+                if (!edges.contains(map.get(e.getSource()) + " " + map.get(e.getDestination()) + " " + e.getLabel())) {
+                    return;
+                }
+            }
+            embeddings.add(new HashMap<>(map));
+            return;
+        }
+        for (Long v : nodes) {
+            if (!map.containsValue(v)) {
+                map.put(patternNodes.get(i), v);
+                embed(i + 1, patternNodes, nodes, map, pattern, edges, embeddings);
+                map.remove(patternNodes.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.utils;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class TrianglesTest extends TestCase {
+
+    private static final double EPSILON = 1e-12;
+
+    public TrianglesTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * Triangles, degrees and clustering coefficients match an enumeration of
+     * the triples of the undirected simple graph, with and without a label 
+     * filter, on graphs with hubs
+     */
+    public void testAgainstEnumeration() {
+        Random rnd = new Random(47);
+        for (int t = 0; t < 100; t++) {
+            int n = 1 + rnd.nextInt(t < 90 ? 50 : 3000);
+            int m = rnd.nextInt(n * (t % 3 == 0 ? 8 : 3) + 1);
+            long[] nodes = new long[n];
+            for (int i = 0; i < n; i++) {
+                nodes[i] = i * 5 + 2;
+            }
+            long[] src = new long[m], dest = new long[m], labels = new long[m];
+            for (int i = 0; i < m; i++) {
+                src[i] = nodes[rnd.nextInt(4) == 0 ? rnd.nextInt(Math.min(n, 3)) : rnd.nextInt(n)];
+                dest[i] = nodes[rnd.nextInt(n)];
+                labels[i] = rnd.nextInt(3);
+            }
+            CompactGraph graph = CompactGraph.of(nodes, src, dest, labels);
+            List<Long> followed = t % 2 == 0 ? null : Arrays.asList(0L, 2L);
+            Triangles triangles = Triangles.of(graph, followed);
+
+            List<Set<Integer>> neighbors = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                neighbors.add(new HashSet<>());
+            }
+            for (int i = 0; i < m; i++) {
+                int u = graph.idOf(src[i]), v = graph.idOf(dest[i]);
+                if ((followed == null || followed.contains(labels[i])) && u != v) {
+                    neighbors.get(u).add(v);
+                    neighbors.get(v).add(u);
+                }
+            }
+            long total = 0, wedges = 0;
+            long[] counts = new long[n];
+            for (int u = 0; u < n; u++) {
+                for (int v : neighbors.get(u)) {
+                    for (int w : neighbors.get(v)) {
+                        if (u < v && v < w && neighbors.get(u).contains(w)) {
+                            total++;
+                            counts[u]++;
+                            counts[v]++;
+                            counts[w]++;
+                        }
+                    }
+                }
+            }
+            assertEquals(total, triangles.getTriangles());
+            assertTrue(Arrays.equals(counts, triangles.getCounts()));
+            double[] coefficients = triangles.getClusteringCoefficients();
+            double average = 0;
+            for (int u = 0; u < n; u++) {
+                long node = graph.nodeOf(u);
+                long d = neighbors.get(u).size();
+                double clustering = d < 2 ? 0 : 2.0 * counts[u] / (d * (d - 1));
+                assertEquals(d, triangles.degreeOf(node));
+                assertEquals(counts[u], triangles.trianglesOf(node));
+                assertEquals(clustering, triangles.clusteringOf(node), EPSILON);
+                assertEquals(clustering, coefficients[u], EPSILON);
+                average += clustering / n;
+                wedges += d * (d - 1) / 2;
+            }
+            assertEquals(average, triangles.getAverageClustering(), 1e-9);
+            assertEquals(wedges == 0 ? 0 : 3.0 * total / wedges, triangles.getTransitivity(), EPSILON);
+        }
+    }
+
+    /**
+     * Parallel edges, edges in both directions and self loops do not add 
+     * triangles, and nodes not in the graph have none
+     */
+    public void testMultigraph() {
+        BaseMultigraph graph = new BaseMultigraph();
+        for (long v = 1; v <= 4; v++) {
+            graph.addVertex(v);
+        }
+        graph.addEdge(1L, 2L, 0L);
+        graph.addEdge(1L, 2L, 1L);
+        graph.addEdge(2L, 1L, 0L);
+        graph.addEdge(2L, 3L, 0L);
+        graph.addEdge(3L, 1L, 1L);
+        graph.addEdge(3L, 3L, 0L);
+        graph.addEdge(3L, 4L, 0L);
+        Triangles triangles = Triangles.of(graph, null);
+        assertEquals(1, triangles.getTriangles());
+        assertEquals(3, triangles.degreeOf(3L));
+        assertEquals(1.0, triangles.clusteringOf(1L), EPSILON);
+        assertEquals(1.0 / 3, triangles.clusteringOf(3L), EPSILON);
+        assertEquals(0.0, triangles.clusteringOf(4L), EPSILON);
+        assertEquals(-1, triangles.trianglesOf(5L));
+        assertEquals(-1, triangles.degreeOf(5L));
+        assertTrue(Double.isNaN(triangles.clusteringOf(5L)));
+        assertEquals(0, Triangles.of(graph, Arrays.asList(0L)).getTriangles());
+        assertEquals(0.0, Triangles.of(new BaseMultigraph(), null).getAverageClustering());
+    }
+}
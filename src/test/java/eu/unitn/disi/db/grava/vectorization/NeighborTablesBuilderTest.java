@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+package eu.unitn.disi.db.grava.vectorization;
+
+import eu.unitn.disi.db.grava.graphs.BaseMultigraph;
+import eu.unitn.disi.db.grava.graphs.CompactGraph;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import junit.framework.TestCase;
+
+/**
+ *
+ * @author agent <agent@local>
+ */
+public class NeighborTablesBuilderTest extends TestCase {
+
+    public NeighborTablesBuilderTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * The tables count each edge once, at the level of its nearest endpoint,
+     * as found by a plain search ignoring directions, in memory, indexed by
+     * label and node by node, with one or more threads
+     */
+    public void testAgainstSearch() {
+        Random rnd = new Random(50);
+        ForkJoinPool single = new ForkJoinPool(1), parallel = new ForkJoinPool(4);
+        try {
+            for (int t = 0; t < 30; t++) {
+                int n = 1 + rnd.nextInt(t < 25 ? 60 : 3000), m = rnd.nextInt(3 * n + 1), k = 1 + rnd.nextInt(3);
+                long[] nodes = new long[n];
+                for (int i = 0; i < n; i++) {
+                    nodes[i] = 10 * i + 3;
+                }
+                long[] src = new long[m], dest = new long[m], labels = new long[m];
+                for (int i = 0; i < m; i++) {
+                    src[i] = nodes[rnd.nextInt(n)];
+                    dest[i] = nodes[rnd.nextInt(n)];
+                    labels[i] = rnd.nextInt(5);
+                }
+                CompactGraph graph = CompactGraph.of(nodes, src, dest, labels);
+                NeighborTablesBuilder builder = new NeighborTablesBuilder(graph, k);
+                builder.setPool(t % 2 == 0 ? single : parallel);
+                MemoryNeighborTables tables = builder.build();
+                InvertedIndexNeighborTables inverted = builder.buildInverted();
+                assertEquals(n, tables.size());
+                List<List<Integer>> neighbors = neighbors(graph, src, dest);
+                for (int u = 0; u < n; u++) {
+                    List<Map<Long, Integer>> expected = table(graph, neighbors, u, src, dest, labels, k);
+                    assertEquals(expected, tables.getNodeMap(nodes[u]));
+                    assertEquals(expected, builder.tableOf(nodes[u]));
+                    for (int level = 0; level < k; level++) {
+                        for (Map.Entry<Long, Integer> e : expected.get(level).entrySet()) {
+                            assertEquals((int) e.getValue(), inverted.getCountForNodeLabel(nodes[u], e.getKey(), level));
+                        }
+                    }
+                }
+            }
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    /**
+     * The tables flushed to an index in several batches are loaded back 
+     * unchanged, and the index must have as many levels as the builder
+     */
+    public void testIndex() throws Exception {
+        BaseMultigraph graph = new BaseMultigraph();
+        Random rnd = new Random(500);
+        for (long v = 0; v < 2000; v++) {
+            graph.addVertex(v);
+        }
+        for (int i = 0; i < 5000; i++) {
+            graph.addEdge((long) rnd.nextInt(2000), (long) rnd.nextInt(2000), (long) rnd.nextInt(5));
+        }
+        NeighborTablesBuilder builder = new NeighborTablesBuilder(graph, 2);
+        MemoryNeighborTables tables = builder.build();
+        Path dir = Files.createTempDirectory("tables");
+        String path = new File(dir.toFile(), "index").getPath();
+        try {
+            assertTrue(builder.build(new TablesIndex(path, 2, false, false, 2), 700) > 1);
+            MemoryNeighborTables loaded = new TablesIndex(path, 2, true, false, 2).loadTable(new ArrayList<>(graph.vertexSet()));
+            for (Long v : graph.vertexSet()) {
+                assertEquals(tables.getNodeMap(v), loaded.getNodeMap(v));
+            }
+            try {
+                builder.build(new TablesIndex(path, 3, false, false, 2));
+                fail("An index with a different number of levels must be rejected");
+            } catch (IllegalArgumentException ex) {
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+        try {
+            new NeighborTablesBuilder(graph, 0);
+            fail("Tables without levels must be rejected");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+
+    private static List<List<Integer>> neighbors(CompactGraph graph, long[] src, long[] dest) {
+        List<List<Integer>> neighbors = new ArrayList<>();
+        for (int i = 0; i < graph.numberOfNodes(); i++) {
+            neighbors.add(new ArrayList<>());
+        }
+        for (int i = 0; i < src.length; i++) {
+            int u = graph.idOf(src[i]), v = graph.idOf(dest[i]);
+            neighbors.get(u).add(v);
+            neighbors.get(v).add(u);
+        }
+        return neighbors;
+    }
+
+    private static List<Map<Long, Integer>> table(CompactGraph graph, List<List<Integer>> neighbors, int source, long[] src, long[] dest, long[] labels, int k) {
+        int[] distances = new int[graph.numberOfNodes()];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        distances[source] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(source);
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (int v : neighbors.get(u)) {
+                if (distances[v] == Integer.MAX_VALUE) {
+                    distances[v] = distances[u] + 1;
+                    queue.add(v);
+                }
+            }
+        }
+        List<Map<Long, Integer>> table = new ArrayList<>();
+        for (int level = 0; level < k; level++) {
+            table.add(new HashMap<>());
+        }
+        for (int i = 0; i < src.length; i++) {
+            int level = Math.min(distances[graph.idOf(src[i])], distances[graph.idOf(dest[i])]);
+            if (level < k) {
+                table.get(level).merge(labels[i], 1, Integer::sum);
+            }
+        }
+        return table;
+    }
+}